@@ -20,18 +20,24 @@
 
 package com.github.fracpete.sudokuformats4j;
 
+import com.github.fracpete.sudokuformats4j.api.AbstractLinePuzzleIterator;
 import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleReaderWriter;
+import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
 import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.TextPuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.TextPuzzleWriter;
 import com.github.fracpete.sudokuformats4j.api.Puzzles;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.xml.sax.InputSource;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.Map;
 
 /**
  * Reads/writes puzzle collections in OpenSudoku XML format (.opensudoku).
@@ -41,96 +47,326 @@ import java.io.Writer;
 public class OpenSudoku
   extends AbstractPuzzleReaderWriter {
 
+  /** the default file extension. */
+  public static final String EXTENSION = ".opensudoku";
+
+  /** the root element. */
+  public static final String ELEMENT_ROOT = "opensudoku";
+
   /**
-   * Reads the grids using the specified reader.
-   * Caller must close the reader.
-   *
-   * @param reader	the reader to use
-   * @return		the puzzles
-   * @throws Exception	if reading fails
+   * Iterates over the games of an OpenSudoku XML document, using StAX.
+   * Child elements of the root element other than "game" get stored as
+   * meta-data.
    */
-  @Override
-  protected Puzzles doRead(Reader reader) throws Exception {
-    Puzzles			result;
-    DocumentBuilderFactory 	factory;
-    DocumentBuilder 		builder;
-    Document 			doc;
-    Element			root;
-    int				i;
-    short			type;
-    Node			node;
-    Element			elem;
-    Grid			grid;
-
-    result = new Puzzles();
-
-    factory = DocumentBuilderFactory.newInstance();
-    factory.setValidating(false);
-    factory.setNamespaceAware(false);
-    factory.setXIncludeAware(false);
-    factory.setExpandEntityReferences(false);
-    factory.setIgnoringComments(true);
-    factory.setIgnoringElementContentWhitespace(true);
-    builder = factory.newDocumentBuilder();
-    doc     = builder.parse(new InputSource(reader));
-    root    = doc.getDocumentElement();
-    for (i = 0; i < root.getChildNodes().getLength(); i++) {
-      type = root.getChildNodes().item(i).getNodeType();
-      if ((type != Node.TEXT_NODE) && (type != Node.CDATA_SECTION_NODE)) {
-        node = root.getChildNodes().item(i);
-        if (node.getNodeName().equals("game")) {
-          elem = (Element) node;
-          grid = Grid.fromLine(elem.getAttribute("data"));
-          result.add(grid);
+  public static class OpenSudokuIterator
+    extends AbstractLinePuzzleIterator {
+
+    /** the element containing a game. */
+    public static final String ELEMENT_GAME = "game";
+
+    /** the attribute containing the game data. */
+    public static final String ATTRIBUTE_DATA = "data";
+
+    /** the shared factory for creating parsers. */
+    protected static final XMLInputFactory FACTORY = newFactory();
+
+    /** the XML parser. */
+    protected XMLStreamReader m_Parser;
+
+    /** the current element depth. */
+    protected int m_Depth;
+
+    /**
+     * Initializes the iterator.
+     *
+     * @param reader	the reader to read from
+     * @param closeReader	whether to close the reader when closing the iterator
+     * @throws Exception	if initializing the parser fails
+     */
+    public OpenSudokuIterator(Reader reader, boolean closeReader) throws Exception {
+      super(reader, closeReader);
+      m_Parser = FACTORY.createXMLStreamReader(reader);
+      m_Depth  = 0;
+    }
+
+    /**
+     * Creates a non-validating factory that does not resolve DTDs or
+     * external entities.
+     *
+     * @return		the factory
+     */
+    protected static XMLInputFactory newFactory() {
+      XMLInputFactory	result;
+
+      result = XMLInputFactory.newInstance();
+      result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+      result.setProperty(XMLInputFactory.IS_VALIDATING, false);
+      result.setProperty(XMLInputFactory.IS_COALESCING, true);
+      result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+      return result;
+    }
+
+    /**
+     * Reads the text content of the current element, including the text of
+     * any nested elements. Leaves the parser at the element's end tag.
+     *
+     * @return		the text content
+     * @throws Exception	if parsing fails
+     */
+    protected String readText() throws Exception {
+      StringBuilder	result;
+      int		depth;
+      int		event;
+
+      result = new StringBuilder();
+      depth  = 1;
+      while (depth > 0) {
+	event = m_Parser.next();
+	switch (event) {
+	  case XMLStreamConstants.START_ELEMENT:
+	    depth++;
+	    break;
+	  case XMLStreamConstants.END_ELEMENT:
+	    depth--;
+	    break;
+	  case XMLStreamConstants.CHARACTERS:
+	  case XMLStreamConstants.CDATA:
+	  case XMLStreamConstants.SPACE:
+	    result.append(m_Parser.getText());
+	    break;
+	  case XMLStreamConstants.END_DOCUMENT:
+	    throw new IllegalStateException("Premature end of document!");
+	}
+      }
+
+      return result.toString();
+    }
+
+    /**
+     * Reads the next grid.
+     *
+     * @return		the next grid, null if no more grids available
+     * @throws Exception	if reading fails
+     */
+    @Override
+    protected Grid doNext() throws Exception {
+      int	event;
+      String	name;
+      String	data;
+      Grid	grid;
+
+      while (m_Parser.hasNext()) {
+	event = m_Parser.next();
+	if (event == XMLStreamConstants.START_ELEMENT) {
+	  m_Depth++;
+	  if (m_Depth != 2)
+	    continue;
+	  name = m_Parser.getLocalName();
+	  if (name.equals(ELEMENT_GAME)) {
+	    data = m_Parser.getAttributeValue(null, ATTRIBUTE_DATA);
+	    readText();
+	    m_Depth--;
+	    grid = decode((data == null) ? "" : data);
+	    if (grid != null)
+	      return grid;
+	    rejected(m_Parser.getLocation().getLineNumber(), (data == null) ? "" : data);
+	  }
+	  else {
+	    m_MetaData.put(name, readText().trim());
+	    m_Depth--;
+	  }
 	}
-	else {
-          result.getMetaData().put(node.getNodeName(), node.getTextContent().trim());
+	else if (event == XMLStreamConstants.END_ELEMENT) {
+	  m_Depth--;
 	}
       }
+
+      return null;
     }
 
-    return result;
+    /**
+     * Closes the parser.
+     *
+     * @throws Exception	if closing fails
+     */
+    @Override
+    protected void doClose() throws Exception {
+      m_Parser.close();
+    }
   }
 
   /**
-   * Appends the meta-data if present.
+   * Returns an iterator over the grids using the specified reader.
    *
-   * @param puzzles	the puzzles to obtain the meta-data from
-   * @param key         the key in the meta-data
-   * @param buffer	the buffer to append to
+   * @param reader	the reader to use
+   * @param closeReader	whether the iterator should close the reader
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  @Override
+  protected PuzzleIterator doIterator(Reader reader, boolean closeReader) throws Exception {
+    return new OpenSudokuIterator(reader, closeReader);
+  }
+
+  /**
+   * Writes the games as OpenSudoku XML document.
    */
-  protected void appendMetaData(Puzzles puzzles, String key, StringBuilder buffer) {
-    if (puzzles.getMetaData().containsKey(key))
-      buffer.append("  <").append(key).append(">").append(puzzles.getMetaData().get(key)).append("</").append(key).append(">\n");
+  public static class OpenSudokuSink
+    extends AbstractPuzzleSink {
+
+    /** the meta-data keys to write (in that order). */
+    public static final String[] META_DATA_KEYS = new String[]{
+      "name",
+      "author",
+      "description",
+      "comment",
+      "created",
+      "source",
+      "level",
+      "sourceURL",
+    };
+
+    /**
+     * Initializes the sink.
+     *
+     * @param writer	the writer to write to
+     * @param closeWriter	whether to close the writer when closing the sink
+     */
+    public OpenSudokuSink(Writer writer, boolean closeWriter) {
+      super(writer, closeWriter);
+    }
+
+    /**
+     * Writes the meta-data if present.
+     *
+     * @param metaData	the meta-data to use
+     * @param key         the key in the meta-data
+     * @throws Exception	if writing fails
+     */
+    protected void writeMetaData(Map<String,String> metaData, String key) throws Exception {
+      if (metaData.containsKey(key)) {
+	m_Writer.write("  <");
+	m_Writer.write(key);
+	m_Writer.write(">");
+	m_Writer.write(metaData.get(key));
+	m_Writer.write("</");
+	m_Writer.write(key);
+	m_Writer.write(">\n");
+      }
+    }
+
+    /**
+     * Writes the XML header and the meta-data.
+     *
+     * @param metaData	the meta-data to write
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doOpen(Map<String,String> metaData) throws Exception {
+      m_Writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      m_Writer.write("<" + ELEMENT_ROOT + ">\n");
+      for (String key: META_DATA_KEYS)
+	writeMetaData(metaData, key);
+    }
+
+    /**
+     * Appends the grid.
+     *
+     * @param grid	the grid to append
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doAppend(Grid grid) throws Exception {
+      m_Writer.write("  <game data='");
+      m_Writer.write(grid.toLine());
+      m_Writer.write("' />\n");
+    }
+
+    /**
+     * Writes the closing root element.
+     *
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doClose() throws Exception {
+      m_Writer.write("</" + ELEMENT_ROOT + ">\n");
+    }
   }
 
   /**
-   * Writes the grids using the specified writer.
+   * Creates a sink for writing grids one at a time using the specified writer.
    *
    * @param writer	the writer to write to
-   * @param puzzles 	the puzzles
-   * @throws Exception	if writing fails
+   * @param closeWriter	whether the sink should close the writer
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
    */
   @Override
-  protected void doWrite(Puzzles puzzles, Writer writer) throws Exception {
-    StringBuilder	result;
-
-    result = new StringBuilder();
-    result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-    result.append("<opensudoku>\n");
-    appendMetaData(puzzles, "name", result);
-    appendMetaData(puzzles, "author", result);
-    appendMetaData(puzzles, "description", result);
-    appendMetaData(puzzles, "comment", result);
-    appendMetaData(puzzles, "created", result);
-    appendMetaData(puzzles, "source", result);
-    appendMetaData(puzzles, "level", result);
-    appendMetaData(puzzles, "sourceURL", result);
-    for (Grid grid: puzzles)
-      result.append("  <game data='").append(grid.toLine()).append("' />\n");
-    result.append("</opensudoku>\n");
-
-    writer.append(result.toString());
-    writer.flush();
+  protected PuzzleSink doSink(Writer writer, boolean closeWriter) throws Exception {
+    return new OpenSudokuSink(writer, closeWriter);
+  }
+
+  /**
+   * Describes the OpenSudoku format for the {@link FormatRegistry}.
+   */
+  public static class OpenSudokuFormat
+    implements PuzzleFormat {
+
+    /**
+     * Returns the name of the format.
+     *
+     * @return		the name
+     */
+    @Override
+    public String getName() {
+      return "OpenSudoku";
+    }
+
+    /**
+     * Returns the file extensions of the format.
+     *
+     * @return		the extensions
+     */
+    @Override
+    public String[] getExtensions() {
+      return new String[]{EXTENSION};
+    }
+
+    /**
+     * Checks for the "opensudoku" root element.
+     *
+     * @param header	the start of the content
+     * @param length	the number of bytes in the header
+     * @param complete	whether the header is the complete content
+     * @return		the confidence
+     */
+    @Override
+    public int sniff(byte[] header, int length, boolean complete) {
+      if (FormatRegistry.contains(header, length, "<" + ELEMENT_ROOT))
+	return CERTAIN * 9 / 10;
+      return NO_MATCH;
+    }
+
+    /**
+     * Returns a new reader for the format.
+     *
+     * @return		the reader
+     */
+    @Override
+    public TextPuzzleReader newReader() {
+      return new OpenSudoku();
+    }
+
+    /**
+     * Returns a new writer for the format.
+     *
+     * @return		the writer
+     */
+    @Override
+    public TextPuzzleWriter newWriter() {
+      return new OpenSudoku();
+    }
   }
 }
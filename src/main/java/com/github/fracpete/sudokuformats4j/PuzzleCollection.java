@@ -20,98 +20,937 @@
 
 package com.github.fracpete.sudokuformats4j;
 
+import com.github.fracpete.sudokuformats4j.api.AbstractLinePuzzleIterator;
 import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleReaderWriter;
+import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.ErrorPolicy;
+import com.github.fracpete.sudokuformats4j.api.ErrorReport;
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
 import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.GridFilter;
+import com.github.fracpete.sudokuformats4j.api.GridParseException;
+import com.github.fracpete.sudokuformats4j.api.LineCodec;
+import com.github.fracpete.sudokuformats4j.api.MeteredInputStream;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.TextPuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.TextPuzzleWriter;
 import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
 import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Reads/writes Puzzle collections in ".sdm" format.
  * Stores a single puzzle as string string, row after row from the top.
  * Any other character than 1-9 is interpreted as empty cell.
+ * Larger grids (e.g., 16x16 or 25x25) use 1-9 and A-Z. The dimensions
+ * get determined from the first line (or the codec that was set) and
+ * lines of other lengths get rejected, unless the dimensions get inferred
+ * from the length of each line.
  *
  * @author FracPete (fracpete at waikato dot ac dot nz)
  */
 public class PuzzleCollection
   extends AbstractPuzzleReaderWriter {
 
+  /** the default file extension. */
+  public static final String EXTENSION = ".sdm";
+
+  /** the default chunk size in bytes for parallel reading. */
+  public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  /** whether to parse files/streams at byte level. */
+  protected boolean m_UseByteParser;
+
+  /** whether to read files in parallel. */
+  protected boolean m_ParallelRead;
+
+  /** whether to preserve the order of the grids when reading in parallel. */
+  protected boolean m_Ordered;
+
+  /** the chunk size in bytes for parallel reading. */
+  protected int m_ChunkSize;
+
+  /**
+   * Initializes the reader/writer.
+   */
+  public PuzzleCollection() {
+    super();
+    m_UseByteParser = false;
+    m_ParallelRead  = false;
+    m_Ordered       = true;
+    m_ChunkSize     = DEFAULT_CHUNK_SIZE;
+  }
+
   /**
-   * Reads the grids using the specified reader.
-   * Caller must close the reader.
+   * Sets whether to parse files/streams directly at byte level, bypassing
+   * any character decoding (the format only uses ASCII). Has no effect when
+   * reading via Reader objects.
    *
-   * @param reader	the reader to use
-   * @return		the puzzles
-   * @throws Exception	if reading fails
+   * @param value	true if to use the byte parser
    */
-  @Override
-  protected Puzzles doRead(Reader reader) throws Exception {
-    Puzzles 		result;
-    String		line;
-    BufferedReader	breader;
-    boolean		close;
-    Grid		grid;
+  public void setUseByteParser(boolean value) {
+    m_UseByteParser = value;
+  }
 
-    result = new Puzzles();
+  /**
+   * Returns whether to parse files/streams directly at byte level, bypassing
+   * any character decoding.
+   *
+   * @return		true if to use the byte parser
+   */
+  public boolean getUseByteParser() {
+    return m_UseByteParser;
+  }
+
+  /**
+   * Sets whether to read files in parallel, splitting them into chunks
+   * at line breaks and parsing these on the common fork-join pool.
+   * Streams and readers are always read sequentially.
+   *
+   * @param value	true if to read in parallel
+   * @see		#readParallel(File, boolean, ForkJoinPool)
+   */
+  public void setParallelRead(boolean value) {
+    m_ParallelRead = value;
+  }
+
+  /**
+   * Returns whether to read files in parallel.
+   *
+   * @return		true if to read in parallel
+   */
+  public boolean getParallelRead() {
+    return m_ParallelRead;
+  }
+
+  /**
+   * Sets whether to preserve the order of the grids in the file when
+   * reading in parallel.
+   *
+   * @param value	true if to preserve the order
+   */
+  public void setOrdered(boolean value) {
+    m_Ordered = value;
+  }
+
+  /**
+   * Returns whether to preserve the order of the grids in the file when
+   * reading in parallel.
+   *
+   * @return		true if to preserve the order
+   */
+  public boolean getOrdered() {
+    return m_Ordered;
+  }
+
+  /**
+   * Sets the size of the chunks (in bytes) that files get split into
+   * when reading in parallel.
+   *
+   * @param value	the chunk size
+   */
+  public void setChunkSize(int value) {
+    if (value < 1)
+      throw new IllegalArgumentException("Chunk size must be at least 1, provided: " + value);
+    m_ChunkSize = value;
+  }
+
+  /**
+   * Returns the size of the chunks (in bytes) that files get split into
+   * when reading in parallel.
+   *
+   * @return		the chunk size
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Iterates over the lines of a puzzle collection.
+   */
+  public static class PuzzleCollectionIterator
+    extends AbstractLinePuzzleIterator {
+
+    /** the buffered reader to use. */
+    protected BufferedReader m_BufferedReader;
 
-    if (reader instanceof BufferedReader) {
-      breader = (BufferedReader) reader;
-      close = false;
+    /** the number of lines read so far. */
+    protected long m_Lines;
+
+    /**
+     * Initializes the iterator.
+     *
+     * @param reader	the reader to read from
+     * @param closeReader	whether to close the reader when closing the iterator
+     */
+    public PuzzleCollectionIterator(Reader reader, boolean closeReader) {
+      super(reader, closeReader);
+      if (reader instanceof BufferedReader)
+	m_BufferedReader = (BufferedReader) reader;
+      else
+	m_BufferedReader = new BufferedReader(reader);
+      m_Lines = 0;
     }
-    else {
-      breader = new BufferedReader(reader);
-      close   = true;
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return		the number of lines
+     */
+    public long getLines() {
+      return m_Lines;
     }
 
-    try {
-      while ((line = breader.readLine()) != null) {
-	grid = Grid.fromLine(line);
+    /**
+     * Reads the next grid.
+     *
+     * @return		the next grid, null if no more grids available
+     * @throws Exception	if reading fails
+     */
+    @Override
+    protected Grid doNext() throws Exception {
+      String	line;
+      Grid	grid;
+
+      while ((line = m_BufferedReader.readLine()) != null) {
+	m_Lines++;
+	grid = decode(line);
 	if (grid != null)
-	  result.add(grid);
+	  return grid;
+	rejected(m_Lines, line);
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * Iterates over the lines of a puzzle collection, scanning the raw bytes
+   * for line breaks and digits.
+   */
+  public static class PuzzleCollectionByteIterator
+    extends AbstractLinePuzzleIterator {
+
+    /** the initial buffer size. */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /** the stream to read from. */
+    protected InputStream m_Stream;
+
+    /** the buffer. */
+    protected byte[] m_Buffer;
+
+    /** the start of the unprocessed data in the buffer. */
+    protected int m_Start;
+
+    /** the end of the data in the buffer. */
+    protected int m_End;
+
+    /** whether the end of the stream has been reached. */
+    protected boolean m_EOF;
+
+    /** whether to skip a line feed (following a carriage return). */
+    protected boolean m_SkipLF;
+
+    /** whether to check for a UTF-8 byte order mark (at the start). */
+    protected boolean m_CheckBOM;
+
+    /** the number of lines read so far. */
+    protected long m_Lines;
+
+    /**
+     * Initializes the iterator.
+     *
+     * @param stream	the stream to read from
+     * @param closeStream	whether to close the stream when closing the iterator
+     */
+    public PuzzleCollectionByteIterator(InputStream stream, boolean closeStream) {
+      super(stream, closeStream);
+      m_Stream = stream;
+      m_Buffer = new byte[BUFFER_SIZE];
+      m_Start  = 0;
+      m_End    = 0;
+      m_EOF      = false;
+      m_SkipLF   = false;
+      m_CheckBOM = true;
+      m_Lines    = 0;
+    }
+
+    /**
+     * Initializes the iterator with data that is already in memory.
+     *
+     * @param buffer	the buffer with the data
+     * @param offset	the start of the data in the buffer
+     * @param length	the length of the data
+     */
+    public PuzzleCollectionByteIterator(byte[] buffer, int offset, int length) {
+      super(null, false);
+      m_Stream = null;
+      m_Buffer = buffer;
+      m_Start  = offset;
+      m_End    = offset + length;
+      m_EOF      = true;
+      m_SkipLF   = false;
+      m_CheckBOM = true;
+      m_Lines    = 0;
+    }
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return		the number of lines
+     */
+    public long getLines() {
+      return m_Lines;
+    }
+
+    /**
+     * Moves the unprocessed data to the start of the buffer (growing it
+     * if it is full) and reads more data.
+     *
+     * @throws IOException	if reading fails
+     */
+    protected void fill() throws IOException {
+      byte[]	buffer;
+      int	read;
+
+      if (m_Start > 0) {
+	System.arraycopy(m_Buffer, m_Start, m_Buffer, 0, m_End - m_Start);
+	m_End  -= m_Start;
+	m_Start = 0;
+      }
+      else if (m_End == m_Buffer.length) {
+	buffer = new byte[m_Buffer.length * 2];
+	System.arraycopy(m_Buffer, 0, buffer, 0, m_End);
+	m_Buffer = buffer;
+      }
+
+      read = m_Stream.read(m_Buffer, m_End, m_Buffer.length - m_End);
+      if (read == -1)
+	m_EOF = true;
+      else
+	m_End += read;
+    }
+
+    /**
+     * Parses the line, using the codec for its length. The decoding gets
+     * timed as {@link PuzzleMetrics.Stage#DECODE}.
+     *
+     * @param offset	the start of the line in the buffer
+     * @param length	the length of the line
+     * @return		the grid, null if failed to parse
+     * @throws GridParseException	if failed to parse and failing fast
+     * @see		#codecFor(int)
+     */
+    protected Grid parse(int offset, int length) throws GridParseException {
+      Grid	result;
+      LineCodec	codec;
+      long	start;
+
+      codec = codecFor(length);
+      if (codec == null) {
+	rejected(m_Lines, m_Buffer, offset, length);
+	return null;
       }
+      result = codec.newGrid();
+      if (m_Metrics == null) {
+	codec.decode(m_Buffer, offset, length, result);
+      }
+      else {
+	start = System.nanoTime();
+	codec.decode(m_Buffer, offset, length, result);
+	m_Metrics.record(PuzzleMetrics.Stage.DECODE, System.nanoTime() - start);
+      }
+
+      return result;
+    }
+
+    /**
+     * Reads the next grid.
+     *
+     * @return		the next grid, null if no more grids available
+     * @throws Exception	if reading fails
+     */
+    @Override
+    protected Grid doNext() throws Exception {
+      Grid	result;
+      int	i;
+      int	start;
+      byte	b;
+
+      while (true) {
+	if (m_CheckBOM) {
+	  if ((m_End - m_Start < 3) && !m_EOF) {
+	    fill();
+	    continue;
+	  }
+	  m_Start   += FormatRegistry.bomLength(m_Buffer, m_Start, m_End - m_Start);
+	  m_CheckBOM = false;
+	}
+
+	if (m_SkipLF && (m_Start < m_End)) {
+	  if (m_Buffer[m_Start] == '\n')
+	    m_Start++;
+	  m_SkipLF = false;
+	}
+
+	// look for end of line
+	b = 0;
+	for (i = m_Start; i < m_End; i++) {
+	  b = m_Buffer[i];
+	  if ((b == '\n') || (b == '\r'))
+	    break;
+	}
+
+	if (i < m_End) {
+	  start   = m_Start;
+	  m_Start = i + 1;
+	  if (b == '\r')
+	    m_SkipLF = true;
+	  m_Lines++;
+	  result = parse(start, i - start);
+	  if (result != null)
+	    return result;
+	  continue;
+	}
+
+	if (m_EOF) {
+	  // last line without line break
+	  if (m_Start < m_End) {
+	    start   = m_Start;
+	    m_Start = m_End;
+	    m_Lines++;
+	    result  = parse(start, m_End - start);
+	    if (result != null)
+	      return result;
+	  }
+	  return null;
+	}
+
+	fill();
+      }
+    }
+  }
+
+  /**
+   * Parses a chunk of a file. The nominal start/end positions get moved
+   * forward to the next start of a line, so that consecutive chunks cover
+   * every line exactly once.
+   */
+  public static class PuzzleCollectionChunkTask
+    extends RecursiveTask<List<Grid>> {
+
+    private static final long serialVersionUID = -2407262402283946381L;
+
+    /** the file to read from. */
+    protected File m_File;
+
+    /** the nominal start position. */
+    protected long m_Start;
+
+    /** the nominal end position (excluded). */
+    protected long m_End;
+
+    /** the collection to add the grids to directly (unordered), null if to return them. */
+    protected Puzzles m_Puzzles;
+
+    /** the filter to apply (can be null). */
+    protected GridFilter m_Filter;
+
+    /** the metrics to update (can be null). */
+    protected PuzzleMetrics m_Metrics;
+
+    /** how to handle lines that cannot be parsed. */
+    protected ErrorPolicy m_ErrorPolicy;
+
+    /** the report for collecting the rejects of the chunk (can be null). */
+    protected ErrorReport m_ErrorReport;
+
+    /** the codec to use. */
+    protected LineCodec m_Codec;
+
+    /** whether to infer the dimensions from the length of each line. */
+    protected boolean m_InferDimensions;
+
+    /** the number of lines in the chunk (once parsed). */
+    protected long m_Lines;
+
+    /**
+     * Initializes the task.
+     *
+     * @param file	the file to read from
+     * @param start	the nominal start position
+     * @param end	the nominal end position (excluded)
+     * @param puzzles	the collection to add the grids to, null to return them instead
+     * @param filter	the filter to apply, can be null
+     * @param metrics	the metrics to update, can be null
+     * @param errorPolicy	how to handle lines that cannot be parsed
+     * @param errorReport	the report for the rejects of the chunk (line numbers relative to the chunk), can be null
+     * @param codec	the codec to use, null to determine from the first line of the chunk
+     * @param inferDimensions	whether to infer the dimensions from the length of each line
+     */
+    public PuzzleCollectionChunkTask(File file, long start, long end, Puzzles puzzles, GridFilter filter, PuzzleMetrics metrics, ErrorPolicy errorPolicy, ErrorReport errorReport,
+				     LineCodec codec, boolean inferDimensions) {
+      m_File            = file;
+      m_Start           = start;
+      m_End             = end;
+      m_Puzzles         = puzzles;
+      m_Filter          = filter;
+      m_Metrics         = metrics;
+      m_ErrorPolicy     = errorPolicy;
+      m_ErrorReport     = errorReport;
+      m_Codec           = codec;
+      m_InferDimensions = inferDimensions;
+      m_Lines           = 0;
+    }
+
+    /**
+     * Returns the number of lines in the chunk.
+     *
+     * @return		the number of lines, 0 if not yet parsed
+     */
+    public long getLines() {
+      return m_Lines;
+    }
+
+    /**
+     * Returns the report with the rejects of the chunk.
+     *
+     * @return		the report (line numbers relative to the chunk), null if none
+     */
+    public ErrorReport getErrorReport() {
+      return m_ErrorReport;
+    }
+
+    /**
+     * Moves the position forward to the start of the next line, unless it
+     * already is at the start of a line.
+     *
+     * @param file	the file to read from
+     * @param pos	the position to align
+     * @return		the aligned position
+     * @throws IOException	if reading fails
+     */
+    protected long align(RandomAccessFile file, long pos) throws IOException {
+      byte[]	buffer;
+      long	length;
+      int	read;
+      int	prev;
+      int	i;
+
+      length = file.length();
+      if (pos <= 0)
+	return 0;
+      if (pos >= length)
+	return length;
+
+      buffer = new byte[256];
+      file.seek(pos - 1);
+      prev = file.read();
+      while (pos < length) {
+	read = file.read(buffer);
+	if (read == -1)
+	  break;
+	for (i = 0; i < read; i++, pos++) {
+	  if ((prev == '\n') || ((prev == '\r') && (buffer[i] != '\n')))
+	    return pos;
+	  prev = buffer[i];
+	}
+      }
+
+      return length;
+    }
+
+    /**
+     * Parses the chunk.
+     *
+     * @return		the grids, null if added to the collection directly
+     */
+    @Override
+    protected List<Grid> compute() {
+      List<Grid>		result;
+      RandomAccessFile		file;
+      InputStream		stream;
+      PuzzleCollectionByteIterator	iter;
+      long			start;
+      long			end;
+
+      result = new ArrayList<>();
+      file   = null;
+      try {
+	file  = new RandomAccessFile(m_File, "r");
+	start = align(file, m_Start);
+	end   = align(file, m_End);
+	file.seek(start);
+	// streaming the chunk (rather than reading it up front) keeps the I/O
+	// within the time of reading the grids, like for sequential reads
+	stream = new BoundedInputStream(Channels.newInputStream(file.getChannel()), end - start);
+	if (m_Metrics != null)
+	  stream = new MeteredInputStream(stream, m_Metrics);
+	iter = new PuzzleCollectionByteIterator(stream, false);
+	iter.setFilter(m_Filter);
+	iter.setMetrics(m_Metrics);
+	iter.setErrorPolicy(m_ErrorPolicy);
+	iter.setErrorReport(m_ErrorReport);
+	iter.setCodec(m_Codec);
+	iter.setInferDimensions(m_InferDimensions);
+	while (iter.hasNext())
+	  result.add(iter.next());
+	m_Lines = iter.getLines();
+      }
+      catch (IOException e) {
+	throw new IllegalStateException("Failed to read chunk " + m_Start + "-" + m_End + " of " + m_File + "!", e);
+      }
+      finally {
+	IOUtils.closeQuietly(file);
+      }
+
+      if (m_Puzzles != null) {
+	synchronized(m_Puzzles) {
+	  m_Puzzles.addAll(result);
+	}
+	result = null;
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * Determines the codec from the first line of the file that has the
+   * length of a grid.
+   *
+   * @param file	the file to read from
+   * @return		the codec, null if no such line
+   * @throws Exception	if reading fails
+   */
+  protected LineCodec firstCodec(File file) throws Exception {
+    PuzzleCollectionByteIterator	iter;
+
+    iter = new PuzzleCollectionByteIterator(Compression.open(file), true);
+    try {
+      iter.hasNext();
+      return iter.getCodec();
     }
     finally {
-      if (close)
-	IOUtils.closeQuietly(breader);
+      iter.close();
+    }
+  }
+
+  /**
+   * Reads the puzzles from the specified file in parallel: the file gets
+   * split into chunks (at line breaks), which get parsed (and filtered) on
+   * the supplied fork-join pool.
+   * Compressed files cannot be split and get read sequentially instead.
+   * Rejects get merged into the error report in the order of the file,
+   * with failing fast reporting the first offending line of the file.
+   * Unless set or inferred per line, the codec gets determined from the
+   * first line of the file up front, to use the same for all chunks.
+   *
+   * @param file	the file to read from
+   * @param ordered	whether to preserve the order of the grids in the file
+   * @param pool	the pool to use
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   * @see		#setChunkSize(int)
+   */
+  public Puzzles readParallel(File file, boolean ordered, ForkJoinPool pool) throws Exception {
+    Puzzles					result;
+    List<PuzzleCollectionChunkTask>	tasks;
+    long					length;
+    long					start;
+    long					lines;
+    List<Grid>					grids;
+    Throwable					cause;
+    LineCodec					codec;
+
+    if (!file.isFile())
+      throw new FileNotFoundException("File not found: " + file);
+    if (Compression.detect(file) != Compression.NONE)
+      return drain(new PuzzleCollectionByteIterator(meter(Compression.open(file)), true));
+
+    codec = m_Codec;
+    if ((codec == null) && !m_InferDimensions)
+      codec = firstCodec(file);
+
+    result = new Puzzles();
+    length = file.length();
+    tasks  = new ArrayList<>();
+    for (start = 0; start < length; start += m_ChunkSize)
+      tasks.add(new PuzzleCollectionChunkTask(file, start, Math.min(start + m_ChunkSize, length), ordered ? null : result, m_Filter, m_Metrics,
+	m_ErrorPolicy, ((m_ErrorPolicy == ErrorPolicy.COLLECT) && (m_ErrorReport != null)) ? new ErrorReport(m_ErrorReport.getMaxEntries()) : null,
+	codec, m_InferDimensions));
+    for (PuzzleCollectionChunkTask task: tasks)
+      pool.execute(task);
+
+    lines = 0;
+    try {
+      for (PuzzleCollectionChunkTask task: tasks) {
+	grids = task.get();
+	if (ordered)
+	  result.addAll(grids);
+	if (task.getErrorReport() != null)
+	  m_ErrorReport.addAll(task.getErrorReport(), lines);
+	lines += task.getLines();
+      }
+    }
+    catch (ExecutionException e) {
+      for (PuzzleCollectionChunkTask task: tasks)
+	task.cancel(false);
+      // ForkJoinTask.get() wraps exceptions of other threads in a copy,
+      // ie the number of IllegalStateException layers varies
+      cause = e.getCause();
+      while ((cause instanceof IllegalStateException) && (cause.getCause() != null))
+	cause = cause.getCause();
+      // line numbers of failed chunk are relative
+      if (cause instanceof GridParseException)
+	throw new GridParseException(((GridParseException) cause).getEntry().shift(lines));
+      if (cause instanceof Exception)
+	throw (Exception) cause;
+      throw e;
     }
 
     return result;
   }
 
   /**
-   * Writes the grids using the specified writer.
+   * Reads the puzzles from the specified file in parallel, using the
+   * common fork-join pool.
+   *
+   * @param file	the file to read from
+   * @param ordered	whether to preserve the order of the grids in the file
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   * @see		#readParallel(File, boolean, ForkJoinPool)
+   */
+  public Puzzles readParallel(File file, boolean ordered) throws Exception {
+    return readParallel(file, ordered, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   * Uses the byte parser if enabled.
+   *
+   * @param stream	the stream to use
+   * @param closeStream	whether the iterator should close the stream
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   * @see		#setUseByteParser(boolean)
+   */
+  @Override
+  protected PuzzleIterator doIterator(InputStream stream, boolean closeStream) throws Exception {
+    if (!m_UseByteParser)
+      return super.doIterator(stream, closeStream);
+    return new PuzzleCollectionByteIterator(stream, closeStream);
+  }
+
+  /**
+   * Reads the puzzles from the specified file.
+   * Reads in parallel if enabled.
+   *
+   * @param file	the file to read from
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   * @see		#setParallelRead(boolean)
+   */
+  @Override
+  public Puzzles read(File file) throws Exception {
+    if (m_ParallelRead)
+      return readParallel(file, m_Ordered);
+    return super.read(file);
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified reader.
+   *
+   * @param reader	the reader to use
+   * @param closeReader	whether the iterator should close the reader
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  @Override
+  protected PuzzleIterator doIterator(Reader reader, boolean closeReader) throws Exception {
+    return new PuzzleCollectionIterator(reader, closeReader);
+  }
+
+  /**
+   * Writes one grid per line.
+   */
+  public static class PuzzleCollectionSink
+    extends AbstractPuzzleSink {
+
+    /**
+     * Initializes the sink.
+     *
+     * @param writer	the writer to write to
+     * @param closeWriter	whether to close the writer when closing the sink
+     */
+    public PuzzleCollectionSink(Writer writer, boolean closeWriter) {
+      super(writer, closeWriter);
+    }
+
+    /**
+     * Appends the grid.
+     *
+     * @param grid	the grid to append
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doAppend(Grid grid) throws Exception {
+      m_Writer.write(grid.toLine());
+      m_Writer.newLine();
+    }
+  }
+
+  /**
+   * Creates a sink for writing grids one at a time using the specified writer.
    *
    * @param writer	the writer to write to
-   * @param puzzles 	the puzzles
-   * @throws Exception	if writing fails
+   * @param closeWriter	whether the sink should close the writer
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
    */
   @Override
-  protected void doWrite(Puzzles puzzles, Writer writer) throws Exception {
-    BufferedWriter	bwriter;
-    boolean		close;
+  protected PuzzleSink doSink(Writer writer, boolean closeWriter) throws Exception {
+    return new PuzzleCollectionSink(writer, closeWriter);
+  }
+
+  /**
+   * Describes the PuzzleCollection format for the {@link FormatRegistry}.
+   */
+  public static class PuzzleCollectionFormat
+    implements PuzzleFormat {
 
-    if (writer instanceof BufferedWriter) {
-      bwriter = (BufferedWriter) writer;
-      close  = false;
+    /**
+     * Returns the name of the format.
+     *
+     * @return		the name
+     */
+    @Override
+    public String getName() {
+      return "PuzzleCollection";
     }
-    else {
-      bwriter = new BufferedWriter(writer);
-      close = true;
+
+    /**
+     * Returns the file extensions of the format.
+     *
+     * @return		the extensions
+     */
+    @Override
+    public String[] getExtensions() {
+      return new String[]{EXTENSION};
     }
 
-    try {
-      for (Grid grid: puzzles) {
-        bwriter.write(grid.toLine());
-        bwriter.newLine();
+    /**
+     * Checks whether the bytes form a line of a puzzle collection.
+     *
+     * @param header	the bytes
+     * @param start	the start of the line (incl)
+     * @param end	the end of the line (excl)
+     * @return		true if a valid line
+     */
+    protected boolean isLine(byte[] header, int start, int end) {
+      int	i;
+      byte	b;
+
+      if (LineCodec.forLength(end - start) == null)
+	return false;
+      for (i = start; i < end; i++) {
+	b = header[i];
+	if ((b < 0x21) || (b > 0x7E) || (b == '<') || (b == '>'))
+	  return false;
       }
+
+      return true;
     }
-    finally {
-      if (close)
-        IOUtils.closeQuietly(bwriter);
+
+    /**
+     * Checks whether the (complete) lines have the length of a grid and
+     * only contain printable characters (other than angle brackets).
+     * Content with control or non-ASCII characters is considered binary,
+     * apart from a leading UTF-8 byte order mark.
+     * Returns at most half of {@link #CERTAIN}, proportional to the
+     * fraction of matching lines, as the format has no header.
+     *
+     * @param header	the start of the content
+     * @param length	the number of bytes in the header
+     * @param complete	whether the header is the complete content
+     * @return		the confidence
+     */
+    @Override
+    public int sniff(byte[] header, int length, boolean complete) {
+      int	good;
+      int	total;
+      int	start;
+      int	end;
+      int	i;
+
+      good  = 0;
+      total = 0;
+      start = FormatRegistry.bomLength(header, 0, length);
+      for (i = start; i <= length; i++) {
+	if ((i < length) && (header[i] != '\n')) {
+	  // control characters (or non-ASCII): binary content
+	  if (((header[i] < 0x20) || (header[i] > 0x7E)) && (header[i] != '\r') && (header[i] != '\t'))
+	    return NO_MATCH;
+	  continue;
+	}
+	// the last line is only complete if the whole content is available
+	if ((i == length) && !complete)
+	  break;
+	end = i;
+	if ((end > start) && (header[end - 1] == '\r'))
+	  end--;
+	if (end > start) {
+	  total++;
+	  if (isLine(header, start, end))
+	    good++;
+	}
+	start = i + 1;
+      }
+      if (good == 0)
+	return NO_MATCH;
+
+      return CERTAIN / 2 * good / total;
+    }
+
+    /**
+     * Returns a new reader for the format.
+     *
+     * @return		the reader
+     */
+    @Override
+    public TextPuzzleReader newReader() {
+      return new PuzzleCollection();
+    }
+
+    /**
+     * Returns a new writer for the format.
+     *
+     * @return		the writer
+     */
+    @Override
+    public TextPuzzleWriter newWriter() {
+      return new PuzzleCollection();
     }
   }
 }
@@ -0,0 +1,744 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzlePack.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.AbstractBinaryPuzzleReaderWriter;
+import com.github.fracpete.sudokuformats4j.api.AbstractBinaryPuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads/writes puzzles in a dense binary format (.spp) for archiving and
+ * transferring large collections. Only the clues get stored: a 9x9 puzzle
+ * with 17-30 clues takes 19-24 bytes instead of 82 in a puzzle collection.
+ * <br>
+ * Layout (big endian): magic (int), version (short), rows/cols/subRows/subCols
+ * (byte each), number of meta-data entries (int), meta-data key/value pairs
+ * (modified UTF-8), followed by the records. A record consists of a bitmap
+ * of the clues (one bit per cell, row-wise from the top, most significant
+ * bit first), followed by the clue values. The values (minus 1) get combined
+ * in groups as numbers in base n (n being the number of digits), with each
+ * group using the minimum number of bits, e.g., 3 digits in 10 bits for 9x9
+ * (3.33 bits per clue). The group size is limited to at most
+ * {@link #MAX_GROUPS} distinct groups, which get decoded with a lookup table.
+ * The last group may be shorter, the record gets padded to full bytes.
+ * As the size of a record is determined by its bitmap, no index is
+ * available, i.e., the records can only be read sequentially.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzlePack
+  extends AbstractBinaryPuzzleReaderWriter {
+
+  /** the magic number ("SPP1"). */
+  public static final int MAGIC = 0x53505031;
+
+  /** the format version. */
+  public static final short VERSION = 1;
+
+  /** the default file extension. */
+  public static final String EXTENSION = ".spp";
+
+  /** the maximum number of distinct groups, i.e., the size of the decoding table. */
+  public static final int MAX_GROUPS = 4096;
+
+  /** the maximum number of digits (cell values are stored as bytes). */
+  public static final int MAX_DIGITS = Byte.MAX_VALUE;
+
+  /**
+   * Encodes/decodes the records for grids of a specific size.
+   * Immutable, i.e., can be shared between threads.
+   */
+  public static class Codec {
+
+    /** the number of rows. */
+    protected int m_Rows;
+
+    /** the number of columns. */
+    protected int m_Cols;
+
+    /** the number of rows in the subgrids. */
+    protected int m_SubRows;
+
+    /** the number of columns in the subgrids. */
+    protected int m_SubCols;
+
+    /** the number of cells. */
+    protected int m_Cells;
+
+    /** the number of digits. */
+    protected int m_Digits;
+
+    /** the size of the clue bitmap in bytes. */
+    protected int m_BitmapSize;
+
+    /** the number of digits per group. */
+    protected int m_GroupSize;
+
+    /** the number of bits for a group of 0 to group size digits. */
+    protected int[] m_GroupBits;
+
+    /** the cell values of all groups (group size values per group). */
+    protected byte[] m_Table;
+
+    /**
+     * Initializes the codec.
+     *
+     * @param rows	the number of rows
+     * @param cols	the number of columns
+     * @param subRows	the number of rows in the subgrids
+     * @param subCols	the number of columns in the subgrids
+     * @throws IllegalArgumentException	if invalid dimensions
+     * @see		#isValid(int, int, int, int)
+     */
+    public Codec(int rows, int cols, int subRows, int subCols) {
+      int	i;
+      int	count;
+      int	group;
+      int	rest;
+
+      if (!isValid(rows, cols, subRows, subCols))
+	throw new IllegalArgumentException(
+	  "Invalid grid dimensions: "
+	    + rows + "x" + cols + " X " + subRows + "x" + subCols);
+
+      m_Rows       = rows;
+      m_Cols       = cols;
+      m_SubRows    = subRows;
+      m_SubCols    = subCols;
+      m_Cells      = rows * subRows * cols * subCols;
+      m_Digits     = subRows * subCols;
+      m_BitmapSize = (m_Cells + 7) / 8;
+
+      // pick the group size with the fewest bits per digit (limited by the table size)
+      // (a single digit needs no bits, ie grouping makes no difference)
+      m_GroupSize = 1;
+      if (m_Digits >= 2) {
+	for (i = 2; pow(m_Digits, i) <= MAX_GROUPS; i++) {
+	  if (bits(pow(m_Digits, i)) * m_GroupSize < bits(pow(m_Digits, m_GroupSize)) * i)
+	    m_GroupSize = i;
+	}
+      }
+      m_GroupBits = new int[m_GroupSize + 1];
+      for (i = 1; i <= m_GroupSize; i++)
+	m_GroupBits[i] = bits(pow(m_Digits, i));
+
+      count   = (int) pow(m_Digits, m_GroupSize);
+      m_Table = new byte[count * m_GroupSize];
+      for (group = 0; group < count; group++) {
+	rest = group;
+	for (i = m_GroupSize - 1; i >= 0; i--) {
+	  m_Table[group * m_GroupSize + i] = (byte) (rest % m_Digits + 1);
+	  rest /= m_Digits;
+	}
+      }
+    }
+
+    /**
+     * Checks whether the dimensions can be encoded: all at least 1 and at
+     * most {@link #MAX_DIGITS} digits.
+     *
+     * @param rows	the number of rows
+     * @param cols	the number of columns
+     * @param subRows	the number of rows in the subgrids
+     * @param subCols	the number of columns in the subgrids
+     * @return		true if valid
+     */
+    public static boolean isValid(int rows, int cols, int subRows, int subCols) {
+      return (rows >= 1) && (cols >= 1) && (subRows >= 1) && (subCols >= 1)
+	&& (subRows * subCols <= MAX_DIGITS);
+    }
+
+    /**
+     * Returns n to the power of e.
+     *
+     * @param n		the base
+     * @param e		the exponent
+     * @return		the result
+     */
+    protected static long pow(int n, int e) {
+      long	result;
+      int	i;
+
+      result = 1;
+      for (i = 0; i < e; i++)
+	result *= n;
+
+      return result;
+    }
+
+    /**
+     * Returns the number of bits for storing the values 0 to count-1.
+     *
+     * @param count	the number of values
+     * @return		the number of bits
+     */
+    protected static int bits(long count) {
+      return Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(count - 1));
+    }
+
+    /**
+     * Returns the number of cells per grid.
+     *
+     * @return		the number of cells
+     */
+    public int cells() {
+      return m_Cells;
+    }
+
+    /**
+     * Returns the size of the clue bitmap.
+     *
+     * @return		the size in bytes
+     */
+    public int bitmapSize() {
+      return m_BitmapSize;
+    }
+
+    /**
+     * Returns the number of digits that get combined in a group.
+     *
+     * @return		the number of digits
+     */
+    public int groupSize() {
+      return m_GroupSize;
+    }
+
+    /**
+     * Returns the maximum size of a record (all cells being clues).
+     *
+     * @return		the size in bytes
+     */
+    public int maxRecordSize() {
+      return m_BitmapSize + valuesSize(m_Cells);
+    }
+
+    /**
+     * Returns the number of bytes for storing the specified number of clues.
+     *
+     * @param clues	the number of clues
+     * @return		the number of bytes
+     */
+    public int valuesSize(int clues) {
+      return ((clues / m_GroupSize) * m_GroupBits[m_GroupSize]
+	+ m_GroupBits[clues % m_GroupSize] + 7) / 8;
+    }
+
+    /**
+     * Returns the number of clues in the bitmap.
+     *
+     * @param record	the buffer containing the record
+     * @param offset	the start of the record in the buffer
+     * @return		the number of clues
+     */
+    public int clues(byte[] record, int offset) {
+      int	result;
+      int	i;
+
+      result = 0;
+      for (i = 0; i < m_BitmapSize; i++)
+	result += Integer.bitCount(record[offset + i] & 0xFF);
+
+      return result;
+    }
+
+    /**
+     * Checks whether the grid has the same dimensions as the codec.
+     *
+     * @param grid	the grid to check
+     * @throws IllegalArgumentException	if the dimensions differ
+     */
+    public void check(Grid grid) {
+      if ((grid.rows() != m_Rows) || (grid.cols() != m_Cols)
+	|| (grid.subRows() != m_SubRows) || (grid.subCols() != m_SubCols))
+	throw new IllegalArgumentException(
+	  "Grid dimensions differ from pack: "
+	    + grid.rows() + "x" + grid.cols() + "/" + grid.subRows() + "x" + grid.subCols()
+	    + " != " + m_Rows + "x" + m_Cols + "/" + m_SubRows + "x" + m_SubCols);
+    }
+
+    /**
+     * Encodes the cells into the record.
+     *
+     * @param cells	the cells to encode (row-wise from the top)
+     * @param record	the record to fill, at least {@link #maxRecordSize()} long
+     * @return		the number of bytes used in the record
+     * @throws IllegalArgumentException	if a cell value is out of range
+     */
+    public int encode(byte[] cells, byte[] record) {
+      int	pos;
+      int	i;
+      int	value;
+      int	count;
+      long	group;
+      long	acc;
+      int	accBits;
+
+      for (i = 0; i < m_BitmapSize; i++)
+	record[i] = 0;
+
+      pos     = m_BitmapSize;
+      acc     = 0;
+      accBits = 0;
+      group   = 0;
+      count   = 0;
+      for (i = 0; i < m_Cells; i++) {
+	value = cells[i];
+	if (value == 0)
+	  continue;
+	if ((value < 0) || (value > m_Digits))
+	  throw new IllegalArgumentException(
+	    "Cell value must be 0 <= x <= " + m_Digits + ", provided: " + value);
+	record[i >> 3] |= (byte) (0x80 >>> (i & 7));
+	group = group * m_Digits + value - 1;
+	count++;
+	if (count == m_GroupSize) {
+	  acc      = (acc << m_GroupBits[count]) | group;
+	  accBits += m_GroupBits[count];
+	  while (accBits >= 8) {
+	    accBits      -= 8;
+	    record[pos++] = (byte) (acc >>> accBits);
+	  }
+	  group = 0;
+	  count = 0;
+	}
+      }
+      if (count > 0) {
+	acc      = (acc << m_GroupBits[count]) | group;
+	accBits += m_GroupBits[count];
+	while (accBits >= 8) {
+	  accBits      -= 8;
+	  record[pos++] = (byte) (acc >>> accBits);
+	}
+      }
+      if (accBits > 0)
+	record[pos++] = (byte) (acc << (8 - accBits));
+
+      return pos;
+    }
+
+    /**
+     * Decodes the record into the cells.
+     *
+     * @param record	the buffer containing the record
+     * @param offset	the start of the record in the buffer
+     * @param cells	the cells to fill (row-wise from the top)
+     * @throws IllegalArgumentException	if the record contains an invalid group
+     */
+    public void decode(byte[] record, int offset, byte[] cells) {
+      int	pos;
+      int	i;
+      int	remaining;
+      int	size;
+      int	bits;
+      long	acc;
+      int	accBits;
+      int	group;
+      int	index;
+      int	end;
+      int	n;
+      int	mask;
+
+      remaining = clues(record, offset);
+      pos       = offset + m_BitmapSize;
+      acc       = 0;
+      accBits   = 0;
+      index     = 0;
+      end       = 0;
+      Arrays.fill(cells, 0, m_Cells, (byte) 0);
+      // only visit the clues, i.e., the set bits of the bitmap
+      for (n = 0; n < m_BitmapSize; n++) {
+	mask = record[offset + n] & 0xFF;
+	while (mask != 0) {
+	  i     = (n << 3) + Integer.numberOfLeadingZeros(mask) - 24;
+	  mask ^= Integer.highestOneBit(mask);
+	  if (index == end) {
+	    size = Math.min(m_GroupSize, remaining);
+	    bits = m_GroupBits[size];
+	    while (accBits < bits) {
+	      acc      = (acc << 8) | (record[pos++] & 0xFF);
+	      accBits += 8;
+	    }
+	    accBits   -= bits;
+	    group      = (int) ((acc >>> accBits) & ((1L << bits) - 1));
+	    remaining -= size;
+	    // a shorter group equals a full group with leading zeros
+	    end   = (group + 1) * m_GroupSize;
+	    index = end - size;
+	    if (end > m_Table.length)
+	      throw new IllegalArgumentException("Invalid group value: " + group);
+	  }
+	  cells[i] = m_Table[index++];
+	}
+      }
+    }
+  }
+
+  /**
+   * Writes the header.
+   *
+   * @param output	the output to write to
+   * @param grid	the grid to get the dimensions from
+   * @param metaData	the meta-data to write
+   * @throws IOException	if writing fails
+   */
+  protected static void writeHeader(DataOutputStream output, Grid grid,
+				    Map<String,String> metaData) throws IOException {
+    Map<String,String>	sorted;
+
+    sorted = new TreeMap<>(metaData);
+    output.writeInt(MAGIC);
+    output.writeShort(VERSION);
+    output.writeByte(grid.rows());
+    output.writeByte(grid.cols());
+    output.writeByte(grid.subRows());
+    output.writeByte(grid.subCols());
+    output.writeInt(sorted.size());
+    for (String key: sorted.keySet()) {
+      output.writeUTF(key);
+      output.writeUTF(sorted.get(key));
+    }
+  }
+
+  /**
+   * Reads the records sequentially from a stream. The records get decoded
+   * straight from a read buffer.
+   */
+  public static class PuzzlePackIterator
+    extends AbstractPuzzleIterator {
+
+    /** the size of the read buffer. */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /** the stream to read from. */
+    protected InputStream m_Stream;
+
+    /** the codec. */
+    protected Codec m_Codec;
+
+    /** the number of rows. */
+    protected int m_Rows;
+
+    /** the number of columns. */
+    protected int m_Cols;
+
+    /** the number of rows in the subgrids. */
+    protected int m_SubRows;
+
+    /** the number of columns in the subgrids. */
+    protected int m_SubCols;
+
+    /** the read buffer. */
+    protected byte[] m_Buffer;
+
+    /** the position in the buffer. */
+    protected int m_Pos;
+
+    /** the number of bytes in the buffer. */
+    protected int m_Limit;
+
+    /** the buffer for the cells. */
+    protected byte[] m_Cells;
+
+    /**
+     * Initializes the iterator and reads the header.
+     *
+     * @param stream	the stream to read from
+     * @param closeStream	whether to close the stream when closing the iterator
+     * @throws Exception	if reading the header fails
+     */
+    public PuzzlePackIterator(InputStream stream, boolean closeStream) throws Exception {
+      super(stream, closeStream);
+      DataInputStream	input;
+      int		magic;
+      short		version;
+      int		count;
+      int		i;
+
+      m_Stream = stream;
+      input    = new DataInputStream(stream);
+      magic    = input.readInt();
+      if (magic != MAGIC)
+	throw new IOException("Not a puzzle pack, wrong magic number: " + Integer.toHexString(magic));
+      version = input.readShort();
+      if (version > VERSION)
+	throw new IOException("Unsupported puzzle pack version: " + version);
+      m_Rows    = input.readUnsignedByte();
+      m_Cols    = input.readUnsignedByte();
+      m_SubRows = input.readUnsignedByte();
+      m_SubCols = input.readUnsignedByte();
+      if (!Codec.isValid(m_Rows, m_Cols, m_SubRows, m_SubCols))
+	throw new IOException(
+	  "Invalid grid dimensions in puzzle pack header: "
+	    + m_Rows + "x" + m_Cols + " X " + m_SubRows + "x" + m_SubCols);
+      count     = input.readInt();
+      for (i = 0; i < count; i++)
+	m_MetaData.put(input.readUTF(), input.readUTF());
+
+      m_Codec  = new Codec(m_Rows, m_Cols, m_SubRows, m_SubCols);
+      m_Buffer = new byte[Math.max(BUFFER_SIZE, m_Codec.maxRecordSize())];
+      m_Pos    = 0;
+      m_Limit  = 0;
+      m_Cells  = new byte[m_Codec.cells()];
+    }
+
+    /**
+     * Ensures that the specified number of bytes is available in the buffer,
+     * starting at the current position.
+     *
+     * @param count	the number of bytes
+     * @return		false if the end of the stream was reached before
+     * @throws IOException	if reading fails
+     */
+    protected boolean fill(int count) throws IOException {
+      int	read;
+
+      if (m_Limit - m_Pos >= count)
+	return true;
+
+      System.arraycopy(m_Buffer, m_Pos, m_Buffer, 0, m_Limit - m_Pos);
+      m_Limit -= m_Pos;
+      m_Pos    = 0;
+      while (m_Limit < count) {
+	read = m_Stream.read(m_Buffer, m_Limit, m_Buffer.length - m_Limit);
+	if (read == -1)
+	  return false;
+	m_Limit += read;
+      }
+
+      return true;
+    }
+
+    /**
+     * Reads the next grid.
+     *
+     * @return		the next grid, null if no more grids available
+     * @throws Exception	if reading fails
+     */
+    @Override
+    protected Grid doNext() throws Exception {
+      int	size;
+      Grid	result;
+
+      if (!fill(1))
+	return null;
+      if (!fill(m_Codec.bitmapSize()))
+	throw new EOFException("Truncated record!");
+      size = m_Codec.bitmapSize() + m_Codec.valuesSize(m_Codec.clues(m_Buffer, m_Pos));
+      if (!fill(size))
+	throw new EOFException("Truncated record!");
+
+      m_Codec.decode(m_Buffer, m_Pos, m_Cells);
+      m_Pos += size;
+      result = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+      result.setCells(m_Cells);
+
+      return result;
+    }
+  }
+
+  /**
+   * Writes the grids as variable-size records. The header gets written with
+   * the first grid, as the dimensions are derived from the grids.
+   */
+  public static class PuzzlePackSink
+    extends AbstractBinaryPuzzleSink {
+
+    /** the meta-data for the header. */
+    protected Map<String,String> m_MetaData;
+
+    /** the codec (null until header written). */
+    protected Codec m_Codec;
+
+    /** the buffer for the cells. */
+    protected byte[] m_Cells;
+
+    /** the buffer for a record. */
+    protected byte[] m_Record;
+
+    /**
+     * Initializes the sink.
+     *
+     * @param stream	the stream to write to
+     * @param closeStream	whether to close the stream when closing the sink
+     */
+    public PuzzlePackSink(OutputStream stream, boolean closeStream) {
+      super(stream, closeStream);
+      m_MetaData = new TreeMap<>();
+      m_Codec    = null;
+    }
+
+    /**
+     * Stores the meta-data for the header.
+     *
+     * @param metaData	the meta-data to write
+     * @throws Exception	never
+     */
+    @Override
+    protected void doOpen(Map<String,String> metaData) throws Exception {
+      m_MetaData.putAll(metaData);
+    }
+
+    /**
+     * Writes the header using the dimensions of the grid.
+     *
+     * @param grid	the grid to get the dimensions from
+     * @throws Exception	if writing fails
+     */
+    protected void writeHeader(Grid grid) throws Exception {
+      PuzzlePack.writeHeader(m_Stream, grid, m_MetaData);
+      m_Codec  = new Codec(grid.rows(), grid.cols(), grid.subRows(), grid.subCols());
+      m_Cells  = new byte[m_Codec.cells()];
+      m_Record = new byte[m_Codec.maxRecordSize()];
+    }
+
+    /**
+     * Appends the grid.
+     *
+     * @param grid	the grid to append
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doAppend(Grid grid) throws Exception {
+      if (m_Codec == null)
+	writeHeader(grid);
+      else
+	m_Codec.check(grid);
+      m_Cells = grid.getCells(m_Cells);
+      m_Stream.write(m_Record, 0, m_Codec.encode(m_Cells, m_Record));
+    }
+
+    /**
+     * Writes the header (for a standard 9x9 grid) if no grids were appended.
+     *
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doClose() throws Exception {
+      if (m_Codec == null)
+	writeHeader(new Grid());
+    }
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   *
+   * @param stream	the stream to use
+   * @param closeStream	whether the iterator should close the stream
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  @Override
+  protected PuzzleIterator doIterator(InputStream stream, boolean closeStream) throws Exception {
+    return new PuzzlePackIterator(stream, closeStream);
+  }
+
+  /**
+   * Creates a sink for writing grids one at a time using the specified stream.
+   *
+   * @param stream	the stream to write to
+   * @param closeStream	whether the sink should close the stream
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
+   */
+  @Override
+  protected PuzzleSink doSink(OutputStream stream, boolean closeStream) throws Exception {
+    return new PuzzlePackSink(stream, closeStream);
+  }
+
+  /**
+   * Describes the PuzzlePack format for the {@link FormatRegistry}.
+   */
+  public static class PuzzlePackFormat
+    implements PuzzleFormat {
+
+    /**
+     * Returns the name of the format.
+     *
+     * @return		the name
+     */
+    @Override
+    public String getName() {
+      return "PuzzlePack";
+    }
+
+    /**
+     * Returns the file extensions of the format.
+     *
+     * @return		the extensions
+     */
+    @Override
+    public String[] getExtensions() {
+      return new String[]{EXTENSION};
+    }
+
+    /**
+     * Checks for the magic number.
+     *
+     * @param header	the start of the content
+     * @param length	the number of bytes in the header
+     * @param complete	whether the header is the complete content
+     * @return		the confidence
+     */
+    @Override
+    public int sniff(byte[] header, int length, boolean complete) {
+      if (FormatRegistry.startsWith(header, length, MAGIC))
+	return CERTAIN;
+      return NO_MATCH;
+    }
+
+    /**
+     * Returns a new reader for the format.
+     *
+     * @return		the reader
+     */
+    @Override
+    public PuzzleReader newReader() {
+      return new PuzzlePack();
+    }
+
+    /**
+     * Returns a new writer for the format.
+     *
+     * @return		the writer
+     */
+    @Override
+    public PuzzleWriter newWriter() {
+      return new PuzzlePack();
+    }
+  }
+}
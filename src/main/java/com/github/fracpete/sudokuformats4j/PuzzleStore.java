@@ -0,0 +1,831 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleStore.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.AbstractBinaryPuzzleReaderWriter;
+import com.github.fracpete.sudokuformats4j.api.AbstractBinaryPuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.CompactGrid;
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads/writes puzzles in a binary, fixed-record format (.sps), which
+ * allows random access to the grids via memory-mapping (see {@link #open(File)}),
+ * without parsing the whole file first.
+ * <br>
+ * Layout (big endian): magic (int), version (short), rows/cols/subRows/subCols
+ * (byte each), record size (int), data offset (int), number of meta-data
+ * entries (int), meta-data key/value pairs (modified UTF-8), followed by the
+ * records starting at the data offset. A record stores two cells per byte
+ * (high nibble first) if the values fit into 4 bits, otherwise one cell per
+ * byte, row-wise from the top. The number of grids is derived from the file
+ * size, which allows for appending.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzleStore
+  extends AbstractBinaryPuzzleReaderWriter {
+
+  /** the magic number ("SPS1"). */
+  public static final int MAGIC = 0x53505331;
+
+  /** the format version. */
+  public static final short VERSION = 1;
+
+  /** the default file extension. */
+  public static final String EXTENSION = ".sps";
+
+  /** the size of the fixed part of the header. */
+  public static final int FIXED_HEADER_SIZE = 4 + 2 + 4 + 4 + 4;
+
+  /**
+   * The header of a store.
+   */
+  public static class Header {
+
+    /** the number of rows. */
+    protected int m_Rows;
+
+    /** the number of columns. */
+    protected int m_Cols;
+
+    /** the number of rows in the subgrids. */
+    protected int m_SubRows;
+
+    /** the number of columns in the subgrids. */
+    protected int m_SubCols;
+
+    /** the size of a record in bytes. */
+    protected int m_RecordSize;
+
+    /** the start of the records. */
+    protected int m_DataOffset;
+
+    /** the meta-data. */
+    protected Map<String,String> m_MetaData;
+
+    /**
+     * Initializes the header (3x3 with 3x3 subgrids).
+     */
+    public Header() {
+      m_MetaData = new HashMap<>();
+      setDimensions(new Grid());
+    }
+
+    /**
+     * Returns the number of rows in the grids.
+     *
+     * @return		the number of rows
+     */
+    public int rows() {
+      return m_Rows;
+    }
+
+    /**
+     * Returns the number of columns in the grids.
+     *
+     * @return		the number of columns
+     */
+    public int cols() {
+      return m_Cols;
+    }
+
+    /**
+     * Returns the number of rows in the subgrids.
+     *
+     * @return		the number of rows
+     */
+    public int subRows() {
+      return m_SubRows;
+    }
+
+    /**
+     * Returns the number of columns in the subgrids.
+     *
+     * @return		the number of columns
+     */
+    public int subCols() {
+      return m_SubCols;
+    }
+
+    /**
+     * Returns the size of a record.
+     *
+     * @return		the size in bytes
+     */
+    public int recordSize() {
+      return m_RecordSize;
+    }
+
+    /**
+     * Returns the start of the records.
+     *
+     * @return		the offset in bytes
+     */
+    public int dataOffset() {
+      return m_DataOffset;
+    }
+
+    /**
+     * Returns the meta-data.
+     *
+     * @return		the meta-data
+     */
+    public Map<String,String> getMetaData() {
+      return m_MetaData;
+    }
+
+    /**
+     * Returns the number of cells per grid.
+     *
+     * @return		the number of cells
+     */
+    public int cells() {
+      return m_Rows * m_SubRows * m_Cols * m_SubCols;
+    }
+
+    /**
+     * Returns whether two cells get stored per byte.
+     *
+     * @return		true if packed
+     */
+    public boolean isPacked() {
+      return CompactGrid.bits(m_SubRows * m_SubCols) <= 4;
+    }
+
+    /**
+     * Returns the size of a record for the current dimensions.
+     *
+     * @return		the size in bytes
+     */
+    protected int computeRecordSize() {
+      return isPacked() ? (cells() + 1) / 2 : cells();
+    }
+
+    /**
+     * Initializes the dimensions (and record size) from the grid.
+     *
+     * @param grid	the grid to get the dimensions from
+     */
+    public void setDimensions(Grid grid) {
+      m_Rows       = grid.rows();
+      m_Cols       = grid.cols();
+      m_SubRows    = grid.subRows();
+      m_SubCols    = grid.subCols();
+      m_RecordSize = computeRecordSize();
+    }
+
+    /**
+     * Checks whether the grid has the same dimensions as the header.
+     *
+     * @param grid	the grid to check
+     * @throws IllegalArgumentException	if the dimensions differ
+     */
+    public void check(Grid grid) {
+      if ((grid.rows() != m_Rows) || (grid.cols() != m_Cols) || (grid.subRows() != m_SubRows) || (grid.subCols() != m_SubCols))
+	throw new IllegalArgumentException(
+	  "Grid dimensions differ from store: "
+	    + grid.rows() + "x" + grid.cols() + "/" + grid.subRows() + "x" + grid.subCols()
+	    + " != " + m_Rows + "x" + m_Cols + "/" + m_SubRows + "x" + m_SubCols);
+    }
+
+    /**
+     * Writes the header.
+     *
+     * @param output	the output to write to
+     * @throws IOException	if writing fails
+     */
+    public void write(DataOutputStream output) throws IOException {
+      ByteArrayOutputStream	bytes;
+      DataOutputStream		meta;
+      Map<String,String>	sorted;
+
+      bytes  = new ByteArrayOutputStream();
+      meta   = new DataOutputStream(bytes);
+      sorted = new TreeMap<>(m_MetaData);
+      meta.writeInt(sorted.size());
+      for (String key: sorted.keySet()) {
+	meta.writeUTF(key);
+	meta.writeUTF(sorted.get(key));
+      }
+      meta.flush();
+      m_DataOffset = FIXED_HEADER_SIZE + bytes.size();
+
+      output.writeInt(MAGIC);
+      output.writeShort(VERSION);
+      output.writeByte(m_Rows);
+      output.writeByte(m_Cols);
+      output.writeByte(m_SubRows);
+      output.writeByte(m_SubCols);
+      output.writeInt(m_RecordSize);
+      output.writeInt(m_DataOffset);
+      bytes.writeTo(output);
+    }
+
+    /**
+     * Reads the header. Leaves the input at the start of the records
+     * (assuming that the input was positioned at the start).
+     *
+     * @param input	the input to read from
+     * @return		the header
+     * @throws IOException	if reading fails or not a store
+     */
+    public static Header read(DataInput input) throws IOException {
+      Header	result;
+      int	magic;
+      short	version;
+      int	count;
+      int	i;
+      int	read;
+      String	key;
+      String	value;
+
+      magic = input.readInt();
+      if (magic != MAGIC)
+	throw new IOException("Not a puzzle store, wrong magic number: " + Integer.toHexString(magic));
+      version = input.readShort();
+      if (version > VERSION)
+	throw new IOException("Unsupported puzzle store version: " + version);
+
+      result            = new Header();
+      result.m_Rows       = input.readUnsignedByte();
+      result.m_Cols       = input.readUnsignedByte();
+      result.m_SubRows    = input.readUnsignedByte();
+      result.m_SubCols    = input.readUnsignedByte();
+      result.m_RecordSize = input.readInt();
+      result.m_DataOffset = input.readInt();
+      if ((result.m_Rows < 1) || (result.m_Cols < 1) || (result.m_SubRows < 1) || (result.m_SubCols < 1)
+	|| (result.m_SubRows * result.m_SubCols > Byte.MAX_VALUE))
+	throw new IOException(
+	  "Invalid grid dimensions in puzzle store header: "
+	    + result.m_Rows + "x" + result.m_Cols + "/" + result.m_SubRows + "x" + result.m_SubCols);
+      if (result.m_RecordSize != result.computeRecordSize())
+	throw new IOException(
+	  "Invalid record size in puzzle store header, expected " + result.computeRecordSize() + ": " + result.m_RecordSize);
+      count               = input.readInt();
+      read                = FIXED_HEADER_SIZE + 4;
+      for (i = 0; i < count; i++) {
+	key   = input.readUTF();
+	value = input.readUTF();
+	result.m_MetaData.put(key, value);
+	// each string is prefixed with its length (short)
+	read += 2 + utfLength(key) + 2 + utfLength(value);
+      }
+      if (result.m_DataOffset < read)
+	throw new IOException("Invalid data offset: " + result.m_DataOffset);
+      if (input.skipBytes(result.m_DataOffset - read) < result.m_DataOffset - read)
+	throw new EOFException("Truncated puzzle store, data offset beyond end of data: " + result.m_DataOffset);
+
+      return result;
+    }
+  }
+
+  /**
+   * Returns the number of bytes that the string occupies in modified UTF-8
+   * (excluding the length prefix).
+   *
+   * @param s		the string
+   * @return		the number of bytes
+   */
+  protected static int utfLength(String s) {
+    int		result;
+    int		i;
+    char	c;
+
+    result = 0;
+    for (i = 0; i < s.length(); i++) {
+      c = s.charAt(i);
+      if ((c >= 0x0001) && (c <= 0x007F))
+	result += 1;
+      else if (c > 0x07FF)
+	result += 3;
+      else
+	result += 2;
+    }
+
+    return result;
+  }
+
+  /**
+   * Packs the cells into the record.
+   *
+   * @param header	the header
+   * @param cells	the cells to pack
+   * @param record	the record to fill
+   * @throws IllegalArgumentException	if a cell value is out of range
+   */
+  public static void pack(Header header, byte[] cells, byte[] record) {
+    int		n;
+    int		i;
+    int		digits;
+
+    n      = header.cells();
+    digits = header.subRows() * header.subCols();
+    for (i = 0; i < n; i++) {
+      if ((cells[i] < 0) || (cells[i] > digits))
+	throw new IllegalArgumentException("Cell value must be 0 <= x <= " + digits + ", provided: " + cells[i]);
+    }
+    if (header.isPacked()) {
+      for (i = 0; i < n - 1; i += 2)
+	record[i / 2] = (byte) ((cells[i] << 4) | cells[i + 1]);
+      if (n % 2 == 1)
+	record[n / 2] = (byte) (cells[n - 1] << 4);
+    }
+    else {
+      System.arraycopy(cells, 0, record, 0, n);
+    }
+  }
+
+  /**
+   * Unpacks the record into the cells.
+   *
+   * @param header	the header
+   * @param record	the record to unpack
+   * @param cells	the cells to fill
+   */
+  public static void unpack(Header header, byte[] record, byte[] cells) {
+    int		n;
+    int		i;
+
+    n = header.cells();
+    if (header.isPacked()) {
+      for (i = 0; i < n; i++) {
+	if (i % 2 == 0)
+	  cells[i] = (byte) ((record[i / 2] >> 4) & 0x0F);
+	else
+	  cells[i] = (byte) (record[i / 2] & 0x0F);
+      }
+    }
+    else {
+      System.arraycopy(record, 0, cells, 0, n);
+    }
+  }
+
+  /**
+   * Reads the records sequentially from a stream.
+   */
+  public static class PuzzleStoreIterator
+    extends AbstractPuzzleIterator {
+
+    /** the stream to read from. */
+    protected DataInputStream m_Stream;
+
+    /** the header. */
+    protected Header m_Header;
+
+    /** the buffer for a record. */
+    protected byte[] m_Record;
+
+    /** the buffer for the cells. */
+    protected byte[] m_Cells;
+
+    /**
+     * Initializes the iterator and reads the header.
+     *
+     * @param stream	the stream to read from
+     * @param closeStream	whether to close the stream when closing the iterator
+     * @throws Exception	if reading the header fails
+     */
+    public PuzzleStoreIterator(InputStream stream, boolean closeStream) throws Exception {
+      super(stream, closeStream);
+      m_Stream = new DataInputStream(stream);
+      m_Header = Header.read(m_Stream);
+      m_Record = new byte[m_Header.recordSize()];
+      m_Cells  = new byte[m_Header.cells()];
+      m_MetaData.putAll(m_Header.getMetaData());
+    }
+
+    /**
+     * Reads the next grid.
+     *
+     * @return		the next grid, null if no more grids available
+     * @throws Exception	if reading fails
+     */
+    @Override
+    protected Grid doNext() throws Exception {
+      int	read;
+      int	total;
+      Grid	result;
+
+      total = 0;
+      while (total < m_Record.length) {
+	read = m_Stream.read(m_Record, total, m_Record.length - total);
+	if (read == -1)
+	  break;
+	total += read;
+      }
+      if (total == 0)
+	return null;
+      if (total < m_Record.length)
+	throw new EOFException("Truncated record, expected " + m_Record.length + " bytes but read " + total);
+
+      unpack(m_Header, m_Record, m_Cells);
+      result = new Grid(m_Header.rows(), m_Header.cols(), m_Header.subRows(), m_Header.subCols());
+      result.setCells(m_Cells);
+
+      return result;
+    }
+  }
+
+  /**
+   * Writes the grids as fixed-size records. The header gets written with
+   * the first grid, as the dimensions are derived from the grids.
+   */
+  public static class PuzzleStoreSink
+    extends AbstractBinaryPuzzleSink {
+
+    /** the header. */
+    protected Header m_Header;
+
+    /** whether the header has been written. */
+    protected boolean m_HeaderWritten;
+
+    /** the buffer for the cells. */
+    protected byte[] m_Cells;
+
+    /** the buffer for a record. */
+    protected byte[] m_Record;
+
+    /**
+     * Initializes the sink.
+     *
+     * @param stream	the stream to write to
+     * @param closeStream	whether to close the stream when closing the sink
+     */
+    public PuzzleStoreSink(OutputStream stream, boolean closeStream) {
+      super(stream, closeStream);
+      m_Header        = new Header();
+      m_HeaderWritten = false;
+    }
+
+    /**
+     * Stores the meta-data for the header.
+     *
+     * @param metaData	the meta-data to write
+     * @throws Exception	never
+     */
+    @Override
+    protected void doOpen(Map<String,String> metaData) throws Exception {
+      m_Header.getMetaData().putAll(metaData);
+    }
+
+    /**
+     * Writes the header using the dimensions of the grid.
+     *
+     * @param grid	the grid to get the dimensions from
+     * @throws Exception	if writing fails
+     */
+    protected void writeHeader(Grid grid) throws Exception {
+      m_Header.setDimensions(grid);
+      m_Header.write(m_Stream);
+      m_Cells         = new byte[m_Header.cells()];
+      m_Record        = new byte[m_Header.recordSize()];
+      m_HeaderWritten = true;
+    }
+
+    /**
+     * Appends the grid.
+     *
+     * @param grid	the grid to append
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doAppend(Grid grid) throws Exception {
+      if (!m_HeaderWritten)
+	writeHeader(grid);
+      else
+	m_Header.check(grid);
+      m_Cells = grid.getCells(m_Cells);
+      pack(m_Header, m_Cells, m_Record);
+      m_Stream.write(m_Record);
+    }
+
+    /**
+     * Writes the header (for a standard 9x9 grid) if no grids were appended.
+     *
+     * @throws Exception	if writing fails
+     */
+    @Override
+    protected void doClose() throws Exception {
+      if (!m_HeaderWritten)
+	writeHeader(new Grid());
+    }
+  }
+
+  /**
+   * Provides random access to the grids of a memory-mapped store.
+   * Safe for concurrent reads from multiple threads. The mapped memory
+   * is shared with other processes mapping the same file.
+   */
+  public static class MappedStore
+    implements Closeable {
+
+    /** the file. */
+    protected RandomAccessFile m_File;
+
+    /** the header. */
+    protected Header m_Header;
+
+    /** the number of grids. */
+    protected long m_Size;
+
+    /** the number of records per segment. */
+    protected int m_RecordsPerSegment;
+
+    /** the mapped segments. */
+    protected MappedByteBuffer[] m_Segments;
+
+    /**
+     * Maps the file.
+     *
+     * @param file	the file to map
+     * @throws IOException	if reading the header or mapping fails
+     */
+    public MappedStore(File file) throws IOException {
+      FileChannel	channel;
+      long		length;
+      long		start;
+      long		records;
+      int		i;
+
+      m_File = new RandomAccessFile(file, "r");
+      try {
+	m_Header = Header.read(m_File);
+	channel  = m_File.getChannel();
+	length   = channel.size();
+	// a partially written record at the end gets ignored
+	m_Size              = (length - m_Header.dataOffset()) / m_Header.recordSize();
+	m_RecordsPerSegment = Integer.MAX_VALUE / m_Header.recordSize();
+	m_Segments          = new MappedByteBuffer[(int) ((m_Size + m_RecordsPerSegment - 1) / m_RecordsPerSegment)];
+	for (i = 0; i < m_Segments.length; i++) {
+	  start   = m_Header.dataOffset() + (long) i * m_RecordsPerSegment * m_Header.recordSize();
+	  records = Math.min(m_RecordsPerSegment, m_Size - (long) i * m_RecordsPerSegment);
+	  m_Segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, records * m_Header.recordSize());
+	}
+      }
+      catch (IOException e) {
+	IOUtils.closeQuietly(m_File);
+	throw e;
+      }
+    }
+
+    /**
+     * Returns the header.
+     *
+     * @return		the header
+     */
+    public Header getHeader() {
+      return m_Header;
+    }
+
+    /**
+     * Returns the meta-data.
+     *
+     * @return		the meta-data (read-only)
+     */
+    public Map<String,String> getMetaData() {
+      return Collections.unmodifiableMap(m_Header.getMetaData());
+    }
+
+    /**
+     * Returns the number of grids.
+     *
+     * @return		the number of grids
+     */
+    public long size() {
+      return m_Size;
+    }
+
+    /**
+     * Copies the raw record of the specified grid into the buffer.
+     *
+     * @param index	the index of the grid
+     * @param record	the buffer to fill, gets allocated if null or too small
+     * @return		the filled buffer
+     * @throws IndexOutOfBoundsException	if invalid index
+     */
+    public byte[] getRecord(long index, byte[] record) {
+      MappedByteBuffer	segment;
+      int		offset;
+      int		i;
+
+      if ((index < 0) || (index >= m_Size))
+	throw new IndexOutOfBoundsException("Index must be 0 <= x < " + m_Size + ", provided: " + index);
+      if ((record == null) || (record.length < m_Header.recordSize()))
+	record = new byte[m_Header.recordSize()];
+
+      segment = m_Segments[(int) (index / m_RecordsPerSegment)];
+      offset  = (int) (index % m_RecordsPerSegment) * m_Header.recordSize();
+      // absolute gets don't modify the buffer's position, ie thread-safe
+      for (i = 0; i < m_Header.recordSize(); i++)
+	record[i] = segment.get(offset + i);
+
+      return record;
+    }
+
+    /**
+     * Copies the cell values of the specified grid into the buffer
+     * (row-wise from the top).
+     *
+     * @param index	the index of the grid
+     * @param cells	the buffer to fill, gets allocated if null or too small
+     * @return		the filled buffer
+     * @throws IndexOutOfBoundsException	if invalid index
+     */
+    public byte[] getCells(long index, byte[] cells) {
+      if ((cells == null) || (cells.length < m_Header.cells()))
+	cells = new byte[m_Header.cells()];
+      unpack(m_Header, getRecord(index, null), cells);
+      return cells;
+    }
+
+    /**
+     * Returns the specified grid.
+     *
+     * @param index	the index of the grid
+     * @return		the grid
+     * @throws IndexOutOfBoundsException	if invalid index
+     */
+    public Grid getGrid(long index) {
+      Grid	result;
+
+      result = new Grid(m_Header.rows(), m_Header.cols(), m_Header.subRows(), m_Header.subCols());
+      result.setCells(getCells(index, null));
+
+      return result;
+    }
+
+    /**
+     * Returns the specified grid in compact form.
+     *
+     * @param index	the index of the grid
+     * @return		the grid
+     * @throws IndexOutOfBoundsException	if invalid index
+     */
+    public CompactGrid getCompactGrid(long index) {
+      CompactGrid	result;
+
+      result = new CompactGrid(m_Header.rows(), m_Header.cols(), m_Header.subRows(), m_Header.subCols());
+      result.setCells(getCells(index, null));
+
+      return result;
+    }
+
+    /**
+     * Closes the file. The mapped memory gets released once the buffers get
+     * garbage collected.
+     */
+    @Override
+    public void close() {
+      m_Segments = new MappedByteBuffer[0];
+      m_Size     = 0;
+      IOUtils.closeQuietly(m_File);
+    }
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   *
+   * @param stream	the stream to use
+   * @param closeStream	whether the iterator should close the stream
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  @Override
+  protected PuzzleIterator doIterator(InputStream stream, boolean closeStream) throws Exception {
+    return new PuzzleStoreIterator(stream, closeStream);
+  }
+
+  /**
+   * Creates a sink for writing grids one at a time using the specified stream.
+   *
+   * @param stream	the stream to write to
+   * @param closeStream	whether the sink should close the stream
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
+   */
+  @Override
+  protected PuzzleSink doSink(OutputStream stream, boolean closeStream) throws Exception {
+    return new PuzzleStoreSink(stream, closeStream);
+  }
+
+  /**
+   * Memory-maps the store for random access. Caller must close the store.
+   * Compressed stores cannot be mapped, use {@link #iterator(File)} instead.
+   *
+   * @param file	the file to map
+   * @return		the mapped store
+   * @throws IOException	if mapping fails or file is compressed
+   */
+  public MappedStore open(File file) throws IOException {
+    if (Compression.detect(file) != Compression.NONE)
+      throw new IOException("Cannot memory-map compressed store: " + file);
+    return new MappedStore(file);
+  }
+
+  /**
+   * Describes the PuzzleStore format for the {@link FormatRegistry}.
+   */
+  public static class PuzzleStoreFormat
+    implements PuzzleFormat {
+
+    /**
+     * Returns the name of the format.
+     *
+     * @return		the name
+     */
+    @Override
+    public String getName() {
+      return "PuzzleStore";
+    }
+
+    /**
+     * Returns the file extensions of the format.
+     *
+     * @return		the extensions
+     */
+    @Override
+    public String[] getExtensions() {
+      return new String[]{EXTENSION};
+    }
+
+    /**
+     * Checks for the magic number.
+     *
+     * @param header	the start of the content
+     * @param length	the number of bytes in the header
+     * @param complete	whether the header is the complete content
+     * @return		the confidence
+     */
+    @Override
+    public int sniff(byte[] header, int length, boolean complete) {
+      if (FormatRegistry.startsWith(header, length, MAGIC))
+	return CERTAIN;
+      return NO_MATCH;
+    }
+
+    /**
+     * Returns a new reader for the format.
+     *
+     * @return		the reader
+     */
+    @Override
+    public PuzzleReader newReader() {
+      return new PuzzleStore();
+    }
+
+    /**
+     * Returns a new writer for the format.
+     *
+     * @return		the writer
+     */
+    @Override
+    public PuzzleWriter newWriter() {
+      return new PuzzleStore();
+    }
+  }
+}
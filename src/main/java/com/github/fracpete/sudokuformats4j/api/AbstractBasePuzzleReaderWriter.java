@@ -0,0 +1,391 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractBasePuzzleReaderWriter.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Common ancestor for classes that can read/write, managing filter, metrics
+ * and error policy. Reading/writing files and streams is handled via the
+ * iterators/sinks that derived classes create for streams. Compressed files
+ * (gzip/xz/zstd) get decompressed/compressed on the fly.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractBasePuzzleReaderWriter
+  implements PuzzleReader, PuzzleWriter {
+
+  /** the filter to apply when reading (can be null). */
+  protected GridFilter m_Filter;
+
+  /** the metrics to update when reading/writing (can be null). */
+  protected PuzzleMetrics m_Metrics;
+
+  /** how to handle lines/games that cannot be parsed. */
+  protected ErrorPolicy m_ErrorPolicy;
+
+  /** the report for collecting the rejects. */
+  protected ErrorReport m_ErrorReport;
+
+  /**
+   * Initializes the reader/writer, collecting rejects in a report with
+   * {@link ErrorReport#DEFAULT_MAX_ENTRIES} entries.
+   */
+  protected AbstractBasePuzzleReaderWriter() {
+    m_ErrorPolicy = ErrorPolicy.COLLECT;
+    m_ErrorReport = new ErrorReport();
+  }
+
+  /**
+   * Sets the filter to apply to the grids when reading, null to keep all.
+   *
+   * @param value	the filter, can be null
+   */
+  public void setFilter(GridFilter value) {
+    m_Filter = value;
+  }
+
+  /**
+   * Returns the filter to apply to the grids when reading.
+   *
+   * @return		the filter, null if none
+   */
+  public GridFilter getFilter() {
+    return m_Filter;
+  }
+
+  /**
+   * Sets the metrics to update when reading/writing, null to disable.
+   *
+   * @param value	the metrics, can be null
+   */
+  public void setMetrics(PuzzleMetrics value) {
+    m_Metrics = value;
+  }
+
+  /**
+   * Returns the metrics to update when reading/writing.
+   *
+   * @return		the metrics, null if disabled
+   */
+  public PuzzleMetrics getMetrics() {
+    return m_Metrics;
+  }
+
+  /**
+   * Sets how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @param value	the policy
+   */
+  public void setErrorPolicy(ErrorPolicy value) {
+    m_ErrorPolicy = value;
+  }
+
+  /**
+   * Returns how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @return		the policy
+   */
+  public ErrorPolicy getErrorPolicy() {
+    return m_ErrorPolicy;
+  }
+
+  /**
+   * Sets the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   *
+   * @param value	the report
+   */
+  public void setErrorReport(ErrorReport value) {
+    m_ErrorReport = value;
+  }
+
+  /**
+   * Returns the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   * Accumulates the rejects of all reads until cleared.
+   *
+   * @return		the report
+   */
+  public ErrorReport getErrorReport() {
+    return m_ErrorReport;
+  }
+
+  /**
+   * Applies the filter, the metrics (if any) and the error policy to the
+   * iterator.
+   *
+   * @param iterator	the iterator to update
+   * @return		the iterator
+   */
+  protected PuzzleIterator filter(PuzzleIterator iterator) {
+    iterator.setErrorPolicy(m_ErrorPolicy);
+    iterator.setErrorReport(m_ErrorReport);
+    if (m_Filter != null)
+      iterator.setFilter(m_Filter);
+    if (m_Metrics != null)
+      iterator.setMetrics(m_Metrics);
+    return iterator;
+  }
+
+  /**
+   * Applies the metrics (if any) to the sink.
+   *
+   * @param sink	the sink to update
+   * @return		the sink
+   */
+  protected PuzzleSink instrument(PuzzleSink sink) {
+    if (m_Metrics != null)
+      sink.setMetrics(m_Metrics);
+    return sink;
+  }
+
+  /**
+   * Wraps the stream to record the bytes read and the I/O time, if metrics
+   * are enabled.
+   *
+   * @param stream	the stream to wrap
+   * @return		the (wrapped) stream
+   */
+  protected InputStream meter(InputStream stream) {
+    if (m_Metrics == null)
+      return stream;
+    return new MeteredInputStream(stream, m_Metrics);
+  }
+
+  /**
+   * Wraps the stream to record the bytes written and the I/O time, if
+   * metrics are enabled.
+   *
+   * @param stream	the stream to wrap
+   * @return		the (wrapped) stream
+   */
+  protected OutputStream meter(OutputStream stream) {
+    if (m_Metrics == null)
+      return stream;
+    return new MeteredOutputStream(stream, m_Metrics);
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   *
+   * @param stream	the stream to use
+   * @param closeStream	whether the iterator should close the stream
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  protected abstract PuzzleIterator doIterator(InputStream stream, boolean closeStream) throws Exception;
+
+  /**
+   * Returns an iterator over the grids in the specified file.
+   * Caller must close the iterator (happens automatically once all grids
+   * have been read).
+   *
+   * @param file	the file to read from
+   * @return		the iterator
+   * @throws Exception	if opening the file fails
+   */
+  public PuzzleIterator iterator(File file) throws Exception {
+    InputStream		stream;
+
+    stream = meter(Compression.open(file));
+    try {
+      return filter(doIterator(stream, true));
+    }
+    catch (Exception e) {
+      IOUtils.closeQuietly(stream);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   * Caller must close the stream.
+   *
+   * @param stream	the stream to use
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  public PuzzleIterator iterator(InputStream stream) throws Exception {
+    return filter(doIterator(meter(Compression.decompressing(stream)), false));
+  }
+
+  /**
+   * Reads all the grids (that pass the filter) from the iterator and
+   * closes it.
+   *
+   * @param iterator	the iterator to read from
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   */
+  protected Puzzles drain(PuzzleIterator iterator) throws Exception {
+    Puzzles	result;
+
+    result = new Puzzles();
+    filter(iterator);
+    try {
+      while (iterator.hasNext())
+	result.add(iterator.next());
+      result.getMetaData().putAll(iterator.getMetaData());
+    }
+    catch (IllegalStateException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+    finally {
+      iterator.close();
+    }
+
+    return result;
+  }
+
+  /**
+   * Reads the puzzles from the specified file.
+   *
+   * @param file	the file to read from
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   */
+  public Puzzles read(File file) throws Exception {
+    return drain(iterator(file));
+  }
+
+  /**
+   * Reads the puzzles using the specified stream.
+   * Caller must close the stream.
+   *
+   * @param stream	the stream to use
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   */
+  public Puzzles read(InputStream stream) throws Exception {
+    return drain(iterator(stream));
+  }
+
+  /**
+   * Creates a sink for writing grids one at a time using the specified stream.
+   *
+   * @param stream	the stream to write to
+   * @param closeStream	whether the sink should close the stream
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
+   */
+  protected abstract PuzzleSink doSink(OutputStream stream, boolean closeStream) throws Exception;
+
+  /**
+   * Opens a sink for writing grids one at a time to the specified file.
+   * Caller must close the sink.
+   *
+   * @param file	the file to write to
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
+   */
+  public PuzzleSink sink(File file, Map<String,String> metaData) throws Exception {
+    OutputStream	fstream;
+    PuzzleSink		result;
+
+    fstream = null;
+    try {
+      fstream = meter(Compression.create(file));
+      result  = instrument(doSink(fstream, true));
+      result.open(metaData);
+      return result;
+    }
+    catch (Exception e) {
+      IOUtils.closeQuietly(fstream);
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a sink for writing grids one at a time using the specified stream.
+   * Caller must close the sink and the stream.
+   *
+   * @param stream	the stream to write to
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
+   */
+  public PuzzleSink sink(OutputStream stream, Map<String,String> metaData) throws Exception {
+    PuzzleSink	result;
+
+    result = instrument(doSink(meter(stream), false));
+    result.open(metaData);
+
+    return result;
+  }
+
+  /**
+   * Writes all the puzzles, including meta-data, to the sink and closes it.
+   *
+   * @param puzzles	the puzzles to write
+   * @param sink	the sink to write to
+   * @throws Exception	if writing fails
+   */
+  protected void feed(Puzzles puzzles, PuzzleSink sink) throws Exception {
+    instrument(sink);
+    try {
+      sink.open(puzzles.getMetaData());
+      for (Grid grid: puzzles)
+	sink.append(grid);
+    }
+    finally {
+      sink.close();
+    }
+  }
+
+  /**
+   * Writes the puzzles to the specified file.
+   *
+   * @param file	the file to read from
+   * @param puzzles 	the puzzles
+   * @throws Exception	if writing fails
+   */
+  public void write(Puzzles puzzles, File file) throws Exception {
+    OutputStream	fstream;
+
+    fstream = null;
+    try {
+      fstream = meter(Compression.create(file));
+      feed(puzzles, doSink(fstream, true));
+    }
+    finally {
+      IOUtils.closeQuietly(fstream);
+    }
+  }
+
+  /**
+   * Writes the puzzles using the specified stream.
+   *
+   * @param stream	the stream to write to
+   * @param puzzles 	the puzzles
+   * @throws Exception	if writing fails
+   */
+  public void write(Puzzles puzzles, OutputStream stream) throws Exception {
+    feed(puzzles, doSink(meter(stream), false));
+  }
+}
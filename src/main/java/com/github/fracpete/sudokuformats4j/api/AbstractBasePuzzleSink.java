@@ -0,0 +1,212 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractBasePuzzleSink.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ancestor for sinks that write grids one at a time, independent of
+ * whether they write to a writer or a binary stream.
+ * Derived classes need to implement {@link #doAppend(Grid)}, flushing and
+ * closing the output and, if the format has a header/footer,
+ * {@link #doOpen(Map)}/{@link #doClose()}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractBasePuzzleSink
+  implements PuzzleSink {
+
+  /** whether the sink has been opened. */
+  protected boolean m_Opened;
+
+  /** whether the sink has been closed. */
+  protected boolean m_Closed;
+
+  /** the number of grids appended. */
+  protected long m_Count;
+
+  /** the metrics to update (can be null). */
+  protected PuzzleMetrics m_Metrics;
+
+  /**
+   * Initializes the sink.
+   */
+  protected AbstractBasePuzzleSink() {
+    m_Opened  = false;
+    m_Closed  = false;
+    m_Count   = 0;
+    m_Metrics = null;
+  }
+
+  /**
+   * Writes the header, including the meta-data.
+   * Default implementation does nothing.
+   *
+   * @param metaData	the meta-data to write
+   * @throws Exception	if writing fails
+   */
+  protected void doOpen(Map<String,String> metaData) throws Exception {
+  }
+
+  /**
+   * Writes the header, including the meta-data.
+   *
+   * @param metaData	the meta-data to write, can be null
+   * @throws Exception	if writing fails or sink already opened
+   */
+  @Override
+  public void open(Map<String,String> metaData) throws Exception {
+    if (m_Opened)
+      throw new IllegalStateException("Sink has already been opened!");
+    if (m_Closed)
+      throw new IllegalStateException("Sink has already been closed!");
+    if (metaData == null)
+      metaData = new HashMap<>();
+    m_Opened = true;
+    doOpen(metaData);
+  }
+
+  /**
+   * Appends the grid.
+   *
+   * @param grid	the grid to append
+   * @throws Exception	if writing fails
+   */
+  protected abstract void doAppend(Grid grid) throws Exception;
+
+  /**
+   * Appends the grid. Opens the sink without meta-data if not yet opened.
+   *
+   * @param grid	the grid to append
+   * @throws Exception	if writing fails
+   */
+  @Override
+  public void append(Grid grid) throws Exception {
+    long	start;
+
+    if (m_Closed)
+      throw new IllegalStateException("Sink has already been closed!");
+    if (!m_Opened)
+      open(null);
+    if (m_Metrics == null) {
+      doAppend(grid);
+    }
+    else {
+      start = System.nanoTime();
+      doAppend(grid);
+      m_Metrics.record(PuzzleMetrics.Stage.WRITE, System.nanoTime() - start);
+      m_Metrics.increment(PuzzleMetrics.Counter.GRIDS_WRITTEN, 1);
+    }
+    m_Count++;
+  }
+
+  /**
+   * Returns the number of grids appended so far.
+   *
+   * @return		the number of grids
+   */
+  @Override
+  public long getCount() {
+    return m_Count;
+  }
+
+  /**
+   * Sets the metrics to update while writing, null to disable.
+   *
+   * @param value	the metrics, can be null
+   */
+  @Override
+  public void setMetrics(PuzzleMetrics value) {
+    m_Metrics = value;
+  }
+
+  /**
+   * Returns the metrics to update while writing.
+   *
+   * @return		the metrics, null if disabled
+   */
+  @Override
+  public PuzzleMetrics getMetrics() {
+    return m_Metrics;
+  }
+
+  /**
+   * Flushes the underlying writer/stream.
+   *
+   * @throws IOException	if flushing fails
+   */
+  protected abstract void flushOutput() throws IOException;
+
+  /**
+   * Closes the underlying writer/stream if owned by the sink.
+   */
+  protected abstract void closeOutput();
+
+  /**
+   * Flushes the output.
+   *
+   * @throws IOException	if flushing fails
+   */
+  @Override
+  public void flush() throws IOException {
+    flushOutput();
+  }
+
+  /**
+   * Writes the footer.
+   * Default implementation does nothing.
+   *
+   * @throws Exception	if writing fails
+   */
+  protected void doClose() throws Exception {
+  }
+
+  /**
+   * Writes the footer, flushes the output and closes it if owned by the sink.
+   *
+   * @throws IOException	if finishing the output fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (m_Closed)
+      return;
+
+    try {
+      if (!m_Opened)
+	open(null);
+      m_Closed = true;
+      doClose();
+      flushOutput();
+    }
+    catch (IOException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw new IOException("Failed to close sink!", e);
+    }
+    finally {
+      m_Closed = true;
+      closeOutput();
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractBinaryPuzzleReaderWriter.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * Ancestor for binary formats that can read/write. Only requires to
+ * implement the methods for creating iterators/sinks via streams.
+ * Only implements {@link PuzzleReader}/{@link PuzzleWriter}, as binary
+ * formats cannot be read/written via Reader/Writer (the corresponding
+ * default methods throw an {@link UnsupportedOperationException}).
+ * Compressed files (gzip/xz/zstd) get decompressed/compressed on the fly.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractBinaryPuzzleReaderWriter
+  extends AbstractBasePuzzleReaderWriter {
+}
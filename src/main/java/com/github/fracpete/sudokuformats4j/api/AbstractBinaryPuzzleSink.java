@@ -0,0 +1,77 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractBinaryPuzzleSink.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Ancestor for sinks that write grids one at a time to a binary stream.
+ * Derived classes need to implement {@link #doAppend(Grid)} and, if
+ * the format has a header/footer, {@link #doOpen(Map)}/{@link #doClose()}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractBinaryPuzzleSink
+  extends AbstractBasePuzzleSink {
+
+  /** the (buffered) stream to write to. */
+  protected DataOutputStream m_Stream;
+
+  /** whether to close the stream when closing the sink. */
+  protected boolean m_CloseStream;
+
+  /**
+   * Initializes the sink.
+   *
+   * @param stream	the stream to write to
+   * @param closeStream	whether to close the stream when closing the sink
+   */
+  protected AbstractBinaryPuzzleSink(OutputStream stream, boolean closeStream) {
+    super();
+    m_Stream      = new DataOutputStream(new BufferedOutputStream(stream));
+    m_CloseStream = closeStream;
+  }
+
+  /**
+   * Flushes the stream.
+   *
+   * @throws IOException	if flushing fails
+   */
+  @Override
+  protected void flushOutput() throws IOException {
+    m_Stream.flush();
+  }
+
+  /**
+   * Closes the stream if owned by the sink.
+   */
+  @Override
+  protected void closeOutput() {
+    if (m_CloseStream)
+      IOUtils.closeQuietly(m_Stream);
+  }
+}
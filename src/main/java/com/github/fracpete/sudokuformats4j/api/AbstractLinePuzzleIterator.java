@@ -0,0 +1,139 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractLinePuzzleIterator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Closeable;
+
+/**
+ * Ancestor for iterators that parse grids from their line representation.
+ * By default, the codec gets determined from the first line that has the
+ * length of a grid and lines of other lengths get rejected (according to
+ * the error policy). Alternatively, the codec can be set explicitly or
+ * the dimensions can be inferred from the length of each line, allowing
+ * grids of different sizes.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractLinePuzzleIterator
+  extends AbstractPuzzleIterator {
+
+  /** the codec to use (null until determined from the first line). */
+  protected LineCodec m_Codec;
+
+  /** whether to infer the dimensions from the length of each line. */
+  protected boolean m_InferDimensions;
+
+  /**
+   * Initializes the iterator.
+   *
+   * @param source	the reader/stream to read from
+   * @param closeSource	whether to close the reader/stream when closing the iterator
+   */
+  protected AbstractLinePuzzleIterator(Closeable source, boolean closeSource) {
+    super(source, closeSource);
+    m_Codec           = null;
+    m_InferDimensions = false;
+  }
+
+  /**
+   * Sets the codec to use, null to determine it from the first line.
+   *
+   * @param value	the codec, can be null
+   */
+  public void setCodec(LineCodec value) {
+    m_Codec = value;
+  }
+
+  /**
+   * Returns the codec in use.
+   *
+   * @return		the codec, null if not yet determined
+   */
+  public LineCodec getCodec() {
+    return m_Codec;
+  }
+
+  /**
+   * Sets whether to infer the dimensions from the length of each line
+   * rather than rejecting lines that do not match the codec.
+   *
+   * @param value	true if to infer the dimensions
+   * @see		LineCodec#forLength(int)
+   */
+  public void setInferDimensions(boolean value) {
+    m_InferDimensions = value;
+  }
+
+  /**
+   * Returns whether to infer the dimensions from the length of each line.
+   *
+   * @return		true if to infer the dimensions
+   */
+  public boolean getInferDimensions() {
+    return m_InferDimensions;
+  }
+
+  /**
+   * Returns the codec for a line of the specified length. The first
+   * supported length determines the codec, if not set explicitly.
+   *
+   * @param length	the length of the line
+   * @return		the codec, null if the length is not supported
+   */
+  protected LineCodec codecFor(int length) {
+    LineCodec	result;
+
+    if ((m_Codec != null) && (m_Codec.length() == length))
+      return m_Codec;
+    if ((m_Codec != null) && !m_InferDimensions)
+      return null;
+
+    result = LineCodec.forLength(length);
+    if (m_Codec == null)
+      m_Codec = result;
+
+    return result;
+  }
+
+  /**
+   * Parses the line, timing it as {@link PuzzleMetrics.Stage#DECODE}.
+   *
+   * @param line	the line to parse
+   * @return		the grid, null if the length is not supported
+   */
+  protected Grid decode(CharSequence line) {
+    Grid	result;
+    LineCodec	codec;
+    long	start;
+
+    codec = codecFor(line.length());
+    if (codec == null)
+      return null;
+    if (m_Metrics == null)
+      return codec.decode(line);
+
+    start  = System.nanoTime();
+    result = codec.decode(line);
+    m_Metrics.record(PuzzleMetrics.Stage.DECODE, System.nanoTime() - start);
+
+    return result;
+  }
+}
@@ -0,0 +1,379 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractPuzzleIterator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ancestor for iterators that read grids one at a time from a reader or
+ * stream.
+ * Derived classes only need to implement {@link #doNext()}.
+ * The iterator closes itself once all grids have been read.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractPuzzleIterator
+  implements PuzzleIterator {
+
+  /** the reader/stream to read from. */
+  protected Closeable m_Source;
+
+  /** whether to close the reader/stream when closing the iterator. */
+  protected boolean m_CloseSource;
+
+  /** the meta-data. */
+  protected Map<String,String> m_MetaData;
+
+  /** the next grid (if already read). */
+  protected Grid m_Next;
+
+  /** whether all grids have been read. */
+  protected boolean m_Finished;
+
+  /** whether the iterator has been closed. */
+  protected boolean m_Closed;
+
+  /** the filter to apply (can be null). */
+  protected GridFilter m_Filter;
+
+  /** the metrics to update (can be null). */
+  protected PuzzleMetrics m_Metrics;
+
+  /** when the last grid was read (for timing the downstream code), 0 if none. */
+  protected long m_Returned;
+
+  /** how to handle lines/games that cannot be parsed. */
+  protected ErrorPolicy m_ErrorPolicy;
+
+  /** the report for collecting the rejects (can be null). */
+  protected ErrorReport m_ErrorReport;
+
+  /**
+   * Initializes the iterator.
+   *
+   * @param source	the reader/stream to read from
+   * @param closeSource	whether to close the reader/stream when closing the iterator
+   */
+  protected AbstractPuzzleIterator(Closeable source, boolean closeSource) {
+    m_Source      = source;
+    m_CloseSource = closeSource;
+    m_MetaData    = new HashMap<>();
+    m_Next        = null;
+    m_Finished    = false;
+    m_Closed      = false;
+    m_Filter      = null;
+    m_Metrics     = null;
+    m_Returned    = 0;
+    m_ErrorPolicy = ErrorPolicy.SKIP;
+    m_ErrorReport = null;
+  }
+
+  /**
+   * Returns the meta-data encountered so far.
+   *
+   * @return		the meta-data
+   */
+  @Override
+  public Map<String,String> getMetaData() {
+    return m_MetaData;
+  }
+
+  /**
+   * Sets the filter for the grids, null to pass on all grids.
+   *
+   * @param value	the filter, can be null
+   */
+  @Override
+  public void setFilter(GridFilter value) {
+    m_Filter = value;
+  }
+
+  /**
+   * Returns the filter for the grids.
+   *
+   * @return		the filter, null if none
+   */
+  @Override
+  public GridFilter getFilter() {
+    return m_Filter;
+  }
+
+  /**
+   * Sets the metrics to update while reading, null to disable.
+   *
+   * @param value	the metrics, can be null
+   */
+  @Override
+  public void setMetrics(PuzzleMetrics value) {
+    m_Metrics = value;
+  }
+
+  /**
+   * Returns the metrics to update while reading.
+   *
+   * @return		the metrics, null if disabled
+   */
+  @Override
+  public PuzzleMetrics getMetrics() {
+    return m_Metrics;
+  }
+
+  /**
+   * Sets how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @param value	the policy
+   */
+  @Override
+  public void setErrorPolicy(ErrorPolicy value) {
+    m_ErrorPolicy = value;
+  }
+
+  /**
+   * Returns how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @return		the policy
+   */
+  @Override
+  public ErrorPolicy getErrorPolicy() {
+    return m_ErrorPolicy;
+  }
+
+  /**
+   * Sets the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   *
+   * @param value	the report, null to skip rejects instead
+   */
+  @Override
+  public void setErrorReport(ErrorReport value) {
+    m_ErrorReport = value;
+  }
+
+  /**
+   * Returns the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   *
+   * @return		the report, null if none
+   */
+  @Override
+  public ErrorReport getErrorReport() {
+    return m_ErrorReport;
+  }
+
+  /**
+   * Handles a line/game that could not be parsed into a grid, according
+   * to the error policy.
+   *
+   * @param line	the line number (1-based)
+   * @param text	the text that failed to parse
+   * @throws GridParseException	if failing fast
+   */
+  protected void rejected(long line, CharSequence text) throws GridParseException {
+    if (m_Metrics != null)
+      m_Metrics.increment(PuzzleMetrics.Counter.REJECTED, 1);
+    switch (m_ErrorPolicy) {
+      case COLLECT:
+	if (m_ErrorReport != null)
+	  m_ErrorReport.add(line, text);
+	break;
+      case FAIL:
+	throw new GridParseException(ErrorReport.Entry.of(line, text));
+    }
+  }
+
+  /**
+   * Handles a line that could not be parsed into a grid, according to the
+   * error policy. The bytes only get turned into a string if necessary.
+   *
+   * @param line	the line number (1-based)
+   * @param buffer	the buffer with the text
+   * @param offset	the start of the text in the buffer
+   * @param length	the length of the text
+   * @throws GridParseException	if failing fast
+   */
+  protected void rejected(long line, byte[] buffer, int offset, int length) throws GridParseException {
+    if (m_Metrics != null)
+      m_Metrics.increment(PuzzleMetrics.Counter.REJECTED, 1);
+    switch (m_ErrorPolicy) {
+      case COLLECT:
+	if (m_ErrorReport != null)
+	  m_ErrorReport.add(line, buffer, offset, length);
+	break;
+      case FAIL:
+	throw new GridParseException(ErrorReport.Entry.of(line, buffer, offset, length));
+    }
+  }
+
+  /**
+   * Reads the next grid.
+   *
+   * @return		the next grid, null if no more grids available
+   * @throws Exception	if reading fails
+   */
+  protected abstract Grid doNext() throws Exception;
+
+  /**
+   * Reads the next grid that passes the filter, updating the metrics.
+   * The end of one stage is the start of the next one, to keep the number
+   * of clock reads per grid low.
+   *
+   * @param start	the start of reading
+   * @return		the next grid, null if no more grids available
+   * @throws Exception	if reading fails
+   */
+  protected Grid doNextMetered(long start) throws Exception {
+    Grid	result;
+    long	end;
+    boolean	accepted;
+
+    while (true) {
+      result = doNext();
+      if (result == null)
+	return null;
+      end = System.nanoTime();
+      m_Metrics.record(PuzzleMetrics.Stage.READ, end - start);
+      m_Metrics.increment(PuzzleMetrics.Counter.GRIDS_READ, 1);
+      if (m_Filter == null) {
+	m_Returned = end;
+	return result;
+      }
+      accepted = m_Filter.accept(result);
+      start    = System.nanoTime();
+      m_Metrics.record(PuzzleMetrics.Stage.FILTER, start - end);
+      if (accepted) {
+	m_Returned = start;
+	return result;
+      }
+      m_Metrics.increment(PuzzleMetrics.Counter.FILTERED, 1);
+    }
+  }
+
+  /**
+   * Returns whether another grid is available (that passes the filter).
+   *
+   * @return		true if another grid is available
+   * @throws IllegalStateException	if reading fails
+   */
+  @Override
+  public boolean hasNext() {
+    long	start;
+
+    if (m_Next != null)
+      return true;
+    if (m_Finished)
+      return false;
+
+    try {
+      if (m_Metrics == null) {
+	do {
+	  m_Next = doNext();
+	}
+	while ((m_Next != null) && (m_Filter != null) && !m_Filter.accept(m_Next));
+      }
+      else {
+	start = System.nanoTime();
+	if (m_Returned != 0)
+	  m_Metrics.record(PuzzleMetrics.Stage.DOWNSTREAM, start - m_Returned);
+	m_Returned = 0;
+	m_Next     = doNextMetered(start);
+      }
+    }
+    catch (Exception e) {
+      close();
+      throw new IllegalStateException("Failed to read next grid!", e);
+    }
+
+    if (m_Next == null)
+      close();
+
+    return (m_Next != null);
+  }
+
+  /**
+   * Returns the next grid.
+   *
+   * @return		the next grid
+   * @throws NoSuchElementException	if no more grids available
+   * @throws IllegalStateException	if reading fails
+   */
+  @Override
+  public Grid next() {
+    Grid	result;
+
+    if (!hasNext())
+      throw new NoSuchElementException("No more grids available!");
+
+    result = m_Next;
+    m_Next = null;
+
+    return result;
+  }
+
+  /**
+   * Hook method for releasing resources, e.g., parsers.
+   * Default implementation does nothing.
+   *
+   * @throws Exception	if cleaning up fails
+   */
+  protected void doClose() throws Exception {
+  }
+
+  /**
+   * Closes the iterator and, if owned by the iterator, the underlying
+   * reader/stream.
+   */
+  @Override
+  public void close() {
+    if (m_Closed)
+      return;
+
+    m_Closed   = true;
+    m_Finished = true;
+    try {
+      doClose();
+    }
+    catch (Exception e) {
+      // ignored
+    }
+    if (m_CloseSource)
+      IOUtils.closeQuietly(m_Source);
+  }
+
+  /**
+   * Returns the remaining grids as sequential stream.
+   * Closing the stream closes the iterator.
+   *
+   * @return		the stream
+   */
+  @Override
+  public Stream<Grid> stream() {
+    return StreamSupport.stream(
+      Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+      .onClose(this::close);
+  }
+}
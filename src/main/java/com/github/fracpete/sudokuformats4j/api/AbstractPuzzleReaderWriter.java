@@ -20,52 +20,140 @@
 
 package com.github.fracpete.sudokuformats4j.api;
 
-import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+import org.apache.commons.io.input.BOMInputStream;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * Ancestor for classes that can read/write. Only requires to implement
- * the methods reading/writing via Reader/Writer.
+ * the methods for creating iterators/sinks via Reader/Writer, files and
+ * streams get wrapped in UTF-8 readers/writers.
+ * By default, the dimensions of the grids get determined from the first
+ * line/game and others of different length get rejected.
  *
  * @author FracPete (fracpete at waikato dot ac dot nz)
  */
 public abstract class AbstractPuzzleReaderWriter
-  implements PuzzleReader, PuzzleWriter {
+  extends AbstractBasePuzzleReaderWriter
+  implements TextPuzzleReader, TextPuzzleWriter {
+
+  /** the codec to use for reading (null to determine from first line). */
+  protected LineCodec m_Codec;
+
+  /** whether to infer the dimensions from the length of each line. */
+  protected boolean m_InferDimensions;
+
+  /**
+   * Initializes the reader/writer.
+   */
+  protected AbstractPuzzleReaderWriter() {
+    super();
+    m_Codec           = null;
+    m_InferDimensions = false;
+  }
 
   /**
-   * Reads the puzzles from the specified file.
+   * Sets the codec to use for reading, null to determine it from the
+   * first line/game. Lines/games of other lengths get rejected, unless
+   * the dimensions get inferred.
    *
-   * @param file	the file to read from
-   * @return		the puzzles
-   * @throws Exception	if reading fails
+   * @param value	the codec, can be null
+   */
+  public void setCodec(LineCodec value) {
+    m_Codec = value;
+  }
+
+  /**
+   * Returns the codec to use for reading.
+   *
+   * @return		the codec, null if determined from the first line/game
    */
-  public Puzzles read(File file) throws Exception {
-    FileReader		freader;
-    BufferedReader	breader;
+  public LineCodec getCodec() {
+    return m_Codec;
+  }
 
-    freader = null;
-    breader = null;
+  /**
+   * Sets whether to infer the dimensions from the length of each
+   * line/game, allowing grids of different sizes in the same collection.
+   *
+   * @param value	true if to infer the dimensions
+   * @see		LineCodec#forLength(int)
+   */
+  public void setInferDimensions(boolean value) {
+    m_InferDimensions = value;
+  }
 
-    try {
-      freader = new FileReader(file);
-      breader = new BufferedReader(freader);
-      return read(breader);
-    }
-    finally {
-      IOUtils.closeQuietly(breader);
-      IOUtils.closeQuietly(freader);
+  /**
+   * Returns whether to infer the dimensions from the length of each
+   * line/game.
+   *
+   * @return		true if to infer the dimensions
+   */
+  public boolean getInferDimensions() {
+    return m_InferDimensions;
+  }
+
+  /**
+   * Applies the filter, the metrics (if any), the error policy and the
+   * codec settings to the iterator.
+   *
+   * @param iterator	the iterator to update
+   * @return		the iterator
+   */
+  @Override
+  protected PuzzleIterator filter(PuzzleIterator iterator) {
+    super.filter(iterator);
+    if (iterator instanceof AbstractLinePuzzleIterator) {
+      ((AbstractLinePuzzleIterator) iterator).setCodec(m_Codec);
+      ((AbstractLinePuzzleIterator) iterator).setInferDimensions(m_InferDimensions);
     }
+    return iterator;
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified reader.
+   *
+   * @param reader	the reader to use
+   * @param closeReader	whether the iterator should close the reader
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  protected abstract PuzzleIterator doIterator(Reader reader, boolean closeReader) throws Exception;
+
+  /**
+   * Returns an iterator over the grids using the specified stream, which
+   * gets wrapped in a UTF-8 reader (skipping a byte order mark).
+   *
+   * @param stream	the stream to use
+   * @param closeStream	whether the iterator should close the stream
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  @Override
+  protected PuzzleIterator doIterator(InputStream stream, boolean closeStream) throws Exception {
+    stream = BOMInputStream.builder().setInputStream(stream).get();
+    return doIterator(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)), closeStream);
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified reader.
+   * Caller must close the reader.
+   *
+   * @param reader	the reader to use
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  public PuzzleIterator iterator(Reader reader) throws Exception {
+    return filter(doIterator(reader, false));
   }
 
   /**
@@ -76,7 +164,9 @@ public abstract class AbstractPuzzleReaderWriter
    * @return		the puzzles
    * @throws Exception	if reading fails
    */
-  protected abstract Puzzles doRead(Reader reader) throws Exception;
+  protected Puzzles doRead(Reader reader) throws Exception {
+    return drain(doIterator(reader, false));
+  }
 
   /**
    * Reads the puzzles using the specified reader.
@@ -91,87 +181,66 @@ public abstract class AbstractPuzzleReaderWriter
   }
 
   /**
-   * Reads the puzzles using the specified stream.
-   * Caller must close the stream.
+   * Creates a sink for writing grids one at a time using the specified writer.
    *
-   * @param stream	the stream to use
-   * @return		the puzzles
-   * @throws Exception	if reading fails
+   * @param writer	the writer to write to
+   * @param closeWriter	whether the sink should close the writer
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
    */
-  public Puzzles read(InputStream stream) throws Exception {
-    InputStreamReader   reader;
-
-    reader = null;
-    try {
-      reader = new InputStreamReader(stream);
-      return read(reader);
-    }
-    finally {
-      IOUtils.closeQuietly(reader);
-    }
-  }
+  protected abstract PuzzleSink doSink(Writer writer, boolean closeWriter) throws Exception;
 
   /**
-   * Writes the puzzles to the specified file.
+   * Creates a sink for writing grids one at a time using the specified
+   * stream, which gets wrapped in a UTF-8 writer.
    *
-   * @param file	the file to read from
-   * @param puzzles 	the puzzles
-   * @throws Exception	if writing fails
+   * @param stream	the stream to write to
+   * @param closeStream	whether the sink should close the stream
+   * @return		the sink (not yet opened)
+   * @throws Exception	if initializing the sink fails
    */
-  public void write(Puzzles puzzles, File file) throws Exception {
-    FileWriter 		fwriter;
-    BufferedWriter 	bwriter;
-
-    fwriter = null;
-    bwriter = null;
-    try {
-      fwriter = new FileWriter(file);
-      bwriter = new BufferedWriter(fwriter);
-      write(puzzles, bwriter);
-    }
-    finally {
-      IOUtils.closeQuietly(bwriter);
-      IOUtils.closeQuietly(fwriter);
-    }
+  @Override
+  protected PuzzleSink doSink(OutputStream stream, boolean closeStream) throws Exception {
+    return doSink(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)), closeStream);
   }
 
   /**
-   * Writes the puzzles using the specified writer.
+   * Opens a sink for writing grids one at a time using the specified writer.
+   * Caller must close the sink and the writer.
    *
    * @param writer	the writer to write to
-   * @param puzzles 	the puzzles
-   * @throws Exception	if writing fails
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
    */
-  protected abstract void doWrite(Puzzles puzzles, Writer writer) throws Exception;
+  public PuzzleSink sink(Writer writer, Map<String,String> metaData) throws Exception {
+    PuzzleSink	result;
+
+    result = instrument(doSink(writer, false));
+    result.open(metaData);
+
+    return result;
+  }
 
   /**
    * Writes the puzzles using the specified writer.
    *
-   * @param writer	the writer to write to
    * @param puzzles 	the puzzles
+   * @param writer	the writer to write to
    * @throws Exception	if writing fails
    */
-  public void write(Puzzles puzzles, Writer writer) throws Exception {
-    doWrite(puzzles, writer);
+  protected void doWrite(Puzzles puzzles, Writer writer) throws Exception {
+    feed(puzzles, doSink(writer, false));
   }
 
   /**
-   * Writes the puzzles using the specified stream.
+   * Writes the puzzles using the specified writer.
    *
-   * @param stream	the stream to write to
    * @param puzzles 	the puzzles
+   * @param writer	the writer to write to
    * @throws Exception	if writing fails
    */
-  public void write(Puzzles puzzles, OutputStream stream) throws Exception {
-    OutputStreamWriter	writer;
-
-    writer = null;
-    try {
-      writer = new OutputStreamWriter(stream);
-      write(puzzles, writer);
-    }
-    finally {
-      IOUtils.closeQuietly(writer);
-    }
+  public void write(Puzzles puzzles, Writer writer) throws Exception {
+    doWrite(puzzles, writer);
   }
 }
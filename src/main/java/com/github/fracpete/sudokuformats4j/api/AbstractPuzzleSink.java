@@ -0,0 +1,80 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractPuzzleSink.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Ancestor for sinks that write grids one at a time to a writer.
+ * Derived classes need to implement {@link #doAppend(Grid)} and, if
+ * the format has a header/footer, {@link #doOpen(Map)}/{@link #doClose()}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractPuzzleSink
+  extends AbstractBasePuzzleSink {
+
+  /** the (buffered) writer to write to. */
+  protected BufferedWriter m_Writer;
+
+  /** whether to close the writer when closing the sink. */
+  protected boolean m_CloseWriter;
+
+  /**
+   * Initializes the sink. Wraps the writer in a {@link BufferedWriter}
+   * if necessary.
+   *
+   * @param writer	the writer to write to
+   * @param closeWriter	whether to close the writer when closing the sink
+   */
+  protected AbstractPuzzleSink(Writer writer, boolean closeWriter) {
+    super();
+    if (writer instanceof BufferedWriter)
+      m_Writer = (BufferedWriter) writer;
+    else
+      m_Writer = new BufferedWriter(writer);
+    m_CloseWriter = closeWriter;
+  }
+
+  /**
+   * Flushes the writer.
+   *
+   * @throws IOException	if flushing fails
+   */
+  @Override
+  protected void flushOutput() throws IOException {
+    m_Writer.flush();
+  }
+
+  /**
+   * Closes the writer if owned by the sink.
+   */
+  @Override
+  protected void closeOutput() {
+    if (m_CloseWriter)
+      IOUtils.closeQuietly(m_Writer);
+  }
+}
@@ -0,0 +1,434 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CompactGrid.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Memory-efficient alternative to {@link Grid}, packing the cell values
+ * into longs (4 bits per cell for a standard 9x9 grid, ie 6 longs in total)
+ * instead of using {@link SubGrid} objects. Suitable for keeping large
+ * numbers of puzzles in memory.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CompactGrid
+  implements Serializable {
+
+  /** the number of rows. */
+  protected byte m_Rows;
+
+  /** the number of columns. */
+  protected byte m_Cols;
+
+  /** the number of rows in the subgrids. */
+  protected byte m_SubRows;
+
+  /** the number of columns in the subgrids. */
+  protected byte m_SubCols;
+
+  /** the number of bits per cell. */
+  protected byte m_Bits;
+
+  /** the packed cell values (row-wise from top, cells don't straddle longs). */
+  protected long[] m_Cells;
+
+  /**
+   * Initializes the grid (3x3 with 3x3 subgrids).
+   */
+  public CompactGrid() {
+    this(3, 3, 3, 3);
+  }
+
+  /**
+   * Initializes the grid.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @throws IllegalArgumentException	if dimensions are not in 1-127
+   */
+  public CompactGrid(int rows, int cols, int subRows, int subCols) {
+    int		perWord;
+
+    if ((rows < 1) || (rows > Byte.MAX_VALUE) || (cols < 1) || (cols > Byte.MAX_VALUE)
+      || (subRows < 1) || (subRows > Byte.MAX_VALUE) || (subCols < 1) || (subCols > Byte.MAX_VALUE))
+      throw new IllegalArgumentException("Dimensions must be 1 <= x <= " + Byte.MAX_VALUE);
+
+    m_Rows    = (byte) rows;
+    m_Cols    = (byte) cols;
+    m_SubRows = (byte) subRows;
+    m_SubCols = (byte) subCols;
+    m_Bits    = (byte) bits(subRows * subCols);
+    perWord   = Long.SIZE / m_Bits;
+    m_Cells   = new long[(rows*subRows*cols*subCols + perWord - 1) / perWord];
+  }
+
+  /**
+   * Returns the number of bits required for storing values 0 to max.
+   *
+   * @param max		the maximum value
+   * @return		the number of bits
+   */
+  public static int bits(int max) {
+    return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(max));
+  }
+
+  /**
+   * Returns the number of rows in the grid.
+   *
+   * @return		the number of rows
+   */
+  public int rows() {
+    return m_Rows;
+  }
+
+  /**
+   * Returns the number of columns in the grid.
+   *
+   * @return		the number of columns
+   */
+  public int cols() {
+    return m_Cols;
+  }
+
+  /**
+   * Returns the number of rows in the subgrids.
+   *
+   * @return		the number of rows
+   */
+  public int subRows() {
+    return m_SubRows;
+  }
+
+  /**
+   * Returns the number of columns in the subgrids.
+   *
+   * @return		the number of columns
+   */
+  public int subCols() {
+    return m_SubCols;
+  }
+
+  /**
+   * Returns the total number of cell rows (rows * subRows).
+   *
+   * @return		the height
+   */
+  public int height() {
+    return m_Rows * m_SubRows;
+  }
+
+  /**
+   * Returns the total number of cell columns (cols * subCols).
+   *
+   * @return		the width
+   */
+  public int width() {
+    return m_Cols * m_SubCols;
+  }
+
+  /**
+   * Returns the largest value that can be stored in a cell.
+   *
+   * @return		the maximum
+   */
+  protected int maxValue() {
+    return (1 << m_Bits) - 1;
+  }
+
+  /**
+   * Returns the packed value at the specified cell index.
+   *
+   * @param index	the index of the cell (row-wise from top)
+   * @return		the value
+   */
+  protected byte getValue(int index) {
+    int		perWord;
+
+    perWord = Long.SIZE / m_Bits;
+    return (byte) ((m_Cells[index / perWord] >>> ((index % perWord) * m_Bits)) & maxValue());
+  }
+
+  /**
+   * Stores the value at the specified cell index.
+   *
+   * @param index	the index of the cell (row-wise from top)
+   * @param value	the value
+   */
+  protected void setValue(int index, byte value) {
+    int		perWord;
+    int		word;
+    int		shift;
+
+    perWord = Long.SIZE / m_Bits;
+    word    = index / perWord;
+    shift   = (index % perWord) * m_Bits;
+    m_Cells[word] = (m_Cells[word] & ~((long) maxValue() << shift)) | ((long) value << shift);
+  }
+
+  /**
+   * Checks the absolute cell coordinates.
+   *
+   * @param y		the cell row to check
+   * @param x		the cell column to check
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  protected void check(int y, int x) {
+    if ((y < 0) || (y >= height()))
+      throw new IllegalArgumentException("Row must be 0 <= y < " + height());
+    if ((x < 0) || (x >= width()))
+      throw new IllegalArgumentException("Column must be 0 <= x < " + width());
+  }
+
+  /**
+   * Checks the value, which must not exceed the number of digits
+   * (subRows * subCols).
+   *
+   * @param value	the value to check
+   * @return		the value to store
+   * @throws IllegalArgumentException	if value is not a valid digit
+   */
+  protected byte check(byte value) {
+    if (value > m_SubRows * m_SubCols)
+      throw new IllegalArgumentException("Value must be <= " + (m_SubRows * m_SubCols) + ", provided: " + value);
+    return (value < 0) ? 0 : value;
+  }
+
+  /**
+   * Sets the value of the cell, using absolute coordinates.
+   *
+   * @param y		the cell row (0-based)
+   * @param x		the cell column (0-based)
+   * @param value	the value (<= 0 means empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates or value
+   */
+  public void setCell(int y, int x, byte value) {
+    check(y, x);
+    setValue(y*width() + x, check(value));
+  }
+
+  /**
+   * Returns the value of the cell, using absolute coordinates.
+   *
+   * @param y		the cell row (0-based)
+   * @param x		the cell column (0-based)
+   * @return		the value (0 = means empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public byte getCell(int y, int x) {
+    check(y, x);
+    return getValue(y*width() + x);
+  }
+
+  /**
+   * Sets the cell value, using the same coordinates as
+   * {@link Grid#get(int, int)} and {@link SubGrid#set(int, int, byte)}.
+   *
+   * @param row		the row of the subgrid (0-based)
+   * @param col		the column of the subgrid (0-based)
+   * @param subRow	the row of the cell in the subgrid (0-based)
+   * @param subCol	the column of the cell in the subgrid (0-based)
+   * @param value	the value (<= 0 means empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates or value
+   */
+  public void set(int row, int col, int subRow, int subCol, byte value) {
+    if ((subRow < 0) || (subRow >= m_SubRows))
+      throw new IllegalArgumentException("Row must be 0 <= y < " + m_SubRows);
+    if ((subCol < 0) || (subCol >= m_SubCols))
+      throw new IllegalArgumentException("Column must be 0 <= x < " + m_SubCols);
+    setCell(row*m_SubRows + subRow, col*m_SubCols + subCol, value);
+  }
+
+  /**
+   * Returns the cell value, using the same coordinates as
+   * {@link Grid#get(int, int)} and {@link SubGrid#get(int, int)}.
+   *
+   * @param row		the row of the subgrid (0-based)
+   * @param col		the column of the subgrid (0-based)
+   * @param subRow	the row of the cell in the subgrid (0-based)
+   * @param subCol	the column of the cell in the subgrid (0-based)
+   * @return		the value (0 = means empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public byte get(int row, int col, int subRow, int subCol) {
+    if ((subRow < 0) || (subRow >= m_SubRows))
+      throw new IllegalArgumentException("Row must be 0 <= y < " + m_SubRows);
+    if ((subCol < 0) || (subCol >= m_SubCols))
+      throw new IllegalArgumentException("Column must be 0 <= x < " + m_SubCols);
+    return getCell(row*m_SubRows + subRow, col*m_SubCols + subCol);
+  }
+
+  /**
+   * Copies all cell values into the array (row-wise, from top).
+   *
+   * @param cells	the array to fill, gets allocated if null or too small
+   * @return		the filled array
+   */
+  public byte[] getCells(byte[] cells) {
+    int		n;
+    int		i;
+
+    n = height() * width();
+    if ((cells == null) || (cells.length < n))
+      cells = new byte[n];
+    for (i = 0; i < n; i++)
+      cells[i] = getValue(i);
+
+    return cells;
+  }
+
+  /**
+   * Sets all cell values from the array (row-wise, from top).
+   * The grid is left untouched if the array contains invalid values.
+   *
+   * @param cells	the values
+   * @throws IllegalArgumentException	if the array is too short or contains invalid values
+   */
+  public void setCells(byte[] cells) {
+    int		n;
+    int		i;
+
+    n = height() * width();
+    if (cells.length < n)
+      throw new IllegalArgumentException("Expected at least " + n + " cells, but got " + cells.length);
+    for (i = 0; i < n; i++)
+      check(cells[i]);
+    Arrays.fill(m_Cells, 0L);
+    for (i = 0; i < n; i++)
+      setValue(i, check(cells[i]));
+  }
+
+  /**
+   * Returns the grid as single line (row-wise, from top).
+   *
+   * @return		the grid as line
+   * @throws IllegalArgumentException	if there are no symbols for the number of digits
+   * @see		LineCodec
+   */
+  public String toLine() {
+    return LineCodec.get(m_Rows, m_Cols, m_SubRows, m_SubCols).encode(getCells(null));
+  }
+
+  /**
+   * Parses the line representation, inferring the dimensions from the
+   * length.
+   *
+   * @param line	the line to parse
+   * @return		the parsed grid, null if failed to parse
+   * @see		Grid#fromLine(String)
+   */
+  public static CompactGrid fromLine(String line) {
+    Grid	grid;
+
+    grid = Grid.fromLine(line);
+    if (grid == null)
+      return null;
+
+    return fromGrid(grid);
+  }
+
+  /**
+   * Creates a compact copy of the grid.
+   *
+   * @param grid	the grid to copy
+   * @return		the compact grid
+   */
+  public static CompactGrid fromGrid(Grid grid) {
+    CompactGrid		result;
+
+    result = new CompactGrid(grid.rows(), grid.cols(), grid.subRows(), grid.subCols());
+    result.setCells(grid.getCells(null));
+
+    return result;
+  }
+
+  /**
+   * Returns the values as regular {@link Grid}.
+   *
+   * @return		the grid
+   */
+  public Grid asGrid() {
+    Grid	result;
+
+    result = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+    result.setCells(getCells(null));
+
+    return result;
+  }
+
+  /**
+   * Returns the grid in a grid string representation.
+   *
+   * @return		the representation
+   * @see		Grid#toGrid()
+   */
+  public String toGrid() {
+    return asGrid().toGrid();
+  }
+
+  /**
+   * Checks whether the object is a compact grid with the same dimensions
+   * and values.
+   *
+   * @param obj		the object to compare with
+   * @return		true if the same
+   */
+  @Override
+  public boolean equals(Object obj) {
+    CompactGrid	other;
+
+    if (this == obj)
+      return true;
+    if (!(obj instanceof CompactGrid))
+      return false;
+
+    other = (CompactGrid) obj;
+    return (m_Rows == other.m_Rows)
+      && (m_Cols == other.m_Cols)
+      && (m_SubRows == other.m_SubRows)
+      && (m_SubCols == other.m_SubCols)
+      && Arrays.equals(m_Cells, other.m_Cells);
+  }
+
+  /**
+   * Returns the hashcode, based on the cell values.
+   *
+   * @return		the hashcode
+   */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(m_Cells);
+  }
+
+  /**
+   * Returns a simple string representation of the grid.
+   *
+   * @return		the representation
+   * @see		#toGrid()
+   */
+  @Override
+  public String toString() {
+    return toGrid();
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ErrorPolicy.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * How readers handle lines/games that cannot be parsed into a grid.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @see PuzzleReader#setErrorPolicy(ErrorPolicy)
+ */
+public enum ErrorPolicy {
+  /** skips the line/game silently. */
+  SKIP,
+  /** skips the line/game and adds it to the {@link ErrorReport}. */
+  COLLECT,
+  /** stops reading with a {@link GridParseException}. */
+  FAIL
+}
@@ -0,0 +1,283 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ErrorReport.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe, bounded report of the lines/games that could not be parsed
+ * into a grid, used by readers with {@link ErrorPolicy#COLLECT}. All
+ * rejects get counted, but only the first ones get stored (with their
+ * line number and the start of the text). Accumulates until cleared.
+ * <pre>
+ * PuzzleCollection reader = new PuzzleCollection();
+ * reader.setErrorPolicy(ErrorPolicy.COLLECT);
+ * Puzzles puzzles = reader.read(file);
+ * if (reader.getErrorReport().getCount() &gt; 0)
+ *   System.err.println(reader.getErrorReport());
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ErrorReport {
+
+  /** the default maximum number of entries to store. */
+  public static final int DEFAULT_MAX_ENTRIES = 100;
+
+  /** the maximum number of characters of the text to store. */
+  public static final int MAX_TEXT = 100;
+
+  /**
+   * A line/game that could not be parsed.
+   */
+  public static class Entry {
+
+    /** the line number (1-based). */
+    protected long m_Line;
+
+    /** the length of the text. */
+    protected int m_Length;
+
+    /** the (start of the) text. */
+    protected String m_Text;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param line	the line number (1-based)
+     * @param length	the length of the text
+     * @param text	the (start of the) text
+     */
+    public Entry(long line, int length, String text) {
+      m_Line   = line;
+      m_Length = length;
+      m_Text   = text;
+    }
+
+    /**
+     * Creates an entry, storing at most {@link #MAX_TEXT} characters.
+     *
+     * @param line	the line number (1-based)
+     * @param text	the text
+     * @return		the entry
+     */
+    public static Entry of(long line, CharSequence text) {
+      return new Entry(line, text.length(), text.subSequence(0, Math.min(text.length(), MAX_TEXT)).toString());
+    }
+
+    /**
+     * Creates an entry from ASCII bytes, storing at most {@link #MAX_TEXT}
+     * characters.
+     *
+     * @param line	the line number (1-based)
+     * @param buffer	the buffer with the text
+     * @param offset	the start of the text in the buffer
+     * @param length	the length of the text
+     * @return		the entry
+     */
+    public static Entry of(long line, byte[] buffer, int offset, int length) {
+      return new Entry(line, length, new String(buffer, offset, Math.min(length, MAX_TEXT), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Returns the line number.
+     *
+     * @return		the line number (1-based)
+     */
+    public long getLine() {
+      return m_Line;
+    }
+
+    /**
+     * Returns the length of the text.
+     *
+     * @return		the length
+     */
+    public int getLength() {
+      return m_Length;
+    }
+
+    /**
+     * Returns the (start of the) text.
+     *
+     * @return		the text, at most {@link #MAX_TEXT} characters
+     */
+    public String getText() {
+      return m_Text;
+    }
+
+    /**
+     * Returns a copy with the line number shifted.
+     *
+     * @param offset	the number of lines to add
+     * @return		the shifted entry
+     */
+    public Entry shift(long offset) {
+      return new Entry(m_Line + offset, m_Length, m_Text);
+    }
+
+    /**
+     * Returns a short description of the entry.
+     *
+     * @return		the description
+     */
+    @Override
+    public String toString() {
+      return "line " + m_Line + " (length " + m_Length + "): " + m_Text + ((m_Length > m_Text.length()) ? "..." : "");
+    }
+  }
+
+  /** the maximum number of entries to store. */
+  protected int m_MaxEntries;
+
+  /** the stored entries. */
+  protected List<Entry> m_Entries;
+
+  /** the number of rejects. */
+  protected long m_Count;
+
+  /**
+   * Initializes the report with {@link #DEFAULT_MAX_ENTRIES} entries.
+   */
+  public ErrorReport() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Initializes the report.
+   *
+   * @param maxEntries	the maximum number of entries to store
+   */
+  public ErrorReport(int maxEntries) {
+    if (maxEntries < 0)
+      throw new IllegalArgumentException("Maximum number of entries cannot be negative: " + maxEntries);
+    m_MaxEntries = maxEntries;
+    m_Entries    = new ArrayList<>();
+    m_Count      = 0;
+  }
+
+  /**
+   * Returns the maximum number of entries to store.
+   *
+   * @return		the maximum
+   */
+  public int getMaxEntries() {
+    return m_MaxEntries;
+  }
+
+  /**
+   * Records the line/game that could not be parsed.
+   *
+   * @param line	the line number (1-based)
+   * @param text	the text
+   */
+  public synchronized void add(long line, CharSequence text) {
+    m_Count++;
+    if (m_Entries.size() < m_MaxEntries)
+      m_Entries.add(Entry.of(line, text));
+  }
+
+  /**
+   * Records the line that could not be parsed, only turning the bytes into
+   * a string if the entry gets stored.
+   *
+   * @param line	the line number (1-based)
+   * @param buffer	the buffer with the text
+   * @param offset	the start of the text in the buffer
+   * @param length	the length of the text
+   */
+  public synchronized void add(long line, byte[] buffer, int offset, int length) {
+    m_Count++;
+    if (m_Entries.size() < m_MaxEntries)
+      m_Entries.add(Entry.of(line, buffer, offset, length));
+  }
+
+  /**
+   * Adds the rejects of the other report, shifting the line numbers.
+   *
+   * @param other	the report to add
+   * @param offset	the number of lines to add to the line numbers
+   */
+  public synchronized void addAll(ErrorReport other, long offset) {
+    for (Entry entry: other.getEntries()) {
+      if (m_Entries.size() >= m_MaxEntries)
+	break;
+      m_Entries.add(entry.shift(offset));
+    }
+    m_Count += other.getCount();
+  }
+
+  /**
+   * Returns the number of rejects, including the ones not stored.
+   *
+   * @return		the number of rejects
+   */
+  public synchronized long getCount() {
+    return m_Count;
+  }
+
+  /**
+   * Returns the stored entries.
+   *
+   * @return		a copy of the entries
+   */
+  public synchronized List<Entry> getEntries() {
+    return new ArrayList<>(m_Entries);
+  }
+
+  /**
+   * Returns whether not all rejects got stored.
+   *
+   * @return		true if rejects got dropped
+   */
+  public synchronized boolean isTruncated() {
+    return (m_Count > m_Entries.size());
+  }
+
+  /**
+   * Removes all entries and resets the count.
+   */
+  public synchronized void clear() {
+    m_Entries.clear();
+    m_Count = 0;
+  }
+
+  /**
+   * Returns the report, one entry per line.
+   *
+   * @return		the report
+   */
+  @Override
+  public synchronized String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append(m_Count).append(" rejected");
+    if (isTruncated())
+      result.append(" (first ").append(m_Entries.size()).append(" listed)");
+    for (Entry entry: m_Entries)
+      result.append("\n").append(entry);
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,394 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * FormatRegistry.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of the available {@link PuzzleFormat}s, discovered via
+ * {@link ServiceLoader}. Determines the format of files/streams by
+ * sniffing the first {@link #SNIFF_SIZE} bytes of the (decompressed)
+ * content rather than trial-parsing with every reader, falling back on
+ * the file extension. Thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class FormatRegistry {
+
+  /** the number of bytes to sniff. */
+  public static final int SNIFF_SIZE = 4096;
+
+  /** the maximum number of compressed bytes to buffer when sniffing streams. */
+  public static final int MAX_COMPRESSED_SNIFF = 1024 * 1024;
+
+  /** the default registry. */
+  protected static FormatRegistry s_Default;
+
+  /** the formats. */
+  protected List<PuzzleFormat> m_Formats;
+
+  /**
+   * Initializes the registry with the formats available from the
+   * context class loader.
+   */
+  public FormatRegistry() {
+    this(Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Initializes the registry with the formats available from the class loader.
+   *
+   * @param loader	the class loader to use
+   */
+  public FormatRegistry(ClassLoader loader) {
+    m_Formats = new CopyOnWriteArrayList<>();
+    for (PuzzleFormat format: ServiceLoader.load(PuzzleFormat.class, loader))
+      m_Formats.add(format);
+  }
+
+  /**
+   * Returns the default registry.
+   *
+   * @return		the registry
+   */
+  public static synchronized FormatRegistry getDefault() {
+    if (s_Default == null)
+      s_Default = new FormatRegistry(FormatRegistry.class.getClassLoader());
+    return s_Default;
+  }
+
+  /**
+   * Adds the format, e.g., one that isn't available via the service loader.
+   *
+   * @param format	the format to add
+   */
+  public void register(PuzzleFormat format) {
+    m_Formats.add(format);
+  }
+
+  /**
+   * Returns the registered formats.
+   *
+   * @return		the formats (read-only)
+   */
+  public List<PuzzleFormat> getFormats() {
+    return Collections.unmodifiableList(m_Formats);
+  }
+
+  /**
+   * Returns the format with the specified name (case-insensitive).
+   *
+   * @param name	the name of the format
+   * @return		the format, null if not found
+   */
+  public PuzzleFormat forName(String name) {
+    for (PuzzleFormat format: m_Formats) {
+      if (format.getName().equalsIgnoreCase(name))
+	return format;
+    }
+    return null;
+  }
+
+  /**
+   * Determines the format from the file extension (case-insensitive),
+   * ignoring any compression extension (e.g., ".sdm.gz").
+   *
+   * @param file	the file to get the format for
+   * @return		the format, null if not found
+   */
+  public PuzzleFormat forFile(File file) {
+    String	name;
+
+    name = file.getName().toLowerCase();
+    name = name.substring(0, name.length() - Compression.forFile(file).getExtension().length());
+    for (PuzzleFormat format: m_Formats) {
+      for (String ext: format.getExtensions()) {
+	if (name.endsWith(ext.toLowerCase()))
+	  return format;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Determines the format with the highest confidence for the content.
+   * Compressed content gets decompressed first, as far as possible (xz and
+   * zstd may need more than {@link #SNIFF_SIZE} bytes of compressed data,
+   * depending on the block size).
+   *
+   * @param header	the start of the content
+   * @param length	the number of bytes in the header
+   * @param complete	whether the header is the complete content
+   * @return		the format, null if none matches
+   */
+  public PuzzleFormat detect(byte[] header, int length, boolean complete) {
+    PuzzleFormat	result;
+    int			best;
+    int			confidence;
+    Compression		compression;
+    byte[]		decompressed;
+
+    compression = Compression.detect(header, length);
+    if (compression != Compression.NONE) {
+      decompressed = new byte[SNIFF_SIZE];
+      try (InputStream stream = compression.decompress(new ByteArrayInputStream(header, 0, length))) {
+	length = read(stream, decompressed);
+	complete = complete && (length < decompressed.length);
+      }
+      catch (IOException e) {
+	return null;
+      }
+      header = decompressed;
+    }
+
+    result = null;
+    best   = PuzzleFormat.NO_MATCH;
+    for (PuzzleFormat format: m_Formats) {
+      confidence = format.sniff(header, length, complete);
+      if (confidence > best) {
+	best   = confidence;
+	result = format;
+	if (best >= PuzzleFormat.CERTAIN)
+	  break;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the format of the stream without consuming it, i.e., the
+   * stream must support marking. For compressed streams, up to
+   * {@link #MAX_COMPRESSED_SNIFF} bytes may get buffered for decompressing
+   * the start of the content.
+   *
+   * @param stream	the stream to sniff
+   * @return		the format, null if none matches
+   * @throws IOException	if reading fails or stream doesn't support marking
+   */
+  public PuzzleFormat detect(InputStream stream) throws IOException {
+    byte[]		header;
+    int			length;
+    Compression		compression;
+    InputStream		decompressed;
+
+    if (!stream.markSupported())
+      throw new IOException("Stream does not support marking: " + stream.getClass().getName());
+
+    header = new byte[SNIFF_SIZE];
+    stream.mark(SNIFF_SIZE);
+    try {
+      length = read(stream, header);
+    }
+    finally {
+      stream.reset();
+    }
+
+    compression = Compression.detect(header, length);
+    if (compression == Compression.NONE)
+      return detect(header, length, length < header.length);
+
+    // xz/zstd blocks may require more than the sniffed bytes for decompression
+    decompressed = null;
+    stream.mark(MAX_COMPRESSED_SNIFF);
+    try {
+      decompressed = compression.decompress(CloseShieldInputStream.wrap(stream));
+      length       = read(decompressed, header);
+    }
+    finally {
+      IOUtils.closeQuietly(decompressed);
+      stream.reset();
+    }
+
+    return detect(header, length, length < header.length);
+  }
+
+  /**
+   * Determines the format of the file from its content, falling back on
+   * the file extension if the content doesn't match any format.
+   *
+   * @param file	the file to check
+   * @return		the format, null if none matches
+   * @throws IOException	if reading fails
+   */
+  public PuzzleFormat detect(File file) throws IOException {
+    PuzzleFormat	result;
+    byte[]		header;
+    int			length;
+    boolean		complete;
+
+    header = new byte[SNIFF_SIZE];
+    try (InputStream stream = Compression.open(file)) {
+      length   = read(stream, header);
+      complete = (length < header.length) || (stream.read() == -1);
+    }
+
+    result = detect(header, length, complete);
+    if (result == null)
+      result = forFile(file);
+
+    return result;
+  }
+
+  /**
+   * Returns a reader for the file, based on its detected format.
+   *
+   * @param file	the file to get the reader for
+   * @return		the reader
+   * @throws IOException	if reading fails or format not recognized
+   */
+  public PuzzleReader reader(File file) throws IOException {
+    PuzzleFormat	format;
+
+    format = detect(file);
+    if (format == null)
+      throw new IOException("Unknown puzzle format: " + file);
+
+    return format.newReader();
+  }
+
+  /**
+   * Returns a writer for the file, based on its extension.
+   *
+   * @param file	the file to get the writer for
+   * @return		the writer
+   * @throws IOException	if format not recognized
+   */
+  public PuzzleWriter writer(File file) throws IOException {
+    PuzzleFormat	format;
+
+    format = forFile(file);
+    if (format == null)
+      throw new IOException("Unknown puzzle format extension: " + file);
+
+    return format.newWriter();
+  }
+
+  /**
+   * Checks whether the header starts with the magic number (big endian).
+   *
+   * @param header	the start of the content
+   * @param length	the number of bytes in the header
+   * @param magic	the magic number
+   * @return		true if match
+   */
+  public static boolean startsWith(byte[] header, int length, int magic) {
+    if (length < 4)
+      return false;
+    return ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == magic;
+  }
+
+  /**
+   * Returns the length of the UTF-8 byte order mark at the start of the
+   * content, which text formats should skip.
+   *
+   * @param header	the start of the content
+   * @param offset	the offset of the content in the header
+   * @param length	the number of bytes in the header (from the offset)
+   * @return		the length of the mark, 0 if none
+   */
+  public static int bomLength(byte[] header, int offset, int length) {
+    if ((length >= 3)
+      && ((header[offset] & 0xFF) == 0xEF)
+      && ((header[offset + 1] & 0xFF) == 0xBB)
+      && ((header[offset + 2] & 0xFF) == 0xBF))
+      return 3;
+    return 0;
+  }
+
+  /**
+   * Checks whether the header contains the (ASCII) text.
+   *
+   * @param header	the start of the content
+   * @param length	the number of bytes in the header
+   * @param text	the text to look for
+   * @return		true if found
+   */
+  public static boolean contains(byte[] header, int length, String text) {
+    int		i;
+    int		n;
+
+    for (i = 0; i <= length - text.length(); i++) {
+      for (n = 0; n < text.length(); n++) {
+	if (header[i + n] != text.charAt(n))
+	  break;
+      }
+      if (n == text.length())
+	return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Reads as many bytes as possible into the buffer. Truncated compressed
+   * content results in fewer bytes, rather than an exception.
+   *
+   * @param stream	the stream to read from
+   * @param buffer	the buffer to fill
+   * @return		the number of bytes read
+   * @throws IOException	if reading fails before any bytes were read
+   */
+  protected static int read(InputStream stream, byte[] buffer) throws IOException {
+    int		result;
+    int		read;
+
+    result = 0;
+    try {
+      while ((result < buffer.length) && ((read = stream.read(buffer, result, buffer.length - result)) != -1))
+	result += read;
+    }
+    catch (IOException e) {
+      if (result == 0)
+	throw e;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the names of the registered formats.
+   *
+   * @return		the names
+   */
+  @Override
+  public String toString() {
+    List<String>	names;
+
+    names = new ArrayList<>();
+    for (PuzzleFormat format: m_Formats)
+      names.add(format.getName());
+
+    return "FormatRegistry" + names;
+  }
+}
@@ -82,6 +82,122 @@ public class Grid
     return m_Cols;
   }
 
+  /**
+   * Returns the number of rows in the subgrids.
+   *
+   * @return		the number of rows
+   */
+  public int subRows() {
+    return m_SubGrids.get(0).rows();
+  }
+
+  /**
+   * Returns the number of columns in the subgrids.
+   *
+   * @return		the number of columns
+   */
+  public int subCols() {
+    return m_SubGrids.get(0).cols();
+  }
+
+  /**
+   * Returns the total number of cell rows (rows * subRows).
+   *
+   * @return		the height
+   */
+  public int height() {
+    return m_Rows * subRows();
+  }
+
+  /**
+   * Returns the total number of cell columns (cols * subCols).
+   *
+   * @return		the width
+   */
+  public int width() {
+    return m_Cols * subCols();
+  }
+
+  /**
+   * Copies all cell values into the array (row-wise, from top, ie the same
+   * order as {@link #toLine()}).
+   *
+   * @param cells	the array to fill, gets allocated if null or too small
+   * @return		the filled array
+   */
+  public byte[] getCells(byte[] cells) {
+    int		subRows;
+    int		subCols;
+    int		width;
+    int		y;
+    int		x;
+    int		subY;
+    SubGrid	sub;
+
+    subRows = subRows();
+    subCols = subCols();
+    width   = m_Cols * subCols;
+    if ((cells == null) || (cells.length < width * m_Rows * subRows))
+      cells = new byte[width * m_Rows * subRows];
+
+    for (y = 0; y < m_Rows; y++) {
+      for (x = 0; x < m_Cols; x++) {
+	sub = m_SubGrids.get(y*m_Cols + x);
+	for (subY = 0; subY < subRows; subY++)
+	  System.arraycopy(sub.m_Cells, subY*subCols, cells, (y*subRows + subY)*width + x*subCols, subCols);
+      }
+    }
+
+    return cells;
+  }
+
+  /**
+   * Sets all cell values from the array (row-wise, from top, ie the same
+   * order as {@link #toLine()}). Negative values are stored as 0.
+   *
+   * @param cells	the values
+   * @throws IllegalArgumentException	if the array is too short
+   */
+  public void setCells(byte[] cells) {
+    int		subRows;
+    int		subCols;
+    int		width;
+    int		y;
+    int		x;
+    int		subY;
+    int		subX;
+    SubGrid	sub;
+    byte	value;
+
+    subRows = subRows();
+    subCols = subCols();
+    width   = m_Cols * subCols;
+    if (cells.length < width * m_Rows * subRows)
+      throw new IllegalArgumentException("Expected at least " + (width * m_Rows * subRows) + " cells, but got " + cells.length);
+
+    for (y = 0; y < m_Rows; y++) {
+      for (x = 0; x < m_Cols; x++) {
+	sub = m_SubGrids.get(y*m_Cols + x);
+	for (subY = 0; subY < subRows; subY++) {
+	  for (subX = 0; subX < subCols; subX++) {
+	    value = cells[(y*subRows + subY)*width + x*subCols + subX];
+	    sub.m_Cells[subY*subCols + subX] = (value < 0) ? 0 : value;
+	  }
+	}
+      }
+    }
+    modified();
+  }
+
+  /**
+   * Hook method that gets called after the cell values got modified in
+   * bulk, ie bypassing {@link SubGrid#set(int, int, byte)} (e.g.,
+   * {@link #setCells(byte[])} or decoding a line into the grid).
+   * Default implementation does nothing.
+   */
+  protected void modified() {
+  }
+
   /**
    * Checks the coordinates.
    *
@@ -92,7 +208,7 @@ public class Grid
   protected void check(int row, int col) {
     if ((row < 0) || (row >= m_Rows))
       throw new IllegalArgumentException("Row must be 0 <= y < " + m_Rows);
-    if ((col < 0) || (row >= m_Cols))
+    if ((col < 0) || (col >= m_Cols))
       throw new IllegalArgumentException("Column must be 0 <= x < " + m_Cols);
   }
 
@@ -126,73 +242,41 @@ public class Grid
    * Returns the grid as single line (row-wise, from top).
    *
    * @return		the grid as line
+   * @throws IllegalArgumentException	if a cell value has no symbol
+   * @see		LineCodec
    */
   public String toLine() {
-    StringBuilder	result;
-    int 		y;
-    int 		x;
-    int			subY;
-    int			subX;
-    SubGrid		sub;
-
-    result = new StringBuilder();
-
-    for (y = 0; y < m_Rows; y++) {
-      for (subY = 0; subY < get(0, 0).rows(); subY++) {
-        for (x = 0; x < m_Cols; x++) {
-          sub = get(y, x);
-	  for (subX = 0; subX < sub.cols(); subX++) {
-	    result.append(sub.get(subY, subX));
-	  }
-	}
-      }
-    }
-
-    return result.toString();
+    return LineCodec.get(this).encode(this);
   }
 
   /**
-   * Parses the line representation (expects 81 chars for 3x3 X 3x3 grid).
+   * Parses the line representation, inferring the dimensions from the
+   * length (e.g., 81 chars for 3x3 X 3x3 grid, 16 for 2x2 X 2x2, 256 for
+   * 4x4 X 4x4 with symbols 1-9 and A-G).
+   * Does not output anything for lines that cannot be parsed, the readers
+   * handle these according to their {@link ErrorPolicy}. Note that the
+   * readers only infer the dimensions from each line if enabled.
    *
    * @param line	the line to parse
-   * @return		the parsed grid, null if failed to parse
+   * @return		the parsed grid, null if unhandled length
+   * @see		LineCodec#forLength(int)
+   * @see		AbstractPuzzleReaderWriter#setInferDimensions(boolean)
    */
   public static Grid fromLine(String line) {
-    Grid 	result;
-    int		i;
-    int		row;
-    int		col;
-    int		subRow;
-    int		subCol;
-    char	c;
-    byte	value;
+    LineCodec	codec;
 
-    result = null;
-    if (line.length() == 81) {
-      result = new Grid(3, 3, 3, 3);
-      for (i = 0; i < line.length(); i++) {
-	c      = line.charAt(i);
-	value  = 0;
-	if ((c > '0') && (c <= '9'))
-	  value = Byte.parseByte("" + c);
-	row    = i / 27;
-	col    = (i / 3) % 3;
-	subRow = ((i / 9) % 3);
-	subCol = (i % 3);
-	result.get(row, col).set(subRow, subCol, value);
-      }
-    }
-    else {
-      System.err.println("Unhandled line length of " + line.length() + ": " + line);
-    }
+    codec = LineCodec.forLength(line.length());
+    if (codec == null)
+      return null;
 
-    return result;
+    return codec.decode(line);
   }
 
   /**
    * Returns the grid in a grid string representation.
    *
    * @return		the representation
+   * @throws IllegalArgumentException	if a cell value has no symbol
    */
   public String toGrid() {
     StringBuilder 	result;
@@ -203,13 +287,15 @@ public class Grid
     int			i;
     SubGrid		sub;
     byte		value;
+    Symbols		symbols;
 
-    result = new StringBuilder();
+    result  = new StringBuilder();
+    symbols = Symbols.forDigits(subRows() * subCols());
 
     for (y = 0; y < m_Rows; y++) {
       if (y > 0) {
-	for (i = 0; i < m_Cols * (m_SubGrids.get(0).cols() + 1) - 1; i++) {
-	  if ((i > 0) && ((i+1) % 4 == 0))
+	for (i = 0; i < m_Cols * (subCols() + 1) - 1; i++) {
+	  if ((i+1) % (subCols() + 1) == 0)
 	    result.append("+");
 	  else
             result.append("-");
@@ -217,15 +303,19 @@ public class Grid
 	result.append("\n");
       }
 
-      for (subY = 0; subY < get(0,0).rows(); subY++) {
+      for (subY = 0; subY < subRows(); subY++) {
 	for (x = 0; x < m_Cols; x++) {
 	  sub = get(y, x);
 	  if (x > 0)
 	    result.append("|");
 	  for (subX = 0; subX < sub.cols(); subX++) {
 	    value = sub.get(subY, subX);
+	    if (value > symbols.size())
+	      throw new IllegalArgumentException(
+		"Value at row " + (y * subRows() + subY) + ", column " + (x * subCols() + subX)
+		  + " must be 0 <= x <= " + symbols.size() + ", provided: " + value);
 	    if (value > 0)
-	      result.append(value);
+	      result.append(symbols.charOf(value));
 	    else
 	      result.append(" ");
 	  }
@@ -238,6 +328,39 @@ public class Grid
     return result.toString();
   }
 
+  /**
+   * Returns whether the object is a grid with the same dimensions and cell
+   * values. Grids are mutable, so grids used as keys in hash-based
+   * collections must not be modified.
+   *
+   * @param obj		the object to compare with
+   * @return		true if the same
+   */
+  @Override
+  public boolean equals(Object obj) {
+    Grid	other;
+
+    if (this == obj)
+      return true;
+    if (!(obj instanceof Grid))
+      return false;
+
+    other = (Grid) obj;
+    return (m_Rows == other.m_Rows)
+      && (m_Cols == other.m_Cols)
+      && m_SubGrids.equals(other.m_SubGrids);
+  }
+
+  /**
+   * Returns the hashcode, based on the cell values.
+   *
+   * @return		the hashcode
+   */
+  @Override
+  public int hashCode() {
+    return m_SubGrids.hashCode();
+  }
+
   /**
    * Returns a simple string representation of the grid.
    *
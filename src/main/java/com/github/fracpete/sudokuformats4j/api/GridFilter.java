@@ -0,0 +1,40 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridFilter.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * Interface for filters that decide which grids get passed on when reading.
+ * Filters used with parallel reading must be thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @see PuzzleReader#setFilter(GridFilter)
+ */
+@FunctionalInterface
+public interface GridFilter {
+
+  /**
+   * Returns whether to keep the grid.
+   *
+   * @param grid	the grid to check
+   * @return		true if to keep the grid
+   */
+  public boolean accept(Grid grid);
+}
@@ -0,0 +1,64 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridParseException.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.IOException;
+
+/**
+ * Gets thrown by readers using {@link ErrorPolicy#FAIL} for the first
+ * line/game that cannot be parsed into a grid.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GridParseException
+  extends IOException {
+
+  /** the offending line/game. */
+  protected ErrorReport.Entry m_Entry;
+
+  /**
+   * Initializes the exception.
+   *
+   * @param entry	the offending line/game
+   */
+  public GridParseException(ErrorReport.Entry entry) {
+    super("Failed to parse grid at " + entry);
+    m_Entry = entry;
+  }
+
+  /**
+   * Returns the offending line/game.
+   *
+   * @return		the line/game
+   */
+  public ErrorReport.Entry getEntry() {
+    return m_Entry;
+  }
+
+  /**
+   * Returns the line number of the offending line/game.
+   *
+   * @return		the line number (1-based)
+   */
+  public long getLine() {
+    return m_Entry.getLine();
+  }
+}
@@ -0,0 +1,497 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * LineCodec.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts grids of specific dimensions to and from their line
+ * representation (row-wise, from top), without allocating any objects:
+ * the caller supplies the buffers and the grids to decode into.
+ * The line gets processed sequentially, with the characters mapped to
+ * values via the lookup table of the {@link Symbols}. Any box dimensions
+ * are supported, as long as there are enough symbols for the digits
+ * (default: 1-9 up to 9x9, 1-9 and A-Z beyond, e.g., 16x16 and 25x25).
+ * Instances are immutable and thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @see #get(int, int, int, int)
+ */
+public class LineCodec {
+
+  /** the cached codecs per symbols (equal symbols share the codecs). */
+  protected static final Map<Symbols,Map<Integer,LineCodec>> CODECS = new ConcurrentHashMap<>();
+
+  /** the cached codecs for square grids with default symbols, indexed by number of digits. */
+  protected static final LineCodec[] SQUARE = new LineCodec[Symbols.ALPHANUMERIC.size() + 1];
+
+  /** the number of rows. */
+  protected final int m_Rows;
+
+  /** the number of columns. */
+  protected final int m_Cols;
+
+  /** the number of rows in the subgrids. */
+  protected final int m_SubRows;
+
+  /** the number of columns in the subgrids. */
+  protected final int m_SubCols;
+
+  /** the length of a line. */
+  protected final int m_Length;
+
+  /** the symbols. */
+  protected final Symbols m_Symbols;
+
+  /** the value for each ASCII/ISO-8859-1 char (0 = empty cell), from the symbols. */
+  protected final byte[] m_Values;
+
+  /** the char for each value, from the symbols. */
+  protected final char[] m_Chars;
+
+  /**
+   * Initializes the codec with the default symbols for the number of digits.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @see		#get(int, int, int, int)
+   * @see		Symbols#forDigits(int)
+   */
+  public LineCodec(int rows, int cols, int subRows, int subCols) {
+    this(rows, cols, subRows, subCols, Symbols.forDigits(subRows * subCols));
+  }
+
+  /**
+   * Initializes the codec.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @param symbols	the symbols to use
+   * @throws IllegalArgumentException	if not enough symbols for the digits
+   * @see		#get(int, int, int, int, Symbols)
+   */
+  public LineCodec(int rows, int cols, int subRows, int subCols, Symbols symbols) {
+    if (subRows * subCols > symbols.size())
+      throw new IllegalArgumentException(
+	"Not enough symbols for " + (subRows * subCols) + " digits: " + symbols);
+    m_Rows    = rows;
+    m_Cols    = cols;
+    m_SubRows = subRows;
+    m_SubCols = subCols;
+    m_Length  = rows * subRows * cols * subCols;
+    m_Symbols = symbols;
+    m_Values  = symbols.m_Values;
+    m_Chars   = symbols.m_Chars;
+  }
+
+  /**
+   * Returns the (cached) codec for the specified dimensions, using the
+   * default symbols for the number of digits.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @return		the codec
+   * @throws IllegalArgumentException	if too many digits
+   * @see		Symbols#forDigits(int)
+   */
+  public static LineCodec get(int rows, int cols, int subRows, int subCols) {
+    return get(rows, cols, subRows, subCols, Symbols.forDigits(subRows * subCols));
+  }
+
+  /**
+   * Returns the (cached) codec for the specified dimensions and symbols.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @param symbols	the symbols to use
+   * @return		the codec
+   * @throws IllegalArgumentException	if not enough symbols for the digits
+   */
+  public static LineCodec get(int rows, int cols, int subRows, int subCols, Symbols symbols) {
+    Map<Integer,LineCodec>	codecs;
+    Integer			key;
+    LineCodec			result;
+
+    codecs = CODECS.computeIfAbsent(symbols, (Symbols s) -> new ConcurrentHashMap<>());
+    key    = (rows << 24) | (cols << 16) | (subRows << 8) | subCols;
+    result = codecs.get(key);
+    if (result == null) {
+      result = new LineCodec(rows, cols, subRows, subCols, symbols);
+      codecs.put(key, result);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the (cached) codec for square grids whose lines have the
+   * specified length, using the default symbols. Square boxes are used if
+   * possible (e.g., 3x3 for 81 chars, 4x4 for 256, 5x5 for 625), otherwise
+   * the most square rectangular boxes (e.g., 2x3 for 36 chars, 3x4 for 144).
+   *
+   * @param length	the length of the line
+   * @return		the codec, null if no grid with at least 4 digits and at least 2 rows/columns per box has lines of this length
+   * @see		Symbols#forDigits(int)
+   */
+  public static LineCodec forLength(int length) {
+    LineCodec	result;
+    int		digits;
+    int		subRows;
+
+    digits = (int) Math.sqrt(length);
+    if ((digits * digits != length) || (digits < 4) || (digits >= SQUARE.length))
+      return null;
+
+    // no synchronization required: codecs only have final fields, a race merely looks up the codec twice
+    result = SQUARE[digits];
+    if (result == null) {
+      subRows = (int) Math.sqrt(digits);
+      while (digits % subRows != 0)
+	subRows--;
+      if (subRows < 2)
+	return null;
+      result = get(digits / subRows, subRows, subRows, digits / subRows);
+      SQUARE[digits] = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the (cached) codec for the dimensions of the grid.
+   *
+   * @param grid	the grid to get the codec for
+   * @return		the codec
+   */
+  public static LineCodec get(Grid grid) {
+    return get(grid.rows(), grid.cols(), grid.subRows(), grid.subCols());
+  }
+
+  /**
+   * Returns the symbols in use.
+   *
+   * @return		the symbols
+   */
+  public Symbols getSymbols() {
+    return m_Symbols;
+  }
+
+  /**
+   * Returns the length of a line.
+   *
+   * @return		the number of chars
+   */
+  public int length() {
+    return m_Length;
+  }
+
+  /**
+   * Returns a new, empty grid with the dimensions of this codec.
+   *
+   * @return		the grid
+   */
+  public Grid newGrid() {
+    return new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+  }
+
+  /**
+   * Returns the value for the char.
+   *
+   * @param c		the char to convert
+   * @return		the value, 0 if empty cell
+   */
+  protected byte valueOf(char c) {
+    return (c < m_Values.length) ? m_Values[c] : 0;
+  }
+
+  /**
+   * Returns the char for the value.
+   *
+   * @param value	the value to convert
+   * @param cell	the index of the cell in the line, for the error message
+   * @return		the char
+   * @throws IllegalArgumentException	if the value has no symbol
+   */
+  protected char charOf(byte value, int cell) {
+    if ((value < 0) || (value >= m_Chars.length))
+      throw new IllegalArgumentException(
+	"Value at row " + (cell / (m_Cols * m_SubCols)) + ", column " + (cell % (m_Cols * m_SubCols))
+	  + " must be 0 <= x <= " + (m_Chars.length - 1) + ", provided: " + value);
+    return m_Chars[value];
+  }
+
+  /**
+   * Checks the dimensions of the grid.
+   *
+   * @param grid	the grid to check
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   */
+  protected void check(Grid grid) {
+    if ((grid.rows() != m_Rows) || (grid.cols() != m_Cols) || (grid.subRows() != m_SubRows) || (grid.subCols() != m_SubCols))
+      throw new IllegalArgumentException("Grid dimensions differ from codec!");
+  }
+
+  /**
+   * Decodes the line into the (existing) grid.
+   *
+   * @param line	the line to decode
+   * @param grid	the grid to store the values in
+   * @return		true if successfully decoded, false if wrong length
+   */
+  public boolean decode(CharSequence line, Grid grid) {
+    byte[]	cells;
+    int		y;
+    int		subY;
+    int		x;
+    int		subX;
+    int		k;
+    int		p;
+
+    if (line.length() != m_Length)
+      return false;
+    check(grid);
+
+    p = 0;
+    for (y = 0; y < m_Rows; y++) {
+      for (subY = 0; subY < m_SubRows; subY++) {
+	for (x = 0; x < m_Cols; x++) {
+	  cells = grid.m_SubGrids.get(y*m_Cols + x).m_Cells;
+	  k     = subY * m_SubCols;
+	  for (subX = 0; subX < m_SubCols; subX++)
+	    cells[k++] = valueOf(line.charAt(p++));
+	}
+      }
+    }
+    grid.modified();
+
+    return true;
+  }
+
+  /**
+   * Decodes the line into the (existing) grid.
+   *
+   * @param chars	the buffer containing the line
+   * @param offset	the start of the line in the buffer
+   * @param length	the length of the line
+   * @param grid	the grid to store the values in
+   * @return		true if successfully decoded, false if wrong length
+   */
+  public boolean decode(char[] chars, int offset, int length, Grid grid) {
+    byte[]	cells;
+    int		y;
+    int		subY;
+    int		x;
+    int		subX;
+    int		k;
+    int		p;
+
+    if (length != m_Length)
+      return false;
+    check(grid);
+
+    p = offset;
+    for (y = 0; y < m_Rows; y++) {
+      for (subY = 0; subY < m_SubRows; subY++) {
+	for (x = 0; x < m_Cols; x++) {
+	  cells = grid.m_SubGrids.get(y*m_Cols + x).m_Cells;
+	  k     = subY * m_SubCols;
+	  for (subX = 0; subX < m_SubCols; subX++)
+	    cells[k++] = valueOf(chars[p++]);
+	}
+      }
+    }
+    grid.modified();
+
+    return true;
+  }
+
+  /**
+   * Decodes the ASCII line into the (existing) grid.
+   *
+   * @param bytes	the buffer containing the line
+   * @param offset	the start of the line in the buffer
+   * @param length	the length of the line
+   * @param grid	the grid to store the values in
+   * @return		true if successfully decoded, false if wrong length
+   */
+  public boolean decode(byte[] bytes, int offset, int length, Grid grid) {
+    byte[]	cells;
+    int		y;
+    int		subY;
+    int		x;
+    int		subX;
+    int		k;
+    int		p;
+
+    if (length != m_Length)
+      return false;
+    check(grid);
+
+    p = offset;
+    for (y = 0; y < m_Rows; y++) {
+      for (subY = 0; subY < m_SubRows; subY++) {
+	for (x = 0; x < m_Cols; x++) {
+	  cells = grid.m_SubGrids.get(y*m_Cols + x).m_Cells;
+	  k     = subY * m_SubCols;
+	  for (subX = 0; subX < m_SubCols; subX++)
+	    cells[k++] = m_Values[bytes[p++] & 0xFF];
+	}
+      }
+    }
+    grid.modified();
+
+    return true;
+  }
+
+  /**
+   * Decodes the line into a new grid.
+   *
+   * @param line	the line to decode
+   * @return		the grid, null if wrong length
+   */
+  public Grid decode(CharSequence line) {
+    Grid	result;
+
+    if (line.length() != m_Length)
+      return null;
+
+    result = newGrid();
+    decode(line, result);
+
+    return result;
+  }
+
+  /**
+   * Encodes the grid into the buffer.
+   *
+   * @param grid	the grid to encode
+   * @param chars	the buffer to write to
+   * @param offset	the position in the buffer to start at
+   * @return		the number of chars written
+   * @throws IllegalArgumentException	if a cell value has no symbol
+   */
+  public int encode(Grid grid, char[] chars, int offset) {
+    byte[]	cells;
+    int		y;
+    int		subY;
+    int		x;
+    int		subX;
+    int		k;
+    int		p;
+
+    check(grid);
+
+    p = offset;
+    for (y = 0; y < m_Rows; y++) {
+      for (subY = 0; subY < m_SubRows; subY++) {
+	for (x = 0; x < m_Cols; x++) {
+	  cells = grid.m_SubGrids.get(y*m_Cols + x).m_Cells;
+	  k     = subY * m_SubCols;
+	  for (subX = 0; subX < m_SubCols; subX++, p++)
+	    chars[p] = charOf(cells[k++], p - offset);
+	}
+      }
+    }
+
+    return m_Length;
+  }
+
+  /**
+   * Encodes the grid as ASCII into the buffer.
+   *
+   * @param grid	the grid to encode
+   * @param bytes	the buffer to write to
+   * @param offset	the position in the buffer to start at
+   * @return		the number of bytes written
+   * @throws IllegalArgumentException	if a cell value has no symbol
+   */
+  public int encode(Grid grid, byte[] bytes, int offset) {
+    byte[]	cells;
+    int		y;
+    int		subY;
+    int		x;
+    int		subX;
+    int		k;
+    int		p;
+
+    check(grid);
+
+    p = offset;
+    for (y = 0; y < m_Rows; y++) {
+      for (subY = 0; subY < m_SubRows; subY++) {
+	for (x = 0; x < m_Cols; x++) {
+	  cells = grid.m_SubGrids.get(y*m_Cols + x).m_Cells;
+	  k     = subY * m_SubCols;
+	  for (subX = 0; subX < m_SubCols; subX++, p++)
+	    bytes[p] = (byte) charOf(cells[k++], p - offset);
+	}
+      }
+    }
+
+    return m_Length;
+  }
+
+  /**
+   * Encodes the cell values (row-wise, from top), as obtained from
+   * {@link Grid#getCells(byte[])}, as string.
+   *
+   * @param cells	the cell values to encode
+   * @return		the line
+   * @throws IllegalArgumentException	if too few cells or a cell value has no symbol
+   */
+  public String encode(byte[] cells) {
+    char[]	chars;
+    int		i;
+
+    if (cells.length < m_Length)
+      throw new IllegalArgumentException("Expected at least " + m_Length + " cells, but got " + cells.length);
+    chars = new char[m_Length];
+    for (i = 0; i < m_Length; i++)
+      chars[i] = charOf(cells[i], i);
+
+    return new String(chars);
+  }
+
+  /**
+   * Encodes the grid as string.
+   *
+   * @param grid	the grid to encode
+   * @return		the line
+   * @throws IllegalArgumentException	if a cell value has no symbol
+   */
+  public String encode(Grid grid) {
+    char[]	chars;
+
+    chars = new char[m_Length];
+    encode(grid, chars, 0);
+
+    return new String(chars);
+  }
+}
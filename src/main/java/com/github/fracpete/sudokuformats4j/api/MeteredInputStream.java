@@ -0,0 +1,113 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MeteredInputStream.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Counter;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Stage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream that records the bytes read and the time of each read call
+ * ({@link Stage#IO_READ}) in the metrics.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MeteredInputStream
+  extends FilterInputStream {
+
+  /** the metrics to update. */
+  protected PuzzleMetrics m_Metrics;
+
+  /**
+   * Initializes the stream.
+   *
+   * @param stream	the stream to read from
+   * @param metrics	the metrics to update
+   */
+  public MeteredInputStream(InputStream stream, PuzzleMetrics metrics) {
+    super(stream);
+    m_Metrics = metrics;
+  }
+
+  /**
+   * Reads a single byte.
+   *
+   * @return		the byte, -1 if end of stream
+   * @throws IOException	if reading fails
+   */
+  @Override
+  public int read() throws IOException {
+    int		result;
+    long	start;
+
+    start  = System.nanoTime();
+    result = super.read();
+    m_Metrics.record(Stage.IO_READ, System.nanoTime() - start);
+    if (result != -1)
+      m_Metrics.increment(Counter.BYTES_READ, 1);
+
+    return result;
+  }
+
+  /**
+   * Reads bytes into the buffer.
+   *
+   * @param b		the buffer to fill
+   * @param off		the offset in the buffer
+   * @param len		the maximum number of bytes to read
+   * @return		the number of bytes read, -1 if end of stream
+   * @throws IOException	if reading fails
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int		result;
+    long	start;
+
+    start  = System.nanoTime();
+    result = super.read(b, off, len);
+    m_Metrics.record(Stage.IO_READ, System.nanoTime() - start);
+    if (result > 0)
+      m_Metrics.increment(Counter.BYTES_READ, result);
+
+    return result;
+  }
+
+  /**
+   * Skips bytes (they count as read).
+   *
+   * @param n		the number of bytes to skip
+   * @return		the number of bytes skipped
+   * @throws IOException	if skipping fails
+   */
+  @Override
+  public long skip(long n) throws IOException {
+    long	result;
+
+    result = super.skip(n);
+    if (result > 0)
+      m_Metrics.increment(Counter.BYTES_READ, result);
+
+    return result;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MeteredOutputStream.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Counter;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Stage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Stream that records the bytes written and the time of each write/flush
+ * call ({@link Stage#IO_WRITE}) in the metrics.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MeteredOutputStream
+  extends FilterOutputStream {
+
+  /** the metrics to update. */
+  protected PuzzleMetrics m_Metrics;
+
+  /**
+   * Initializes the stream.
+   *
+   * @param stream	the stream to write to
+   * @param metrics	the metrics to update
+   */
+  public MeteredOutputStream(OutputStream stream, PuzzleMetrics metrics) {
+    super(stream);
+    m_Metrics = metrics;
+  }
+
+  /**
+   * Writes a single byte.
+   *
+   * @param b		the byte to write
+   * @throws IOException	if writing fails
+   */
+  @Override
+  public void write(int b) throws IOException {
+    long	start;
+
+    start = System.nanoTime();
+    out.write(b);
+    m_Metrics.record(Stage.IO_WRITE, System.nanoTime() - start);
+    m_Metrics.increment(Counter.BYTES_WRITTEN, 1);
+  }
+
+  /**
+   * Writes the bytes from the buffer.
+   *
+   * @param b		the buffer
+   * @param off		the offset in the buffer
+   * @param len		the number of bytes to write
+   * @throws IOException	if writing fails
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    long	start;
+
+    start = System.nanoTime();
+    out.write(b, off, len);
+    m_Metrics.record(Stage.IO_WRITE, System.nanoTime() - start);
+    m_Metrics.increment(Counter.BYTES_WRITTEN, len);
+  }
+
+  /**
+   * Flushes the stream.
+   *
+   * @throws IOException	if flushing fails
+   */
+  @Override
+  public void flush() throws IOException {
+    long	start;
+
+    start = System.nanoTime();
+    out.flush();
+    m_Metrics.record(Stage.IO_WRITE, System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Metrics.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe collection of the counters and of timing histograms per stage
+ * of the reader/writer pipeline. The histograms use power-of-2 buckets of
+ * nanoseconds, ie percentiles are approximate (upper bound of the bucket).
+ * <pre>
+ * Metrics metrics = new Metrics();
+ * PuzzleCollection reader = new PuzzleCollection();
+ * reader.setMetrics(metrics);
+ * Puzzles puzzles = reader.read(file);
+ * System.out.println(metrics);
+ * </pre>
+ * As the time of reading a grid includes the I/O and the decoding, the
+ * time spent on parsing the format (e.g., XML or line breaks) is the total
+ * of {@link Stage#READ} minus the totals of {@link Stage#IO_READ} and
+ * {@link Stage#DECODE} (see {@link #getParseTime()}).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Metrics
+  implements PuzzleMetrics {
+
+  /**
+   * Histogram of times, using power-of-2 buckets.
+   */
+  public static class Histogram {
+
+    /** the number of buckets. */
+    public static final int BUCKETS = 64;
+
+    /** the counts per bucket (bucket i: values up to 2^i - 1). */
+    protected LongAdder[] m_Buckets;
+
+    /** the number of values. */
+    protected LongAdder m_Count;
+
+    /** the sum of the values. */
+    protected LongAdder m_Total;
+
+    /** the largest value. */
+    protected LongAccumulator m_Max;
+
+    /**
+     * Initializes the histogram.
+     */
+    public Histogram() {
+      int	i;
+
+      m_Buckets = new LongAdder[BUCKETS];
+      for (i = 0; i < BUCKETS; i++)
+	m_Buckets[i] = new LongAdder();
+      m_Count = new LongAdder();
+      m_Total = new LongAdder();
+      m_Max   = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Adds the value.
+     *
+     * @param value	the value to add (negative values are stored as 0)
+     */
+    public void add(long value) {
+      if (value < 0)
+	value = 0;
+      m_Buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+      m_Count.increment();
+      m_Total.add(value);
+      m_Max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return		the number of values
+     */
+    public long getCount() {
+      return m_Count.sum();
+    }
+
+    /**
+     * Returns the sum of the values.
+     *
+     * @return		the sum
+     */
+    public long getTotal() {
+      return m_Total.sum();
+    }
+
+    /**
+     * Returns the largest value.
+     *
+     * @return		the largest value, 0 if none
+     */
+    public long getMax() {
+      return m_Max.get();
+    }
+
+    /**
+     * Returns the mean of the values.
+     *
+     * @return		the mean, 0 if none
+     */
+    public double getMean() {
+      long	count;
+
+      count = getCount();
+      if (count == 0)
+	return 0;
+      return (double) getTotal() / count;
+    }
+
+    /**
+     * Returns the counts per bucket (bucket i: values up to 2^i - 1).
+     *
+     * @return		the counts
+     */
+    public long[] getBuckets() {
+      long[]	result;
+      int	i;
+
+      result = new long[BUCKETS];
+      for (i = 0; i < BUCKETS; i++)
+	result[i] = m_Buckets[i].sum();
+
+      return result;
+    }
+
+    /**
+     * Returns the (approximate) percentile, ie the upper bound of the
+     * bucket that contains it (at most the largest value).
+     *
+     * @param percentile	the percentile (0-100)
+     * @return		the value, 0 if none
+     */
+    public long getPercentile(double percentile) {
+      long[]	buckets;
+      long	count;
+      long	rank;
+      long	sum;
+      int	i;
+
+      buckets = getBuckets();
+      count   = 0;
+      for (i = 0; i < BUCKETS; i++)
+	count += buckets[i];
+      if (count == 0)
+	return 0;
+
+      rank = (long) Math.ceil(count * percentile / 100.0);
+      sum  = 0;
+      for (i = 0; i < BUCKETS; i++) {
+	sum += buckets[i];
+	if ((sum >= rank) && (buckets[i] > 0))
+	  return Math.min((i == 0) ? 0 : (1L << i) - 1, getMax());
+      }
+
+      return getMax();
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void reset() {
+      for (LongAdder bucket: m_Buckets)
+	bucket.reset();
+      m_Count.reset();
+      m_Total.reset();
+      m_Max.reset();
+    }
+
+    /**
+     * Returns a short summary.
+     *
+     * @return		the summary
+     */
+    @Override
+    public String toString() {
+      return String.format("count=%d, total=%.3fms, mean=%.0fns, p50<=%dns, p99<=%dns, max=%dns",
+	getCount(), getTotal() / 1e6, getMean(), getPercentile(50), getPercentile(99), getMax());
+    }
+  }
+
+  /** the counters. */
+  protected LongAdder[] m_Counters;
+
+  /** the histograms per stage. */
+  protected Histogram[] m_Histograms;
+
+  /**
+   * Initializes the metrics.
+   */
+  public Metrics() {
+    int		i;
+
+    m_Counters = new LongAdder[Counter.values().length];
+    for (i = 0; i < m_Counters.length; i++)
+      m_Counters[i] = new LongAdder();
+    m_Histograms = new Histogram[Stage.values().length];
+    for (i = 0; i < m_Histograms.length; i++)
+      m_Histograms[i] = new Histogram();
+  }
+
+  /**
+   * Increments the counter.
+   *
+   * @param counter	the counter to increment
+   * @param amount	the amount to add
+   */
+  @Override
+  public void increment(Counter counter, long amount) {
+    m_Counters[counter.ordinal()].add(amount);
+  }
+
+  /**
+   * Records the time of the stage.
+   *
+   * @param stage	the stage
+   * @param nanos	the time in nanoseconds
+   */
+  @Override
+  public void record(Stage stage, long nanos) {
+    m_Histograms[stage.ordinal()].add(nanos);
+  }
+
+  /**
+   * Returns the value of the counter.
+   *
+   * @param counter	the counter
+   * @return		the value
+   */
+  public long get(Counter counter) {
+    return m_Counters[counter.ordinal()].sum();
+  }
+
+  /**
+   * Returns the histogram of the stage.
+   *
+   * @param stage	the stage
+   * @return		the histogram
+   */
+  public Histogram getHistogram(Stage stage) {
+    return m_Histograms[stage.ordinal()];
+  }
+
+  /**
+   * Returns the time spent on parsing the format, ie reading the grids
+   * without the I/O and without decoding the grids.
+   *
+   * @return		the time in nanoseconds
+   */
+  public long getParseTime() {
+    return Math.max(0, getHistogram(Stage.READ).getTotal() - getHistogram(Stage.IO_READ).getTotal() - getHistogram(Stage.DECODE).getTotal());
+  }
+
+  /**
+   * Resets all counters and histograms.
+   */
+  public void reset() {
+    for (LongAdder counter: m_Counters)
+      counter.reset();
+    for (Histogram histogram: m_Histograms)
+      histogram.reset();
+  }
+
+  /**
+   * Returns a report of all counters and stages.
+   *
+   * @return		the report
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    for (Counter counter: Counter.values())
+      result.append(counter).append(": ").append(get(counter)).append("\n");
+    for (Stage stage: Stage.values())
+      result.append(stage).append(": ").append(getHistogram(stage)).append("\n");
+    result.append(String.format("parse (read - io_read - decode): %.3fms", getParseTime() / 1e6));
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleFormat.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * Describes a file format for the {@link FormatRegistry}. Implementations
+ * get discovered via {@link java.util.ServiceLoader}, i.e., they need to
+ * be listed in META-INF/services/com.github.fracpete.sudokuformats4j.api.PuzzleFormat
+ * and require a public no-argument constructor.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface PuzzleFormat {
+
+  /** the confidence if the content does not match the format. */
+  public static final int NO_MATCH = 0;
+
+  /** the confidence if the content matches the format for certain (eg magic number). */
+  public static final int CERTAIN = 100;
+
+  /**
+   * Returns the name of the format.
+   *
+   * @return		the name
+   */
+  public String getName();
+
+  /**
+   * Returns the file extensions of the format.
+   *
+   * @return		the extensions (incl dot), the first one being the default
+   */
+  public String[] getExtensions();
+
+  /**
+   * Determines how likely the content is in this format, based on the
+   * start of the (uncompressed) content.
+   *
+   * @param header	the start of the content
+   * @param length	the number of bytes in the header
+   * @param complete	whether the header is the complete content
+   * @return		the confidence, from {@link #NO_MATCH} to {@link #CERTAIN}
+   */
+  public int sniff(byte[] header, int length, boolean complete);
+
+  /**
+   * Returns a new reader for the format. Text-based formats return a
+   * {@link TextPuzzleReader}, which can also read from character streams.
+   *
+   * @return		the reader
+   */
+  public PuzzleReader newReader();
+
+  /**
+   * Returns a new writer for the format. Text-based formats return a
+   * {@link TextPuzzleWriter}, which can also write to character streams.
+   *
+   * @return		the writer
+   */
+  public PuzzleWriter newWriter();
+}
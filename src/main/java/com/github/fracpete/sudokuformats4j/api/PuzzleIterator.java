@@ -0,0 +1,115 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleIterator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Interface for iterators that read grids one at a time, rather than
+ * loading all of them into a {@link Puzzles} collection.
+ * Failures while reading get thrown as {@link IllegalStateException}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface PuzzleIterator
+  extends Iterator<Grid>, Closeable {
+
+  /**
+   * Returns the meta-data encountered so far.
+   *
+   * @return		the meta-data
+   */
+  public Map<String,String> getMetaData();
+
+  /**
+   * Sets the filter for the grids, null to pass on all grids.
+   *
+   * @param value	the filter, can be null
+   */
+  public void setFilter(GridFilter value);
+
+  /**
+   * Returns the filter for the grids.
+   *
+   * @return		the filter, null if none
+   */
+  public GridFilter getFilter();
+
+  /**
+   * Sets the metrics to update while reading, null to disable.
+   *
+   * @param value	the metrics, can be null
+   */
+  public void setMetrics(PuzzleMetrics value);
+
+  /**
+   * Returns the metrics to update while reading.
+   *
+   * @return		the metrics, null if disabled
+   */
+  public PuzzleMetrics getMetrics();
+
+  /**
+   * Sets how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @param value	the policy
+   */
+  public void setErrorPolicy(ErrorPolicy value);
+
+  /**
+   * Returns how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @return		the policy
+   */
+  public ErrorPolicy getErrorPolicy();
+
+  /**
+   * Sets the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   *
+   * @param value	the report
+   */
+  public void setErrorReport(ErrorReport value);
+
+  /**
+   * Returns the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   *
+   * @return		the report
+   */
+  public ErrorReport getErrorReport();
+
+  /**
+   * Returns the remaining grids as sequential stream.
+   * Closing the stream closes the iterator.
+   *
+   * @return		the stream
+   */
+  public Stream<Grid> stream();
+
+  /**
+   * Closes the iterator and, if owned by the iterator, the underlying
+   * reader/stream.
+   */
+  @Override
+  public void close();
+}
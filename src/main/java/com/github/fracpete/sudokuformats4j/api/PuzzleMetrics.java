@@ -0,0 +1,88 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleMetrics.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * Interface for collecting metrics from the reader/writer pipeline, e.g.,
+ * for exposing them in dashboards. Readers/writers, iterators and sinks
+ * only measure anything if metrics have been set, ie there is no overhead
+ * otherwise. Implementations must be thread-safe, as iterators/sinks can
+ * be used by different threads (e.g., when reading in parallel).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @see Metrics
+ */
+public interface PuzzleMetrics {
+
+  /**
+   * The counters.
+   */
+  public enum Counter {
+    /** the bytes read from files/streams (after decompression). */
+    BYTES_READ,
+    /** the grids parsed (before filtering). */
+    GRIDS_READ,
+    /** the lines/games that could not be parsed into a grid. */
+    REJECTED,
+    /** the grids removed by the filter. */
+    FILTERED,
+    /** the grids written. */
+    GRIDS_WRITTEN,
+    /** the bytes written to files/streams (before compression). */
+    BYTES_WRITTEN
+  }
+
+  /**
+   * The stages that get timed.
+   */
+  public enum Stage {
+    /** reading from the file/stream, per read call (incl. decompression). */
+    IO_READ,
+    /** reading and parsing a grid, per grid (incl. I/O of reading). */
+    READ,
+    /** decoding a grid from its line/data, per grid (part of reading, e.g., without the XML parsing). */
+    DECODE,
+    /** applying the filter, per grid. */
+    FILTER,
+    /** the time the caller spends between obtaining a grid and requesting the next one. */
+    DOWNSTREAM,
+    /** formatting and writing a grid, per grid (incl. I/O of writing). */
+    WRITE,
+    /** writing to the file/stream, per write/flush call (incl. compression). */
+    IO_WRITE
+  }
+
+  /**
+   * Increments the counter.
+   *
+   * @param counter	the counter to increment
+   * @param amount	the amount to add
+   */
+  public void increment(Counter counter, long amount);
+
+  /**
+   * Records the time of the stage.
+   *
+   * @param stage	the stage
+   * @param nanos	the time in nanoseconds
+   */
+  public void record(Stage stage, long nanos);
+}
@@ -31,6 +31,69 @@ import java.io.Reader;
  */
 public interface PuzzleReader {
 
+  /**
+   * Sets the filter to apply to the grids when reading, null to keep all.
+   * Default implementation only accepts null, as it does not support
+   * filtering.
+   *
+   * @param value	the filter, can be null
+   * @throws UnsupportedOperationException	if a filter is supplied
+   */
+  public default void setFilter(GridFilter value) {
+    if (value != null)
+      throw new UnsupportedOperationException(getClass().getName() + " does not support filters!");
+  }
+
+  /**
+   * Returns the filter to apply to the grids when reading.
+   * Default implementation returns null.
+   *
+   * @return		the filter, null if none
+   */
+  public default GridFilter getFilter() {
+    return null;
+  }
+
+  /**
+   * Sets how to handle lines/games that cannot be parsed into a grid.
+   * Default implementation ignores the policy, leaving the handling of
+   * such lines/games to the reader.
+   *
+   * @param value	the policy
+   */
+  public default void setErrorPolicy(ErrorPolicy value) {
+  }
+
+  /**
+   * Returns how to handle lines/games that cannot be parsed into a grid.
+   * Default implementation returns {@link ErrorPolicy#FAIL}, ie readers
+   * without support for policies are expected to throw an exception.
+   *
+   * @return		the policy
+   */
+  public default ErrorPolicy getErrorPolicy() {
+    return ErrorPolicy.FAIL;
+  }
+
+  /**
+   * Sets the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   * Default implementation ignores the report.
+   *
+   * @param value	the report
+   */
+  public default void setErrorReport(ErrorReport value) {
+  }
+
+  /**
+   * Returns the report for collecting the rejects (with {@link ErrorPolicy#COLLECT}).
+   * Default implementation returns null.
+   *
+   * @return		the report, null if none
+   */
+  public default ErrorReport getErrorReport() {
+    return null;
+  }
+
   /**
    * Reads the grids from the specified file.
    *
@@ -43,12 +106,17 @@ public interface PuzzleReader {
   /**
    * Reads the grids using the specified reader.
    * Caller must close the reader.
+   * Default implementation throws an {@link UnsupportedOperationException},
+   * as binary formats cannot read from character streams.
    *
    * @param reader	the reader to use
    * @return		the puzzles
    * @throws Exception	if reading fails
+   * @see TextPuzzleReader
    */
-  public Puzzles read(Reader reader) throws Exception;
+  public default Puzzles read(Reader reader) throws Exception {
+    throw new UnsupportedOperationException(getClass().getName() + " cannot read from a Reader, use an InputStream instead!");
+  }
 
   /**
    * Reads the grids using the specified stream.
@@ -59,4 +127,31 @@ public interface PuzzleReader {
    * @throws Exception	if reading fails
    */
   public Puzzles read(InputStream stream) throws Exception;
+
+  /**
+   * Returns an iterator over the grids in the specified file.
+   * Caller must close the iterator (happens automatically once all grids
+   * have been read).
+   * Default implementation reads all the grids into memory first.
+   *
+   * @param file	the file to read from
+   * @return		the iterator
+   * @throws Exception	if opening the file fails
+   */
+  public default PuzzleIterator iterator(File file) throws Exception {
+    return new PuzzlesIterator(read(file));
+  }
+
+  /**
+   * Returns an iterator over the grids using the specified stream.
+   * Caller must close the stream.
+   * Default implementation reads all the grids into memory first.
+   *
+   * @param stream	the stream to use
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  public default PuzzleIterator iterator(InputStream stream) throws Exception {
+    return new PuzzlesIterator(read(stream));
+  }
 }
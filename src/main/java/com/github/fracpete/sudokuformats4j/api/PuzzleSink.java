@@ -0,0 +1,73 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleSink.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.Map;
+
+/**
+ * Interface for writers that output grids one at a time, rather than
+ * requiring a complete {@link Puzzles} collection.
+ * Life cycle: open (writes header/meta-data), append grids, close.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface PuzzleSink
+  extends Closeable, Flushable {
+
+  /**
+   * Writes the header, including the meta-data.
+   *
+   * @param metaData	the meta-data to write, can be null
+   * @throws Exception	if writing fails or sink already opened
+   */
+  public void open(Map<String,String> metaData) throws Exception;
+
+  /**
+   * Appends the grid. Opens the sink without meta-data if not yet opened.
+   *
+   * @param grid	the grid to append
+   * @throws Exception	if writing fails
+   */
+  public void append(Grid grid) throws Exception;
+
+  /**
+   * Returns the number of grids appended so far.
+   *
+   * @return		the number of grids
+   */
+  public long getCount();
+
+  /**
+   * Sets the metrics to update while writing, null to disable.
+   *
+   * @param value	the metrics, can be null
+   */
+  public void setMetrics(PuzzleMetrics value);
+
+  /**
+   * Returns the metrics to update while writing.
+   *
+   * @return		the metrics, null if disabled
+   */
+  public PuzzleMetrics getMetrics();
+}
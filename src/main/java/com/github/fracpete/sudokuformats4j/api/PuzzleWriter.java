@@ -23,6 +23,7 @@ package com.github.fracpete.sudokuformats4j.api;
 import java.io.File;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Map;
 
 /**
  * Interface for sudoku puzzle writers.
@@ -42,12 +43,17 @@ public interface PuzzleWriter {
 
   /**
    * Writes the puzzles using the specified writer.
+   * Default implementation throws an {@link UnsupportedOperationException},
+   * as binary formats cannot write to character streams.
    *
    * @param writer	the writer to write to
    * @param puzzles 	the puzzles
    * @throws Exception	if writing fails
+   * @see TextPuzzleWriter
    */
-  public void write(Puzzles puzzles, Writer writer) throws Exception;
+  public default void write(Puzzles puzzles, Writer writer) throws Exception {
+    throw new UnsupportedOperationException(getClass().getName() + " cannot write to a Writer, use an OutputStream instead!");
+  }
 
   /**
    * Writes the puzzles using the specified stream.
@@ -57,4 +63,44 @@ public interface PuzzleWriter {
    * @throws Exception	if writing fails
    */
   public void write(Puzzles puzzles, OutputStream stream) throws Exception;
+
+  /**
+   * Opens a sink for writing grids one at a time to the specified file.
+   * Caller must close the sink.
+   * Default implementation collects the grids in memory and writes them
+   * when the sink gets closed.
+   *
+   * @param file	the file to write to
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
+   */
+  public default PuzzleSink sink(File file, Map<String,String> metaData) throws Exception {
+    PuzzleSink	result;
+
+    result = new PuzzlesSink(this, file);
+    result.open(metaData);
+
+    return result;
+  }
+
+  /**
+   * Opens a sink for writing grids one at a time using the specified stream.
+   * Caller must close the sink and the stream.
+   * Default implementation collects the grids in memory and writes them
+   * when the sink gets closed.
+   *
+   * @param stream	the stream to write to
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
+   */
+  public default PuzzleSink sink(OutputStream stream, Map<String,String> metaData) throws Exception {
+    PuzzleSink	result;
+
+    result = new PuzzlesSink(this, stream);
+    result.open(metaData);
+
+    return result;
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzlesIterator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over grids that have already been read into memory. Used by
+ * {@link PuzzleReader} implementations that do not support streaming.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzlesIterator
+  extends AbstractPuzzleIterator {
+
+  /** the underlying iterator. */
+  protected Iterator<Grid> m_Iterator;
+
+  /**
+   * Initializes the iterator.
+   *
+   * @param puzzles	the puzzles to iterate over
+   */
+  public PuzzlesIterator(Puzzles puzzles) {
+    super(null, false);
+    m_MetaData.putAll(puzzles.getMetaData());
+    m_Iterator = puzzles.iterator();
+  }
+
+  /**
+   * Returns the next grid.
+   *
+   * @return		the next grid, null if no more grids available
+   */
+  @Override
+  protected Grid doNext() {
+    if (m_Iterator.hasNext())
+      return m_Iterator.next();
+    return null;
+  }
+}
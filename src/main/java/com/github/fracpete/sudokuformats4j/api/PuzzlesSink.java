@@ -0,0 +1,131 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzlesSink.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Sink that collects the grids in memory and writes them in one go when
+ * closed. Used by {@link PuzzleWriter} implementations that do not
+ * support writing incrementally.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzlesSink
+  extends AbstractBasePuzzleSink {
+
+  /** the writer to use. */
+  protected PuzzleWriter m_Writer;
+
+  /** the file to write to (null if stream). */
+  protected File m_File;
+
+  /** the stream to write to (null if file). */
+  protected OutputStream m_Stream;
+
+  /** the collected grids. */
+  protected Puzzles m_Puzzles;
+
+  /**
+   * Initializes the sink for writing to a file.
+   *
+   * @param writer	the writer to use
+   * @param file	the file to write to
+   */
+  public PuzzlesSink(PuzzleWriter writer, File file) {
+    this(writer, file, null);
+  }
+
+  /**
+   * Initializes the sink for writing to a stream. The stream is left open.
+   *
+   * @param writer	the writer to use
+   * @param stream	the stream to write to
+   */
+  public PuzzlesSink(PuzzleWriter writer, OutputStream stream) {
+    this(writer, null, stream);
+  }
+
+  /**
+   * Initializes the sink.
+   *
+   * @param writer	the writer to use
+   * @param file	the file to write to, null if stream
+   * @param stream	the stream to write to, null if file
+   */
+  protected PuzzlesSink(PuzzleWriter writer, File file, OutputStream stream) {
+    super();
+    m_Writer  = writer;
+    m_File    = file;
+    m_Stream  = stream;
+    m_Puzzles = new Puzzles();
+  }
+
+  /**
+   * Stores the meta-data.
+   *
+   * @param metaData	the meta-data to write
+   */
+  @Override
+  protected void doOpen(Map<String,String> metaData) {
+    m_Puzzles.getMetaData().putAll(metaData);
+  }
+
+  /**
+   * Collects the grid.
+   *
+   * @param grid	the grid to append
+   */
+  @Override
+  protected void doAppend(Grid grid) {
+    m_Puzzles.add(grid);
+  }
+
+  /**
+   * Does nothing, as the grids only get written when closing the sink.
+   */
+  @Override
+  protected void flushOutput() {
+  }
+
+  /**
+   * Does nothing, as the writer handles the file/stream.
+   */
+  @Override
+  protected void closeOutput() {
+  }
+
+  /**
+   * Writes the collected grids.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Override
+  protected void doClose() throws Exception {
+    if (m_File != null)
+      m_Writer.write(m_Puzzles, m_File);
+    else
+      m_Writer.write(m_Puzzles, m_Stream);
+    m_Puzzles.clear();
+  }
+}
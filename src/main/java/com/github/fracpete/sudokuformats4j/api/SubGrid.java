@@ -21,6 +21,7 @@
 package com.github.fracpete.sudokuformats4j.api;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Represents a sub-grid in a sudoku grid (3x3).
@@ -86,7 +87,7 @@ public class SubGrid
   protected void check(int row, int col) {
     if ((row < 0) || (row >= m_Rows))
       throw new IllegalArgumentException("Row must be 0 <= y < " + m_Rows);
-    if ((col < 0) || (row >= m_Cols))
+    if ((col < 0) || (col >= m_Cols))
       throw new IllegalArgumentException("Column must be 0 <= x < " + m_Cols);
   }
 
@@ -118,6 +119,38 @@ public class SubGrid
     return m_Cells[row*m_Cols + col];
   }
 
+  /**
+   * Returns whether the object is a subgrid with the same dimensions and
+   * cell values.
+   *
+   * @param obj		the object to compare with
+   * @return		true if the same
+   */
+  @Override
+  public boolean equals(Object obj) {
+    SubGrid	other;
+
+    if (this == obj)
+      return true;
+    if (!(obj instanceof SubGrid))
+      return false;
+
+    other = (SubGrid) obj;
+    return (m_Rows == other.m_Rows)
+      && (m_Cols == other.m_Cols)
+      && Arrays.equals(m_Cells, other.m_Cells);
+  }
+
+  /**
+   * Returns the hashcode, based on the cell values.
+   *
+   * @return		the hashcode
+   */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(m_Cells);
+  }
+
   /**
    * Returns a simple string representation of the subgrid.
    *
@@ -0,0 +1,187 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Symbols.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+/**
+ * The characters representing the values of cells in the line
+ * representation. Characters that are not symbols (e.g., '0' or '.')
+ * denote empty cells; letters are case-insensitive. Instances are
+ * immutable and thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Symbols {
+
+  /** digits 1-9, empty cells as '0' (up to 9x9). */
+  public static final Symbols DIGITS = new Symbols("123456789", '0');
+
+  /** digits 1-9 followed by letters A-Z, empty cells as '.' (default beyond 9x9, e.g., 1-G for 16x16, 1-P for 25x25). */
+  public static final Symbols ALPHANUMERIC = new Symbols("123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ", '.');
+
+  /** hexadecimal 0-F, empty cells as '.' (16x16). */
+  public static final Symbols HEX = new Symbols("0123456789ABCDEF", '.');
+
+  /** letters A-Z, empty cells as '.' (e.g., 25x25). */
+  public static final Symbols LETTERS = new Symbols("ABCDEFGHIJKLMNOPQRSTUVWXYZ", '.');
+
+  /** the symbols for the values 1, 2, ... */
+  protected final String m_Symbols;
+
+  /** the char for each value (index 0 = empty cell). */
+  protected final char[] m_Chars;
+
+  /** the value for each ASCII/ISO-8859-1 char (0 = empty cell). */
+  protected final byte[] m_Values;
+
+  /**
+   * Initializes the symbols.
+   *
+   * @param symbols	the symbols for the values 1, 2, ...
+   * @param empty	the char to output for empty cells
+   * @throws IllegalArgumentException	if symbols are not ASCII, duplicate or include the empty char (ignoring case)
+   */
+  public Symbols(String symbols, char empty) {
+    int		i;
+    char	c;
+
+    m_Symbols  = symbols;
+    m_Chars    = new char[symbols.length() + 1];
+    m_Chars[0] = empty;
+    m_Values   = new byte[256];
+    for (i = 0; i < symbols.length(); i++) {
+      c = symbols.charAt(i);
+      if ((c >= 128) || (m_Values[c] != 0))
+	throw new IllegalArgumentException("Symbols must be unique ASCII chars: " + symbols);
+      m_Chars[i + 1] = c;
+      m_Values[Character.toLowerCase(c)] = (byte) (i + 1);
+      m_Values[Character.toUpperCase(c)] = (byte) (i + 1);
+    }
+    // the empty char must not decode to a value
+    if ((empty < m_Values.length) && (m_Values[empty] != 0))
+      throw new IllegalArgumentException("Empty cell char '" + empty + "' cannot be a symbol: " + symbols);
+  }
+
+  /**
+   * Returns the symbols for the default symbols for the number of digits:
+   * {@link #DIGITS} for up to 9 and {@link #ALPHANUMERIC} beyond that.
+   *
+   * @param digits	the number of digits
+   * @return		the symbols
+   * @throws IllegalArgumentException	if too many digits
+   */
+  public static Symbols forDigits(int digits) {
+    if (digits <= DIGITS.size())
+      return DIGITS;
+    if (digits <= ALPHANUMERIC.size())
+      return ALPHANUMERIC;
+    throw new IllegalArgumentException("At most " + ALPHANUMERIC.size() + " digits supported, provided: " + digits);
+  }
+
+  /**
+   * Returns the number of symbols, ie the largest value.
+   *
+   * @return		the number of symbols
+   */
+  public int size() {
+    return m_Chars.length - 1;
+  }
+
+  /**
+   * Returns the char for empty cells.
+   *
+   * @return		the char
+   */
+  public char empty() {
+    return m_Chars[0];
+  }
+
+  /**
+   * Returns the value for the char.
+   *
+   * @param c		the char to convert
+   * @return		the value, 0 if empty cell
+   */
+  public byte valueOf(char c) {
+    return (c < m_Values.length) ? m_Values[c] : 0;
+  }
+
+  /**
+   * Returns the value for the ASCII char.
+   *
+   * @param b		the char to convert
+   * @return		the value, 0 if empty cell
+   */
+  public byte valueOf(byte b) {
+    return m_Values[b & 0xFF];
+  }
+
+  /**
+   * Returns the char for the value.
+   *
+   * @param value	the value to convert
+   * @return		the char
+   * @throws ArrayIndexOutOfBoundsException	if value is not in 0 to {@link #size()}
+   */
+  public char charOf(byte value) {
+    return m_Chars[value];
+  }
+
+  /**
+   * Returns whether the object uses the same symbols and char for empty
+   * cells.
+   *
+   * @param obj		the object to compare with
+   * @return		true if the same
+   */
+  @Override
+  public boolean equals(Object obj) {
+    Symbols	other;
+
+    if (this == obj)
+      return true;
+    if (!(obj instanceof Symbols))
+      return false;
+
+    other = (Symbols) obj;
+    return (empty() == other.empty())
+      && m_Symbols.equals(other.m_Symbols);
+  }
+
+  /**
+   * Returns the hashcode, based on the symbols and the char for empty cells.
+   *
+   * @return		the hashcode
+   */
+  @Override
+  public int hashCode() {
+    return 31 * m_Symbols.hashCode() + empty();
+  }
+
+  /**
+   * Returns the symbols and the char for empty cells.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return m_Symbols + " (empty: " + empty() + ")";
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TextPuzzleReader.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Reader;
+
+/**
+ * Interface for text-based puzzle readers, which can also read from
+ * character streams. Binary formats only implement {@link PuzzleReader}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface TextPuzzleReader
+  extends PuzzleReader {
+
+  /**
+   * Reads the grids using the specified reader.
+   * Caller must close the reader.
+   *
+   * @param reader	the reader to use
+   * @return		the puzzles
+   * @throws Exception	if reading fails
+   */
+  public Puzzles read(Reader reader) throws Exception;
+
+  /**
+   * Returns an iterator over the grids using the specified reader.
+   * Caller must close the reader.
+   *
+   * @param reader	the reader to use
+   * @return		the iterator
+   * @throws Exception	if initializing the iterator fails
+   */
+  public PuzzleIterator iterator(Reader reader) throws Exception;
+}
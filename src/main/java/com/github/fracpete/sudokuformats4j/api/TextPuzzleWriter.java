@@ -0,0 +1,54 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TextPuzzleWriter.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Interface for text-based puzzle writers, which can also write to
+ * character streams. Binary formats only implement {@link PuzzleWriter}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface TextPuzzleWriter
+  extends PuzzleWriter {
+
+  /**
+   * Writes the puzzles using the specified writer.
+   *
+   * @param writer	the writer to write to
+   * @param puzzles 	the puzzles
+   * @throws Exception	if writing fails
+   */
+  public void write(Puzzles puzzles, Writer writer) throws Exception;
+
+  /**
+   * Opens a sink for writing grids one at a time using the specified writer.
+   * Caller must close the sink and the writer.
+   *
+   * @param writer	the writer to write to
+   * @param metaData	the meta-data for the header, can be null
+   * @return		the opened sink
+   * @throws Exception	if opening fails
+   */
+  public PuzzleSink sink(Writer writer, Map<String,String> metaData) throws Exception;
+}
@@ -0,0 +1,494 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ValidatedGrid.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import java.util.Arrays;
+
+/**
+ * Grid that keeps track of the digits in each row, column and box while
+ * cells get set, ie conflicts and candidates can be queried in constant
+ * time instead of rescanning all the cells. Per row, column and box, it
+ * stores a bitmask of the digits present (bit d-1 for digit d) and how
+ * often each digit occurs; the number of conflicts is the number of
+ * surplus occurrences over all rows, columns and boxes.
+ * <br>
+ * Changes via {@link SubGrid#set(int, int, byte)} of its subgrids and
+ * {@link #setCell(int, int, byte)} get tracked incrementally. Bulk changes
+ * ({@link #setCells(byte[])}, decoding lines into the grid) rebuild the
+ * bitmasks. In contrast to {@link Grid}, values larger than the number of
+ * digits get rejected.
+ * <br>
+ * Only supports grids with as many digits as rows/columns (e.g., 3x3
+ * boxes for 9x9, 2x3 boxes for 6x6), with up to 31 digits.
+ * <pre>
+ * ValidatedGrid grid = new ValidatedGrid(Grid.fromLine(line));
+ * if (!grid.isValid())
+ *   ...
+ * int candidates = grid.getCandidates(4, 4);
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ValidatedGrid
+  extends Grid {
+
+  /** the maximum number of digits. */
+  public static final int MAX_DIGITS = 31;
+
+  /**
+   * Subgrid that passes on changes to the grid it belongs to.
+   */
+  public static class ValidatedSubGrid
+    extends SubGrid {
+
+    /** the grid this subgrid belongs to. */
+    protected ValidatedGrid m_Owner;
+
+    /** the row of the top-left cell in the grid. */
+    protected int m_Top;
+
+    /** the column of the top-left cell in the grid. */
+    protected int m_Left;
+
+    /**
+     * Initializes the subgrid.
+     *
+     * @param owner	the grid this subgrid belongs to
+     * @param top	the row of the top-left cell in the grid
+     * @param left	the column of the top-left cell in the grid
+     */
+    protected ValidatedSubGrid(ValidatedGrid owner, int top, int left) {
+      super(owner.subRows(), owner.subCols());
+      m_Owner = owner;
+      m_Top   = top;
+      m_Left  = left;
+    }
+
+    /**
+     * Sets the cell value and updates the bitmasks of the grid.
+     *
+     * @param row	the row of the cell (0-based)
+     * @param col	the column of the cell (0-based)
+     * @param value	the value (<= 0 means empty cell)
+     * @throws IllegalArgumentException	if invalid coordinates or value too large
+     */
+    @Override
+    public void set(int row, int col, byte value) {
+      check(row, col);
+      m_Owner.setCell(m_Top + row, m_Left + col, value);
+    }
+  }
+
+  /** the number of digits (= rows/columns of cells). */
+  protected int m_Digits;
+
+  /** the bitmask with all digits. */
+  protected int m_All;
+
+  /** the digits present per row. */
+  protected int[] m_RowMasks;
+
+  /** the digits present per column. */
+  protected int[] m_ColMasks;
+
+  /** the digits present per box. */
+  protected int[] m_BoxMasks;
+
+  /** the occurrences per row and digit (row * (digits + 1) + digit). */
+  protected byte[] m_RowCounts;
+
+  /** the occurrences per column and digit. */
+  protected byte[] m_ColCounts;
+
+  /** the occurrences per box and digit. */
+  protected byte[] m_BoxCounts;
+
+  /** the number of surplus occurrences of digits. */
+  protected int m_Conflicts;
+
+  /** the number of filled cells. */
+  protected int m_Filled;
+
+  /**
+   * Initializes the grid (3x3 with 3x3 subgrids).
+   */
+  public ValidatedGrid() {
+    this(3, 3, 3, 3);
+  }
+
+  /**
+   * Initializes the grid.
+   *
+   * @param rows 	the number of rows
+   * @param cols 	the number of columns
+   * @param subRows 	the number of rows in the subgrids
+   * @param subCols 	the number of columns in the subgrids
+   * @throws IllegalArgumentException	if the dimensions are not supported
+   */
+  public ValidatedGrid(int rows, int cols, int subRows, int subCols) {
+    super(rows, cols, subRows, subCols);
+
+    int		y;
+    int		x;
+
+    m_Digits = subRows * subCols;
+    if ((rows * subRows != m_Digits) || (cols * subCols != m_Digits) || (m_Digits > MAX_DIGITS))
+      throw new IllegalArgumentException(
+	"Unsupported dimensions (rows and columns must have as many cells as the subgrids, at most " + MAX_DIGITS + "): "
+	  + rows + "x" + cols + "/" + subRows + "x" + subCols);
+
+    m_All       = (1 << m_Digits) - 1;
+    m_RowMasks  = new int[m_Digits];
+    m_ColMasks  = new int[m_Digits];
+    m_BoxMasks  = new int[m_Digits];
+    m_RowCounts = new byte[m_Digits * (m_Digits + 1)];
+    m_ColCounts = new byte[m_Digits * (m_Digits + 1)];
+    m_BoxCounts = new byte[m_Digits * (m_Digits + 1)];
+    m_Conflicts = 0;
+    m_Filled    = 0;
+    for (y = 0; y < rows; y++) {
+      for (x = 0; x < cols; x++)
+	m_SubGrids.set(y*cols + x, new ValidatedSubGrid(this, y*subRows, x*subCols));
+    }
+  }
+
+  /**
+   * Initializes the grid with the dimensions and cell values of the grid.
+   *
+   * @param grid	the grid to copy
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  public ValidatedGrid(Grid grid) {
+    this(grid.rows(), grid.cols(), grid.subRows(), grid.subCols());
+    setCells(grid.getCells(null));
+  }
+
+  /**
+   * Returns the number of digits.
+   *
+   * @return		the number of digits
+   */
+  public int digits() {
+    return m_Digits;
+  }
+
+  /**
+   * Checks the cell coordinates.
+   *
+   * @param y		the row of the cell
+   * @param x		the column of the cell
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  protected void checkCell(int y, int x) {
+    if ((y < 0) || (y >= m_Digits))
+      throw new IllegalArgumentException("Row must be 0 <= y < " + m_Digits);
+    if ((x < 0) || (x >= m_Digits))
+      throw new IllegalArgumentException("Column must be 0 <= x < " + m_Digits);
+  }
+
+  /**
+   * Checks the value.
+   *
+   * @param value	the value to check
+   * @return		the value, 0 for negative values
+   * @throws IllegalArgumentException	if the value is too large
+   */
+  protected byte checkValue(byte value) {
+    if (value > m_Digits)
+      throw new IllegalArgumentException("Value must be <= " + m_Digits + ", provided: " + value);
+    return (value < 0) ? 0 : value;
+  }
+
+  /**
+   * Returns the index of the box of the cell.
+   *
+   * @param y		the row of the cell
+   * @param x		the column of the cell
+   * @return		the box (= index of the subgrid)
+   */
+  protected int box(int y, int x) {
+    return (y / subRows()) * m_Cols + (x / subCols());
+  }
+
+  /**
+   * Returns the value of the cell.
+   *
+   * @param y		the row of the cell (0-based)
+   * @param x		the column of the cell (0-based)
+   * @return		the value (0 = empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public byte getCell(int y, int x) {
+    checkCell(y, x);
+    return m_SubGrids.get(box(y, x)).m_Cells[(y % subRows()) * subCols() + (x % subCols())];
+  }
+
+  /**
+   * Adds an occurrence of the digit.
+   *
+   * @param y		the row of the cell
+   * @param x		the column of the cell
+   * @param box		the box of the cell
+   * @param digit	the digit
+   */
+  protected void place(int y, int x, int box, int digit) {
+    int		bit;
+
+    bit = 1 << (digit - 1);
+    if (m_RowCounts[y * (m_Digits + 1) + digit]++ == 0)
+      m_RowMasks[y] |= bit;
+    else
+      m_Conflicts++;
+    if (m_ColCounts[x * (m_Digits + 1) + digit]++ == 0)
+      m_ColMasks[x] |= bit;
+    else
+      m_Conflicts++;
+    if (m_BoxCounts[box * (m_Digits + 1) + digit]++ == 0)
+      m_BoxMasks[box] |= bit;
+    else
+      m_Conflicts++;
+    m_Filled++;
+  }
+
+  /**
+   * Removes an occurrence of the digit.
+   *
+   * @param y		the row of the cell
+   * @param x		the column of the cell
+   * @param box		the box of the cell
+   * @param digit	the digit
+   */
+  protected void remove(int y, int x, int box, int digit) {
+    int		bit;
+
+    bit = 1 << (digit - 1);
+    if (--m_RowCounts[y * (m_Digits + 1) + digit] == 0)
+      m_RowMasks[y] &= ~bit;
+    else
+      m_Conflicts--;
+    if (--m_ColCounts[x * (m_Digits + 1) + digit] == 0)
+      m_ColMasks[x] &= ~bit;
+    else
+      m_Conflicts--;
+    if (--m_BoxCounts[box * (m_Digits + 1) + digit] == 0)
+      m_BoxMasks[box] &= ~bit;
+    else
+      m_Conflicts--;
+    m_Filled--;
+  }
+
+  /**
+   * Sets the value of the cell, updating the bitmasks.
+   *
+   * @param y		the row of the cell (0-based)
+   * @param x		the column of the cell (0-based)
+   * @param value	the value (<= 0 means empty cell)
+   * @throws IllegalArgumentException	if invalid coordinates or value too large
+   */
+  public void setCell(int y, int x, byte value) {
+    byte[]	cells;
+    int		box;
+    int		pos;
+    byte	old;
+
+    checkCell(y, x);
+    value = checkValue(value);
+    box   = box(y, x);
+    cells = m_SubGrids.get(box).m_Cells;
+    pos   = (y % subRows()) * subCols() + (x % subCols());
+    old   = cells[pos];
+    if (old == value)
+      return;
+
+    if (old > 0)
+      remove(y, x, box, old);
+    if (value > 0)
+      place(y, x, box, value);
+    cells[pos] = value;
+  }
+
+  /**
+   * Copies the values of the subgrid into the subgrid at the specified
+   * position (the subgrid itself does not get replaced).
+   *
+   * @param row		the row of the subgrid (0-based)
+   * @param col		the column of the subgrid (0-based)
+   * @param value	the subgrid to copy
+   * @throws IllegalArgumentException	if invalid coordinates, dimensions or values
+   */
+  @Override
+  public void set(int row, int col, SubGrid value) {
+    int		y;
+    int		x;
+
+    check(row, col);
+    if ((value.rows() != subRows()) || (value.cols() != subCols()))
+      throw new IllegalArgumentException("Subgrid must be " + subRows() + "x" + subCols() + ", provided: " + value.rows() + "x" + value.cols());
+    for (y = 0; y < subRows(); y++) {
+      for (x = 0; x < subCols(); x++)
+	setCell(row*subRows() + y, col*subCols() + x, value.get(y, x));
+    }
+  }
+
+  /**
+   * Sets all cell values from the array (row-wise, from top).
+   *
+   * @param cells	the values
+   * @throws IllegalArgumentException	if the array is too short or a value too large
+   */
+  @Override
+  public void setCells(byte[] cells) {
+    int		i;
+
+    for (i = 0; i < cells.length && i < m_Digits * m_Digits; i++)
+      checkValue(cells[i]);
+    super.setCells(cells);
+  }
+
+  /**
+   * Rebuilds the bitmasks from the cell values.
+   *
+   * @throws IllegalArgumentException	if a value is too large
+   */
+  @Override
+  protected void modified() {
+    byte[]	cells;
+    int		y;
+    int		x;
+    int		value;
+
+    Arrays.fill(m_RowMasks, 0);
+    Arrays.fill(m_ColMasks, 0);
+    Arrays.fill(m_BoxMasks, 0);
+    Arrays.fill(m_RowCounts, (byte) 0);
+    Arrays.fill(m_ColCounts, (byte) 0);
+    Arrays.fill(m_BoxCounts, (byte) 0);
+    m_Conflicts = 0;
+    m_Filled    = 0;
+
+    cells = getCells(null);
+    for (y = 0; y < m_Digits; y++) {
+      for (x = 0; x < m_Digits; x++) {
+	value = checkValue(cells[y*m_Digits + x]);
+	if (value > 0)
+	  place(y, x, box(y, x), value);
+      }
+    }
+  }
+
+  /**
+   * Returns whether no digit occurs more than once in any row, column or box.
+   *
+   * @return		true if no conflicts
+   */
+  public boolean isValid() {
+    return (m_Conflicts == 0);
+  }
+
+  /**
+   * Returns the number of surplus occurrences of digits over all rows,
+   * columns and boxes (e.g., a digit occurring twice in a row and its
+   * column counts as 2).
+   *
+   * @return		the number of conflicts
+   */
+  public int getConflicts() {
+    return m_Conflicts;
+  }
+
+  /**
+   * Returns the number of filled cells.
+   *
+   * @return		the number of filled cells
+   */
+  public int getFilled() {
+    return m_Filled;
+  }
+
+  /**
+   * Returns whether all cells are filled without conflicts.
+   *
+   * @return		true if solved
+   */
+  public boolean isSolved() {
+    return (m_Filled == m_Digits * m_Digits) && (m_Conflicts == 0);
+  }
+
+  /**
+   * Returns whether the digit of the cell occurs elsewhere in its row,
+   * column or box.
+   *
+   * @param y		the row of the cell (0-based)
+   * @param x		the column of the cell (0-based)
+   * @return		true if in conflict, false if not or empty cell
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public boolean hasConflict(int y, int x) {
+    int		digit;
+
+    digit = getCell(y, x);
+    if (digit == 0)
+      return false;
+
+    return (m_RowCounts[y * (m_Digits + 1) + digit] > 1)
+      || (m_ColCounts[x * (m_Digits + 1) + digit] > 1)
+      || (m_BoxCounts[box(y, x) * (m_Digits + 1) + digit] > 1);
+  }
+
+  /**
+   * Returns the digits that can be placed in the cell without conflicts,
+   * ie that do not occur in the other cells of its row, column and box.
+   *
+   * @param y		the row of the cell (0-based)
+   * @param x		the column of the cell (0-based)
+   * @return		the candidates as bitmask (bit d-1 for digit d)
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public int getCandidates(int y, int x) {
+    int		result;
+    int		digit;
+    int		box;
+
+    digit  = getCell(y, x);
+    box    = box(y, x);
+    result = m_RowMasks[y] | m_ColMasks[x] | m_BoxMasks[box];
+    // the digit of the cell itself only counts if it occurs elsewhere
+    if ((digit > 0) && !hasConflict(y, x))
+      result &= ~(1 << (digit - 1));
+
+    return ~result & m_All;
+  }
+
+  /**
+   * Returns whether the digit can be placed in the cell without conflicts.
+   *
+   * @param y		the row of the cell (0-based)
+   * @param x		the column of the cell (0-based)
+   * @param digit	the digit (1-based)
+   * @return		true if no conflict
+   * @throws IllegalArgumentException	if invalid coordinates
+   */
+  public boolean canPlace(int y, int x, int digit) {
+    if ((digit < 1) || (digit > m_Digits))
+      return false;
+    return (getCandidates(y, x) & (1 << (digit - 1))) != 0;
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BatchProcessor.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.batch;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Applies an operation (e.g., from {@link GridOperations}) to a collection
+ * or stream of grids in parallel. The grids get submitted to the executor
+ * in chunks, with at most a fixed number of chunks in flight (back-pressure),
+ * so that streams from readers never get loaded into memory completely.
+ * The results get passed on in the order of the grids.
+ * <br>
+ * Any executor can be used, e.g., a fork-join pool (default) or, on Java 21+,
+ * a virtual thread per task executor. The operation must be thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BatchProcessor {
+
+  /** the default number of grids per chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 64;
+
+  /** the executor to use. */
+  protected ExecutorService m_Executor;
+
+  /** the number of grids per chunk. */
+  protected int m_ChunkSize;
+
+  /** the maximum number of chunks in flight. */
+  protected int m_MaxInFlight;
+
+  /**
+   * Initializes the processor using the common fork-join pool.
+   */
+  public BatchProcessor() {
+    this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, 4 * ForkJoinPool.getCommonPoolParallelism());
+  }
+
+  /**
+   * Initializes the processor.
+   *
+   * @param executor	the executor to use
+   * @param chunkSize	the number of grids per chunk
+   * @param maxInFlight	the maximum number of chunks that are being processed
+   *                    or waiting to be consumed
+   */
+  public BatchProcessor(ExecutorService executor, int chunkSize, int maxInFlight) {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("Chunk size must be at least 1, provided: " + chunkSize);
+    if (maxInFlight < 1)
+      throw new IllegalArgumentException("Maximum number of chunks in flight must be at least 1, provided: " + maxInFlight);
+    m_Executor    = executor;
+    m_ChunkSize   = chunkSize;
+    m_MaxInFlight = maxInFlight;
+  }
+
+  /**
+   * Returns the executor in use.
+   *
+   * @return		the executor
+   */
+  public ExecutorService getExecutor() {
+    return m_Executor;
+  }
+
+  /**
+   * Returns the number of grids per chunk.
+   *
+   * @return		the chunk size
+   */
+  public int getChunkSize() {
+    return m_ChunkSize;
+  }
+
+  /**
+   * Returns the maximum number of chunks in flight.
+   *
+   * @return		the maximum
+   */
+  public int getMaxInFlight() {
+    return m_MaxInFlight;
+  }
+
+  /**
+   * Submits the chunk to the executor.
+   *
+   * @param chunk	the grids to process
+   * @param operation	the operation to apply
+   * @return		the future results
+   */
+  protected <R> Future<List<R>> submit(List<Grid> chunk, Function<Grid,R> operation) {
+    return m_Executor.submit(() -> {
+      List<R>	result;
+
+      result = new ArrayList<>(chunk.size());
+      for (Grid grid: chunk)
+	result.add(operation.apply(grid));
+
+      return result;
+    });
+  }
+
+  /**
+   * Waits for the results of the chunk and passes them on.
+   *
+   * @param future	the future results of the chunk
+   * @param consumer	the consumer for the results
+   * @throws Exception	if the operation failed
+   */
+  protected <R> void consume(Future<List<R>> future, Consumer<? super R> consumer) throws Exception {
+    for (R r: future.get())
+      consumer.accept(r);
+  }
+
+  /**
+   * Applies the operation to all grids, passing on the results in the order
+   * of the grids.
+   *
+   * @param grids	the grids to process, e.g., from a reader's iterator
+   * @param operation	the operation to apply
+   * @param consumer	the consumer for the results (called from the calling thread)
+   * @throws Exception	if the operation failed
+   */
+  public <R> void process(Iterator<Grid> grids, Function<Grid,R> operation, Consumer<? super R> consumer) throws Exception {
+    Deque<Future<List<R>>>	pending;
+    List<Grid>			chunk;
+
+    pending = new ArrayDeque<>();
+    try {
+      while (grids.hasNext()) {
+	chunk = new ArrayList<>(m_ChunkSize);
+	while (grids.hasNext() && (chunk.size() < m_ChunkSize))
+	  chunk.add(grids.next());
+	if (pending.size() >= m_MaxInFlight)
+	  consume(pending.poll(), consumer);
+	pending.add(submit(chunk, operation));
+      }
+      while (!pending.isEmpty())
+	consume(pending.poll(), consumer);
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+    finally {
+      for (Future<List<R>> future: pending)
+	future.cancel(true);
+    }
+  }
+
+  /**
+   * Applies the operation to all grids of the stream, passing on the
+   * results in the order of the grids.
+   *
+   * @param grids	the grids to process
+   * @param operation	the operation to apply
+   * @param consumer	the consumer for the results (called from the calling thread)
+   * @throws Exception	if the operation failed
+   */
+  public <R> void process(Stream<Grid> grids, Function<Grid,R> operation, Consumer<? super R> consumer) throws Exception {
+    process(grids.iterator(), operation, consumer);
+  }
+
+  /**
+   * Applies the operation to all grids.
+   *
+   * @param grids	the grids to process, e.g., {@link com.github.fracpete.sudokuformats4j.api.Puzzles}
+   * @param operation	the operation to apply
+   * @return		the results, in the same order as the grids
+   * @throws Exception	if the operation failed
+   */
+  public <R> List<R> process(List<Grid> grids, Function<Grid,R> operation) throws Exception {
+    List<R>	result;
+
+    result = new ArrayList<>(grids.size());
+    process(grids.iterator(), operation, result::add);
+
+    return result;
+  }
+}
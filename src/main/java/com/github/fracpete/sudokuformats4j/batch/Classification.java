@@ -0,0 +1,37 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Classification.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.batch;
+
+/**
+ * The classification of a puzzle by the number of its solutions.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public enum Classification {
+  /** the givens contradict each other or cannot be completed. */
+  NO_SOLUTION,
+  /** exactly one solution, ie a well-formed puzzle. */
+  UNIQUE,
+  /** more than one solution. */
+  MULTIPLE_SOLUTIONS,
+  /** the dimensions or values are not supported by the solver. */
+  INVALID,
+}
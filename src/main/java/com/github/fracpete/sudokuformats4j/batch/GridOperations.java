@@ -0,0 +1,126 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridOperations.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.batch;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.rating.Rater;
+import com.github.fracpete.sudokuformats4j.rating.Rating;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+
+import java.util.function.Function;
+
+/**
+ * Thread-safe operations on grids for use with the {@link BatchProcessor}.
+ * Each thread uses its own {@link Solver} and {@link Rater} instance.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GridOperations {
+
+  /** the solver per thread. */
+  protected static final ThreadLocal<Solver> SOLVER = ThreadLocal.withInitial(Solver::new);
+
+  /** the rater per thread. */
+  protected static final ThreadLocal<Rater> RATER = ThreadLocal.withInitial(Rater::new);
+
+  /**
+   * Returns the solver for the current thread.
+   *
+   * @return		the solver
+   */
+  public static Solver solver() {
+    return SOLVER.get();
+  }
+
+  /**
+   * Returns the rater for the current thread.
+   *
+   * @return		the rater
+   */
+  public static Rater rater() {
+    return RATER.get();
+  }
+
+  /**
+   * Returns an operation that solves grids.
+   *
+   * @return		the operation, returns the solution or null if none
+   */
+  public static Function<Grid,Grid> solve() {
+    return (Grid grid) -> solver().solve(grid);
+  }
+
+  /**
+   * Returns an operation that classifies grids by their number of solutions.
+   *
+   * @return		the operation
+   */
+  public static Function<Grid,Classification> classify() {
+    return (Grid grid) -> classify(grid);
+  }
+
+  /**
+   * Returns an operation that checks whether grids are well-formed puzzles,
+   * ie have exactly one solution.
+   *
+   * @return		the operation
+   */
+  public static Function<Grid,Boolean> validate() {
+    return (Grid grid) -> (classify(grid) == Classification.UNIQUE);
+  }
+
+  /**
+   * Returns an operation that rates the difficulty of grids.
+   *
+   * @return		the operation, returns the rating or null if no unique solution
+   */
+  public static Function<Grid,Rating> rate() {
+    return (Grid grid) -> rater().rate(grid);
+  }
+
+  /**
+   * Classifies the grid by its number of solutions. Grids the solver
+   * cannot handle get classified as {@link Classification#INVALID}, rather
+   * than aborting a whole batch.
+   *
+   * @param grid	the grid to classify
+   * @return		the classification
+   */
+  public static Classification classify(Grid grid) {
+    int		count;
+
+    try {
+      count = solver().countSolutions(grid, 2);
+    }
+    catch (IllegalArgumentException e) {
+      return Classification.INVALID;
+    }
+
+    switch (count) {
+      case 0:
+	return Classification.NO_SOLUTION;
+      case 1:
+	return Classification.UNIQUE;
+      default:
+	return Classification.MULTIPLE_SOLUTIONS;
+    }
+  }
+}
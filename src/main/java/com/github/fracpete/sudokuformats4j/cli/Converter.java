@@ -0,0 +1,887 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Converter.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.cli;
+
+import com.github.fracpete.sudokuformats4j.api.ErrorPolicy;
+import com.github.fracpete.sudokuformats4j.api.ErrorReport;
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command-line tool for converting puzzle files between any of the formats
+ * of the {@link FormatRegistry}. Inputs can be files, directories or glob
+ * patterns (e.g., "archive/**&#47;*.sdm.gz"). The files get converted in
+ * parallel, each one streamed from reader to writer, i.e., without loading
+ * all the grids into memory. The format of the input files gets detected
+ * from their content, unless specified explicitly. The directory structure
+ * below directories/glob bases gets mirrored in the output directory.
+ * <br>
+ * Reports the throughput per file and the totals, as well as the first
+ * lines/games per file that could not be parsed.
+ * Exit codes: 0 if all conversions succeeded, 1 if any failed, 2 for
+ * invalid options.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Converter {
+
+  /** the exit code if all files got converted. */
+  public static final int EXIT_OK = 0;
+
+  /** the exit code if at least one file failed to convert. */
+  public static final int EXIT_FAILED = 1;
+
+  /** the exit code for invalid options. */
+  public static final int EXIT_USAGE = 2;
+
+  /** the maximum number of rejected lines/games to list per file. */
+  public static final int MAX_REJECTS = 10;
+
+  /**
+   * A file to convert.
+   */
+  public static class Source {
+
+    /** the file. */
+    protected File m_File;
+
+    /** the path relative to the input (for the output). */
+    protected String m_Relative;
+
+    /**
+     * Initializes the source.
+     *
+     * @param file	the file
+     * @param relative	the path relative to the input
+     */
+    public Source(File file, String relative) {
+      m_File     = file;
+      m_Relative = relative;
+    }
+
+    /**
+     * Returns the file.
+     *
+     * @return		the file
+     */
+    public File getFile() {
+      return m_File;
+    }
+
+    /**
+     * Returns the path relative to the input.
+     *
+     * @return		the path
+     */
+    public String getRelative() {
+      return m_Relative;
+    }
+  }
+
+  /**
+   * The result of converting a single file.
+   */
+  public static class Result {
+
+    /** the input file. */
+    protected File m_Input;
+
+    /** the output file. */
+    protected File m_Output;
+
+    /** the number of grids. */
+    protected long m_Grids;
+
+    /** the size of the input in bytes. */
+    protected long m_Bytes;
+
+    /** the time in nanoseconds. */
+    protected long m_Time;
+
+    /** the error, null if successful. */
+    protected Exception m_Error;
+
+    /** the rejected lines/games. */
+    protected ErrorReport m_Rejects;
+
+    /**
+     * Initializes the result.
+     *
+     * @param input	the input file
+     * @param output	the output file
+     * @param grids	the number of grids converted
+     * @param time	the time in nanoseconds
+     * @param error	the error, null if successful
+     * @param rejects	the rejected lines/games
+     */
+    public Result(File input, File output, long grids, long time, Exception error, ErrorReport rejects) {
+      m_Input   = input;
+      m_Output  = output;
+      m_Grids   = grids;
+      m_Bytes   = input.length();
+      m_Time    = time;
+      m_Error   = error;
+      m_Rejects = rejects;
+    }
+
+    /**
+     * Returns the input file.
+     *
+     * @return		the file
+     */
+    public File getInput() {
+      return m_Input;
+    }
+
+    /**
+     * Returns the output file.
+     *
+     * @return		the file
+     */
+    public File getOutput() {
+      return m_Output;
+    }
+
+    /**
+     * Returns the number of grids converted.
+     *
+     * @return		the number of grids
+     */
+    public long getGrids() {
+      return m_Grids;
+    }
+
+    /**
+     * Returns the size of the input.
+     *
+     * @return		the size in bytes
+     */
+    public long getBytes() {
+      return m_Bytes;
+    }
+
+    /**
+     * Returns the time the conversion took.
+     *
+     * @return		the time in nanoseconds
+     */
+    public long getTime() {
+      return m_Time;
+    }
+
+    /**
+     * Returns the error, if any.
+     *
+     * @return		the error, null if successful
+     */
+    public Exception getError() {
+      return m_Error;
+    }
+
+    /**
+     * Returns whether the conversion was successful.
+     *
+     * @return		true if successful
+     */
+    public boolean isSuccess() {
+      return (m_Error == null);
+    }
+
+    /**
+     * Returns the rejected lines/games.
+     *
+     * @return		the rejects
+     */
+    public ErrorReport getRejects() {
+      return m_Rejects;
+    }
+
+    /**
+     * Returns the report, one line plus the listed rejects.
+     *
+     * @return		the report
+     */
+    @Override
+    public String toString() {
+      StringBuilder	result;
+
+      result = new StringBuilder();
+      if (m_Error != null)
+	result.append(m_Input).append(": FAILED - ").append(m_Error);
+      else
+	result.append(m_Input).append(" -> ").append(m_Output).append(": ").append(report(m_Grids, m_Bytes, m_Time));
+      if (m_Rejects.getCount() > 0) {
+	result.append(", ").append(m_Rejects.getCount()).append(" rejected");
+	for (ErrorReport.Entry entry: m_Rejects.getEntries())
+	  result.append("\n  ").append(entry);
+      }
+
+      return result.toString();
+    }
+  }
+
+  /** the registry to use. */
+  protected FormatRegistry m_Registry;
+
+  /** the input format, null to detect. */
+  protected PuzzleFormat m_InputFormat;
+
+  /** the output format. */
+  protected PuzzleFormat m_OutputFormat;
+
+  /** the compression for the output. */
+  protected Compression m_Compression;
+
+  /** the output directory. */
+  protected File m_OutputDir;
+
+  /** the number of threads. */
+  protected int m_Threads;
+
+  /** whether to traverse directories recursively. */
+  protected boolean m_Recursive;
+
+  /** how to handle lines/games that cannot be parsed. */
+  protected ErrorPolicy m_ErrorPolicy;
+
+  /** for the report. */
+  protected PrintStream m_Out;
+
+  /**
+   * Initializes the converter.
+   */
+  public Converter() {
+    m_Registry     = FormatRegistry.getDefault();
+    m_InputFormat  = null;
+    m_OutputFormat = null;
+    m_Compression  = Compression.NONE;
+    m_OutputDir    = new File(".");
+    m_Threads      = Runtime.getRuntime().availableProcessors();
+    m_Recursive    = false;
+    m_ErrorPolicy  = ErrorPolicy.COLLECT;
+    m_Out          = System.out;
+  }
+
+  /**
+   * Sets the format of the input files, null to detect the format.
+   *
+   * @param value	the format
+   */
+  public void setInputFormat(PuzzleFormat value) {
+    m_InputFormat = value;
+  }
+
+  /**
+   * Returns the format of the input files.
+   *
+   * @return		the format, null if detected
+   */
+  public PuzzleFormat getInputFormat() {
+    return m_InputFormat;
+  }
+
+  /**
+   * Sets the format of the output files.
+   *
+   * @param value	the format
+   */
+  public void setOutputFormat(PuzzleFormat value) {
+    m_OutputFormat = value;
+  }
+
+  /**
+   * Returns the format of the output files.
+   *
+   * @return		the format
+   */
+  public PuzzleFormat getOutputFormat() {
+    return m_OutputFormat;
+  }
+
+  /**
+   * Sets the compression of the output files.
+   *
+   * @param value	the compression
+   */
+  public void setCompression(Compression value) {
+    m_Compression = value;
+  }
+
+  /**
+   * Returns the compression of the output files.
+   *
+   * @return		the compression
+   */
+  public Compression getCompression() {
+    return m_Compression;
+  }
+
+  /**
+   * Sets the output directory.
+   *
+   * @param value	the directory
+   */
+  public void setOutputDir(File value) {
+    m_OutputDir = value;
+  }
+
+  /**
+   * Returns the output directory.
+   *
+   * @return		the directory
+   */
+  public File getOutputDir() {
+    return m_OutputDir;
+  }
+
+  /**
+   * Sets the number of files to convert in parallel.
+   *
+   * @param value	the number of threads
+   */
+  public void setThreads(int value) {
+    m_Threads = value;
+  }
+
+  /**
+   * Returns the number of files to convert in parallel.
+   *
+   * @return		the number of threads
+   */
+  public int getThreads() {
+    return m_Threads;
+  }
+
+  /**
+   * Sets whether to traverse directories recursively.
+   *
+   * @param value	true if recursive
+   */
+  public void setRecursive(boolean value) {
+    m_Recursive = value;
+  }
+
+  /**
+   * Returns whether to traverse directories recursively.
+   *
+   * @return		true if recursive
+   */
+  public boolean getRecursive() {
+    return m_Recursive;
+  }
+
+  /**
+   * Sets how to handle lines/games that cannot be parsed into a grid.
+   * With {@link ErrorPolicy#FAIL}, the conversion of the file fails.
+   *
+   * @param value	the policy
+   */
+  public void setErrorPolicy(ErrorPolicy value) {
+    m_ErrorPolicy = value;
+  }
+
+  /**
+   * Returns how to handle lines/games that cannot be parsed into a grid.
+   *
+   * @return		the policy
+   */
+  public ErrorPolicy getErrorPolicy() {
+    return m_ErrorPolicy;
+  }
+
+  /**
+   * Sets the stream for the report.
+   *
+   * @param value	the stream
+   */
+  public void setOut(PrintStream value) {
+    m_Out = value;
+  }
+
+  /**
+   * Returns the stream for the report.
+   *
+   * @return		the stream
+   */
+  public PrintStream getOut() {
+    return m_Out;
+  }
+
+  /**
+   * Generates the throughput part of a report.
+   *
+   * @param grids	the number of grids
+   * @param bytes	the number of bytes
+   * @param time	the time in nanoseconds
+   * @return		the report
+   */
+  protected static String report(long grids, long bytes, long time) {
+    double	seconds;
+
+    seconds = Math.max(time, 1) / 1e9;
+    return String.format("%d grids, %.3f s, %.0f grids/s, %.1f MB/s", grids, seconds, grids / seconds, bytes / seconds / 1e6);
+  }
+
+  /**
+   * Returns whether the file is a candidate for conversion when scanning
+   * directories, i.e., whether its extension is that of a known format
+   * (any file if the input format was specified).
+   *
+   * @param file	the file to check
+   * @return		true if to convert
+   */
+  protected boolean isCandidate(File file) {
+    return file.isFile() && ((m_InputFormat != null) || (m_Registry.forFile(file) != null));
+  }
+
+  /**
+   * Returns whether the path contains glob characters.
+   *
+   * @param path	the path to check
+   * @return		true if a glob pattern
+   */
+  protected static boolean isGlob(String path) {
+    return path.contains("*") || path.contains("?") || path.contains("[") || path.contains("{");
+  }
+
+  /**
+   * Scans the directory for files.
+   *
+   * @param base	the directory to scan
+   * @param depth	the maximum depth
+   * @param matcher	the matcher for the relative paths, null for all candidates
+   * @param sources	for adding the files
+   * @throws IOException	if scanning fails
+   */
+  protected void scan(Path base, int depth, PathMatcher matcher, List<Source> sources) throws IOException {
+    List<Path>	files;
+
+    try (Stream<Path> stream = Files.walk(base, depth)) {
+      files = stream
+	.filter(path -> isCandidate(path.toFile()))
+	.filter(path -> (matcher == null) || matcher.matches(base.relativize(path)))
+	.sorted()
+	.collect(Collectors.toList());
+    }
+    for (Path file: files)
+      sources.add(new Source(file.toFile(), base.relativize(file).toString()));
+  }
+
+  /**
+   * Collects the files to convert.
+   *
+   * @param inputs	the files, directories or glob patterns
+   * @return		the files
+   * @throws IOException	if scanning fails or an input doesn't exist
+   */
+  public List<Source> collect(List<String> inputs) throws IOException {
+    List<Source>	result;
+    File		file;
+    String[]		parts;
+    int			i;
+    Path		base;
+    String		pattern;
+
+    result = new ArrayList<>();
+    for (String input: inputs) {
+      if (isGlob(input)) {
+	// base directory: the segments before the first one with wildcards
+	parts = input.replace('\\', '/').split("/");
+	for (i = 0; i < parts.length; i++) {
+	  if (isGlob(parts[i]))
+	    break;
+	}
+	base    = (i == 0) ? new File(".").toPath() : new File(String.join("/", Arrays.copyOfRange(parts, 0, i)) + "/").toPath();
+	pattern = String.join("/", Arrays.copyOfRange(parts, i, parts.length));
+	scan(base, (m_Recursive || pattern.contains("**")) ? Integer.MAX_VALUE : parts.length - i,
+	  FileSystems.getDefault().getPathMatcher("glob:" + pattern), result);
+      }
+      else {
+	file = new File(input);
+	if (file.isDirectory())
+	  scan(file.toPath(), m_Recursive ? Integer.MAX_VALUE : 1, null, result);
+	else if (file.isFile())
+	  result.add(new Source(file, file.getName()));
+	else
+	  throw new IOException("Input does not exist: " + input);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the output file for the source, replacing format and
+   * compression extensions.
+   *
+   * @param source	the file to convert
+   * @return		the output file
+   */
+  public File outputFile(Source source) {
+    String		relative;
+    PuzzleFormat	format;
+    int			pos;
+
+    relative = source.getRelative();
+    relative = relative.substring(0, relative.length() - Compression.forFile(source.getFile()).getExtension().length());
+    format   = m_Registry.forFile(source.getFile());
+    pos      = -1;
+    if (format != null) {
+      for (String ext: format.getExtensions()) {
+	if (relative.toLowerCase().endsWith(ext.toLowerCase())) {
+	  pos = relative.length() - ext.length();
+	  break;
+	}
+      }
+    }
+    else {
+      pos = relative.lastIndexOf('.');
+      if (pos <= Math.max(relative.lastIndexOf('/'), relative.lastIndexOf(File.separatorChar)) + 1)
+	pos = -1;
+    }
+    if (pos > 0)
+      relative = relative.substring(0, pos);
+
+    return new File(m_OutputDir, relative + m_OutputFormat.getExtensions()[0] + m_Compression.getExtension());
+  }
+
+  /**
+   * Checks that no output file is one of the input files or the output of
+   * another input file (compared on the canonical paths).
+   *
+   * @param sources	the files to convert
+   * @throws IOException	if outputs collide with inputs or with each other
+   */
+  public void check(List<Source> sources) throws IOException {
+    Map<File,Source>	inputs;
+    Map<File,Source>	outputs;
+    File		output;
+    Source		other;
+
+    inputs = new HashMap<>();
+    for (Source source: sources)
+      inputs.put(source.getFile().getCanonicalFile(), source);
+
+    outputs = new HashMap<>();
+    for (Source source: sources) {
+      output = outputFile(source).getCanonicalFile();
+      if (inputs.containsKey(output))
+	throw new IOException("Output " + output + " of " + source.getFile() + " would overwrite input " + inputs.get(output).getFile());
+      other = outputs.put(output, source);
+      if (other != null)
+	throw new IOException("Inputs " + other.getFile() + " and " + source.getFile() + " would both be converted into " + output);
+    }
+  }
+
+  /**
+   * Converts a single file, streaming the grids from the reader into the
+   * sink. The output gets written to a temp file in the output directory
+   * first, which gets renamed to the output file if successful (and
+   * removed otherwise).
+   *
+   * @param source	the file to convert
+   * @return		the result
+   */
+  public Result convert(Source source) {
+    File		output;
+    File		tmp;
+    PuzzleReader	reader;
+    long		start;
+    long		grids;
+    Exception		error;
+    ErrorReport		rejects;
+
+    start   = System.nanoTime();
+    output  = outputFile(source);
+    tmp     = null;
+    grids   = 0;
+    error   = null;
+    rejects = new ErrorReport(MAX_REJECTS);
+    try {
+      if (m_InputFormat != null)
+	reader = m_InputFormat.newReader();
+      else
+	reader = m_Registry.reader(source.getFile());
+      reader.setErrorPolicy(m_ErrorPolicy);
+      reader.setErrorReport(rejects);
+      if ((output.getParentFile() != null) && !output.getParentFile().exists() && !output.getParentFile().mkdirs() && !output.getParentFile().isDirectory())
+	throw new IOException("Failed to create directory: " + output.getParentFile());
+      // suffix keeps the extensions, which determine the compression
+      tmp = Files.createTempFile(output.getAbsoluteFile().getParentFile().toPath(), ".", "-" + output.getName()).toFile();
+      try (PuzzleIterator iter = reader.iterator(source.getFile())) {
+	// reads the header, ie the meta-data
+	iter.hasNext();
+	try (PuzzleSink sink = m_OutputFormat.newWriter().sink(tmp, iter.getMetaData())) {
+	  while (iter.hasNext())
+	    sink.append(iter.next());
+	  grids = sink.getCount();
+	}
+      }
+      Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (IllegalStateException e) {
+      error = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+    }
+    catch (Exception e) {
+      error = e;
+    }
+    if ((error != null) && (tmp != null) && tmp.exists())
+      tmp.delete();
+
+    return new Result(source.getFile(), output, grids, System.nanoTime() - start, error, rejects);
+  }
+
+  /**
+   * Converts the files in parallel and reports the results.
+   *
+   * @param sources	the files to convert
+   * @return		the results (in the order of completion)
+   * @throws IOException	if outputs collide with inputs or with each other
+   * @throws Exception	if the conversion gets interrupted
+   * @see		#check(List)
+   */
+  public List<Result> convert(List<Source> sources) throws Exception {
+    List<Result>		result;
+    ExecutorService		executor;
+    CompletionService<Result>	completion;
+    Result			res;
+    long			start;
+    long			grids;
+    long			bytes;
+    int				failed;
+    int				i;
+
+    if (m_OutputFormat == null)
+      throw new IllegalStateException("No output format specified!");
+    check(sources);
+
+    result     = new ArrayList<>();
+    executor   = Executors.newFixedThreadPool(Math.max(1, m_Threads));
+    completion = new ExecutorCompletionService<>(executor);
+    start      = System.nanoTime();
+    grids      = 0;
+    bytes      = 0;
+    failed     = 0;
+    try {
+      for (Source source: sources)
+	completion.submit(() -> convert(source));
+      for (i = 0; i < sources.size(); i++) {
+	res = completion.take().get();
+	result.add(res);
+	m_Out.println(res);
+	if (res.isSuccess()) {
+	  grids += res.getGrids();
+	  bytes += res.getBytes();
+	}
+	else {
+	  failed++;
+	}
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    m_Out.println("Total: " + sources.size() + " files (" + failed + " failed), " + report(grids, bytes, System.nanoTime() - start));
+
+    return result;
+  }
+
+  /**
+   * Returns the usage.
+   *
+   * @return		the usage
+   */
+  protected String usage() {
+    List<String>	formats;
+
+    formats = new ArrayList<>();
+    for (PuzzleFormat format: m_Registry.getFormats())
+      formats.add(format.getName());
+
+    return "Usage: " + getClass().getName() + " -f <format> [options] <input> [<input> ...]\n"
+      + "\n"
+      + "Converts puzzle files between formats, in parallel.\n"
+      + "Inputs can be files, directories or glob patterns (e.g., 'archive/**/*.sdm').\n"
+      + "\n"
+      + "Options:\n"
+      + "-f <format>\tthe output format: " + String.join(", ", formats) + "\n"
+      + "-i <format>\tthe input format (default: detected from the content)\n"
+      + "-o <dir>\tthe output directory (default: .)\n"
+      + "-c <compression>\tthe compression of the output: none, gzip, xz, zstd (default: none)\n"
+      + "-t <threads>\tthe number of files to convert in parallel (default: " + Runtime.getRuntime().availableProcessors() + ")\n"
+      + "-e <policy>\thow to handle lines/games that cannot be parsed: skip, collect (lists the first " + MAX_REJECTS + " per file), fail (default: collect)\n"
+      + "-r\t\ttraverse directories recursively\n"
+      + "-h\t\tthis help\n";
+  }
+
+  /**
+   * Returns the format with the specified name.
+   *
+   * @param name	the name
+   * @return		the format
+   * @throws IllegalArgumentException	if unknown format
+   */
+  protected PuzzleFormat format(String name) {
+    PuzzleFormat	result;
+
+    result = m_Registry.forName(name);
+    if (result == null)
+      throw new IllegalArgumentException("Unknown format: " + name);
+
+    return result;
+  }
+
+  /**
+   * Parses the options and returns the inputs.
+   *
+   * @param args	the command-line options
+   * @return		the inputs, null if help requested
+   * @throws IllegalArgumentException	if invalid options
+   */
+  public List<String> parse(String[] args) {
+    List<String>	result;
+    int			i;
+
+    result = new ArrayList<>();
+    for (i = 0; i < args.length; i++) {
+      switch (args[i]) {
+	case "-h":
+	case "--help":
+	  return null;
+	case "-r":
+	  setRecursive(true);
+	  break;
+	case "-f":
+	case "-i":
+	case "-o":
+	case "-c":
+	case "-t":
+	case "-e":
+	  if (i == args.length - 1)
+	    throw new IllegalArgumentException("Missing argument for option " + args[i]);
+	  switch (args[i]) {
+	    case "-f":
+	      setOutputFormat(format(args[++i]));
+	      break;
+	    case "-i":
+	      setInputFormat(format(args[++i]));
+	      break;
+	    case "-o":
+	      setOutputDir(new File(args[++i]));
+	      break;
+	    case "-c":
+	      setCompression(Compression.valueOf(args[++i].toUpperCase()));
+	      break;
+	    case "-t":
+	      setThreads(Integer.parseInt(args[++i]));
+	      break;
+	    case "-e":
+	      setErrorPolicy(ErrorPolicy.valueOf(args[++i].toUpperCase()));
+	      break;
+	  }
+	  break;
+	default:
+	  if (args[i].startsWith("-"))
+	    throw new IllegalArgumentException("Unknown option: " + args[i]);
+	  result.add(args[i]);
+      }
+    }
+    if (m_OutputFormat == null)
+      throw new IllegalArgumentException("No output format specified!");
+    if (result.isEmpty())
+      throw new IllegalArgumentException("No inputs specified!");
+
+    return result;
+  }
+
+  /**
+   * Parses the options, converts the files and returns the exit code.
+   *
+   * @param args	the command-line options
+   * @return		the exit code
+   * @throws Exception	if the conversion gets interrupted
+   */
+  public int execute(String[] args) throws Exception {
+    List<String>	inputs;
+    List<Result>	results;
+
+    try {
+      inputs = parse(args);
+      if (inputs == null) {
+	m_Out.println(usage());
+	return EXIT_OK;
+      }
+      // failures of single files end up in the results, ie an IOException
+      // means invalid inputs or colliding outputs
+      results = convert(collect(inputs));
+    }
+    catch (IllegalArgumentException | IOException e) {
+      System.err.println(e.getMessage());
+      System.err.println();
+      System.err.println(usage());
+      return EXIT_USAGE;
+    }
+
+    for (Result result: results) {
+      if (!result.isSuccess())
+	return EXIT_FAILED;
+    }
+
+    return EXIT_OK;
+  }
+
+  /**
+   * Runs the converter from the command-line and exits with the exit code.
+   * Use -h for the options.
+   *
+   * @param args	the command-line options
+   * @throws Exception	if the conversion gets interrupted
+   * @see		#execute(String[])
+   */
+  public static void main(String[] args) throws Exception {
+    System.exit(new Converter().execute(args));
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BatchGenerator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.generator;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Generates puzzles in parallel, passing them on to a consumer or a
+ * {@link PuzzleSink} (e.g., of {@link com.github.fracpete.sudokuformats4j.PuzzleCollection}
+ * or {@link com.github.fracpete.sudokuformats4j.OpenSudoku}) as they become
+ * available. The puzzles get generated in chunks, with at most a fixed number
+ * of chunks in flight (back-pressure). Each chunk uses its own
+ * {@link Generator}, seeded from the seed and the index of the chunk, so the
+ * output only depends on the seed, not on the number of threads.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BatchGenerator {
+
+  /** the default number of puzzles per chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 16;
+
+  /**
+   * Receives the generated puzzles.
+   */
+  @FunctionalInterface
+  protected interface Handler {
+
+    /**
+     * Handles the puzzle.
+     *
+     * @param grid	the puzzle
+     * @throws Exception	if handling fails
+     */
+    public void handle(Grid grid) throws Exception;
+  }
+
+  /** for creating (configured) generators. */
+  protected Supplier<Generator> m_Factory;
+
+  /** the executor to use. */
+  protected ExecutorService m_Executor;
+
+  /** the number of puzzles per chunk. */
+  protected int m_ChunkSize;
+
+  /** the maximum number of chunks in flight. */
+  protected int m_MaxInFlight;
+
+  /** the seed. */
+  protected long m_Seed;
+
+  /**
+   * Initializes the generator for minimal 9x9 puzzles, using the common
+   * fork-join pool.
+   */
+  public BatchGenerator() {
+    this(Generator::new);
+  }
+
+  /**
+   * Initializes the generator using the common fork-join pool.
+   *
+   * @param factory	for creating (configured) generators, one per chunk
+   */
+  public BatchGenerator(Supplier<Generator> factory) {
+    this(factory, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, 4 * ForkJoinPool.getCommonPoolParallelism());
+  }
+
+  /**
+   * Initializes the generator.
+   *
+   * @param factory	for creating (configured) generators, one per chunk
+   * @param executor	the executor to use
+   * @param chunkSize	the number of puzzles per chunk
+   * @param maxInFlight	the maximum number of chunks that are being generated
+   *                    or waiting to be consumed
+   */
+  public BatchGenerator(Supplier<Generator> factory, ExecutorService executor, int chunkSize, int maxInFlight) {
+    if (chunkSize < 1)
+      throw new IllegalArgumentException("Chunk size must be at least 1, provided: " + chunkSize);
+    if (maxInFlight < 1)
+      throw new IllegalArgumentException("Maximum number of chunks in flight must be at least 1, provided: " + maxInFlight);
+    m_Factory     = factory;
+    m_Executor    = executor;
+    m_ChunkSize   = chunkSize;
+    m_MaxInFlight = maxInFlight;
+    m_Seed        = System.nanoTime();
+  }
+
+  /**
+   * Sets the seed, for reproducible puzzles.
+   *
+   * @param value	the seed
+   */
+  public void setSeed(long value) {
+    m_Seed = value;
+  }
+
+  /**
+   * Returns the seed.
+   *
+   * @return		the seed
+   */
+  public long getSeed() {
+    return m_Seed;
+  }
+
+  /**
+   * Submits the generation of a chunk to the executor.
+   *
+   * @param chunk	the index of the chunk
+   * @param count	the number of puzzles to generate
+   * @return		the future puzzles
+   */
+  protected Future<List<Grid>> submit(long chunk, int count) {
+    return m_Executor.submit(() -> {
+      List<Grid>	result;
+      Generator		generator;
+      int		i;
+
+      generator = m_Factory.get();
+      generator.setSeed(m_Seed + chunk * 0x9E3779B97F4A7C15L);
+      result = new ArrayList<>(count);
+      for (i = 0; i < count; i++)
+	result.add(generator.generate());
+
+      return result;
+    });
+  }
+
+  /**
+   * Waits for the puzzles of the chunk and passes them on.
+   *
+   * @param future	the future puzzles of the chunk
+   * @param handler	the handler for the puzzles
+   * @throws Exception	if generating or handling failed
+   */
+  protected void consume(Future<List<Grid>> future, Handler handler) throws Exception {
+    for (Grid grid: future.get())
+      handler.handle(grid);
+  }
+
+  /**
+   * Generates the puzzles, passing them on in the order of the chunks.
+   *
+   * @param count	the number of puzzles to generate
+   * @param handler	the handler for the puzzles (called from the calling thread)
+   * @throws Exception	if generating or handling failed
+   */
+  protected void run(long count, Handler handler) throws Exception {
+    Deque<Future<List<Grid>>>	pending;
+    long			chunk;
+    long			submitted;
+
+    pending = new ArrayDeque<>();
+    try {
+      chunk     = 0;
+      submitted = 0;
+      while (submitted < count) {
+	if (pending.size() >= m_MaxInFlight)
+	  consume(pending.poll(), handler);
+	pending.add(submit(chunk, (int) Math.min(m_ChunkSize, count - submitted)));
+	submitted += m_ChunkSize;
+	chunk++;
+      }
+      while (!pending.isEmpty())
+	consume(pending.poll(), handler);
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+    finally {
+      for (Future<List<Grid>> future: pending)
+	future.cancel(true);
+    }
+  }
+
+  /**
+   * Generates the puzzles and passes them on to the consumer.
+   *
+   * @param count	the number of puzzles to generate
+   * @param consumer	the consumer for the puzzles (called from the calling thread)
+   * @throws Exception	if generating failed
+   */
+  public void generate(long count, Consumer<Grid> consumer) throws Exception {
+    run(count, consumer::accept);
+  }
+
+  /**
+   * Generates the puzzles and appends them to the sink. The sink does not
+   * get closed.
+   *
+   * @param count	the number of puzzles to generate
+   * @param sink	the sink to append the puzzles to
+   * @throws Exception	if generating or writing failed
+   */
+  public void generate(long count, PuzzleSink sink) throws Exception {
+    run(count, sink::append);
+  }
+
+  /**
+   * Generates the puzzles and returns them as collection.
+   *
+   * @param count	the number of puzzles to generate
+   * @return		the puzzles
+   * @throws Exception	if generating failed
+   */
+  public Puzzles generate(int count) throws Exception {
+    Puzzles	result;
+
+    result = new Puzzles();
+    run(count, result::add);
+
+    return result;
+  }
+}
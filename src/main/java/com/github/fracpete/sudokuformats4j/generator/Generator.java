@@ -0,0 +1,411 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Generator.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.generator;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates random puzzles with a unique solution. A random solved grid
+ * gets created by filling independent boxes (one per band and stack) with
+ * random permutations, completing the grid with the {@link Solver} and
+ * shuffling bands, rows within bands, stacks and columns within stacks.
+ * Clues then get removed in random order as long as the solution stays
+ * unique, until the target number of clues has been reached (or no more
+ * clues can be removed, ie the puzzle is minimal).
+ * <br>
+ * If the minimal puzzle still has more clues than the target, a new solved
+ * grid gets tried, up to the maximum number of attempts; the puzzle with
+ * the fewest clues is returned in that case. Targets below about 22 clues
+ * (9x9) are rarely reachable this way.
+ * <br>
+ * Instances reuse their internal buffers and are therefore not thread-safe;
+ * use one generator per thread (see {@link BatchGenerator}).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Generator {
+
+  /** the default maximum number of attempts for reaching the target clues. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+  /** the number of rows of boxes. */
+  protected int m_Rows;
+
+  /** the number of columns of boxes. */
+  protected int m_Cols;
+
+  /** the number of rows in a box. */
+  protected int m_SubRows;
+
+  /** the number of columns in a box. */
+  protected int m_SubCols;
+
+  /** the number of digits (= rows/columns of cells). */
+  protected int m_Size;
+
+  /** the target number of clues (0 = minimal). */
+  protected int m_Clues;
+
+  /** the maximum number of attempts for reaching the target clues. */
+  protected int m_MaxAttempts;
+
+  /** the random number generator. */
+  protected Random m_Random;
+
+  /** the solver. */
+  protected Solver m_Solver;
+
+  /** the cells of the grid being generated. */
+  protected byte[] m_Cells;
+
+  /** the buffer for permuting the cells. */
+  protected byte[] m_Permuted;
+
+  /** the order in which to remove clues. */
+  protected int[] m_Order;
+
+  /**
+   * Initializes the generator for 9x9 grids.
+   */
+  public Generator() {
+    this(3, 3, 3, 3);
+  }
+
+  /**
+   * Initializes the generator.
+   *
+   * @param rows	the number of rows of boxes
+   * @param cols	the number of columns of boxes
+   * @param subRows	the number of rows in a box
+   * @param subCols	the number of columns in a box
+   * @throws IllegalArgumentException	if the dimensions are not supported
+   */
+  public Generator(int rows, int cols, int subRows, int subCols) {
+    super();
+
+    m_Size = rows * subRows;
+    if ((cols * subCols != m_Size) || (subRows * subCols != m_Size))
+      throw new IllegalArgumentException(
+	"Boxes must have as many cells as rows/columns: "
+	  + rows + "x" + cols + " boxes of " + subRows + "x" + subCols);
+    if (m_Size > Solver.MAX_DIGITS)
+      throw new IllegalArgumentException("At most " + Solver.MAX_DIGITS + " digits supported, provided: " + m_Size);
+
+    m_Rows        = rows;
+    m_Cols        = cols;
+    m_SubRows     = subRows;
+    m_SubCols     = subCols;
+    m_Clues       = 0;
+    m_MaxAttempts = DEFAULT_MAX_ATTEMPTS;
+    m_Random      = new Random();
+    m_Solver      = new Solver();
+    m_Cells       = new byte[m_Size * m_Size];
+    m_Permuted    = new byte[m_Size * m_Size];
+    m_Order       = new int[m_Size * m_Size];
+  }
+
+  /**
+   * Sets the target number of clues.
+   *
+   * @param value	the number of clues, 0 for minimal puzzles
+   */
+  public void setClues(int value) {
+    if (value < 0)
+      throw new IllegalArgumentException("Number of clues must be at least 0, provided: " + value);
+    m_Clues = value;
+  }
+
+  /**
+   * Returns the target number of clues.
+   *
+   * @return		the number of clues, 0 for minimal puzzles
+   */
+  public int getClues() {
+    return m_Clues;
+  }
+
+  /**
+   * Sets the maximum number of attempts for reaching the target clues.
+   *
+   * @param value	the maximum number of attempts
+   */
+  public void setMaxAttempts(int value) {
+    if (value < 1)
+      throw new IllegalArgumentException("Maximum number of attempts must be at least 1, provided: " + value);
+    m_MaxAttempts = value;
+  }
+
+  /**
+   * Returns the maximum number of attempts for reaching the target clues.
+   *
+   * @return		the maximum number of attempts
+   */
+  public int getMaxAttempts() {
+    return m_MaxAttempts;
+  }
+
+  /**
+   * Sets the seed of the random number generator, for reproducible puzzles.
+   *
+   * @param value	the seed
+   */
+  public void setSeed(long value) {
+    m_Random.setSeed(value);
+  }
+
+  /**
+   * Shuffles n elements of the array, starting at the offset.
+   *
+   * @param values	the array to shuffle
+   * @param offset	the first element to shuffle
+   * @param n		the number of elements to shuffle
+   */
+  protected void shuffle(int[] values, int offset, int n) {
+    int		i;
+    int		j;
+    int		tmp;
+
+    for (i = n - 1; i > 0; i--) {
+      j                  = m_Random.nextInt(i + 1);
+      tmp                = values[offset + i];
+      values[offset + i] = values[offset + j];
+      values[offset + j] = tmp;
+    }
+  }
+
+  /**
+   * Returns a random permutation of the lines (rows or columns), keeping
+   * the lines of a band/stack together.
+   *
+   * @param blocks	the number of bands/stacks
+   * @param lines	the number of lines per band/stack
+   * @return		the permutation
+   */
+  protected int[] permutation(int blocks, int lines) {
+    int[]	result;
+    int[]	order;
+    int		i;
+    int		j;
+
+    order = new int[blocks];
+    for (i = 0; i < blocks; i++)
+      order[i] = i;
+    shuffle(order, 0, blocks);
+
+    result = new int[blocks * lines];
+    for (i = 0; i < blocks; i++) {
+      for (j = 0; j < lines; j++)
+	result[i*lines + j] = order[i]*lines + j;
+      shuffle(result, i*lines, lines);
+    }
+
+    return result;
+  }
+
+  /**
+   * Fills {@link #m_Cells} with a random solved grid.
+   */
+  protected void fill() {
+    Grid	grid;
+    Grid	solution;
+    int[]	digits;
+    int[]	rows;
+    int[]	cols;
+    int		box;
+    int		i;
+    int		y;
+    int		x;
+
+    grid   = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+    digits = new int[m_Size];
+    for (i = 0; i < m_Size; i++)
+      digits[i] = i + 1;
+
+    // boxes along the diagonal don't share rows or columns
+    do {
+      Arrays.fill(m_Cells, (byte) 0);
+      for (box = 0; box < Math.min(m_Rows, m_Cols); box++) {
+	shuffle(digits, 0, m_Size);
+	for (i = 0; i < m_Size; i++) {
+	  y = box*m_SubRows + i / m_SubCols;
+	  x = box*m_SubCols + i % m_SubCols;
+	  m_Cells[y*m_Size + x] = (byte) digits[i];
+	}
+      }
+      grid.setCells(m_Cells);
+      solution = m_Solver.solve(grid);
+    }
+    while (solution == null);
+    solution.getCells(m_Cells);
+
+    // shuffle bands/rows and stacks/columns
+    rows = permutation(m_Rows, m_SubRows);
+    cols = permutation(m_Cols, m_SubCols);
+    for (y = 0; y < m_Size; y++) {
+      for (x = 0; x < m_Size; x++)
+	m_Permuted[y*m_Size + x] = m_Cells[rows[y]*m_Size + cols[x]];
+    }
+    System.arraycopy(m_Permuted, 0, m_Cells, 0, m_Cells.length);
+  }
+
+  /**
+   * Generates a random solved grid.
+   *
+   * @return		the solved grid
+   */
+  public Grid solution() {
+    Grid	result;
+
+    fill();
+    result = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+    result.setCells(m_Cells);
+
+    return result;
+  }
+
+  /**
+   * Returns whether the (empty) cell is a naked single, ie all other digits
+   * appear in its row, column and box. Removing such a clue cannot change
+   * the solutions, so no need to run the solver.
+   *
+   * @param cell	the cell to check
+   * @return		true if naked single
+   */
+  protected boolean isForced(int cell) {
+    long	digits;
+    int		row;
+    int		col;
+    int		top;
+    int		left;
+    int		i;
+
+    row    = cell / m_Size;
+    col    = cell % m_Size;
+    top    = (row / m_SubRows) * m_SubRows;
+    left   = (col / m_SubCols) * m_SubCols;
+    digits = 0;
+    for (i = 0; i < m_Size; i++) {
+      digits |= 1L << m_Cells[row*m_Size + i];
+      digits |= 1L << m_Cells[i*m_Size + col];
+      digits |= 1L << m_Cells[(top + i / m_SubCols)*m_Size + left + i % m_SubCols];
+    }
+
+    // bit 0 marks empty cells
+    return Long.bitCount(digits >>> 1) == m_Size - 1;
+  }
+
+  /**
+   * Removes clues from {@link #m_Cells} in random order as long as the
+   * solution stays unique, until the target number of clues is reached.
+   *
+   * @param grid	the grid to use for checking uniqueness
+   * @return		the number of clues left
+   */
+  protected int removeClues(Grid grid) {
+    int		clues;
+    int		i;
+    int		cell;
+    byte	value;
+
+    clues = 0;
+    for (i = 0; i < m_Cells.length; i++) {
+      m_Order[i] = i;
+      if (m_Cells[i] != 0)
+	clues++;
+    }
+    shuffle(m_Order, 0, m_Order.length);
+
+    for (i = 0; (i < m_Order.length) && (clues > m_Clues); i++) {
+      cell = m_Order[i];
+      value = m_Cells[cell];
+      if (value == 0)
+	continue;
+      m_Cells[cell] = 0;
+      if (isForced(cell)) {
+	clues--;
+	continue;
+      }
+      grid.setCells(m_Cells);
+      if (m_Solver.countSolutions(grid, 2) == 1)
+	clues--;
+      else
+	m_Cells[cell] = value;
+    }
+    grid.setCells(m_Cells);
+
+    return clues;
+  }
+
+  /**
+   * Removes clues from the solved grid in random order as long as the
+   * solution stays unique, until the target number of clues is reached.
+   *
+   * @param solution	the solved grid, gets left untouched
+   * @return		the puzzle
+   */
+  public Grid dig(Grid solution) {
+    Grid	result;
+
+    result = new Grid(solution.rows(), solution.cols(), solution.subRows(), solution.subCols());
+    if ((result.rows() != m_Rows) || (result.cols() != m_Cols) || (result.subRows() != m_SubRows) || (result.subCols() != m_SubCols))
+      throw new IllegalArgumentException(
+	"Generator is configured for " + m_Rows + "x" + m_Cols + " boxes of " + m_SubRows + "x" + m_SubCols
+	  + ", provided: " + solution.rows() + "x" + solution.cols() + " boxes of " + solution.subRows() + "x" + solution.subCols());
+    solution.getCells(m_Cells);
+    removeClues(result);
+
+    return result;
+  }
+
+  /**
+   * Generates a puzzle with a unique solution. Minimal puzzles (target of
+   * 0 clues) only require a single attempt.
+   *
+   * @return		the puzzle
+   */
+  public Grid generate() {
+    Grid	result;
+    Grid	grid;
+    int		attempt;
+    int		clues;
+    int		best;
+
+    result = null;
+    best   = Integer.MAX_VALUE;
+    for (attempt = 0; attempt < m_MaxAttempts; attempt++) {
+      grid = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+      fill();
+      clues = removeClues(grid);
+      if (clues < best) {
+	result = grid;
+	best   = clues;
+      }
+      if ((m_Clues == 0) || (best <= m_Clues))
+	break;
+    }
+
+    return result;
+  }
+}
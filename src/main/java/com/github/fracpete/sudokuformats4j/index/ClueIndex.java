@@ -0,0 +1,667 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClueIndex.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.index;
+
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Index of the clue layouts of a collection, for searching puzzles by
+ * clue positions, number of clues and symmetry of the layout, without
+ * re-reading the collection.
+ * <br>
+ * The layouts are stored column-wise in primitive arrays: one array of
+ * longs per 64 cells with the clue bits (ie two for 9x9 grids, bit i of
+ * word w representing cell w*64+i, row-wise from the top), one with the
+ * number of clues and one with the flags of the {@link ClueSymmetry}s of
+ * the layouts, ie 19 bytes per 9x9 grid. A query only scans the columns
+ * that it constrains, sequentially.
+ * <br>
+ * The grids are referred to by their position in the order they were
+ * added, eg the position in the collection that the index was built from
+ * (which can be used with {@link PuzzleStore.MappedStore#getGrid(long)}).
+ * <pre>
+ * ClueIndex index = ClueIndex.build(new PuzzleCollection(), new File("collection.sdm"));
+ * ClueIndex.Query query = index.query();
+ * query.setMaxClues(22);
+ * query.setSymmetries(ClueSymmetry.ROTATIONAL);
+ * query.require(40);
+ * int[] positions = index.search(query);
+ * </pre>
+ * Searching is thread-safe, adding grids is not.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClueIndex {
+
+  /** the magic number ("SPC1"). */
+  public static final int MAGIC = 0x53504331;
+
+  /** the format version. */
+  public static final short VERSION = 1;
+
+  /** the default file extension. */
+  public static final String EXTENSION = ".spci";
+
+  /** the initial capacity. */
+  public static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * A query for clue layouts. All the constraints must be satisfied.
+   */
+  public static class Query {
+
+    /** the number of cells. */
+    protected int m_Cells;
+
+    /** the cells that must be clues. */
+    protected long[] m_Required;
+
+    /** the cells that must be empty. */
+    protected long[] m_Forbidden;
+
+    /** the minimum number of clues. */
+    protected int m_MinClues;
+
+    /** the maximum number of clues. */
+    protected int m_MaxClues;
+
+    /** the flags of the symmetries that the layout must have. */
+    protected int m_Symmetries;
+
+    /**
+     * Initializes the query, matching all layouts.
+     *
+     * @param cells	the number of cells of the grids
+     */
+    public Query(int cells) {
+      m_Cells      = cells;
+      m_Required   = new long[words(cells)];
+      m_Forbidden  = new long[words(cells)];
+      m_MinClues   = 0;
+      m_MaxClues   = cells;
+      m_Symmetries = 0;
+    }
+
+    /**
+     * Checks the cell.
+     *
+     * @param cell	the cell to check
+     * @throws IllegalArgumentException	if invalid cell
+     */
+    protected void check(int cell) {
+      if ((cell < 0) || (cell >= m_Cells))
+	throw new IllegalArgumentException("Cell must be 0 <= x < " + m_Cells + ", provided: " + cell);
+    }
+
+    /**
+     * Requires the cell to be a clue.
+     *
+     * @param cell	the cell (row-wise from the top)
+     */
+    public void require(int cell) {
+      check(cell);
+      m_Required[cell / 64]  |= 1L << (cell % 64);
+      m_Forbidden[cell / 64] &= ~(1L << (cell % 64));
+    }
+
+    /**
+     * Requires the cell to be empty.
+     *
+     * @param cell	the cell (row-wise from the top)
+     */
+    public void forbid(int cell) {
+      check(cell);
+      m_Forbidden[cell / 64] |= 1L << (cell % 64);
+      m_Required[cell / 64]  &= ~(1L << (cell % 64));
+    }
+
+    /**
+     * Requires exactly the clue layout of the grid, ie clues in the same
+     * cells (regardless of their values) and no others.
+     *
+     * @param grid	the grid with the layout
+     */
+    public void setLayout(Grid grid) {
+      byte[]	cells;
+      int	i;
+
+      cells = grid.getCells(null);
+      if (cells.length != m_Cells)
+	throw new IllegalArgumentException("Expected " + m_Cells + " cells, but got " + cells.length);
+      for (i = 0; i < m_Cells; i++) {
+	if (cells[i] > 0)
+	  require(i);
+	else
+	  forbid(i);
+      }
+    }
+
+    /**
+     * Sets the minimum number of clues.
+     *
+     * @param value	the minimum
+     */
+    public void setMinClues(int value) {
+      m_MinClues = value;
+    }
+
+    /**
+     * Returns the minimum number of clues.
+     *
+     * @return		the minimum
+     */
+    public int getMinClues() {
+      return m_MinClues;
+    }
+
+    /**
+     * Sets the maximum number of clues.
+     *
+     * @param value	the maximum
+     */
+    public void setMaxClues(int value) {
+      m_MaxClues = value;
+    }
+
+    /**
+     * Returns the maximum number of clues.
+     *
+     * @return		the maximum
+     */
+    public int getMaxClues() {
+      return m_MaxClues;
+    }
+
+    /**
+     * Sets the symmetries that the layouts must have.
+     *
+     * @param value	the symmetries
+     */
+    public void setSymmetries(ClueSymmetry... value) {
+      m_Symmetries = ClueSymmetry.flags(value);
+    }
+
+    /**
+     * Returns the flags of the symmetries that the layouts must have.
+     *
+     * @return		the flags
+     * @see		ClueSymmetry#flag()
+     */
+    public int getSymmetries() {
+      return m_Symmetries;
+    }
+  }
+
+  /** the dimensions of the grids. */
+  protected PuzzleStore.Header m_Header;
+
+  /** the number of cells per grid. */
+  protected int m_Cells;
+
+  /** the number of words per layout. */
+  protected int m_Words;
+
+  /** the permutations of the cells per symmetry (null if not applicable). */
+  protected int[][] m_Permutations;
+
+  /** the number of grids. */
+  protected int m_Size;
+
+  /** the clue bits, per word. */
+  protected long[][] m_Masks;
+
+  /** the number of clues. */
+  protected short[] m_Clues;
+
+  /** the flags of the symmetries. */
+  protected byte[] m_Symmetries;
+
+  /** the buffer for the cells when adding grids. */
+  protected byte[] m_Buffer;
+
+  /**
+   * Initializes an empty index for 9x9 grids.
+   */
+  public ClueIndex() {
+    this(new Grid());
+  }
+
+  /**
+   * Initializes an empty index.
+   *
+   * @param template	the grid with the dimensions of the grids to index
+   */
+  public ClueIndex(Grid template) {
+    int		i;
+
+    m_Header = new PuzzleStore.Header();
+    m_Header.setDimensions(template);
+    m_Cells        = m_Header.cells();
+    m_Words        = words(m_Cells);
+    m_Permutations = new int[ClueSymmetry.values().length][];
+    for (i = 0; i < m_Permutations.length; i++)
+      m_Permutations[i] = ClueSymmetry.values()[i].permutation(template.height(), template.width());
+    m_Size         = 0;
+    m_Masks        = new long[m_Words][INITIAL_CAPACITY];
+    m_Clues        = new short[INITIAL_CAPACITY];
+    m_Symmetries   = new byte[INITIAL_CAPACITY];
+    m_Buffer       = new byte[m_Cells];
+  }
+
+  /**
+   * Returns the number of words for the clue bits.
+   *
+   * @param cells	the number of cells
+   * @return		the number of words
+   */
+  protected static int words(int cells) {
+    return (cells + 63) / 64;
+  }
+
+  /**
+   * Returns the dimensions of the grids.
+   *
+   * @return		the dimensions
+   */
+  public PuzzleStore.Header getHeader() {
+    return m_Header;
+  }
+
+  /**
+   * Returns the number of grids.
+   *
+   * @return		the number of grids
+   */
+  public int size() {
+    return m_Size;
+  }
+
+  /**
+   * Makes sure that there is room for one more grid.
+   */
+  protected void ensureCapacity() {
+    int		capacity;
+    int		i;
+
+    if (m_Size < m_Clues.length)
+      return;
+    if (m_Size == Integer.MAX_VALUE - 8)
+      throw new IllegalStateException("Maximum capacity reached: " + m_Size);
+
+    capacity = (int) Math.min(Math.max((long) m_Clues.length * 2, INITIAL_CAPACITY), Integer.MAX_VALUE - 8);
+    for (i = 0; i < m_Words; i++)
+      m_Masks[i] = Arrays.copyOf(m_Masks[i], capacity);
+    m_Clues      = Arrays.copyOf(m_Clues, capacity);
+    m_Symmetries = Arrays.copyOf(m_Symmetries, capacity);
+  }
+
+  /**
+   * Adds the layout of the grid.
+   *
+   * @param grid	the grid to add
+   * @return		the position of the grid
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   */
+  public int add(Grid grid) {
+    int[]	perm;
+    int		clues;
+    int		flags;
+    int		i;
+    int		n;
+
+    m_Header.check(grid);
+    ensureCapacity();
+    grid.getCells(m_Buffer);
+
+    clues = 0;
+    for (i = 0; i < m_Words; i++)
+      m_Masks[i][m_Size] = 0;
+    for (i = 0; i < m_Cells; i++) {
+      if (m_Buffer[i] > 0) {
+	m_Masks[i / 64][m_Size] |= 1L << (i % 64);
+	clues++;
+      }
+    }
+
+    flags = 0;
+    for (n = 0; n < m_Permutations.length; n++) {
+      perm = m_Permutations[n];
+      if (perm == null)
+	continue;
+      for (i = 0; i < m_Cells; i++) {
+	if ((m_Buffer[i] > 0) != (m_Buffer[perm[i]] > 0))
+	  break;
+      }
+      if (i == m_Cells)
+	flags |= 1 << n;
+    }
+
+    m_Clues[m_Size]      = (short) clues;
+    m_Symmetries[m_Size] = (byte) flags;
+    m_Size++;
+
+    return m_Size - 1;
+  }
+
+  /**
+   * Adds the layouts of the remaining grids of the iterator.
+   *
+   * @param iterator	the iterator to get the grids from
+   * @return		the number of grids added
+   */
+  public int addAll(PuzzleIterator iterator) {
+    int		result;
+
+    result = 0;
+    while (iterator.hasNext()) {
+      add(iterator.next());
+      result++;
+    }
+
+    return result;
+  }
+
+  /**
+   * Builds the index for the grids of the file (9x9 grids or the
+   * dimensions of the first grid).
+   *
+   * @param reader	the reader for the file
+   * @param file	the file to read
+   * @return		the index
+   * @throws Exception	if reading fails
+   */
+  public static ClueIndex build(PuzzleReader reader, File file) throws Exception {
+    ClueIndex	result;
+    Grid	first;
+
+    try (PuzzleIterator iter = reader.iterator(file)) {
+      if (!iter.hasNext())
+	return new ClueIndex();
+      first  = iter.next();
+      result = new ClueIndex(first);
+      result.add(first);
+      result.addAll(iter);
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks the position.
+   *
+   * @param index	the position to check
+   * @throws IndexOutOfBoundsException	if invalid position
+   */
+  protected void check(int index) {
+    if ((index < 0) || (index >= m_Size))
+      throw new IndexOutOfBoundsException("Index must be 0 <= x < " + m_Size + ", provided: " + index);
+  }
+
+  /**
+   * Returns whether the cell of the grid is a clue.
+   *
+   * @param index	the position of the grid
+   * @param cell	the cell (row-wise from the top)
+   * @return		true if a clue
+   */
+  public boolean isClue(int index, int cell) {
+    check(index);
+    return (m_Masks[cell / 64][index] & (1L << (cell % 64))) != 0;
+  }
+
+  /**
+   * Returns the number of clues of the grid.
+   *
+   * @param index	the position of the grid
+   * @return		the number of clues
+   */
+  public int getClues(int index) {
+    check(index);
+    return m_Clues[index];
+  }
+
+  /**
+   * Returns the flags of the symmetries of the clue layout of the grid.
+   *
+   * @param index	the position of the grid
+   * @return		the flags
+   * @see		ClueSymmetry#flag()
+   */
+  public int getSymmetries(int index) {
+    check(index);
+    return m_Symmetries[index];
+  }
+
+  /**
+   * Returns a new query, matching all layouts.
+   *
+   * @return		the query
+   */
+  public Query query() {
+    return new Query(m_Cells);
+  }
+
+  /**
+   * Scans the columns for layouts matching the query.
+   *
+   * @param query	the query
+   * @param consumer	for the positions of the matching grids, can be null
+   * @return		the number of matches
+   */
+  protected int scan(Query query, IntConsumer consumer) {
+    int		result;
+    int[]	words;
+    long[][]	masks;
+    long[]	required;
+    long[]	forbidden;
+    short[]	clues;
+    byte[]	symmetries;
+    int		min;
+    int		max;
+    int		flags;
+    int		active;
+    int		i;
+    int		n;
+    long	mask;
+
+    if (query.m_Cells != m_Cells)
+      throw new IllegalArgumentException("Query for " + query.m_Cells + " cells, but index has " + m_Cells + " cells");
+
+    // only the words that are constrained
+    active = 0;
+    for (i = 0; i < m_Words; i++) {
+      if ((query.m_Required[i] | query.m_Forbidden[i]) != 0)
+	active++;
+    }
+    words     = new int[active];
+    masks     = new long[active][];
+    required  = new long[active];
+    forbidden = new long[active];
+    active    = 0;
+    for (i = 0; i < m_Words; i++) {
+      if ((query.m_Required[i] | query.m_Forbidden[i]) != 0) {
+	words[active]     = i;
+	masks[active]     = m_Masks[i];
+	required[active]  = query.m_Required[i];
+	forbidden[active] = query.m_Forbidden[i];
+	active++;
+      }
+    }
+
+    result     = 0;
+    clues      = m_Clues;
+    symmetries = m_Symmetries;
+    min        = query.m_MinClues;
+    max        = query.m_MaxClues;
+    flags      = query.m_Symmetries;
+    for (i = 0; i < m_Size; i++) {
+      if ((clues[i] < min) || (clues[i] > max))
+	continue;
+      if ((symmetries[i] & flags) != flags)
+	continue;
+      for (n = 0; n < active; n++) {
+	mask = masks[n][i];
+	if (((mask & required[n]) != required[n]) || ((mask & forbidden[n]) != 0))
+	  break;
+      }
+      if (n < active)
+	continue;
+      result++;
+      if (consumer != null)
+	consumer.accept(i);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the number of grids with a layout matching the query.
+   *
+   * @param query	the query
+   * @return		the number of matches
+   */
+  public int count(Query query) {
+    return scan(query, null);
+  }
+
+  /**
+   * Returns the positions of the grids with a layout matching the query.
+   *
+   * @param query	the query
+   * @return		the positions (ascending)
+   */
+  public int[] search(Query query) {
+    int[][]	result;
+    int[]	count;
+
+    result = new int[][]{new int[INITIAL_CAPACITY]};
+    count  = new int[1];
+    scan(query, i -> {
+      if (count[0] == result[0].length)
+	result[0] = Arrays.copyOf(result[0], result[0].length * 2);
+      result[0][count[0]++] = i;
+    });
+
+    return Arrays.copyOf(result[0], count[0]);
+  }
+
+  /**
+   * Writes the index to the file (compressed, depending on the extension).
+   * Layout (big endian): magic (int), version (short), rows/cols/subRows/subCols
+   * (byte each), number of grids (int), followed by the columns: number
+   * of clues (short), flags of symmetries (byte), clue bits per word (long).
+   *
+   * @param file	the file to write to
+   * @throws IOException	if writing fails
+   */
+  public void write(File file) throws IOException {
+    int		i;
+    int		n;
+
+    try (DataOutputStream output = new DataOutputStream(Compression.create(file))) {
+      output.writeInt(MAGIC);
+      output.writeShort(VERSION);
+      output.writeByte(m_Header.rows());
+      output.writeByte(m_Header.cols());
+      output.writeByte(m_Header.subRows());
+      output.writeByte(m_Header.subCols());
+      output.writeInt(m_Size);
+      for (i = 0; i < m_Size; i++)
+	output.writeShort(m_Clues[i]);
+      output.write(m_Symmetries, 0, m_Size);
+      for (n = 0; n < m_Words; n++) {
+	for (i = 0; i < m_Size; i++)
+	  output.writeLong(m_Masks[n][i]);
+      }
+    }
+  }
+
+  /**
+   * Reads the index from the file (decompressed if necessary).
+   * The number of grids in the header is not trusted: the number of clues
+   * get read into a growing array, and the other columns only get allocated
+   * once these are present, ie a corrupt or truncated file fails with an
+   * IOException rather than running out of memory.
+   *
+   * @param file	the file to read
+   * @return		the index
+   * @throws IOException	if reading fails
+   */
+  public static ClueIndex read(File file) throws IOException {
+    ClueIndex	result;
+    short[]	clues;
+    int[]	dims;
+    int		size;
+    int		i;
+    int		n;
+
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Compression.open(file), Compression.BUFFER_SIZE))) {
+      if (input.readInt() != MAGIC)
+	throw new IOException("Not a clue index: " + file);
+      if (input.readShort() != VERSION)
+	throw new IOException("Unsupported clue index version: " + file);
+      dims = new int[]{input.readUnsignedByte(), input.readUnsignedByte(), input.readUnsignedByte(), input.readUnsignedByte()};
+      if ((dims[0] < 1) || (dims[1] < 1) || (dims[2] < 1) || (dims[3] < 1)
+	|| (dims[2] * dims[3] > Byte.MAX_VALUE) || (dims[0] * dims[1] * dims[2] * dims[3] > Short.MAX_VALUE))
+	throw new IOException("Invalid grid dimensions in clue index header: " + Arrays.toString(dims));
+      result = new ClueIndex(new Grid(dims[0], dims[1], dims[2], dims[3]));
+      size   = input.readInt();
+      if (size < 0)
+	throw new IOException("Corrupt clue index header: " + file);
+      try {
+	clues = new short[Math.min(size, INITIAL_CAPACITY)];
+	for (i = 0; i < size; i++) {
+	  if (i == clues.length)
+	    clues = Arrays.copyOf(clues, (int) Math.min(size, 2L * clues.length));
+	  clues[i] = input.readShort();
+	}
+      }
+      catch (EOFException e) {
+	throw new IOException("Truncated clue index, expected " + size + " grids: " + file, e);
+      }
+      result.m_Clues      = clues;
+      result.m_Symmetries = new byte[size];
+      for (n = 0; n < result.m_Words; n++)
+	result.m_Masks[n] = new long[size];
+      input.readFully(result.m_Symmetries);
+      for (n = 0; n < result.m_Words; n++) {
+	for (i = 0; i < size; i++)
+	  result.m_Masks[n][i] = input.readLong();
+      }
+      result.m_Size = size;
+    }
+
+    return result;
+  }
+}
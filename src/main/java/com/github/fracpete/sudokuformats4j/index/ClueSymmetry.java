@@ -0,0 +1,115 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClueSymmetry.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.index;
+
+/**
+ * The symmetries of clue layouts, ie the transformations of the grid that
+ * map every clue position onto a clue position (and every empty cell onto
+ * an empty cell).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public enum ClueSymmetry {
+  /** 180 degree rotation. */
+  ROTATIONAL,
+  /** 90 degree rotation (square grids only). */
+  QUARTER_TURN,
+  /** mirrored at the horizontal axis. */
+  HORIZONTAL,
+  /** mirrored at the vertical axis. */
+  VERTICAL,
+  /** mirrored at the main diagonal (square grids only). */
+  DIAGONAL,
+  /** mirrored at the anti-diagonal (square grids only). */
+  ANTI_DIAGONAL;
+
+  /**
+   * Returns the flag of the symmetry, for combining symmetries in an int.
+   *
+   * @return		the flag
+   */
+  public int flag() {
+    return 1 << ordinal();
+  }
+
+  /**
+   * Combines the flags of the symmetries.
+   *
+   * @param symmetries	the symmetries
+   * @return		the flags
+   */
+  public static int flags(ClueSymmetry... symmetries) {
+    int		result;
+
+    result = 0;
+    for (ClueSymmetry symmetry: symmetries)
+      result |= symmetry.flag();
+
+    return result;
+  }
+
+  /**
+   * Returns where the cells end up under the transformation (cells
+   * row-wise from the top).
+   *
+   * @param height	the height of the grid
+   * @param width	the width of the grid
+   * @return		the new position per cell, null if not applicable to the grid
+   */
+  public int[] permutation(int height, int width) {
+    int[]	result;
+    int		y;
+    int		x;
+
+    if ((height != width) && ((this == QUARTER_TURN) || (this == DIAGONAL) || (this == ANTI_DIAGONAL)))
+      return null;
+
+    result = new int[height * width];
+    for (y = 0; y < height; y++) {
+      for (x = 0; x < width; x++) {
+	switch (this) {
+	  case ROTATIONAL:
+	    result[y*width + x] = (height - 1 - y)*width + (width - 1 - x);
+	    break;
+	  case QUARTER_TURN:
+	    result[y*width + x] = x*width + (height - 1 - y);
+	    break;
+	  case HORIZONTAL:
+	    result[y*width + x] = (height - 1 - y)*width + x;
+	    break;
+	  case VERTICAL:
+	    result[y*width + x] = y*width + (width - 1 - x);
+	    break;
+	  case DIAGONAL:
+	    result[y*width + x] = x*width + y;
+	    break;
+	  case ANTI_DIAGONAL:
+	    result[y*width + x] = (width - 1 - x)*width + (height - 1 - y);
+	    break;
+	  default:
+	    throw new IllegalStateException("Unhandled symmetry: " + this);
+	}
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,636 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HashIndex.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.index;
+
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.utils.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Persistent index for exact-match lookups of grids in huge corpora,
+ * stored in a memory-mapped file (.sphi), ie off-heap: the operating
+ * system pages in the parts of the table that are being used. The table
+ * uses open addressing with linear probing; a slot stores the id of the
+ * grid (ie the order in which the distinct grids were added, plus 1,
+ * 0 = empty) followed by the packed cells as key (two cells per byte, as
+ * in {@link PuzzleStore}, ie 41 bytes for 9x9 grids). Keys are the cells
+ * themselves, not hashes of them, ie there are no false positives.
+ * <br>
+ * The index can be built incrementally, from any {@link PuzzleReader}.
+ * Once the table is three-quarters full, it gets rehashed into a file
+ * with twice the number of slots, which then replaces the old file. The
+ * number of grids gets updated in the mapped header with every addition,
+ * use {@link #flush()} to force the changes to disk.
+ * Java cannot unmap buffers explicitly, ie the old file is still mapped
+ * when it gets replaced. This is fine on Unix-like systems, but Windows
+ * does not allow replacing a mapped file, ie growing fails there: create
+ * the index with a sufficient number of expected grids instead.
+ * <br>
+ * Layout (big endian): magic (int), version (short), rows/cols/subRows/subCols
+ * (byte each), key size (int), capacity (long), number of grids (long),
+ * padded to {@link #HEADER_SIZE} bytes, followed by the slots.
+ * <br>
+ * Lookups are safe from multiple threads, as long as no grids get added
+ * at the same time. Adding grids is not thread-safe.
+ * <pre>
+ * try (HashIndex index = HashIndex.create(new File("published.sphi"), new Grid(), 100000000L)) {
+ *   index.addAll(new PuzzleCollection(), new File("published.sdm"));
+ * }
+ * try (HashIndex index = HashIndex.open(new File("published.sphi"), true)) {
+ *   boolean published = index.contains(candidate);
+ * }
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HashIndex
+  implements Closeable {
+
+  /** the magic number ("SPH1"). */
+  public static final int MAGIC = 0x53504831;
+
+  /** the format version. */
+  public static final short VERSION = 1;
+
+  /** the default file extension. */
+  public static final String EXTENSION = ".sphi";
+
+  /** the size of the header (the slots start after it). */
+  public static final int HEADER_SIZE = 64;
+
+  /** the maximum load factor. */
+  public static final double LOAD_FACTOR = 0.75;
+
+  /** the minimum number of slots. */
+  public static final long MIN_CAPACITY = 1024;
+
+  /** the maximum number of slots. */
+  public static final long MAX_CAPACITY = 1L << 40;
+
+  /** the offset of the key size in the header. */
+  protected static final int OFFSET_KEY_SIZE = 10;
+
+  /** the offset of the capacity in the header. */
+  protected static final int OFFSET_CAPACITY = 14;
+
+  /** the offset of the number of grids in the header. */
+  protected static final int OFFSET_SIZE = 22;
+
+  /** the file. */
+  protected File m_File;
+
+  /** whether the index is read-only. */
+  protected boolean m_ReadOnly;
+
+  /** the open file. */
+  protected RandomAccessFile m_Access;
+
+  /** the dimensions and packing of the grids. */
+  protected PuzzleStore.Header m_Header;
+
+  /** the size of the keys in bytes. */
+  protected int m_KeySize;
+
+  /** the size of the slots in bytes. */
+  protected int m_SlotSize;
+
+  /** the number of slots (power of 2). */
+  protected long m_Capacity;
+
+  /** the number of grids. */
+  protected long m_Size;
+
+  /** the number of grids at which to grow the table. */
+  protected long m_Threshold;
+
+  /** the number of slots per segment (power of 2). */
+  protected int m_SlotsPerSegment;
+
+  /** the bits to shift the slot by to obtain the segment. */
+  protected int m_SegmentShift;
+
+  /** the mapped header. */
+  protected MappedByteBuffer m_HeaderBuffer;
+
+  /** the mapped segments of slots. */
+  protected MappedByteBuffer[] m_Segments;
+
+  /** the buffer for the cells per thread. */
+  protected ThreadLocal<byte[]> m_Cells;
+
+  /** the buffer for the key per thread. */
+  protected ThreadLocal<byte[]> m_Key;
+
+  /**
+   * Initializes the index. Use {@link #create(File, Grid, long)} or
+   * {@link #open(File, boolean)}.
+   *
+   * @param file	the file of the index
+   * @param readOnly	whether the index is read-only
+   */
+  protected HashIndex(File file, boolean readOnly) {
+    m_File     = file;
+    m_ReadOnly = readOnly;
+    m_Header   = new PuzzleStore.Header();
+    m_Cells    = new ThreadLocal<>();
+    m_Key      = new ThreadLocal<>();
+  }
+
+  /**
+   * Returns the number of slots for the expected number of grids.
+   *
+   * @param expected	the expected number of grids
+   * @return		the number of slots (power of 2)
+   */
+  protected static long capacity(long expected) {
+    long	result;
+
+    result = MIN_CAPACITY;
+    while ((result * LOAD_FACTOR < expected) && (result < MAX_CAPACITY))
+      result *= 2;
+
+    return result;
+  }
+
+  /**
+   * Creates the file for the specified number of slots and writes the
+   * header. The slots get initialized with zeroes (sparse, if supported
+   * by the file system).
+   *
+   * @param file	the file to create
+   * @param header	the dimensions of the grids
+   * @param capacity	the number of slots
+   * @throws IOException	if creating the file fails
+   */
+  protected static void initialize(File file, PuzzleStore.Header header, long capacity) throws IOException {
+    RandomAccessFile	access;
+
+    access = new RandomAccessFile(file, "rw");
+    try {
+      access.setLength(0);
+      access.writeInt(MAGIC);
+      access.writeShort(VERSION);
+      access.writeByte(header.rows());
+      access.writeByte(header.cols());
+      access.writeByte(header.subRows());
+      access.writeByte(header.subCols());
+      access.writeInt(header.recordSize());
+      access.writeLong(capacity);
+      access.writeLong(0);
+      access.setLength(HEADER_SIZE + capacity * (8 + header.recordSize()));
+    }
+    finally {
+      IOUtils.closeQuietly(access);
+    }
+  }
+
+  /**
+   * Opens the file, reads the header and maps the slots.
+   *
+   * @throws IOException	if reading the header or mapping fails
+   */
+  protected void map() throws IOException {
+    FileChannel		channel;
+    FileChannel.MapMode	mode;
+    Grid		grid;
+    int			i;
+
+    m_Access = new RandomAccessFile(m_File, m_ReadOnly ? "r" : "rw");
+    try {
+      if (m_Access.readInt() != MAGIC)
+	throw new IOException("Not a hash index: " + m_File);
+      if (m_Access.readShort() != VERSION)
+	throw new IOException("Unsupported hash index version: " + m_File);
+      grid = new Grid(m_Access.readUnsignedByte(), m_Access.readUnsignedByte(), m_Access.readUnsignedByte(), m_Access.readUnsignedByte());
+      m_Header.setDimensions(grid);
+      m_KeySize   = m_Access.readInt();
+      m_Capacity  = m_Access.readLong();
+      m_Size      = m_Access.readLong();
+      if ((m_KeySize != m_Header.recordSize()) || (Long.bitCount(m_Capacity) != 1))
+	throw new IOException("Corrupt hash index header: " + m_File);
+      m_SlotSize  = 8 + m_KeySize;
+      m_Threshold = (long) (m_Capacity * LOAD_FACTOR);
+      if (m_Access.length() < HEADER_SIZE + m_Capacity * m_SlotSize)
+	throw new IOException("Truncated hash index: " + m_File);
+
+      // segments: largest power of 2 of slots that fits into a buffer
+      m_SegmentShift = 0;
+      while (((2L << m_SegmentShift) * m_SlotSize <= Integer.MAX_VALUE) && ((2L << m_SegmentShift) <= m_Capacity))
+	m_SegmentShift++;
+      m_SlotsPerSegment = 1 << m_SegmentShift;
+
+      channel        = m_Access.getChannel();
+      mode           = m_ReadOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+      m_HeaderBuffer = channel.map(mode, 0, HEADER_SIZE);
+      m_Segments     = new MappedByteBuffer[(int) (m_Capacity / m_SlotsPerSegment)];
+      for (i = 0; i < m_Segments.length; i++)
+	m_Segments[i] = channel.map(mode, HEADER_SIZE + (long) i * m_SlotsPerSegment * m_SlotSize, (long) m_SlotsPerSegment * m_SlotSize);
+    }
+    catch (IOException e) {
+      IOUtils.closeQuietly(m_Access);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a new, empty index, replacing any existing file.
+   *
+   * @param file	the file of the index
+   * @param template	the grid with the dimensions of the grids to index
+   * @param expected	the expected number of grids
+   * @return		the index
+   * @throws IOException	if creating the index fails
+   */
+  public static HashIndex create(File file, Grid template, long expected) throws IOException {
+    HashIndex	result;
+
+    result = new HashIndex(file, false);
+    result.m_Header.setDimensions(template);
+    initialize(file, result.m_Header, capacity(expected));
+    result.map();
+
+    return result;
+  }
+
+  /**
+   * Opens an existing index.
+   *
+   * @param file	the file of the index
+   * @param readOnly	whether to open the index read-only
+   * @return		the index
+   * @throws IOException	if opening the index fails
+   */
+  public static HashIndex open(File file, boolean readOnly) throws IOException {
+    HashIndex	result;
+
+    result = new HashIndex(file, readOnly);
+    result.map();
+
+    return result;
+  }
+
+  /**
+   * Returns the file of the index.
+   *
+   * @return		the file
+   */
+  public File getFile() {
+    return m_File;
+  }
+
+  /**
+   * Returns whether the index is read-only.
+   *
+   * @return		true if read-only
+   */
+  public boolean isReadOnly() {
+    return m_ReadOnly;
+  }
+
+  /**
+   * Returns the dimensions of the grids.
+   *
+   * @return		the dimensions
+   */
+  public PuzzleStore.Header getHeader() {
+    return m_Header;
+  }
+
+  /**
+   * Returns the number of grids.
+   *
+   * @return		the number of grids
+   */
+  public long size() {
+    return m_Size;
+  }
+
+  /**
+   * Returns the number of slots.
+   *
+   * @return		the number of slots
+   */
+  public long capacity() {
+    return m_Capacity;
+  }
+
+  /**
+   * Packs the cells of the grid into a key. The key is the buffer of the
+   * calling thread, ie it gets overwritten by the thread's next call.
+   *
+   * @param grid	the grid to pack
+   * @return		the key
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   */
+  protected byte[] key(Grid grid) {
+    byte[]	result;
+    byte[]	cells;
+
+    m_Header.check(grid);
+    cells = grid.getCells(m_Cells.get());
+    m_Cells.set(cells);
+    result = m_Key.get();
+    if (result == null) {
+      result = new byte[m_KeySize];
+      m_Key.set(result);
+    }
+    PuzzleStore.pack(m_Header, cells, result);
+
+    return result;
+  }
+
+  /**
+   * Computes the hash of the key (FNV-1a, with the bits mixed afterwards).
+   *
+   * @param key		the key
+   * @return		the hash
+   */
+  protected static long hash(byte[] key) {
+    long	result;
+    int		i;
+
+    result = 0xcbf29ce484222325L;
+    for (i = 0; i < key.length; i++)
+      result = (result ^ (key[i] & 0xFF)) * 0x100000001b3L;
+    result ^= result >>> 33;
+    result *= 0xff51afd7ed558ccdL;
+    result ^= result >>> 33;
+
+    return result;
+  }
+
+  /**
+   * Returns the segment of the slot.
+   *
+   * @param slot	the slot
+   * @return		the segment
+   */
+  protected MappedByteBuffer segment(long slot) {
+    return m_Segments[(int) (slot >>> m_SegmentShift)];
+  }
+
+  /**
+   * Returns the offset of the slot within its segment.
+   *
+   * @param slot	the slot
+   * @return		the offset in bytes
+   */
+  protected int offset(long slot) {
+    return (int) (slot & (m_SlotsPerSegment - 1)) * m_SlotSize;
+  }
+
+  /**
+   * Returns the slot with the key or the empty slot where the key would
+   * get stored.
+   *
+   * @param key		the key to look for
+   * @return		the slot
+   */
+  protected long find(byte[] key) {
+    MappedByteBuffer	segment;
+    long		slot;
+    long		mask;
+    int			offset;
+    int			i;
+
+    mask = m_Capacity - 1;
+    slot = hash(key) & mask;
+    while (true) {
+      segment = segment(slot);
+      offset  = offset(slot);
+      if (segment.getLong(offset) == 0)
+	return slot;
+      // absolute gets don't modify the buffer's position, ie thread-safe
+      offset += 8;
+      for (i = 0; i < key.length; i++) {
+	if (segment.get(offset + i) != key[i])
+	  break;
+      }
+      if (i == key.length)
+	return slot;
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Stores the key and id in the slot.
+   *
+   * @param slot	the slot
+   * @param key		the key
+   * @param id		the id of the grid
+   */
+  protected void put(long slot, byte[] key, long id) {
+    MappedByteBuffer	segment;
+    int			offset;
+    int			i;
+
+    segment = segment(slot);
+    offset  = offset(slot);
+    segment.putLong(offset, id + 1);
+    offset += 8;
+    for (i = 0; i < key.length; i++)
+      segment.put(offset + i, key[i]);
+  }
+
+  /**
+   * Returns the id of the grid, ie the order in which the distinct grids
+   * were added.
+   *
+   * @param grid	the grid to look up
+   * @return		the id, -1 if not present
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   */
+  public long lookup(Grid grid) {
+    byte[]	key;
+    long	slot;
+
+    key  = key(grid);
+    slot = find(key);
+
+    return segment(slot).getLong(offset(slot)) - 1;
+  }
+
+  /**
+   * Returns whether the grid is present.
+   *
+   * @param grid	the grid to look for
+   * @return		true if present
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   */
+  public boolean contains(Grid grid) {
+    return (lookup(grid) != -1);
+  }
+
+  /**
+   * Adds the grid, if not already present.
+   *
+   * @param grid	the grid to add
+   * @return		true if added, false if already present
+   * @throws IllegalArgumentException	if the grid has different dimensions
+   * @throws IOException	if read-only or growing the table fails
+   */
+  public boolean add(Grid grid) throws IOException {
+    byte[]	key;
+    long	slot;
+
+    if (m_ReadOnly)
+      throw new IOException("Hash index is read-only: " + m_File);
+
+    key  = key(grid);
+    slot = find(key);
+    if (segment(slot).getLong(offset(slot)) != 0)
+      return false;
+
+    put(slot, key, m_Size);
+    m_Size++;
+    m_HeaderBuffer.putLong(OFFSET_SIZE, m_Size);
+    if (m_Size >= m_Threshold)
+      grow();
+
+    return true;
+  }
+
+  /**
+   * Adds the remaining grids of the iterator.
+   *
+   * @param iterator	the iterator to get the grids from
+   * @return		the number of grids that were added (ie not present yet)
+   * @throws IOException	if read-only or growing the table fails
+   */
+  public long addAll(PuzzleIterator iterator) throws IOException {
+    long	result;
+
+    result = 0;
+    while (iterator.hasNext()) {
+      if (add(iterator.next()))
+	result++;
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds all the grids of the file.
+   *
+   * @param reader	the reader for the file
+   * @param file	the file to read
+   * @return		the number of grids that were added (ie not present yet)
+   * @throws Exception	if reading fails, read-only or growing the table fails
+   */
+  public long addAll(PuzzleReader reader, File file) throws Exception {
+    try (PuzzleIterator iter = reader.iterator(file)) {
+      return addAll(iter);
+    }
+  }
+
+  /**
+   * Rehashes the slots into a file with twice the number of slots, which
+   * then replaces the current file. Fails on Windows, as the current file
+   * is still mapped.
+   *
+   * @throws IOException	if growing fails
+   */
+  protected void grow() throws IOException {
+    HashIndex		larger;
+    File		tmp;
+    MappedByteBuffer	segment;
+    byte[]		key;
+    long		slot;
+    long		id;
+    int			offset;
+    int			i;
+
+    if (m_Capacity >= MAX_CAPACITY)
+      throw new IOException("Maximum capacity reached: " + m_Size);
+
+    tmp = new File(m_File.getPath() + ".tmp");
+    initialize(tmp, m_Header, m_Capacity * 2);
+    larger = new HashIndex(tmp, false);
+    larger.map();
+    try {
+      key = new byte[m_KeySize];
+      for (slot = 0; slot < m_Capacity; slot++) {
+	segment = segment(slot);
+	offset  = offset(slot);
+	id      = segment.getLong(offset);
+	if (id == 0)
+	  continue;
+	offset += 8;
+	for (i = 0; i < m_KeySize; i++)
+	  key[i] = segment.get(offset + i);
+	larger.put(larger.find(key), key, id - 1);
+      }
+      larger.m_Size = m_Size;
+      larger.m_HeaderBuffer.putLong(OFFSET_SIZE, m_Size);
+      larger.flush();
+      // the open file of the larger table stays valid after the rename
+      Files.move(tmp.toPath(), m_File.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (IOException | RuntimeException e) {
+      larger.close();
+      tmp.delete();
+      throw e;
+    }
+
+    IOUtils.closeQuietly(m_Access);
+    m_Access          = larger.m_Access;
+    m_Capacity        = larger.m_Capacity;
+    m_Threshold       = larger.m_Threshold;
+    m_SlotsPerSegment = larger.m_SlotsPerSegment;
+    m_SegmentShift    = larger.m_SegmentShift;
+    m_HeaderBuffer    = larger.m_HeaderBuffer;
+    m_Segments        = larger.m_Segments;
+  }
+
+  /**
+   * Forces the changes to disk.
+   */
+  public void flush() {
+    if (m_ReadOnly || (m_Segments == null))
+      return;
+    m_HeaderBuffer.force();
+    for (MappedByteBuffer segment: m_Segments)
+      segment.force();
+  }
+
+  /**
+   * Flushes the changes and closes the file. The mapped memory gets
+   * released once the buffers get garbage collected.
+   */
+  @Override
+  public void close() {
+    flush();
+    m_HeaderBuffer = null;
+    m_Segments     = null;
+    IOUtils.closeQuietly(m_Access);
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Grader.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.batch.BatchProcessor;
+import com.github.fracpete.sudokuformats4j.batch.GridOperations;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rates collections of puzzles in parallel via a {@link BatchProcessor}
+ * and stores the level in the meta-data (the "level" key of OpenSudoku).
+ * Since the meta-data belongs to the collection, a collection can either
+ * get graded as a whole (using the hardest level) or split into one
+ * collection per level.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Grader {
+
+  /** the meta-data key for the level. */
+  public static final String KEY_LEVEL = "level";
+
+  /** the processor to use. */
+  protected BatchProcessor m_Processor;
+
+  /**
+   * Initializes the grader with a processor using the common fork-join pool.
+   */
+  public Grader() {
+    this(new BatchProcessor());
+  }
+
+  /**
+   * Initializes the grader.
+   *
+   * @param processor	the processor to use
+   */
+  public Grader(BatchProcessor processor) {
+    super();
+    m_Processor = processor;
+  }
+
+  /**
+   * Returns the processor in use.
+   *
+   * @return		the processor
+   */
+  public BatchProcessor getProcessor() {
+    return m_Processor;
+  }
+
+  /**
+   * Rates the grids in parallel.
+   *
+   * @param grids	the grids to rate
+   * @return		the ratings in the order of the grids, null for grids without unique solution
+   * @throws Exception	if rating fails
+   */
+  public List<Rating> rate(List<Grid> grids) throws Exception {
+    return m_Processor.process(grids, GridOperations.rate());
+  }
+
+  /**
+   * Returns the hardest level of the ratings.
+   *
+   * @param ratings	the ratings to inspect, null entries get skipped
+   * @return		the level, null if no ratings
+   */
+  public static Level hardest(List<Rating> ratings) {
+    Level	result;
+
+    result = null;
+    for (Rating rating: ratings) {
+      if ((rating != null) && ((result == null) || (rating.getLevel().compareTo(result) > 0)))
+	result = rating.getLevel();
+    }
+
+    return result;
+  }
+
+  /**
+   * Rates the puzzles in parallel and stores the hardest level in the
+   * meta-data of the collection.
+   *
+   * @param puzzles	the puzzles to grade
+   * @return		the ratings in the order of the grids, null for grids without unique solution
+   * @throws Exception	if rating fails
+   */
+  public List<Rating> grade(Puzzles puzzles) throws Exception {
+    List<Rating>	result;
+    Level		level;
+
+    result = rate(puzzles);
+    level  = hardest(result);
+    if (level != null)
+      puzzles.getMetaData().put(KEY_LEVEL, level.getName());
+
+    return result;
+  }
+
+  /**
+   * Splits the puzzles into one collection per level, each with a copy of
+   * the meta-data and the level stored under {@link #KEY_LEVEL}.
+   * Grids without a rating get dropped.
+   *
+   * @param puzzles	the puzzles to split
+   * @param ratings	the ratings of the puzzles
+   * @return		the collections per level (only levels that occur)
+   */
+  public static Map<Level,Puzzles> split(Puzzles puzzles, List<Rating> ratings) {
+    Map<Level,Puzzles>	result;
+    Puzzles		subset;
+    Rating		rating;
+    int			i;
+
+    if (puzzles.size() != ratings.size())
+      throw new IllegalArgumentException(
+	"Number of puzzles and ratings differ: " + puzzles.size() + " != " + ratings.size());
+
+    result = new EnumMap<>(Level.class);
+    for (i = 0; i < puzzles.size(); i++) {
+      rating = ratings.get(i);
+      if (rating == null)
+	continue;
+      subset = result.get(rating.getLevel());
+      if (subset == null) {
+	subset = new Puzzles();
+	subset.getMetaData().putAll(puzzles.getMetaData());
+	subset.getMetaData().put(KEY_LEVEL, rating.getLevel().getName());
+	result.put(rating.getLevel(), subset);
+      }
+      subset.add(puzzles.get(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Rates the puzzles in parallel and splits them into one collection per
+   * level.
+   *
+   * @param puzzles	the puzzles to split
+   * @return		the collections per level (only levels that occur)
+   * @throws Exception	if rating fails
+   * @see #split(Puzzles, List)
+   */
+  public Map<Level,Puzzles> split(Puzzles puzzles) throws Exception {
+    return split(puzzles, rate(puzzles));
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Level.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+/**
+ * The difficulty level of a puzzle, determined by the hardest technique
+ * required for solving it.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public enum Level {
+  /** singles only. */
+  EASY("easy"),
+  /** locked candidates and pairs. */
+  MEDIUM("medium"),
+  /** triples, X-wing, XY-wing and swordfish. */
+  HARD("hard"),
+  /** requires guessing. */
+  EXPERT("expert");
+
+  /** the name, as used in the meta-data. */
+  protected final String m_Name;
+
+  /**
+   * Initializes the level.
+   *
+   * @param name	the name, as used in the meta-data
+   */
+  Level(String name) {
+    m_Name = name;
+  }
+
+  /**
+   * Returns the name, as used in the meta-data (e.g., "level" of
+   * OpenSudoku).
+   *
+   * @return		the name
+   */
+  public String getName() {
+    return m_Name;
+  }
+}
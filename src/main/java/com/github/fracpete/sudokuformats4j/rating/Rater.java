@@ -0,0 +1,716 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Rater.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+
+import java.util.Arrays;
+
+/**
+ * Rates puzzles by solving them the way a human would: repeatedly applying
+ * the easiest {@link Technique} that makes progress (filling in singles or
+ * eliminating candidates), starting over with the easiest one after each
+ * step. If none of the techniques applies, a cell with the fewest candidates
+ * gets filled in from the solution, which counts as a guess.
+ * <br>
+ * Only puzzles with a unique solution get rated. Supports the same grids
+ * as the {@link Solver}, ie up to 32 digits and boxes that contain as many
+ * cells as the rows/columns.
+ * <br>
+ * Instances reuse their internal buffers and are therefore not thread-safe;
+ * use one rater per thread (e.g., via
+ * {@link com.github.fracpete.sudokuformats4j.batch.GridOperations#rate()}).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Rater {
+
+  /**
+   * Gets called for subsets (of cells, digits or lines) whose union has as
+   * many elements as the subset.
+   */
+  protected interface SubsetAction {
+
+    /**
+     * Applies the subset.
+     *
+     * @param selected	the bitmask of the selected elements
+     * @param union	the union of the masks of the selected elements
+     * @return		true if progress was made
+     */
+    public boolean apply(int selected, int union);
+  }
+
+  /** the solver for checking uniqueness and guessing. */
+  protected Solver m_Solver;
+
+  /** the number of rows of boxes. */
+  protected int m_Rows;
+
+  /** the number of columns of boxes. */
+  protected int m_Cols;
+
+  /** the number of rows in a box. */
+  protected int m_SubRows;
+
+  /** the number of columns in a box. */
+  protected int m_SubCols;
+
+  /** the number of digits (= rows/columns of cells). */
+  protected int m_Size;
+
+  /** the number of cells. */
+  protected int m_NumCells;
+
+  /** the bitmask with all digits. */
+  protected int m_All;
+
+  /** the row of each cell. */
+  protected int[] m_RowOf;
+
+  /** the column of each cell. */
+  protected int[] m_ColOf;
+
+  /** the box of each cell. */
+  protected int[] m_BoxOf;
+
+  /** the cell indices of all rows, columns and boxes (in that order). */
+  protected int[][] m_Units;
+
+  /** the peers of each cell. */
+  protected int[][] m_Peers;
+
+  /** the candidates of each cell (0 if filled in). */
+  protected int[] m_Candidates;
+
+  /** the number of empty cells. */
+  protected int m_Left;
+
+  /** the number of applications per technique. */
+  protected int[] m_Counts;
+
+  /** the masks of the elements to build subsets from. */
+  protected int[] m_Masks;
+
+  /** the elements (cells, digits or lines) to build subsets from. */
+  protected int[] m_Elements;
+
+  /** the buffer for transferring values from grids. */
+  protected byte[] m_Buffer;
+
+  /** the solution of the current puzzle (determined when guessing). */
+  protected byte[] m_Solution;
+
+  /** whether the solution has been determined. */
+  protected boolean m_Solved;
+
+  /**
+   * Initializes the rater.
+   */
+  public Rater() {
+    super();
+    m_Solver = new Solver();
+    m_Counts = new int[Technique.values().length];
+    m_Size   = -1;
+  }
+
+  /**
+   * Sets up the lookup tables and buffers for the dimensions of the grid,
+   * if necessary. The dimensions must have been checked by the solver.
+   *
+   * @param grid	the grid to configure for
+   */
+  protected void configure(Grid grid) {
+    int		size;
+    int		cells;
+    int		i;
+    int		j;
+    int		n;
+    int[]	fill;
+    int[]	peers;
+
+    if ((grid.rows() == m_Rows) && (grid.cols() == m_Cols) && (grid.subRows() == m_SubRows) && (grid.subCols() == m_SubCols))
+      return;
+
+    size       = grid.height();
+    cells      = size * size;
+    m_Rows     = grid.rows();
+    m_Cols     = grid.cols();
+    m_SubRows  = grid.subRows();
+    m_SubCols  = grid.subCols();
+    m_Size     = size;
+    m_NumCells = cells;
+    m_All      = (size == 32) ? -1 : (1 << size) - 1;
+
+    // units
+    m_RowOf = new int[cells];
+    m_ColOf = new int[cells];
+    m_BoxOf = new int[cells];
+    m_Units = new int[3 * size][size];
+    fill    = new int[3 * size];
+    for (i = 0; i < cells; i++) {
+      m_RowOf[i] = i / size;
+      m_ColOf[i] = i % size;
+      m_BoxOf[i] = (m_RowOf[i] / m_SubRows) * m_Cols + (m_ColOf[i] / m_SubCols);
+      n = m_RowOf[i];
+      m_Units[n][fill[n]++] = i;
+      n = size + m_ColOf[i];
+      m_Units[n][fill[n]++] = i;
+      n = 2*size + m_BoxOf[i];
+      m_Units[n][fill[n]++] = i;
+    }
+
+    // peers
+    m_Peers = new int[cells][];
+    peers   = new int[3 * size];
+    for (i = 0; i < cells; i++) {
+      n = 0;
+      for (j = 0; j < cells; j++) {
+	if (isPeer(i, j))
+	  peers[n++] = j;
+      }
+      m_Peers[i] = new int[n];
+      System.arraycopy(peers, 0, m_Peers[i], 0, n);
+    }
+
+    m_Candidates = new int[cells];
+    m_Masks      = new int[size];
+    m_Elements   = new int[size];
+    m_Buffer     = new byte[cells];
+    m_Solution   = new byte[cells];
+  }
+
+  /**
+   * Returns whether the two cells are peers, ie different cells in the
+   * same row, column or box.
+   *
+   * @param a		the first cell
+   * @param b		the second cell
+   * @return		true if peers
+   */
+  protected boolean isPeer(int a, int b) {
+    return (a != b) && ((m_RowOf[a] == m_RowOf[b]) || (m_ColOf[a] == m_ColOf[b]) || (m_BoxOf[a] == m_BoxOf[b]));
+  }
+
+  /**
+   * Fills in the digit, removing it from the candidates of the peers.
+   *
+   * @param cell	the cell to fill in
+   * @param digit	the bit of the digit
+   */
+  protected void place(int cell, int digit) {
+    m_Candidates[cell] = 0;
+    for (int peer: m_Peers[cell])
+      m_Candidates[peer] &= ~digit;
+    m_Left--;
+  }
+
+  /**
+   * Removes the digits from the candidates of the cell.
+   *
+   * @param cell	the cell to update
+   * @param digits	the bitmask of the digits to remove
+   * @return		true if any candidates were removed
+   */
+  protected boolean eliminate(int cell, int digits) {
+    if ((m_Candidates[cell] & digits) == 0)
+      return false;
+    m_Candidates[cell] &= ~digits;
+    return true;
+  }
+
+  /**
+   * Loads the givens of the puzzle.
+   *
+   * @param puzzle	the puzzle to load
+   */
+  protected void load(Grid puzzle) {
+    int		i;
+
+    configure(puzzle);
+    puzzle.getCells(m_Buffer);
+    Arrays.fill(m_Candidates, m_All);
+    Arrays.fill(m_Counts, 0);
+    m_Left   = m_NumCells;
+    m_Solved = false;
+    for (i = 0; i < m_NumCells; i++) {
+      if (m_Buffer[i] > 0)
+	place(i, 1 << (m_Buffer[i] - 1));
+    }
+  }
+
+  /**
+   * Fills in all hidden singles, unit by unit.
+   *
+   * @return		true if any were filled in
+   */
+  protected boolean hiddenSingles() {
+    boolean	result;
+    int		once;
+    int		twice;
+    int		hidden;
+    int		digits;
+
+    result = false;
+    for (int[] unit: m_Units) {
+      once  = 0;
+      twice = 0;
+      for (int cell: unit) {
+	twice |= once & m_Candidates[cell];
+	once  |= m_Candidates[cell];
+      }
+      hidden = once & ~twice;
+      if (hidden == 0)
+	continue;
+      for (int cell: unit) {
+	digits = m_Candidates[cell] & hidden;
+	if (digits != 0) {
+	  place(cell, Integer.lowestOneBit(digits));
+	  m_Counts[Technique.HIDDEN_SINGLE.ordinal()]++;
+	  result = true;
+	}
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Fills in all naked singles.
+   *
+   * @return		true if any were filled in
+   */
+  protected boolean nakedSingles() {
+    boolean	result;
+    int		cell;
+    int		digits;
+
+    result = false;
+    for (cell = 0; cell < m_NumCells; cell++) {
+      digits = m_Candidates[cell];
+      if ((digits != 0) && ((digits & (digits - 1)) == 0)) {
+	place(cell, digits);
+	m_Counts[Technique.NAKED_SINGLE.ordinal()]++;
+	result = true;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes a digit from a unit, skipping the cells of a box.
+   *
+   * @param unit	the unit to remove the digit from
+   * @param digit	the bit of the digit
+   * @param box		the box to skip
+   * @return		true if any candidates were removed
+   */
+  protected boolean eliminateOutsideBox(int[] unit, int digit, int box) {
+    boolean	result;
+
+    result = false;
+    for (int cell: unit) {
+      if (m_BoxOf[cell] != box)
+	result |= eliminate(cell, digit);
+    }
+
+    return result;
+  }
+
+  /**
+   * Applies locked candidates: a digit whose candidates within a box lie in
+   * a single row/column can be removed from the rest of that row/column
+   * (pointing), a digit whose candidates within a row/column lie in a single
+   * box can be removed from the rest of that box (claiming).
+   *
+   * @param technique	the technique to apply, {@link Technique#POINTING} or {@link Technique#CLAIMING}
+   * @return		true if progress was made
+   */
+  protected boolean lockedCandidates(Technique technique) {
+    int		u;
+    int		first;
+    int		last;
+    int		box;
+    int		line;
+    int		digits;
+    int		digit;
+    int		rows;
+    int		cols;
+    int		boxes;
+    int		cell;
+    boolean	progress;
+
+    first = (technique == Technique.POINTING) ? 2*m_Size : 0;
+    last  = (technique == Technique.POINTING) ? 3*m_Size : 2*m_Size;
+    for (u = first; u < last; u++) {
+      digits = 0;
+      for (int c: m_Units[u])
+	digits |= m_Candidates[c];
+      while (digits != 0) {
+	digit   = Integer.lowestOneBit(digits);
+	digits &= ~digit;
+	progress = false;
+	if (technique == Technique.POINTING) {
+	  box  = u - 2*m_Size;
+	  rows = 0;
+	  cols = 0;
+	  for (int c: m_Units[u]) {
+	    if ((m_Candidates[c] & digit) != 0) {
+	      rows |= 1 << m_RowOf[c];
+	      cols |= 1 << m_ColOf[c];
+	    }
+	  }
+	  if (Integer.bitCount(rows) == 1)
+	    progress = eliminateOutsideBox(m_Units[Integer.numberOfTrailingZeros(rows)], digit, box);
+	  if (!progress && (Integer.bitCount(cols) == 1))
+	    progress = eliminateOutsideBox(m_Units[m_Size + Integer.numberOfTrailingZeros(cols)], digit, box);
+	}
+	else {
+	  boxes = 0;
+	  cell  = -1;
+	  for (int c: m_Units[u]) {
+	    if ((m_Candidates[c] & digit) != 0) {
+	      boxes |= 1 << m_BoxOf[c];
+	      cell   = c;
+	    }
+	  }
+	  if (Integer.bitCount(boxes) == 1) {
+	    line = (u < m_Size) ? m_RowOf[cell] : m_ColOf[cell];
+	    for (int c: m_Units[2*m_Size + m_BoxOf[cell]]) {
+	      if (((u < m_Size) ? m_RowOf[c] : m_ColOf[c]) != line)
+		progress |= eliminate(c, digit);
+	    }
+	  }
+	}
+	if (progress) {
+	  m_Counts[technique.ordinal()]++;
+	  return true;
+	}
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Looks for subsets of k elements whose masks have a union of exactly k
+   * bits and applies the action to them, stopping at the first subset that
+   * makes progress.
+   *
+   * @param count	the number of elements in {@link #m_Masks}
+   * @param k		the size of the subsets
+   * @param start	the first element to consider
+   * @param depth	the number of elements selected so far
+   * @param selected	the bitmask of the elements selected so far
+   * @param union	the union of the masks selected so far
+   * @param action	the action to apply
+   * @return		true if progress was made
+   */
+  protected boolean subsets(int count, int k, int start, int depth, int selected, int union, SubsetAction action) {
+    int		i;
+    int		merged;
+
+    for (i = start; i < count; i++) {
+      merged = union | m_Masks[i];
+      if (Integer.bitCount(merged) > k)
+	continue;
+      if (depth + 1 == k) {
+	if ((Integer.bitCount(merged) == k) && action.apply(selected | (1 << i), merged))
+	  return true;
+      }
+      else if (subsets(count, k, i + 1, depth + 1, selected | (1 << i), merged, action)) {
+	return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Applies naked subsets: k cells of a unit with k candidates between
+   * them, which can be removed from the other cells of the unit.
+   *
+   * @param k		the size of the subsets
+   * @param technique	the technique to count
+   * @return		true if progress was made
+   */
+  protected boolean nakedSubsets(int k, Technique technique) {
+    int		count;
+    int		bits;
+
+    for (int[] unit: m_Units) {
+      count = 0;
+      for (int cell: unit) {
+	bits = Integer.bitCount(m_Candidates[cell]);
+	if ((bits >= 2) && (bits <= k))
+	  m_Masks[count++] = m_Candidates[cell];
+      }
+      if (count < k)
+	continue;
+      // the cells of the subset are the only ones whose candidates lie within the union
+      if (subsets(count, k, 0, 0, 0, 0, (int selected, int union) -> {
+	boolean progress = false;
+	for (int cell: unit) {
+	  if ((m_Candidates[cell] & ~union) != 0)
+	    progress |= eliminate(cell, union);
+	}
+	return progress;
+      })) {
+	m_Counts[technique.ordinal()]++;
+	return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Applies hidden subsets: k digits that are confined to the same k cells
+   * of a unit, which can have all other candidates removed.
+   *
+   * @param k		the size of the subsets
+   * @param technique	the technique to count
+   * @return		true if progress was made
+   */
+  protected boolean hiddenSubsets(int k, Technique technique) {
+    int		count;
+    int		digit;
+    int		positions;
+    int		bits;
+    int		i;
+
+    for (int[] unit: m_Units) {
+      count = 0;
+      for (digit = 0; digit < m_Size; digit++) {
+	positions = 0;
+	for (i = 0; i < m_Size; i++) {
+	  if ((m_Candidates[unit[i]] & (1 << digit)) != 0)
+	    positions |= 1 << i;
+	}
+	bits = Integer.bitCount(positions);
+	if ((bits >= 2) && (bits <= k)) {
+	  m_Elements[count] = 1 << digit;
+	  m_Masks[count]    = positions;
+	  count++;
+	}
+      }
+      if (count < k)
+	continue;
+      if (subsets(count, k, 0, 0, 0, 0, (int selected, int union) -> {
+	boolean progress = false;
+	int digits = 0;
+	for (int n = 0; n < k; n++) {
+	  digits   |= m_Elements[Integer.numberOfTrailingZeros(selected)];
+	  selected &= selected - 1;
+	}
+	while (union != 0) {
+	  progress |= eliminate(unit[Integer.numberOfTrailingZeros(union)], ~digits);
+	  union    &= union - 1;
+	}
+	return progress;
+      })) {
+	m_Counts[technique.ordinal()]++;
+	return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Applies fish patterns: a digit whose candidates in k rows lie in the
+   * same k columns can be removed from the rest of these columns (and vice
+   * versa). X-wing for k=2, swordfish for k=3.
+   *
+   * @param k		the size of the pattern
+   * @param technique	the technique to count
+   * @return		true if progress was made
+   */
+  protected boolean fish(int k, Technique technique) {
+    int		digit;
+    int		line;
+    int		i;
+    int		count;
+    int		positions;
+    int		bits;
+    int		orientation;
+
+    for (digit = 0; digit < m_Size; digit++) {
+      for (orientation = 0; orientation < 2; orientation++) {
+	count = 0;
+	for (line = 0; line < m_Size; line++) {
+	  positions = 0;
+	  for (i = 0; i < m_Size; i++) {
+	    if ((m_Candidates[m_Units[orientation*m_Size + line][i]] & (1 << digit)) != 0)
+	      positions |= 1 << i;
+	  }
+	  bits = Integer.bitCount(positions);
+	  if ((bits >= 2) && (bits <= k)) {
+	    m_Elements[count] = line;
+	    m_Masks[count]    = positions;
+	    count++;
+	  }
+	}
+	if (count < k)
+	  continue;
+	int bit = 1 << digit;
+	int cover = (1 - orientation) * m_Size;
+	if (subsets(count, k, 0, 0, 0, 0, (int selected, int union) -> {
+	  boolean progress = false;
+	  int lines = 0;
+	  for (int n = 0; n < k; n++) {
+	    lines    |= 1 << m_Elements[Integer.numberOfTrailingZeros(selected)];
+	    selected &= selected - 1;
+	  }
+	  // positions within the cover lines correspond to the base lines
+	  while (union != 0) {
+	    int[] unit = m_Units[cover + Integer.numberOfTrailingZeros(union)];
+	    for (int n = 0; n < m_Size; n++) {
+	      if ((lines & (1 << n)) == 0)
+		progress |= eliminate(unit[n], bit);
+	    }
+	    union &= union - 1;
+	  }
+	  return progress;
+	})) {
+	  m_Counts[technique.ordinal()]++;
+	  return true;
+	}
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Applies XY-wings: a pivot with candidates {x,y} and two peers with
+   * {x,z} and {y,z}; z can be removed from all cells seeing both peers.
+   *
+   * @return		true if progress was made
+   */
+  protected boolean xyWing() {
+    int		pivot;
+    int		xy;
+    int		xz;
+    int		yz;
+    int		z;
+    boolean	progress;
+
+    for (pivot = 0; pivot < m_NumCells; pivot++) {
+      xy = m_Candidates[pivot];
+      if (Integer.bitCount(xy) != 2)
+	continue;
+      for (int first: m_Peers[pivot]) {
+	xz = m_Candidates[first];
+	if ((Integer.bitCount(xz) != 2) || (Integer.bitCount(xz & xy) != 1))
+	  continue;
+	z  = xz & ~xy;
+	yz = (xy & ~xz) | z;
+	for (int second: m_Peers[pivot]) {
+	  if (m_Candidates[second] != yz)
+	    continue;
+	  progress = false;
+	  for (int cell: m_Peers[first]) {
+	    if (isPeer(cell, second))
+	      progress |= eliminate(cell, z);
+	  }
+	  if (progress) {
+	    m_Counts[Technique.XY_WING.ordinal()]++;
+	    return true;
+	  }
+	}
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Fills in a cell with the fewest candidates from the solution.
+   *
+   * @param puzzle	the puzzle being rated
+   */
+  protected void guess(Grid puzzle) {
+    int		cell;
+    int		best;
+    int		bits;
+    int		min;
+
+    if (!m_Solved) {
+      m_Solver.solve(puzzle).getCells(m_Solution);
+      m_Solved = true;
+    }
+
+    best = -1;
+    min  = Integer.MAX_VALUE;
+    for (cell = 0; cell < m_NumCells; cell++) {
+      bits = Integer.bitCount(m_Candidates[cell]);
+      if ((bits > 0) && (bits < min)) {
+	best = cell;
+	min  = bits;
+      }
+    }
+
+    place(best, 1 << (m_Solution[best] - 1));
+    m_Counts[Technique.GUESS.ordinal()]++;
+  }
+
+  /**
+   * Applies the easiest technique that makes progress.
+   *
+   * @return		true if progress was made
+   */
+  protected boolean step() {
+    return hiddenSingles()
+      || nakedSingles()
+      || lockedCandidates(Technique.POINTING)
+      || lockedCandidates(Technique.CLAIMING)
+      || nakedSubsets(2, Technique.NAKED_PAIR)
+      || hiddenSubsets(2, Technique.HIDDEN_PAIR)
+      || nakedSubsets(3, Technique.NAKED_TRIPLE)
+      || hiddenSubsets(3, Technique.HIDDEN_TRIPLE)
+      || fish(2, Technique.X_WING)
+      || xyWing()
+      || fish(3, Technique.SWORDFISH);
+  }
+
+  /**
+   * Rates the puzzle. The puzzle itself is left untouched.
+   *
+   * @param puzzle	the puzzle to rate
+   * @return		the rating, null if the puzzle does not have a unique solution
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  public Rating rate(Grid puzzle) {
+    if (m_Solver.countSolutions(puzzle, 2) != 1)
+      return null;
+
+    load(puzzle);
+    while (m_Left > 0) {
+      if (!step())
+	guess(puzzle);
+    }
+
+    return new Rating(m_Counts);
+  }
+}
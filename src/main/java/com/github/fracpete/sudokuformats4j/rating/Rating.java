@@ -0,0 +1,140 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Rating.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rating of a puzzle: how often each technique was applied, the
+ * resulting score and the level (from the hardest technique).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Rating
+  implements Serializable {
+
+  /** the number of applications per technique (ordinal). */
+  protected int[] m_Counts;
+
+  /** the score. */
+  protected int m_Score;
+
+  /** the hardest technique. */
+  protected Technique m_Hardest;
+
+  /**
+   * Initializes the rating.
+   *
+   * @param counts	the number of applications per technique (ordinal)
+   */
+  public Rating(int[] counts) {
+    int		i;
+
+    if (counts.length != Technique.values().length)
+      throw new IllegalArgumentException(
+	"Expected " + Technique.values().length + " counts, provided: " + counts.length);
+
+    m_Counts  = counts.clone();
+    m_Score   = 0;
+    m_Hardest = Technique.HIDDEN_SINGLE;
+    for (Technique technique: Technique.values()) {
+      i = technique.ordinal();
+      if (m_Counts[i] > 0) {
+	m_Score  += m_Counts[i] * technique.getWeight();
+	m_Hardest = technique;
+      }
+    }
+  }
+
+  /**
+   * Returns how often the technique was applied.
+   *
+   * @param technique	the technique
+   * @return		the number of applications
+   */
+  public int getCount(Technique technique) {
+    return m_Counts[technique.ordinal()];
+  }
+
+  /**
+   * Returns the techniques that were applied, ordered by difficulty.
+   *
+   * @return		the techniques
+   */
+  public List<Technique> getTechniques() {
+    List<Technique>	result;
+
+    result = new ArrayList<>();
+    for (Technique technique: Technique.values()) {
+      if (m_Counts[technique.ordinal()] > 0)
+	result.add(technique);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the hardest technique that was applied.
+   *
+   * @return		the technique
+   */
+  public Technique getHardest() {
+    return m_Hardest;
+  }
+
+  /**
+   * Returns the score, ie the sum of the technique weights over all
+   * applications.
+   *
+   * @return		the score
+   */
+  public int getScore() {
+    return m_Score;
+  }
+
+  /**
+   * Returns the level, ie the level of the hardest technique.
+   *
+   * @return		the level
+   */
+  public Level getLevel() {
+    return m_Hardest.getLevel();
+  }
+
+  /**
+   * Returns a short description of the rating.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append(getLevel().getName()).append(" (").append(m_Score).append(")");
+    for (Technique technique: getTechniques())
+      result.append(", ").append(technique).append(": ").append(getCount(technique));
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Technique.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+/**
+ * The solving techniques, ordered by difficulty, that the {@link Rater}
+ * applies. Each technique has a level and a weight, which gets added to
+ * the score for each application.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public enum Technique {
+  /** the only cell of a row, column or box that can take a digit. */
+  HIDDEN_SINGLE(Level.EASY, 1),
+  /** the only digit that a cell can take. */
+  NAKED_SINGLE(Level.EASY, 2),
+  /** the candidates of a digit within a box are confined to one row/column. */
+  POINTING(Level.MEDIUM, 5),
+  /** the candidates of a digit within a row/column are confined to one box. */
+  CLAIMING(Level.MEDIUM, 6),
+  /** two cells of a unit with the same two candidates. */
+  NAKED_PAIR(Level.MEDIUM, 10),
+  /** two digits confined to the same two cells of a unit. */
+  HIDDEN_PAIR(Level.MEDIUM, 15),
+  /** three cells of a unit with three candidates between them. */
+  NAKED_TRIPLE(Level.HARD, 20),
+  /** three digits confined to the same three cells of a unit. */
+  HIDDEN_TRIPLE(Level.HARD, 25),
+  /** a digit confined to the same two columns in two rows (or vice versa). */
+  X_WING(Level.HARD, 40),
+  /** a pivot cell {x,y} with peers {x,z} and {y,z}. */
+  XY_WING(Level.HARD, 50),
+  /** a digit confined to the same three columns in three rows (or vice versa). */
+  SWORDFISH(Level.HARD, 60),
+  /** filling in a cell from the solution, when none of the techniques applies. */
+  GUESS(Level.EXPERT, 200);
+
+  /** the level. */
+  protected final Level m_Level;
+
+  /** the weight. */
+  protected final int m_Weight;
+
+  /**
+   * Initializes the technique.
+   *
+   * @param level	the level
+   * @param weight	the weight per application
+   */
+  Technique(Level level, int weight) {
+    m_Level  = level;
+    m_Weight = weight;
+  }
+
+  /**
+   * Returns the level of puzzles that require this technique.
+   *
+   * @return		the level
+   */
+  public Level getLevel() {
+    return m_Level;
+  }
+
+  /**
+   * Returns the weight that gets added to the score per application.
+   *
+   * @return		the weight
+   */
+  public int getWeight() {
+    return m_Weight;
+  }
+}
@@ -0,0 +1,452 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Solver.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.solver;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.ValidatedGrid;
+
+/**
+ * Solves sudoku grids using bitmasks of the candidate digits of each cell.
+ * A cell is filled in once it has a single candidate left. Filling in a
+ * digit removes it from the candidates of all the peers (cells in the same
+ * row, column and box), filling in naked singles along the way. Hidden
+ * singles (digits with only one possible cell in a row, column or box) get
+ * filled in as well, before backtracking on the cell with the fewest
+ * candidates.
+ * Supports grids with up to 32 digits, whose boxes contain as many cells as
+ * the rows/columns (e.g., 3x3 boxes for 9x9, 2x3 boxes for 6x6).
+ * Instances reuse their internal buffers and are therefore not thread-safe;
+ * use one solver per thread.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Solver {
+
+  /** the maximum number of digits. */
+  public static final int MAX_DIGITS = 32;
+
+  /** the number of rows of boxes. */
+  protected int m_Rows;
+
+  /** the number of columns of boxes. */
+  protected int m_Cols;
+
+  /** the number of rows in a box. */
+  protected int m_SubRows;
+
+  /** the number of columns in a box. */
+  protected int m_SubCols;
+
+  /** the number of digits (= rows/columns of cells). */
+  protected int m_Size;
+
+  /** the number of cells. */
+  protected int m_NumCells;
+
+  /** the bitmask with all digits. */
+  protected int m_All;
+
+  /** the peers of each cell. */
+  protected int[][] m_Peers;
+
+  /** the cell indices of all rows, columns and boxes. */
+  protected int[][] m_Units;
+
+  /** the candidates per search level and cell. */
+  protected int[] m_Candidates;
+
+  /** the number of empty cells per search level. */
+  protected int[] m_Empty;
+
+  /** the queue of cells to fill in. */
+  protected int[] m_Queue;
+
+  /** the buffer for transferring values from/to grids. */
+  protected byte[] m_Buffer;
+
+  /** the first solution found. */
+  protected byte[] m_Solution;
+
+  /** the number of solutions found. */
+  protected int m_Count;
+
+  /** the maximum number of solutions to look for. */
+  protected int m_Max;
+
+  /** the number of guesses. */
+  protected long m_Guesses;
+
+  /**
+   * Initializes the solver.
+   */
+  public Solver() {
+    super();
+    m_Size = -1;
+  }
+
+  /**
+   * Sets up the lookup tables and buffers for the dimensions of the grid,
+   * if necessary.
+   *
+   * @param grid	the grid to configure for
+   * @throws IllegalArgumentException	if the dimensions are not supported
+   */
+  protected void configure(Grid grid) {
+    int		size;
+    int		cells;
+    int		i;
+    int		j;
+    int		n;
+    int		row;
+    int		col;
+    int[]	fill;
+    int[]	boxOf;
+    int[]	peers;
+
+    if ((grid.rows() == m_Rows) && (grid.cols() == m_Cols) && (grid.subRows() == m_SubRows) && (grid.subCols() == m_SubCols))
+      return;
+
+    size = grid.height();
+    if ((grid.width() != size) || (grid.subRows() * grid.subCols() != size))
+      throw new IllegalArgumentException(
+	"Boxes must have as many cells as rows/columns: "
+	  + grid.rows() + "x" + grid.cols() + " boxes of " + grid.subRows() + "x" + grid.subCols());
+    if (size > MAX_DIGITS)
+      throw new IllegalArgumentException("At most " + MAX_DIGITS + " digits supported, provided: " + size);
+
+    m_Rows     = grid.rows();
+    m_Cols     = grid.cols();
+    m_SubRows  = grid.subRows();
+    m_SubCols  = grid.subCols();
+    m_Size     = size;
+    m_All      = (size == 32) ? -1 : (1 << size) - 1;
+    cells      = size * size;
+    m_NumCells = cells;
+
+    // units
+    boxOf   = new int[cells];
+    m_Units = new int[3 * size][size];
+    fill    = new int[3 * size];
+    for (i = 0; i < cells; i++) {
+      row      = i / size;
+      col      = i % size;
+      boxOf[i] = (row / m_SubRows) * m_Cols + (col / m_SubCols);
+      n = row;
+      m_Units[n][fill[n]++] = i;
+      n = size + col;
+      m_Units[n][fill[n]++] = i;
+      n = 2*size + boxOf[i];
+      m_Units[n][fill[n]++] = i;
+    }
+
+    // peers
+    m_Peers = new int[cells][];
+    peers   = new int[3 * size];
+    for (i = 0; i < cells; i++) {
+      n = 0;
+      for (j = 0; j < cells; j++) {
+	if (j == i)
+	  continue;
+	if ((j / size == i / size) || (j % size == i % size) || (boxOf[j] == boxOf[i]))
+	  peers[n++] = j;
+      }
+      m_Peers[i] = new int[n];
+      System.arraycopy(peers, 0, m_Peers[i], 0, n);
+    }
+
+    m_Candidates = new int[(cells + 1) * cells];
+    m_Empty      = new int[cells + 1];
+    m_Queue      = new int[cells + 1];
+    m_Buffer     = new byte[cells];
+    m_Solution   = new byte[cells];
+  }
+
+  /**
+   * Loads the givens of the grid into the first search level.
+   *
+   * @param grid	the grid to load
+   * @return		false if the givens contradict each other
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  protected boolean load(Grid grid) {
+    int		i;
+    int		value;
+    boolean	result;
+
+    configure(grid);
+    grid.getCells(m_Buffer);
+
+    for (i = 0; i < m_NumCells; i++) {
+      value = m_Buffer[i];
+      if ((value < 0) || (value > m_Size))
+	throw new IllegalArgumentException("Invalid value at cell #" + (i+1) + ": " + value);
+      m_Candidates[i] = m_All;
+    }
+    m_Empty[0] = m_NumCells;
+    m_Count    = 0;
+    m_Guesses  = 0;
+
+    result = true;
+    for (i = 0; i < m_NumCells && result; i++) {
+      value = m_Buffer[i];
+      if (value == 0)
+	continue;
+      result = assign(0, i, 1 << (value - 1));
+    }
+
+    return result;
+  }
+
+  /**
+   * Fills in the digit and removes it from the candidates of the peers,
+   * filling in any naked singles that arise.
+   *
+   * @param level	the search level
+   * @param cell	the cell index
+   * @param bit		the digit as bitmask
+   * @return		false if a contradiction was encountered
+   */
+  protected boolean assign(int level, int cell, int bit) {
+    int		base;
+    int		head;
+    int		tail;
+    int		current;
+    int		b;
+    int		i;
+    int		index;
+    int		cand;
+    int[]	peers;
+
+    base = level * m_NumCells;
+    cand = m_Candidates[base + cell];
+    if ((cand & bit) == 0)
+      return false;
+    if (cand == bit)
+      return true;
+    m_Candidates[base + cell] = bit;
+    m_Empty[level]--;
+
+    head = 0;
+    tail = 0;
+    m_Queue[tail++] = cell;
+    while (head < tail) {
+      current = m_Queue[head++];
+      b       = m_Candidates[base + current];
+      peers   = m_Peers[current];
+      for (i = 0; i < peers.length; i++) {
+	index = base + peers[i];
+	cand  = m_Candidates[index];
+	if ((cand & b) == 0)
+	  continue;
+	cand &= ~b;
+	if (cand == 0)
+	  return false;
+	m_Candidates[index] = cand;
+	if ((cand & (cand - 1)) == 0) {
+	  m_Empty[level]--;
+	  m_Queue[tail++] = peers[i];
+	}
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Fills in hidden singles (digits with only one possible cell in a unit)
+   * until no more are found.
+   *
+   * @param level	the search level
+   * @return		false if a contradiction was encountered
+   */
+  protected boolean hiddenSingles(int level) {
+    boolean	changed;
+    int		base;
+    int		n;
+    int		i;
+    int		cand;
+    int		once;
+    int		twice;
+    int		used;
+    int		hidden;
+    int		bit;
+    int[]	unit;
+
+    base = level * m_NumCells;
+    do {
+      changed = false;
+      for (n = 0; n < m_Units.length; n++) {
+	unit  = m_Units[n];
+	once  = 0;
+	twice = 0;
+	used  = 0;
+	for (i = 0; i < unit.length; i++) {
+	  cand = m_Candidates[base + unit[i]];
+	  if ((cand & (cand - 1)) == 0) {
+	    used |= cand;
+	  }
+	  else {
+	    twice |= once & cand;
+	    once  |= cand;
+	  }
+	}
+	if ((once | used) != m_All)
+	  return false;
+	hidden = once & ~twice & ~used;
+	while (hidden != 0) {
+	  bit     = hidden & -hidden;
+	  hidden ^= bit;
+	  for (i = 0; i < unit.length; i++) {
+	    if ((m_Candidates[base + unit[i]] & bit) != 0)
+	      break;
+	  }
+	  if (i == unit.length)
+	    return false;
+	  if (!assign(level, unit[i], bit))
+	    return false;
+	  changed = true;
+	}
+      }
+    }
+    while (changed && (m_Empty[level] > 0));
+
+    return true;
+  }
+
+  /**
+   * Searches for solutions, until the maximum number has been found.
+   *
+   * @param level	the search level
+   */
+  protected void search(int level) {
+    int		base;
+    int		next;
+    int		i;
+    int		best;
+    int		bestCount;
+    int		bestCand;
+    int		count;
+    int		bit;
+
+    if (!hiddenSingles(level))
+      return;
+
+    base = level * m_NumCells;
+    if (m_Empty[level] == 0) {
+      m_Count++;
+      if (m_Count == 1) {
+	for (i = 0; i < m_NumCells; i++)
+	  m_Solution[i] = (byte) (Integer.numberOfTrailingZeros(m_Candidates[base + i]) + 1);
+      }
+      return;
+    }
+
+    // cell with fewest candidates
+    best      = -1;
+    bestCount = Integer.MAX_VALUE;
+    bestCand  = 0;
+    for (i = 0; i < m_NumCells; i++) {
+      count = Integer.bitCount(m_Candidates[base + i]);
+      if ((count > 1) && (count < bestCount)) {
+	best      = i;
+	bestCount = count;
+	bestCand  = m_Candidates[base + i];
+	if (count == 2)
+	  break;
+      }
+    }
+
+    next = base + m_NumCells;
+    while ((bestCand != 0) && (m_Count < m_Max)) {
+      bit       = bestCand & -bestCand;
+      bestCand ^= bit;
+      m_Guesses++;
+      System.arraycopy(m_Candidates, base, m_Candidates, next, m_NumCells);
+      m_Empty[level + 1] = m_Empty[level];
+      if (assign(level + 1, best, bit))
+	search(level + 1);
+    }
+  }
+
+  /**
+   * Searches for up to the specified number of solutions.
+   *
+   * @param puzzle	the puzzle to solve
+   * @param max		the maximum number of solutions to look for
+   * @return		the number of solutions found
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  protected int run(Grid puzzle, int max) {
+    // conflicts are already known, no need to load the grid
+    if ((puzzle instanceof ValidatedGrid) && !((ValidatedGrid) puzzle).isValid())
+      return 0;
+    if (!load(puzzle))
+      return 0;
+    m_Max = max;
+    search(0);
+    return m_Count;
+  }
+
+  /**
+   * Solves the puzzle. The puzzle itself is left untouched.
+   *
+   * @param puzzle	the puzzle to solve
+   * @return		the (first) solution, null if there is none
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  public Grid solve(Grid puzzle) {
+    Grid	result;
+
+    if (run(puzzle, 1) == 0)
+      return null;
+
+    result = new Grid(m_Rows, m_Cols, m_SubRows, m_SubCols);
+    result.setCells(m_Solution);
+
+    return result;
+  }
+
+  /**
+   * Counts the solutions of the puzzle, stopping once the maximum has been
+   * reached (e.g., 2 for checking whether the solution is unique).
+   *
+   * @param puzzle	the puzzle to check
+   * @param max		the maximum number of solutions to look for
+   * @return		the number of solutions (at most max)
+   * @throws IllegalArgumentException	if the dimensions or values are not supported
+   */
+  public int countSolutions(Grid puzzle, int max) {
+    if (max < 1)
+      throw new IllegalArgumentException("Maximum number of solutions must be at least 1, provided: " + max);
+    return run(puzzle, max);
+  }
+
+  /**
+   * Returns the number of guesses (backtracking branches) that the last
+   * call to {@link #solve(Grid)} or {@link #countSolutions(Grid, int)}
+   * required.
+   *
+   * @return		the number of guesses
+   */
+  public long getGuesses() {
+    return m_Guesses;
+  }
+}
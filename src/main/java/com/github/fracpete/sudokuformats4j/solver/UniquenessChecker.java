@@ -0,0 +1,116 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * UniquenessChecker.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.solver;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.GridFilter;
+
+/**
+ * Checks whether grids are well-formed puzzles, ie have exactly one
+ * solution. The search stops as soon as a second solution is found.
+ * Cheap checks reject grids without searching, if possible: fewer than
+ * 17 givens (9x9 only) or fewer than n-1 distinct digits in the givens.
+ * Grids that the {@link Solver} does not support get rejected as well.
+ * <br>
+ * Can be used as filter when reading (thread-safe, one solver per thread):
+ * <pre>
+ * reader.setFilter(new UniquenessChecker());
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class UniquenessChecker
+  implements GridFilter {
+
+  /** the minimum number of givens of a 9x9 puzzle with a unique solution. */
+  public static final int MIN_GIVENS_9X9 = 17;
+
+  /** the solver per thread. */
+  protected static final ThreadLocal<Solver> SOLVER = ThreadLocal.withInitial(Solver::new);
+
+  /** the buffer per thread. */
+  protected static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<>();
+
+  /**
+   * Performs the cheap checks that do not require a search.
+   *
+   * @param grid	the grid to check
+   * @return		false if the grid cannot have a unique solution
+   */
+  protected boolean precheck(Grid grid) {
+    byte[]	cells;
+    int		size;
+    int		givens;
+    long	digits;
+    int		i;
+
+    size = grid.height();
+    if (grid.width() != size)
+      return false;
+    cells = grid.getCells(BUFFER.get());
+    BUFFER.set(cells);
+
+    givens = 0;
+    digits = 0;
+    for (i = 0; i < size * size; i++) {
+      if (cells[i] > 0) {
+	givens++;
+	digits |= 1L << (cells[i] & 63);
+      }
+    }
+
+    if ((size == 9) && (grid.subRows() == 3) && (givens < MIN_GIVENS_9X9))
+      return false;
+    if (Long.bitCount(digits) < size - 1)
+      return false;
+
+    return true;
+  }
+
+  /**
+   * Returns whether the grid has exactly one solution.
+   *
+   * @param grid	the grid to check
+   * @return		true if unique solution
+   */
+  public boolean isUnique(Grid grid) {
+    if (!precheck(grid))
+      return false;
+
+    try {
+      return (SOLVER.get().countSolutions(grid, 2) == 1);
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns whether to keep the grid, ie whether it has exactly one solution.
+   *
+   * @param grid	the grid to check
+   * @return		true if unique solution
+   */
+  @Override
+  public boolean accept(Grid grid) {
+    return isUnique(grid);
+  }
+}
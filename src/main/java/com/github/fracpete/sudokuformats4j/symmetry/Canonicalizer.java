@@ -0,0 +1,718 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Canonicalizer.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.symmetry;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+
+/**
+ * Computes the canonical form of a grid: the minimal representative under
+ * the symmetries of sudoku, ie permutations of bands, of rows within bands,
+ * of stacks, of columns within stacks, transposition (square boxes only)
+ * and relabelling of digits. Two grids have the same canonical form if and
+ * only if one can be transformed into the other.
+ * <br>
+ * The representative is the one whose line (row-wise, from top, empty cells
+ * as 0) is lexicographically smallest after relabelling the digits in order
+ * of their first appearance. It gets constructed row by row, keeping track
+ * of which stacks and which columns within the stacks are still
+ * interchangeable. Each row orders the interchangeable columns/stacks by
+ * their (relabelled) values, only branching on the order of digits that
+ * appear for the first time. Rows get chosen greedily, branching on ties and
+ * pruning against the best grid found so far. Puzzles (sparse rows) are
+ * fast, completely filled grids are considerably slower, as their first
+ * row leaves many equivalent column orders to explore.
+ * <br>
+ * Grids that contain a digit more than once in a row or column are not
+ * supported (conflicting givens).
+ * <br>
+ * Instances reuse their internal buffers and are therefore not thread-safe;
+ * use one instance per thread.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Canonicalizer {
+
+  /** the maximum number of digits. */
+  public static final int MAX_DIGITS = 63;
+
+  /** the key for digits that have no label yet. */
+  protected static final int NEW = Integer.MAX_VALUE;
+
+  /** the number of bands (= rows of boxes). */
+  protected int m_Bands;
+
+  /** the number of rows per band (= rows in a box). */
+  protected int m_BandRows;
+
+  /** the number of stacks (= columns of boxes). */
+  protected int m_Stacks;
+
+  /** the number of columns per stack (= columns in a box). */
+  protected int m_StackCols;
+
+  /** the number of rows/columns of cells. */
+  protected int m_Size;
+
+  /** whether the grid can be transposed. */
+  protected boolean m_Transposable;
+
+  /** offset in the state: source stack per output stack. */
+  protected int m_OffOrder;
+
+  /** offset in the state: group of interchangeable stacks per output stack. */
+  protected int m_OffGroup;
+
+  /** offset in the state: source columns per stack (in output order). */
+  protected int m_OffCols;
+
+  /** offset in the state: block of interchangeable columns per stack position. */
+  protected int m_OffBlock;
+
+  /** offset in the state: label per digit. */
+  protected int m_OffLabels;
+
+  /** offset in the state: next label. */
+  protected int m_OffNext;
+
+  /** the size of a state. */
+  protected int m_StateSize;
+
+  /** the cells of the grid. */
+  protected byte[] m_Cells;
+
+  /** the cells of the grid as ints. */
+  protected int[] m_Original;
+
+  /** the cells of the transposed grid. */
+  protected int[] m_Transposed;
+
+  /** the cells of the orientation currently in use. */
+  protected int[] m_Source;
+
+  /** the states at the start of each level. */
+  protected int[][] m_States;
+
+  /** the refined states of the candidate rows per level. */
+  protected int[][] m_CandidateStates;
+
+  /** the relabelled candidate rows per level. */
+  protected int[][] m_Candidates;
+
+  /** the source rows of the candidates per level. */
+  protected int[][] m_CandidateRows;
+
+  /** the state for branching per level. */
+  protected int[][] m_Work;
+
+  /** the items to branch on per level (offset in state, length). */
+  protected int[][] m_Items;
+
+  /** the number of items to branch on per level. */
+  protected int[] m_NumItems;
+
+  /** the keys of the columns (sorted per stack). */
+  protected int[] m_Keys;
+
+  /** whether a source row has been used. */
+  protected boolean[] m_RowUsed;
+
+  /** whether a source band has been used. */
+  protected boolean[] m_BandUsed;
+
+  /** the grid under construction. */
+  protected int[] m_Current;
+
+  /** the best grid so far. */
+  protected int[] m_Best;
+
+  /** whether there is a best grid. */
+  protected boolean m_HasBest;
+
+  /** whether the rows before each level equal the ones of the best grid. */
+  protected boolean[] m_Equal;
+
+  /**
+   * Initializes the canonicalizer.
+   */
+  public Canonicalizer() {
+    super();
+    m_Size = -1;
+  }
+
+  /**
+   * Sets up the buffers for the dimensions of the grid, if necessary.
+   *
+   * @param grid	the grid to configure for
+   * @throws IllegalArgumentException	if the grid is not square or too large
+   */
+  protected void configure(Grid grid) {
+    int		size;
+    int		stacks;
+
+    if ((grid.rows() == m_Bands) && (grid.cols() == m_Stacks) && (grid.subRows() == m_BandRows) && (grid.subCols() == m_StackCols))
+      return;
+
+    size = grid.height();
+    if (grid.width() != size)
+      throw new IllegalArgumentException("Grid must be square: " + grid.height() + "x" + grid.width());
+    if (size > MAX_DIGITS)
+      throw new IllegalArgumentException("At most " + MAX_DIGITS + " digits supported, provided: " + size);
+
+    stacks         = grid.cols();
+    m_Bands        = grid.rows();
+    m_BandRows     = grid.subRows();
+    m_Stacks       = stacks;
+    m_StackCols    = grid.subCols();
+    m_Size         = size;
+    m_Transposable = (m_Bands == m_Stacks) && (m_BandRows == m_StackCols);
+
+    m_OffOrder  = 0;
+    m_OffGroup  = stacks;
+    m_OffCols   = 2 * stacks;
+    m_OffBlock  = 2 * stacks + size;
+    m_OffLabels = 2 * stacks + 2 * size;
+    m_OffNext   = m_OffLabels + size + 1;
+    m_StateSize = m_OffNext + 1;
+
+    m_Cells           = new byte[size * size];
+    m_Original        = new int[size * size];
+    m_Transposed      = new int[size * size];
+    m_States          = new int[size + 1][m_StateSize];
+    m_CandidateStates = new int[size][size * m_StateSize];
+    m_Candidates      = new int[size][size * size];
+    m_CandidateRows   = new int[size][size];
+    m_Work            = new int[size][m_StateSize];
+    m_Items           = new int[size][2 * (stacks + size)];
+    m_NumItems        = new int[size];
+    m_Keys            = new int[size];
+    m_RowUsed         = new boolean[size];
+    m_BandUsed        = new boolean[m_Bands];
+    m_Current         = new int[size * size];
+    m_Best            = new int[size * size];
+    m_Equal           = new boolean[size + 1];
+  }
+
+  /**
+   * Compares the two rows.
+   *
+   * @param a		the first array
+   * @param aOffset	the start of the first row
+   * @param b		the second array
+   * @param bOffset	the start of the second row
+   * @return		less than, equal to or greater than zero
+   */
+  protected int compare(int[] a, int aOffset, int[] b, int bOffset) {
+    int		i;
+
+    for (i = 0; i < m_Size; i++) {
+      if (a[aOffset + i] != b[bOffset + i])
+	return (a[aOffset + i] < b[bOffset + i]) ? -1 : 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Compares the keys of two stacks.
+   *
+   * @param s1		the first stack
+   * @param s2		the second stack
+   * @return		less than, equal to or greater than zero
+   */
+  protected int compareStacks(int s1, int s2) {
+    int		c;
+    int		k1;
+    int		k2;
+
+    for (c = 0; c < m_StackCols; c++) {
+      k1 = m_Keys[s1 * m_StackCols + c];
+      k2 = m_Keys[s2 * m_StackCols + c];
+      if (k1 != k2)
+	return (k1 < k2) ? -1 : 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Orders the interchangeable columns and stacks of the state to minimize
+   * the row and stores the (relabelled) row.
+   *
+   * @param row		the source row
+   * @param state	the state to refine
+   * @param offset	the offset of the state in the array
+   * @param dest	the array to store the relabelled row in
+   * @param destOffset	the offset in the array
+   */
+  protected void refine(int row, int[] state, int offset, int[] dest, int destOffset) {
+    int		s;
+    int		c;
+    int		p;
+    int		i;
+    int		j;
+    int		base;
+    int		col;
+    int		block;
+    int		key;
+    int		value;
+    int		id;
+    int		next;
+
+    // columns within stacks
+    for (s = 0; s < m_Stacks; s++) {
+      base = s * m_StackCols;
+      for (c = 0; c < m_StackCols; c++) {
+	value = m_Source[row * m_Size + state[offset + m_OffCols + base + c]];
+	if (value == 0)
+	  m_Keys[base + c] = 0;
+	else if (state[offset + m_OffLabels + value] != 0)
+	  m_Keys[base + c] = state[offset + m_OffLabels + value];
+	else
+	  m_Keys[base + c] = NEW;
+      }
+      // insertion sort by (block, key); blocks are contiguous
+      for (i = 1; i < m_StackCols; i++) {
+	col   = state[offset + m_OffCols + base + i];
+	block = state[offset + m_OffBlock + base + i];
+	key   = m_Keys[base + i];
+	for (j = i - 1; j >= 0; j--) {
+	  if (state[offset + m_OffBlock + base + j] != block)
+	    break;
+	  if (m_Keys[base + j] <= key)
+	    break;
+	  state[offset + m_OffCols + base + j + 1] = state[offset + m_OffCols + base + j];
+	  m_Keys[base + j + 1] = m_Keys[base + j];
+	}
+	state[offset + m_OffCols + base + j + 1] = col;
+	m_Keys[base + j + 1] = key;
+      }
+      // new blocks
+      id    = 0;
+      block = state[offset + m_OffBlock + base];
+      for (c = 0; c < m_StackCols; c++) {
+	if ((c > 0) && ((state[offset + m_OffBlock + base + c] != block) || (m_Keys[base + c] != m_Keys[base + c - 1])))
+	  id++;
+	block = state[offset + m_OffBlock + base + c];
+	state[offset + m_OffBlock + base + c] = id;
+      }
+    }
+
+    // stacks within groups (insertion sort by (group, keys))
+    for (i = 1; i < m_Stacks; i++) {
+      s     = state[offset + m_OffOrder + i];
+      block = state[offset + m_OffGroup + i];
+      for (j = i - 1; j >= 0; j--) {
+	if (state[offset + m_OffGroup + j] != block)
+	  break;
+	if (compareStacks(state[offset + m_OffOrder + j], s) <= 0)
+	  break;
+	state[offset + m_OffOrder + j + 1] = state[offset + m_OffOrder + j];
+      }
+      state[offset + m_OffOrder + j + 1] = s;
+    }
+    id    = 0;
+    block = state[offset + m_OffGroup];
+    for (p = 0; p < m_Stacks; p++) {
+      if ((p > 0) && ((state[offset + m_OffGroup + p] != block) || (compareStacks(state[offset + m_OffOrder + p - 1], state[offset + m_OffOrder + p]) != 0)))
+	id++;
+      block = state[offset + m_OffGroup + p];
+      state[offset + m_OffGroup + p] = id;
+    }
+
+    // relabelled row
+    next = state[offset + m_OffNext];
+    for (p = 0; p < m_Stacks; p++) {
+      s = state[offset + m_OffOrder + p];
+      for (c = 0; c < m_StackCols; c++) {
+	key = m_Keys[s * m_StackCols + c];
+	dest[destOffset + p * m_StackCols + c] = (key == NEW) ? next++ : key;
+      }
+    }
+  }
+
+  /**
+   * Determines the items to branch on for the refined state: groups of
+   * interchangeable stacks and blocks of interchangeable columns that
+   * contain digits without label, as their order determines the labels.
+   * These get split into single stacks/columns.
+   *
+   * @param level	the level
+   * @param row		the source row
+   * @param state	the refined state
+   */
+  protected void items(int level, int row, int[] state) {
+    int[]	items;
+    int		num;
+    int		p;
+    int		q;
+    int		s;
+    int		c;
+    int		d;
+    int		id;
+    boolean	hasNew;
+
+    items = m_Items[level];
+    num   = 0;
+
+    // stacks
+    id = 0;
+    for (p = 0; p < m_Stacks; p = q) {
+      q = p + 1;
+      while ((q < m_Stacks) && (state[m_OffGroup + q] == state[m_OffGroup + p]))
+	q++;
+      hasNew = false;
+      s      = state[m_OffOrder + p];
+      for (c = 0; c < m_StackCols; c++) {
+	if (isNew(row, state, state[m_OffCols + s * m_StackCols + c]))
+	  hasNew = true;
+      }
+      if (hasNew && (q - p > 1)) {
+	items[num++] = m_OffOrder + p;
+	items[num++] = q - p;
+	for (d = p; d < q; d++)
+	  state[m_OffGroup + d] = id++;
+      }
+      else {
+	for (d = p; d < q; d++)
+	  state[m_OffGroup + d] = id;
+	id++;
+      }
+    }
+
+    // columns
+    for (s = 0; s < m_Stacks; s++) {
+      id = 0;
+      for (c = 0; c < m_StackCols; c = q) {
+	q = c + 1;
+	while ((q < m_StackCols) && (state[m_OffBlock + s * m_StackCols + q] == state[m_OffBlock + s * m_StackCols + c]))
+	  q++;
+	if ((q - c > 1) && isNew(row, state, state[m_OffCols + s * m_StackCols + c])) {
+	  items[num++] = m_OffCols + s * m_StackCols + c;
+	  items[num++] = q - c;
+	  for (d = c; d < q; d++)
+	    state[m_OffBlock + s * m_StackCols + d] = id++;
+	}
+	else {
+	  for (d = c; d < q; d++)
+	    state[m_OffBlock + s * m_StackCols + d] = id;
+	  id++;
+	}
+      }
+    }
+
+    m_NumItems[level] = num;
+  }
+
+  /**
+   * Returns whether the cell contains a digit without label.
+   *
+   * @param row		the source row
+   * @param state	the state
+   * @param col		the source column
+   * @return		true if no label yet
+   */
+  protected boolean isNew(int row, int[] state, int col) {
+    int		value;
+
+    value = m_Source[row * m_Size + col];
+    return (value != 0) && (state[m_OffLabels + value] == 0);
+  }
+
+  /**
+   * Enumerates all orders of the items to branch on and recurses into the
+   * next level for each.
+   *
+   * @param level	the level
+   * @param row		the source row
+   * @param candidate	the index of the relabelled candidate row
+   * @param item	the current item
+   * @param k		the current position within the item
+   */
+  protected void branch(int level, int row, int candidate, int item, int k) {
+    int[]	work;
+    int[]	state;
+    int		start;
+    int		length;
+    int		i;
+    int		tmp;
+    int		p;
+    int		s;
+    int		c;
+    int		col;
+    int		value;
+    int		next;
+    int		cmp;
+
+    work = m_Work[level];
+
+    if (item < m_NumItems[level]) {
+      start  = m_Items[level][item];
+      length = m_Items[level][item + 1];
+      if (k == length - 1) {
+	branch(level, row, candidate, item + 2, 0);
+	return;
+      }
+      for (i = k; i < length; i++) {
+	tmp                = work[start + k];
+	work[start + k]    = work[start + i];
+	work[start + i]    = tmp;
+	branch(level, row, candidate, item, k + 1);
+	tmp                = work[start + k];
+	work[start + k]    = work[start + i];
+	work[start + i]    = tmp;
+      }
+      return;
+    }
+
+    // check against best (might have changed)
+    if (m_HasBest && m_Equal[level]) {
+      cmp = compare(m_Candidates[level], candidate * m_Size, m_Best, level * m_Size);
+      if (cmp > 0)
+	return;
+      m_Equal[level + 1] = (cmp == 0);
+    }
+    else {
+      m_Equal[level + 1] = false;
+    }
+
+    // assign labels
+    state = m_States[level + 1];
+    System.arraycopy(work, 0, state, 0, m_StateSize);
+    next = state[m_OffNext];
+    for (p = 0; p < m_Stacks; p++) {
+      s = state[m_OffOrder + p];
+      for (c = 0; c < m_StackCols; c++) {
+	col   = state[m_OffCols + s * m_StackCols + c];
+	value = m_Source[row * m_Size + col];
+	if ((value != 0) && (state[m_OffLabels + value] == 0))
+	  state[m_OffLabels + value] = next++;
+      }
+    }
+    state[m_OffNext] = next;
+
+    System.arraycopy(m_Candidates[level], candidate * m_Size, m_Current, level * m_Size, m_Size);
+    searchRows(level + 1, row / m_BandRows);
+  }
+
+  /**
+   * Fills in the specified level (output row) and recurses.
+   *
+   * @param level	the output row
+   * @param band	the source band of the previous row
+   */
+  protected void searchRows(int level, int band) {
+    int[]	cands;
+    int[]	rows;
+    int[]	states;
+    int		num;
+    int		min;
+    int		i;
+    int		r;
+    int		b;
+
+    if (level == m_Size) {
+      if (!m_HasBest || !m_Equal[level]) {
+	System.arraycopy(m_Current, 0, m_Best, 0, m_Current.length);
+	m_HasBest = true;
+	for (i = 0; i <= m_Size; i++)
+	  m_Equal[i] = true;
+      }
+      return;
+    }
+
+    // candidate rows
+    rows = m_CandidateRows[level];
+    num  = 0;
+    if (level % m_BandRows == 0) {
+      for (r = 0; r < m_Size; r++) {
+	if (!m_BandUsed[r / m_BandRows])
+	  rows[num++] = r;
+      }
+    }
+    else {
+      for (r = band * m_BandRows; r < (band + 1) * m_BandRows; r++) {
+	if (!m_RowUsed[r])
+	  rows[num++] = r;
+      }
+    }
+
+    // minimal row
+    cands  = m_Candidates[level];
+    states = m_CandidateStates[level];
+    min    = 0;
+    for (i = 0; i < num; i++) {
+      System.arraycopy(m_States[level], 0, states, i * m_StateSize, m_StateSize);
+      refine(rows[i], states, i * m_StateSize, cands, i * m_Size);
+      if ((i > 0) && (compare(cands, i * m_Size, cands, min * m_Size) < 0))
+	min = i;
+    }
+    if (m_HasBest && m_Equal[level] && (compare(cands, min * m_Size, m_Best, level * m_Size) > 0))
+      return;
+
+    for (i = 0; i < num; i++) {
+      if ((i != min) && (compare(cands, i * m_Size, cands, min * m_Size) != 0))
+	continue;
+      r = rows[i];
+      b = r / m_BandRows;
+      System.arraycopy(states, i * m_StateSize, m_Work[level], 0, m_StateSize);
+      items(level, r, m_Work[level]);
+      m_RowUsed[r]  = true;
+      m_BandUsed[b] = true;
+      branch(level, r, i, 0, 0);
+      m_RowUsed[r] = false;
+      if (level % m_BandRows == 0)
+	m_BandUsed[b] = false;
+    }
+  }
+
+  /**
+   * Checks whether a digit occurs more than once in any of the rows.
+   *
+   * @param cells	the cells to check
+   * @param name	the name of the rows, for the error message
+   * @throws IllegalArgumentException	if a digit is repeated
+   */
+  protected void checkRepeated(int[] cells, String name) {
+    int		r;
+    int		c;
+    int		value;
+    long	seen;
+
+    for (r = 0; r < m_Size; r++) {
+      seen = 0;
+      for (c = 0; c < m_Size; c++) {
+	value = cells[r * m_Size + c];
+	if (value == 0)
+	  continue;
+	if ((seen & (1L << value)) != 0)
+	  throw new IllegalArgumentException("Digit " + value + " repeated in " + name + " #" + (r+1) + "!");
+	seen |= 1L << value;
+      }
+    }
+  }
+
+  /**
+   * Computes the canonical form of the grid, stored in m_Best.
+   *
+   * @param grid	the grid to process
+   * @throws IllegalArgumentException	if the grid is not square, contains invalid values or repeated digits
+   */
+  protected void process(Grid grid) {
+    int		i;
+    int		t;
+    int[]	state;
+
+    configure(grid);
+    grid.getCells(m_Cells);
+    for (i = 0; i < m_Cells.length; i++) {
+      if ((m_Cells[i] < 0) || (m_Cells[i] > m_Size))
+	throw new IllegalArgumentException("Invalid value at cell #" + (i+1) + ": " + m_Cells[i]);
+      m_Original[i] = m_Cells[i];
+      m_Transposed[(i % m_Size) * m_Size + (i / m_Size)] = m_Cells[i];
+    }
+    checkRepeated(m_Original, "row");
+    checkRepeated(m_Transposed, "column");
+
+    // initial state: all stacks and all columns within stacks interchangeable
+    state = m_States[0];
+    for (i = 0; i < m_Stacks; i++) {
+      state[m_OffOrder + i] = i;
+      state[m_OffGroup + i] = 0;
+    }
+    for (i = 0; i < m_Size; i++) {
+      state[m_OffCols + i]  = i;
+      state[m_OffBlock + i] = 0;
+    }
+    for (i = 0; i <= m_Size; i++)
+      state[m_OffLabels + i] = 0;
+    state[m_OffNext] = 1;
+
+    m_HasBest  = false;
+    m_Equal[0] = true;
+    for (t = 0; t < (m_Transposable ? 2 : 1); t++) {
+      m_Source = (t == 0) ? m_Original : m_Transposed;
+      searchRows(0, -1);
+    }
+  }
+
+  /**
+   * Returns the canonical form of the grid.
+   *
+   * @param grid	the grid to process
+   * @return		the canonical form (new grid)
+   * @throws IllegalArgumentException	if the grid is not square, contains invalid values or repeated digits
+   */
+  public Grid canonicalize(Grid grid) {
+    Grid	result;
+    byte[]	cells;
+    int		i;
+
+    process(grid);
+    cells = new byte[m_Best.length];
+    for (i = 0; i < cells.length; i++)
+      cells[i] = (byte) m_Best[i];
+    result = new Grid(m_Bands, m_Stacks, m_BandRows, m_StackCols);
+    result.setCells(cells);
+
+    return result;
+  }
+
+  /**
+   * Returns a 64-bit hash of the canonical form of the grid. Grids that
+   * are equivalent under the symmetries have the same key.
+   *
+   * @param grid	the grid to process
+   * @return		the key
+   * @throws IllegalArgumentException	if the grid is not square, contains invalid values or repeated digits
+   */
+  public long key(Grid grid) {
+    process(grid);
+    return hash(m_Bands, m_Stacks, m_BandRows, m_StackCols, m_Best);
+  }
+
+  /**
+   * Computes a 64-bit hash (FNV-1a, with a final avalanche step) of the
+   * dimensions and cells.
+   *
+   * @param rows	the number of rows
+   * @param cols	the number of columns
+   * @param subRows	the number of rows in the subgrids
+   * @param subCols	the number of columns in the subgrids
+   * @param cells	the cells
+   * @return		the hash
+   */
+  public static long hash(int rows, int cols, int subRows, int subCols, int[] cells) {
+    long	result;
+    int		i;
+
+    result = 0xcbf29ce484222325L;
+    result = (result ^ ((rows << 24) | (cols << 16) | (subRows << 8) | subCols)) * 0x100000001b3L;
+    for (i = 0; i < cells.length; i++)
+      result = (result ^ cells[i]) * 0x100000001b3L;
+
+    // avalanche (splitmix64 finalizer)
+    result = (result ^ (result >>> 30)) * 0xbf58476d1ce4e5b9L;
+    result = (result ^ (result >>> 27)) * 0x94d049bb133111ebL;
+    result = result ^ (result >>> 31);
+
+    return result;
+  }
+}
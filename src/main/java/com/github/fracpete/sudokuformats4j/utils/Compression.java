@@ -0,0 +1,366 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Compression.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The supported compression formats. When reading, the format gets
+ * detected from the magic bytes at the start of the stream, when writing
+ * from the file extension. All formats are streamed, without temp files.
+ * <br>
+ * gzip is part of the JDK, xz and zstd require the optional
+ * org.tukaani:xz and com.github.luben:zstd-jni libraries on the classpath.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public enum Compression {
+  /** no compression. */
+  NONE("", new byte[0]),
+  /** gzip (.gz). */
+  GZIP(".gz", new byte[]{(byte) 0x1F, (byte) 0x8B}),
+  /** xz (.xz). */
+  XZ(".xz", new byte[]{(byte) 0xFD, '7', 'z', 'X', 'Z', 0}),
+  /** zstd (.zst). */
+  ZSTD(".zst", new byte[]{(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD});
+
+  /** the buffer size for the streams. */
+  public static final int BUFFER_SIZE = 64 * 1024;
+
+  /** the maximum length of the magic bytes. */
+  public static final int MAX_MAGIC = 6;
+
+  /**
+   * Creates the xz streams. Separate class, so that the library only gets
+   * loaded when actually used.
+   */
+  protected static class XZSupport {
+
+    /**
+     * Wraps the stream for decompression.
+     *
+     * @param stream	the compressed stream
+     * @return		the decompressing stream
+     * @throws IOException	if initialization fails
+     */
+    public static InputStream decompress(InputStream stream) throws IOException {
+      return new org.tukaani.xz.XZInputStream(stream);
+    }
+
+    /**
+     * Wraps the stream for compression.
+     *
+     * @param stream	the stream to write the compressed data to
+     * @return		the compressing stream
+     * @throws IOException	if initialization fails
+     */
+    public static OutputStream compress(OutputStream stream) throws IOException {
+      return new org.tukaani.xz.XZOutputStream(stream, new org.tukaani.xz.LZMA2Options());
+    }
+  }
+
+  /**
+   * Creates the zstd streams. Separate class, so that the library only gets
+   * loaded when actually used.
+   */
+  protected static class ZstdSupport {
+
+    /**
+     * Wraps the stream for decompression.
+     *
+     * @param stream	the compressed stream
+     * @return		the decompressing stream
+     * @throws IOException	if initialization fails
+     */
+    public static InputStream decompress(InputStream stream) throws IOException {
+      return new com.github.luben.zstd.ZstdInputStream(stream);
+    }
+
+    /**
+     * Wraps the stream for compression.
+     *
+     * @param stream	the stream to write the compressed data to
+     * @return		the compressing stream
+     * @throws IOException	if initialization fails
+     */
+    public static OutputStream compress(OutputStream stream) throws IOException {
+      return new com.github.luben.zstd.ZstdOutputStream(stream);
+    }
+  }
+
+  /** the file extension. */
+  protected final String m_Extension;
+
+  /** the magic bytes. */
+  protected final byte[] m_Magic;
+
+  /**
+   * Initializes the format.
+   *
+   * @param extension	the file extension
+   * @param magic	the magic bytes
+   */
+  Compression(String extension, byte[] magic) {
+    m_Extension = extension;
+    m_Magic     = magic;
+  }
+
+  /**
+   * Returns the file extension.
+   *
+   * @return		the extension (incl dot), empty for no compression
+   */
+  public String getExtension() {
+    return m_Extension;
+  }
+
+  /**
+   * Returns whether the header starts with the magic bytes of this format.
+   *
+   * @param header	the first bytes of the stream
+   * @param length	the number of bytes in the header
+   * @return		true if match
+   */
+  protected boolean matches(byte[] header, int length) {
+    int		i;
+
+    if ((m_Magic.length == 0) || (length < m_Magic.length))
+      return false;
+    for (i = 0; i < m_Magic.length; i++) {
+      if (header[i] != m_Magic[i])
+	return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns whether the library for this format is on the classpath.
+   *
+   * @return		true if available
+   */
+  public boolean isAvailable() {
+    String	cls;
+
+    switch (this) {
+      case XZ:
+	cls = "org.tukaani.xz.XZInputStream";
+	break;
+      case ZSTD:
+	cls = "com.github.luben.zstd.ZstdInputStream";
+	break;
+      default:
+	return true;
+    }
+
+    try {
+      Class.forName(cls);
+      return true;
+    }
+    catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks whether the library for this format is on the classpath.
+   *
+   * @throws IOException	if not available
+   */
+  protected void checkAvailable() throws IOException {
+    if (!isAvailable())
+      throw new IOException("Library for " + this + " compression not on classpath!");
+  }
+
+  /**
+   * Wraps the stream for decompression.
+   *
+   * @param stream	the compressed stream
+   * @return		the decompressing stream
+   * @throws IOException	if initialization fails or library not available
+   */
+  public InputStream decompress(InputStream stream) throws IOException {
+    checkAvailable();
+    switch (this) {
+      case GZIP:
+	return new GZIPInputStream(stream, BUFFER_SIZE);
+      case XZ:
+	return new BufferedInputStream(XZSupport.decompress(stream), BUFFER_SIZE);
+      case ZSTD:
+	return new BufferedInputStream(ZstdSupport.decompress(stream), BUFFER_SIZE);
+      default:
+	return stream;
+    }
+  }
+
+  /**
+   * Wraps the stream for compression.
+   *
+   * @param stream	the stream to write the compressed data to
+   * @return		the compressing stream
+   * @throws IOException	if initialization fails or library not available
+   */
+  public OutputStream compress(OutputStream stream) throws IOException {
+    checkAvailable();
+    switch (this) {
+      case GZIP:
+	return new GZIPOutputStream(stream, BUFFER_SIZE);
+      case XZ:
+	return XZSupport.compress(stream);
+      case ZSTD:
+	return ZstdSupport.compress(stream);
+      default:
+	return stream;
+    }
+  }
+
+  /**
+   * Determines the format from the magic bytes.
+   *
+   * @param header	the first bytes of the stream
+   * @param length	the number of bytes in the header
+   * @return		the format, {@link #NONE} if not compressed
+   */
+  public static Compression detect(byte[] header, int length) {
+    for (Compression compression: values()) {
+      if (compression.matches(header, length))
+	return compression;
+    }
+    return NONE;
+  }
+
+  /**
+   * Determines the format from the file extension (case-insensitive).
+   *
+   * @param file	the file to check
+   * @return		the format, {@link #NONE} if not compressed
+   */
+  public static Compression forFile(File file) {
+    String	name;
+
+    name = file.getName().toLowerCase();
+    for (Compression compression: values()) {
+      if ((compression != NONE) && name.endsWith(compression.getExtension()))
+	return compression;
+    }
+    return NONE;
+  }
+
+  /**
+   * Determines the format from the magic bytes at the start of the file.
+   *
+   * @param file	the file to check
+   * @return		the format, {@link #NONE} if not compressed
+   * @throws IOException	if reading fails
+   */
+  public static Compression detect(File file) throws IOException {
+    byte[]	header;
+    int		length;
+    int		read;
+
+    header = new byte[MAX_MAGIC];
+    length = 0;
+    try (InputStream stream = new FileInputStream(file)) {
+      while ((length < header.length) && ((read = stream.read(header, length, header.length - length)) != -1))
+	length += read;
+    }
+
+    return detect(header, length);
+  }
+
+  /**
+   * Wraps the stream for decompression, if it starts with the magic bytes
+   * of a supported format. Streams that don't support marking get wrapped
+   * in a buffered stream first.
+   *
+   * @param stream	the stream to read from
+   * @return		the (decompressing) stream
+   * @throws IOException	if reading the header fails
+   */
+  public static InputStream decompressing(InputStream stream) throws IOException {
+    byte[]	header;
+    int		length;
+    int		read;
+
+    if (!stream.markSupported())
+      stream = new BufferedInputStream(stream, BUFFER_SIZE);
+
+    header = new byte[MAX_MAGIC];
+    length = 0;
+    stream.mark(MAX_MAGIC);
+    while ((length < header.length) && ((read = stream.read(header, length, header.length - length)) != -1))
+      length += read;
+    stream.reset();
+
+    return detect(header, length).decompress(stream);
+  }
+
+  /**
+   * Opens the file for reading, decompressing it if necessary (determined
+   * by the magic bytes).
+   *
+   * @param file	the file to open
+   * @return		the stream
+   * @throws IOException	if opening fails
+   */
+  public static InputStream open(File file) throws IOException {
+    InputStream		stream;
+
+    stream = new FileInputStream(file);
+    try {
+      return decompressing(stream);
+    }
+    catch (IOException e) {
+      IOUtils.closeQuietly(stream);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates the file for writing, compressing it if necessary (determined
+   * by the file extension).
+   *
+   * @param file	the file to create
+   * @return		the stream
+   * @throws IOException	if creating fails
+   */
+  public static OutputStream create(File file) throws IOException {
+    OutputStream	stream;
+
+    stream = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+    try {
+      return forFile(file).compress(stream);
+    }
+    catch (IOException e) {
+      IOUtils.closeQuietly(stream);
+      throw e;
+    }
+  }
+}
@@ -20,6 +20,7 @@
 
 package com.github.fracpete.sudokuformats4j.utils;
 
+import java.io.Closeable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
@@ -107,4 +108,20 @@ public class IOUtils {
       }
     }
   }
+
+  /**
+   * Closes the closeable, eg a file channel.
+   *
+   * @param closeable	the object to close
+   */
+  public static void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      }
+      catch (Exception e) {
+        // ignored
+      }
+    }
+  }
 }
@@ -0,0 +1,195 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * LongHashSet.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.utils;
+
+import java.util.Arrays;
+
+/**
+ * Set of long values using open addressing with linear probing in a plain
+ * long array, ie 8 bytes per slot without any per-entry objects.
+ * The table doubles in size once it is three-quarters full.
+ * Not thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class LongHashSet {
+
+  /** the maximum load factor. */
+  public static final double LOAD_FACTOR = 0.75;
+
+  /** the slots (0 = empty). */
+  protected long[] m_Slots;
+
+  /** whether the set contains 0 (which marks empty slots). */
+  protected boolean m_ContainsZero;
+
+  /** the number of values. */
+  protected long m_Size;
+
+  /** the number of values at which to grow the table. */
+  protected long m_Threshold;
+
+  /**
+   * Initializes the set.
+   *
+   * @param expected	the expected number of values
+   */
+  public LongHashSet(long expected) {
+    super();
+    m_Slots        = new long[capacity(expected)];
+    m_ContainsZero = false;
+    m_Size         = 0;
+    m_Threshold    = (long) (m_Slots.length * LOAD_FACTOR);
+  }
+
+  /**
+   * Returns the table size (power of 2) for the expected number of values.
+   *
+   * @param expected	the expected number of values
+   * @return		the table size
+   */
+  protected static int capacity(long expected) {
+    long	result;
+
+    result = 16;
+    while ((result * LOAD_FACTOR < expected) && (result < (1 << 30)))
+      result *= 2;
+
+    return (int) result;
+  }
+
+  /**
+   * Mixes the bits of the value to determine the slot.
+   *
+   * @param value	the value
+   * @param mask	the mask for the table size
+   * @return		the slot
+   */
+  protected static int slot(long value, int mask) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    return (int) value & mask;
+  }
+
+  /**
+   * Adds the value.
+   *
+   * @param value	the value to add
+   * @return		true if added, false if already present
+   */
+  public boolean add(long value) {
+    int		mask;
+    int		i;
+
+    if (value == 0) {
+      if (m_ContainsZero)
+	return false;
+      m_ContainsZero = true;
+      m_Size++;
+      return true;
+    }
+
+    mask = m_Slots.length - 1;
+    i    = slot(value, mask);
+    while (m_Slots[i] != 0) {
+      if (m_Slots[i] == value)
+	return false;
+      i = (i + 1) & mask;
+    }
+    m_Slots[i] = value;
+    m_Size++;
+    if (m_Size >= m_Threshold)
+      grow();
+
+    return true;
+  }
+
+  /**
+   * Returns whether the value is present.
+   *
+   * @param value	the value to look for
+   * @return		true if present
+   */
+  public boolean contains(long value) {
+    int		mask;
+    int		i;
+
+    if (value == 0)
+      return m_ContainsZero;
+
+    mask = m_Slots.length - 1;
+    i    = slot(value, mask);
+    while (m_Slots[i] != 0) {
+      if (m_Slots[i] == value)
+	return true;
+      i = (i + 1) & mask;
+    }
+
+    return false;
+  }
+
+  /**
+   * Doubles the table size.
+   *
+   * @throws IllegalStateException	if the table cannot grow anymore
+   */
+  protected void grow() {
+    long[]	slots;
+    int		mask;
+    int		i;
+    int		n;
+
+    if (m_Slots.length >= (1 << 30))
+      throw new IllegalStateException("Maximum capacity reached: " + m_Size);
+
+    slots = new long[m_Slots.length * 2];
+    mask  = slots.length - 1;
+    for (i = 0; i < m_Slots.length; i++) {
+      if (m_Slots[i] == 0)
+	continue;
+      n = slot(m_Slots[i], mask);
+      while (slots[n] != 0)
+	n = (n + 1) & mask;
+      slots[n] = m_Slots[i];
+    }
+    m_Slots     = slots;
+    m_Threshold = (long) (m_Slots.length * LOAD_FACTOR);
+  }
+
+  /**
+   * Returns the number of values.
+   *
+   * @return		the number of values
+   */
+  public long size() {
+    return m_Size;
+  }
+
+  /**
+   * Removes all values (keeps the table size).
+   */
+  public void clear() {
+    Arrays.fill(m_Slots, 0L);
+    m_ContainsZero = false;
+    m_Size         = 0;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractPuzzleFormatTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ancestor for tests of formats, writing puzzles to files (compressed and
+ * uncompressed) and reading them back in.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractPuzzleFormatTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Returns the extension of the format.
+   *
+   * @return		the extension (incl dot)
+   */
+  protected abstract String getExtension();
+
+  /**
+   * Returns the writer to use for writing the puzzles.
+   *
+   * @return		the writer
+   */
+  protected abstract PuzzleWriter getWriter();
+
+  /**
+   * Returns the readers to read the puzzles back in with.
+   *
+   * @return		the readers
+   */
+  protected abstract PuzzleReader[] getReaders();
+
+  /**
+   * Generates the puzzles, including meta-data.
+   *
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @return		the puzzles
+   */
+  protected Puzzles puzzles(int[] dims) {
+    Puzzles	result;
+
+    result = SampleGrids.puzzles(42, dims, 100);
+    result.getMetaData().put("name", "test");
+    result.getMetaData().put("comment", "äöü €");
+
+    return result;
+  }
+
+  /**
+   * Writes the puzzles to a file and reads them back in with all readers.
+   *
+   * @param expected	the puzzles to write
+   * @param compression	the compression to use
+   * @throws Exception	if writing/reading fails
+   */
+  protected void roundTrip(Puzzles expected, Compression compression) throws Exception {
+    Puzzles	actual;
+    File	file;
+
+    Assume.assumeTrue(compression.isAvailable());
+    file = new File(m_Folder.getRoot(), "puzzles" + getExtension() + compression.getExtension());
+    getWriter().write(expected, file);
+    assertEquals(compression, Compression.detect(file));
+
+    for (PuzzleReader reader: getReaders()) {
+      actual = reader.read(file);
+      assertEquals(expected, actual);
+      assertEquals(expected.getMetaData(), actual.getMetaData());
+    }
+  }
+
+  /**
+   * Writes the generated puzzles to a file and reads them back in.
+   *
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @param compression	the compression to use
+   * @throws Exception	if writing/reading fails
+   * @see		#puzzles(int[])
+   */
+  protected void roundTrip(int[] dims, Compression compression) throws Exception {
+    roundTrip(puzzles(dims), compression);
+  }
+
+  /**
+   * Tests reading/writing grids of different dimensions.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    for (int[] dims: SampleGrids.DIMENSIONS)
+      roundTrip(dims, Compression.NONE);
+  }
+
+  /**
+   * Tests reading/writing compressed files.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCompressed() throws Exception {
+    for (Compression compression: Compression.values()) {
+      roundTrip(SampleGrids.DIMENSIONS[2], compression);
+      roundTrip(SampleGrids.DIMENSIONS[3], compression);
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * OpenSudokuTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.ErrorPolicy;
+import com.github.fracpete.sudokuformats4j.api.ErrorReport;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.GridParseException;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link OpenSudoku} format.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class OpenSudokuTest
+  extends AbstractPuzzleFormatTest {
+
+  /**
+   * Returns the extension of the format.
+   *
+   * @return		the extension (incl dot)
+   */
+  @Override
+  protected String getExtension() {
+    return OpenSudoku.EXTENSION;
+  }
+
+  /**
+   * Returns the writer to use for writing the puzzles.
+   *
+   * @return		the writer
+   */
+  @Override
+  protected PuzzleWriter getWriter() {
+    return new OpenSudoku();
+  }
+
+  /**
+   * Returns the readers to read the puzzles back in with.
+   *
+   * @return		the readers
+   */
+  @Override
+  protected PuzzleReader[] getReaders() {
+    return new PuzzleReader[]{new OpenSudoku()};
+  }
+
+  /**
+   * Generates the puzzles, including meta-data.
+   *
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @return		the puzzles
+   */
+  @Override
+  protected Puzzles puzzles(int[] dims) {
+    Puzzles	result;
+
+    result = SampleGrids.puzzles(42, dims, 50);
+    result.getMetaData().put("name", "test");
+    result.getMetaData().put("author", "äöü €");
+    result.getMetaData().put("level", "easy");
+
+    return result;
+  }
+
+  /**
+   * Tests reading/writing via readers/writers and streams.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testReaderWriter() throws Exception {
+    OpenSudoku			format;
+    Puzzles			expected;
+    StringWriter		writer;
+    ByteArrayOutputStream	bytes;
+
+    format   = new OpenSudoku();
+    expected = puzzles(SampleGrids.DIMENSIONS[3]);
+    writer   = new StringWriter();
+    format.write(expected, writer);
+    assertEquals(expected, format.read(new StringReader(writer.toString())));
+
+    bytes = new ByteArrayOutputStream();
+    format.write(expected, bytes);
+    assertEquals(writer.toString(), bytes.toString("UTF-8"));
+    assertEquals(expected, format.read(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  /**
+   * Tests writing via a sink and reading via an iterator.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testSinkIterator() throws Exception {
+    OpenSudoku		format;
+    Puzzles		expected;
+    File		file;
+    int			i;
+
+    format   = new OpenSudoku();
+    expected = puzzles(SampleGrids.DIMENSIONS[0]);
+    file     = m_Folder.newFile();
+    try (PuzzleSink sink = format.sink(file, expected.getMetaData())) {
+      for (Grid grid: expected)
+	sink.append(grid);
+      assertEquals(expected.size(), sink.getCount());
+    }
+
+    i = 0;
+    try (PuzzleIterator iterator = format.iterator(file)) {
+      while (iterator.hasNext())
+	assertEquals(expected.get(i++), iterator.next());
+      assertEquals(expected.getMetaData(), iterator.getMetaData());
+    }
+    assertEquals(expected.size(), i);
+  }
+
+  /**
+   * Tests that the writer leaves streams supplied by the caller open.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testStreamsLeftOpen() throws Exception {
+    OpenSudoku		format;
+    Puzzles		expected;
+    ClosedFlag		stream;
+
+    format   = new OpenSudoku();
+    expected = puzzles(SampleGrids.DIMENSIONS[2]);
+    stream   = new ClosedFlag();
+    format.write(expected, stream);
+    assertFalse(stream.closed);
+    assertTrue(stream.size() > 0);
+  }
+
+  /**
+   * Tests the error policies on games with data of the wrong length or
+   * without data.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testErrorPolicy() throws Exception {
+    OpenSudoku		format;
+    Puzzles		expected;
+    StringBuilder	xml;
+    ErrorReport		report;
+    String		line;
+
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 4);
+    line     = expected.get(2).toLine();
+    xml      = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    xml.append("<opensudoku>\n");
+    xml.append("  <game data='").append(expected.get(0).toLine()).append("' />\n");
+    xml.append("  <game data='").append(line, 0, 40).append("' />\n");
+    xml.append("  <game data='").append(expected.get(1).toLine()).append("' />\n");
+    xml.append("  <game />\n");
+    xml.append("  <game data='").append(expected.get(2).toLine()).append("' />\n");
+    xml.append("  <game data='").append(expected.get(3).toLine()).append("' />\n");
+    xml.append("</opensudoku>\n");
+
+    format = new OpenSudoku();
+    format.setErrorPolicy(ErrorPolicy.FAIL);
+    try {
+      format.read(new StringReader(xml.toString()));
+      fail("Invalid game not detected");
+    }
+    catch (GridParseException e) {
+      assertEquals(4, e.getLine());
+      assertEquals(line.substring(0, 40), e.getEntry().getText());
+    }
+
+    report = new ErrorReport();
+    format.setErrorPolicy(ErrorPolicy.SKIP);
+    format.setErrorReport(report);
+    assertEquals(expected, format.read(new StringReader(xml.toString())));
+    assertEquals(0, report.getCount());
+
+    report = new ErrorReport(1);
+    format.setErrorPolicy(ErrorPolicy.COLLECT);
+    format.setErrorReport(report);
+    assertEquals(expected, format.read(new StringReader(xml.toString())));
+    assertEquals(2, report.getCount());
+    assertTrue(report.isTruncated());
+    assertEquals(1, report.getEntries().size());
+    assertEquals(4, report.getEntries().get(0).getLine());
+
+    report = new ErrorReport();
+    format.setErrorReport(report);
+    format.read(new StringReader(xml.toString()));
+    assertFalse(report.isTruncated());
+    assertEquals(6, report.getEntries().get(1).getLine());
+    assertEquals(0, report.getEntries().get(1).getLength());
+  }
+
+  /**
+   * Tests that games with the length of other grid sizes get rejected,
+   * unless the dimensions get inferred from each game.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testDimensions() throws Exception {
+    OpenSudoku		format;
+    Puzzles		expected;
+    Grid		other;
+    StringBuilder	xml;
+    ErrorReport		report;
+
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 3);
+    other    = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[0], 3).get(2);
+    xml      = new StringBuilder();
+    xml.append("<opensudoku>\n");
+    xml.append("  <game data='").append(expected.get(0).toLine()).append("' />\n");
+    xml.append("  <game data='").append(other.toLine()).append("' />\n");
+    xml.append("  <game data='").append(expected.get(1).toLine()).append("' />\n");
+    xml.append("  <game data='").append(expected.get(2).toLine()).append("' />\n");
+    xml.append("</opensudoku>\n");
+
+    format = new OpenSudoku();
+    report = new ErrorReport();
+    format.setErrorReport(report);
+    assertEquals(expected, format.read(new StringReader(xml.toString())));
+    assertEquals(1, report.getCount());
+    assertEquals(3, report.getEntries().get(0).getLine());
+
+    format.setInferDimensions(true);
+    expected.add(1, other);
+    assertEquals(expected, format.read(new StringReader(xml.toString())));
+  }
+
+  /**
+   * Records whether the stream got closed.
+   */
+  protected static class ClosedFlag
+    extends ByteArrayOutputStream {
+
+    /** whether the stream got closed. */
+    public boolean closed;
+
+    /**
+     * Marks the stream as closed.
+     */
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleCollectionTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.ErrorPolicy;
+import com.github.fracpete.sudokuformats4j.api.ErrorReport;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.GridParseException;
+import com.github.fracpete.sudokuformats4j.api.LineCodec;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.api.Symbols;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link PuzzleCollection} format with the different parsers.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzleCollectionTest
+  extends AbstractPuzzleFormatTest {
+
+  /**
+   * Returns the extension of the format.
+   *
+   * @return		the extension (incl dot)
+   */
+  @Override
+  protected String getExtension() {
+    return PuzzleCollection.EXTENSION;
+  }
+
+  /**
+   * Returns the writer to use for writing the puzzles.
+   *
+   * @return		the writer
+   */
+  @Override
+  protected PuzzleWriter getWriter() {
+    return new PuzzleCollection();
+  }
+
+  /**
+   * Returns readers for the text parser, the byte parser and parallel
+   * reading (small chunks).
+   *
+   * @return		the readers
+   */
+  @Override
+  protected PuzzleCollection[] getReaders() {
+    PuzzleCollection[]	result;
+
+    result = new PuzzleCollection[3];
+    result[0] = new PuzzleCollection();
+    result[0].setUseByteParser(false);
+    result[1] = new PuzzleCollection();
+    result[1].setUseByteParser(true);
+    result[2] = new PuzzleCollection();
+    result[2].setParallelRead(true);
+    result[2].setOrdered(true);
+    result[2].setChunkSize(1000);
+
+    return result;
+  }
+
+  /**
+   * Generates the puzzles (the format does not store meta-data).
+   *
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @return		the puzzles
+   */
+  @Override
+  protected Puzzles puzzles(int[] dims) {
+    return SampleGrids.puzzles(42, dims, 200);
+  }
+
+  /**
+   * Tests reading compressed streams.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCompressedStreams() throws Exception {
+    Puzzles			expected;
+    ByteArrayOutputStream	bytes;
+    OutputStream		stream;
+
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[1], 200);
+    for (Compression compression: Compression.values()) {
+      if (!compression.isAvailable())
+	continue;
+      bytes  = new ByteArrayOutputStream();
+      stream = compression.compress(bytes);
+      new PuzzleCollection().write(expected, stream);
+      stream.close();
+      for (PuzzleCollection reader: getReaders())
+	assertEquals(compression.name(), expected, reader.read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+  }
+
+  /**
+   * Tests the error policies on a file where every 10th line cannot be
+   * parsed (alternating between a truncated and an overlong line).
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testErrorPolicy() throws Exception {
+    Puzzles		clean;
+    File		file;
+    ErrorReport		report;
+    List<ErrorReport.Entry>	entries;
+    String		line;
+    int			dirty;
+    int			i;
+
+    clean = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 300);
+    file  = new File(m_Folder.getRoot(), "dirty" + PuzzleCollection.EXTENSION);
+    dirty = 0;
+    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+      for (i = 0; i < clean.size(); i++) {
+	if (i % 10 == 5) {
+	  line = clean.get(i).toLine();
+	  if (dirty % 2 == 0)
+	    writer.println(line.substring(0, 40));
+	  else
+	    writer.println(line + "0");
+	  dirty++;
+	}
+	writer.println(clean.get(i).toLine());
+      }
+    }
+
+    for (PuzzleCollection reader: getReaders()) {
+      reader.setErrorPolicy(ErrorPolicy.FAIL);
+      try {
+	reader.read(file);
+	fail("Unparseable line not detected");
+      }
+      catch (GridParseException e) {
+	assertEquals(6, e.getLine());
+	assertEquals(40, e.getEntry().getLength());
+      }
+
+      report = new ErrorReport();
+      reader.setErrorPolicy(ErrorPolicy.SKIP);
+      reader.setErrorReport(report);
+      assertEquals(clean, reader.read(file));
+      assertEquals(0, report.getCount());
+
+      report = new ErrorReport(5);
+      reader.setErrorPolicy(ErrorPolicy.COLLECT);
+      reader.setErrorReport(report);
+      assertEquals(clean, reader.read(file));
+      assertEquals(dirty, report.getCount());
+      assertTrue(report.isTruncated());
+      entries = report.getEntries();
+      assertEquals(report.getMaxEntries(), entries.size());
+      for (i = 0; i < entries.size(); i++) {
+	assertEquals(6 + 11 * i, entries.get(i).getLine());
+	assertEquals(((i % 2 == 0) ? 40 : 82), entries.get(i).getLength());
+      }
+
+      report = new ErrorReport(dirty);
+      reader.setErrorReport(report);
+      reader.read(file);
+      assertFalse(report.isTruncated());
+      assertEquals(6 + 11 * (dirty - 1), report.getEntries().get(dirty - 1).getLine());
+    }
+  }
+
+  /**
+   * Tests that lines with the length of other grid sizes get rejected,
+   * unless the dimensions get inferred from each line.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testDimensions() throws Exception {
+    Puzzles		clean;
+    Puzzles		mixed;
+    Grid[]		others;
+    Random		random;
+    File		file;
+    ErrorReport		report;
+    int			i;
+
+    random = new Random(42);
+    clean  = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 40);
+    others = new Grid[]{
+      SampleGrids.puzzle(random, SampleGrids.DIMENSIONS[0], 0.5),
+      SampleGrids.puzzle(random, SampleGrids.DIMENSIONS[1], 0.5),
+      SampleGrids.puzzle(random, new int[]{4, 2, 2, 4}, 0.5),
+    };
+    mixed = new Puzzles();
+    file  = new File(m_Folder.getRoot(), "mixed" + PuzzleCollection.EXTENSION);
+    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+      for (i = 0; i < clean.size(); i++) {
+	if ((i % 10 == 5) && (i / 10 < others.length)) {
+	  writer.println(others[i / 10].toLine());
+	  mixed.add(others[i / 10]);
+	}
+	writer.println(clean.get(i).toLine());
+	mixed.add(clean.get(i));
+      }
+    }
+
+    for (PuzzleCollection reader: getReaders()) {
+      report = new ErrorReport();
+      reader.setErrorReport(report);
+      assertEquals(clean, reader.read(file));
+      assertEquals(others.length, report.getCount());
+      assertEquals(6, report.getEntries().get(0).getLine());
+      assertEquals(16, report.getEntries().get(0).getLength());
+
+      report.clear();
+      reader.setInferDimensions(true);
+      assertEquals(mixed, reader.read(file));
+      assertEquals(0, report.getCount());
+    }
+  }
+
+  /**
+   * Tests reading with an explicitly set codec.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCodec() throws Exception {
+    Puzzles		expected;
+    LineCodec		codec;
+    File		file;
+
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[3], 20);
+    codec    = LineCodec.get(4, 4, 4, 4, Symbols.HEX);
+    file     = new File(m_Folder.getRoot(), "hex" + PuzzleCollection.EXTENSION);
+    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+      for (Grid grid: expected)
+	writer.println(codec.encode(grid));
+      writer.println(SampleGrids.solution(new Random(42), SampleGrids.DIMENSIONS[2]).toLine());
+    }
+
+    for (PuzzleCollection reader: getReaders()) {
+      reader.setCodec(codec);
+      reader.setErrorPolicy(ErrorPolicy.SKIP);
+      assertEquals(expected, reader.read(file));
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzlePackTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.PuzzlePack.Codec;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link PuzzlePack} format.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzlePackTest
+  extends AbstractPuzzleFormatTest {
+
+  /**
+   * Returns the extension of the format.
+   *
+   * @return		the extension (incl dot)
+   */
+  @Override
+  protected String getExtension() {
+    return PuzzlePack.EXTENSION;
+  }
+
+  /**
+   * Returns the writer to use for writing the puzzles.
+   *
+   * @return		the writer
+   */
+  @Override
+  protected PuzzleWriter getWriter() {
+    return new PuzzlePack();
+  }
+
+  /**
+   * Returns the readers to read the puzzles back in with.
+   *
+   * @return		the readers
+   */
+  @Override
+  protected PuzzleReader[] getReaders() {
+    return new PuzzleReader[]{new PuzzlePack()};
+  }
+
+  /**
+   * Tests reading/writing grids with a single digit.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testSingleDigit() throws Exception {
+    Puzzles	puzzles;
+    Grid	grid;
+
+    puzzles = new Puzzles();
+    puzzles.add(new Grid(1, 1, 1, 1));
+    grid = new Grid(1, 1, 1, 1);
+    grid.setCells(new byte[]{1});
+    puzzles.add(grid);
+    roundTrip(puzzles, Compression.NONE);
+  }
+
+  /**
+   * Tests reading/writing streams, incl compressed input.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testStreams() throws Exception {
+    PuzzlePack			pack;
+    Puzzles			expected;
+    ByteArrayOutputStream	bytes;
+    OutputStream		gzip;
+
+    pack     = new PuzzlePack();
+    expected = puzzles(SampleGrids.DIMENSIONS[1]);
+    bytes    = new ByteArrayOutputStream();
+    pack.write(expected, bytes);
+    assertEquals(expected, pack.read(new ByteArrayInputStream(bytes.toByteArray())));
+
+    bytes = new ByteArrayOutputStream();
+    gzip  = Compression.GZIP.compress(bytes);
+    pack.write(expected, gzip);
+    gzip.close();
+    assertEquals(expected, pack.read(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  /**
+   * Tests encoding/decoding with the codec and the size of the records.
+   */
+  @Test
+  public void testCodec() {
+    Random	random;
+    Codec	codec;
+    Grid	grid;
+    byte[]	cells;
+    byte[]	decoded;
+    byte[]	record;
+    int		clues;
+    int		size;
+    int		i;
+
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      codec  = new Codec(dims[0], dims[1], dims[2], dims[3]);
+      record = new byte[codec.maxRecordSize()];
+      for (i = 0; i < 100; i++) {
+	grid    = SampleGrids.puzzle(random, dims, random.nextDouble());
+	cells   = grid.getCells(null);
+	clues   = 0;
+	for (byte cell: cells) {
+	  if (cell > 0)
+	    clues++;
+	}
+	size    = codec.encode(cells, record);
+	decoded = new byte[cells.length];
+	assertEquals(codec.bitmapSize() + codec.valuesSize(clues), size);
+	assertEquals(clues, codec.clues(record, 0));
+	codec.decode(record, 0, decoded);
+	assertArrayEquals(cells, decoded);
+      }
+    }
+
+    // 9x9: 17 clues fit into 19 bytes, 30 clues into 24 bytes
+    codec = new Codec(3, 3, 3, 3);
+    assertEquals(19, codec.bitmapSize() + codec.valuesSize(17));
+    assertEquals(24, codec.bitmapSize() + codec.valuesSize(30));
+  }
+
+  /**
+   * Tests that invalid dimensions and values get rejected.
+   */
+  @Test
+  public void testInvalidCodec() {
+    Codec	codec;
+    byte[]	cells;
+
+    assertTrue(Codec.isValid(1, 1, 1, 1));
+    for (int[] dims: new int[][]{{0, 0, 0, 0}, {3, 3, 0, 3}, {1, 1, 12, 12}}) {
+      try {
+	new Codec(dims[0], dims[1], dims[2], dims[3]);
+	fail("Codec should have failed: " + dims[0] + "x" + dims[1] + " X " + dims[2] + "x" + dims[3]);
+      }
+      catch (IllegalArgumentException e) {
+	// expected
+      }
+    }
+
+    codec = new Codec(2, 2, 2, 2);
+    cells = new byte[codec.cells()];
+    cells[3] = 5;
+    try {
+      codec.encode(cells, new byte[codec.maxRecordSize()]);
+      fail("Encoding should have failed for value 5");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that headers with invalid dimensions get rejected.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testInvalidHeader() throws Exception {
+    PuzzlePack	pack;
+    File	file;
+    byte[]	data;
+
+    pack = new PuzzlePack();
+    file = m_Folder.newFile();
+    pack.write(puzzles(SampleGrids.DIMENSIONS[2]), file);
+    data = Files.readAllBytes(file.toPath());
+    data[6] = data[7] = data[8] = data[9] = 0;
+    Files.write(file.toPath(), data);
+    try {
+      pack.read(file);
+      fail("Reading should have failed: " + file);
+    }
+    catch (IOException e) {
+      // expected
+    }
+  }
+}
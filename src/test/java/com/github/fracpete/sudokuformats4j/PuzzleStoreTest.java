@@ -0,0 +1,236 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleStoreTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.PuzzleStore.Header;
+import com.github.fracpete.sudokuformats4j.PuzzleStore.MappedStore;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link PuzzleStore} format.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzleStoreTest
+  extends AbstractPuzzleFormatTest {
+
+  /**
+   * Returns the extension of the format.
+   *
+   * @return		the extension (incl dot)
+   */
+  @Override
+  protected String getExtension() {
+    return PuzzleStore.EXTENSION;
+  }
+
+  /**
+   * Returns the writer to use for writing the puzzles.
+   *
+   * @return		the writer
+   */
+  @Override
+  protected PuzzleWriter getWriter() {
+    return new PuzzleStore();
+  }
+
+  /**
+   * Returns the readers to read the puzzles back in with.
+   *
+   * @return		the readers
+   */
+  @Override
+  protected PuzzleReader[] getReaders() {
+    return new PuzzleReader[]{new PuzzleStore()};
+  }
+
+  /**
+   * Tests reading/writing streams, incl compressed input.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testStreams() throws Exception {
+    PuzzleStore			store;
+    Puzzles			expected;
+    ByteArrayOutputStream	bytes;
+    OutputStream		gzip;
+
+    store    = new PuzzleStore();
+    expected = puzzles(SampleGrids.DIMENSIONS[1]);
+    bytes    = new ByteArrayOutputStream();
+    store.write(expected, bytes);
+    assertEquals(expected, store.read(new ByteArrayInputStream(bytes.toByteArray())));
+
+    bytes = new ByteArrayOutputStream();
+    gzip  = Compression.GZIP.compress(bytes);
+    store.write(expected, gzip);
+    gzip.close();
+    assertEquals(expected, store.read(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  /**
+   * Tests random access via the memory-mapped store.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testMappedStore() throws Exception {
+    PuzzleStore	store;
+    Puzzles	expected;
+    File	file;
+    int		i;
+
+    store = new PuzzleStore();
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      expected = puzzles(dims);
+      file     = m_Folder.newFile();
+      store.write(expected, file);
+      try (MappedStore mapped = store.open(file)) {
+	assertEquals(expected.size(), mapped.size());
+	assertEquals(expected.getMetaData(), mapped.getMetaData());
+	for (i = expected.size() - 1; i >= 0; i--)
+	  assertEquals(expected.get(i), mapped.getGrid(i));
+      }
+    }
+  }
+
+  /**
+   * Tests that an empty collection results in a readable store.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testEmpty() throws Exception {
+    PuzzleStore	store;
+    File	file;
+
+    store = new PuzzleStore();
+    file  = m_Folder.newFile();
+    store.write(new Puzzles(), file);
+    assertTrue(store.read(file).isEmpty());
+    try (MappedStore mapped = store.open(file)) {
+      assertEquals(0, mapped.size());
+    }
+  }
+
+  /**
+   * Tests that corrupt headers get rejected with an exception.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testInvalidHeader() throws Exception {
+    PuzzleStore	store;
+    Puzzles	puzzles;
+    File	file;
+    byte[]	data;
+    byte[]	corrupt;
+
+    store   = new PuzzleStore();
+    puzzles = puzzles(SampleGrids.DIMENSIONS[2]);
+    file    = m_Folder.newFile();
+    store.write(puzzles, file);
+    data = Files.readAllBytes(file.toPath());
+
+    // record size of 0
+    corrupt = data.clone();
+    corrupt[10] = corrupt[11] = corrupt[12] = corrupt[13] = 0;
+    Files.write(file.toPath(), corrupt);
+    assertRejected(store, file);
+
+    // no rows
+    corrupt = data.clone();
+    corrupt[6] = 0;
+    Files.write(file.toPath(), corrupt);
+    assertRejected(store, file);
+
+    // data offset beyond the end of the file
+    corrupt = data.clone();
+    corrupt[14] = 0x10;
+    Files.write(file.toPath(), corrupt);
+    assertRejected(store, file);
+  }
+
+  /**
+   * Asserts that reading and mapping the file fails with an IOException.
+   *
+   * @param store	the store to use
+   * @param file	the corrupt file
+   * @throws Exception	if an unexpected exception occurs
+   */
+  protected void assertRejected(PuzzleStore store, File file) throws Exception {
+    try {
+      store.read(file);
+      fail("Reading should have failed: " + file);
+    }
+    catch (IOException e) {
+      // expected
+    }
+    try (MappedStore mapped = store.open(file)) {
+      fail("Mapping should have failed: " + file);
+    }
+    catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that values that don't fit into a record get rejected.
+   */
+  @Test
+  public void testInvalidValue() {
+    Header	header;
+    Grid	grid;
+    byte[]	cells;
+
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      grid   = new Grid(dims[0], dims[1], dims[2], dims[3]);
+      header = new Header();
+      header.setDimensions(grid);
+      cells  = grid.getCells(null);
+      cells[cells.length - 1] = (byte) (dims[2] * dims[3] + 1);
+      try {
+	PuzzleStore.pack(header, cells, new byte[header.recordSize()]);
+	fail("Packing should have failed for " + dims[2] * dims[3] + " digits");
+      }
+      catch (IllegalArgumentException e) {
+	// expected
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SampleGrids.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+
+import java.util.Random;
+
+/**
+ * Generates valid sudoku solutions and puzzles derived from them for the
+ * unit tests.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SampleGrids {
+
+  /** the dimensions (rows, cols, subRows, subCols) of 4x4, 6x6, 9x9 and 16x16 grids, as inferred from lines. */
+  public static final int[][] DIMENSIONS = {
+    {2, 2, 2, 2},
+    {3, 2, 2, 3},
+    {3, 3, 3, 3},
+    {4, 4, 4, 4},
+  };
+
+  /** well-known puzzles that are hard for backtracking solvers. */
+  public static final String[] HARDEST = {
+    "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+    "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+    "6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+    "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....",
+    "....14....3....2...7..........9...3.6.1.............8.2.....1.4....5.6.....7.8...",
+    "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+    "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+  };
+
+  /** puzzles with their known (unique) solutions. */
+  public static final String[][] KNOWN = {
+    {
+      "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+      "417369825632158947958724316825437169791586432346912758289643571573291684164875293",
+    },
+    {
+      "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+      "812753649943682175675491283154237896369845721287169534521974368438526917796318452",
+    },
+  };
+
+  /**
+   * Generates a solution, using a shifted pattern with randomly permuted
+   * digits.
+   *
+   * @param random	the random number generator to use
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @return		the solution
+   */
+  public static Grid solution(Random random, int[] dims) {
+    Grid	result;
+    byte[]	cells;
+    byte[]	digits;
+    int		height;
+    int		width;
+    int		n;
+    int		y;
+    int		x;
+    int		i;
+    int		j;
+    byte	tmp;
+
+    result = new Grid(dims[0], dims[1], dims[2], dims[3]);
+    height = result.height();
+    width  = result.width();
+    n      = dims[2] * dims[3];
+    digits = new byte[n];
+    for (i = 0; i < n; i++)
+      digits[i] = (byte) (i + 1);
+    for (i = n - 1; i > 0; i--) {
+      j         = random.nextInt(i + 1);
+      tmp       = digits[i];
+      digits[i] = digits[j];
+      digits[j] = tmp;
+    }
+
+    cells = new byte[height * width];
+    for (y = 0; y < height; y++) {
+      for (x = 0; x < width; x++)
+	cells[y * width + x] = digits[((y % dims[2]) * dims[3] + y / dims[2] + x) % n];
+    }
+    result.setCells(cells);
+
+    return result;
+  }
+
+  /**
+   * Generates a puzzle by clearing random cells of a solution.
+   *
+   * @param random	the random number generator to use
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @param clues	the probability of keeping a cell
+   * @return		the puzzle
+   */
+  public static Grid puzzle(Random random, int[] dims, double clues) {
+    Grid	result;
+    byte[]	cells;
+    int		i;
+
+    result = solution(random, dims);
+    cells  = result.getCells(null);
+    for (i = 0; i < cells.length; i++) {
+      if (random.nextDouble() >= clues)
+	cells[i] = 0;
+    }
+    result.setCells(cells);
+
+    return result;
+  }
+
+  /**
+   * Generates puzzles of the specified dimensions, including an empty and
+   * a completely filled grid.
+   *
+   * @param seed	the seed for the random number generator
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @param count	the number of puzzles (at least 2)
+   * @return		the puzzles
+   */
+  public static Puzzles puzzles(long seed, int[] dims, int count) {
+    Puzzles	result;
+    Random	random;
+    int		i;
+
+    random = new Random(seed);
+    result = new Puzzles();
+    result.add(new Grid(dims[0], dims[1], dims[2], dims[3]));
+    result.add(solution(random, dims));
+    for (i = 2; i < count; i++)
+      result.add(puzzle(random, dims, 0.2 + random.nextDouble() * 0.4));
+
+    return result;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CompactGridTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link CompactGrid}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CompactGridTest {
+
+  /** the dimensions to test, including 25x25 (5 bits per cell). */
+  public static final int[][] DIMENSIONS = {
+    {2, 2, 2, 2},
+    {3, 2, 2, 3},
+    {3, 3, 3, 3},
+    {4, 4, 4, 4},
+    {5, 5, 5, 5},
+  };
+
+  /**
+   * Tests converting from/to grids and lines.
+   */
+  @Test
+  public void testRoundTrip() {
+    Random	random;
+    Grid	grid;
+    CompactGrid	compact;
+    int		i;
+
+    random = new Random(42);
+    for (int[] dims: DIMENSIONS) {
+      for (i = 0; i < 10; i++) {
+	grid    = SampleGrids.puzzle(random, dims, (i == 0) ? 1.0 : 0.5);
+	compact = CompactGrid.fromGrid(grid);
+	assertEquals(grid, compact.asGrid());
+	assertEquals(grid.toLine(), compact.toLine());
+	assertEquals(grid.toGrid(), compact.toGrid());
+	assertEquals(compact, CompactGrid.fromLine(grid.toLine()));
+	assertEquals(compact.hashCode(), CompactGrid.fromLine(grid.toLine()).hashCode());
+      }
+    }
+    assertNull(CompactGrid.fromLine("123"));
+  }
+
+  /**
+   * Tests that the coordinates agree with the ones of {@link Grid}.
+   */
+  @Test
+  public void testGetSet() {
+    Random	random;
+    Grid	grid;
+    CompactGrid	compact;
+    int		row;
+    int		col;
+    int		subRow;
+    int		subCol;
+
+    random = new Random(42);
+    for (int[] dims: DIMENSIONS) {
+      grid    = SampleGrids.solution(random, dims);
+      compact = new CompactGrid(dims[0], dims[1], dims[2], dims[3]);
+      for (row = 0; row < dims[0]; row++) {
+	for (col = 0; col < dims[1]; col++) {
+	  for (subRow = 0; subRow < dims[2]; subRow++) {
+	    for (subCol = 0; subCol < dims[3]; subCol++)
+	      compact.set(row, col, subRow, subCol, grid.get(row, col).get(subRow, subCol));
+	  }
+	}
+      }
+      assertEquals(grid, compact.asGrid());
+      for (row = 0; row < dims[0]; row++) {
+	for (col = 0; col < dims[1]; col++) {
+	  for (subRow = 0; subRow < dims[2]; subRow++) {
+	    for (subCol = 0; subCol < dims[3]; subCol++)
+	      assertEquals(
+		grid.get(row, col).get(subRow, subCol),
+		compact.getCell(row * dims[2] + subRow, col * dims[3] + subCol));
+	  }
+	}
+      }
+    }
+
+    compact = new CompactGrid();
+    compact.setCell(8, 8, (byte) 9);
+    assertEquals(9, compact.getCell(8, 8));
+    assertEquals(9, compact.get(2, 2, 2, 2));
+    compact.setCell(8, 8, (byte) -1);
+    assertEquals(0, compact.getCell(8, 8));
+    assertEquals(new CompactGrid(), compact);
+    compact.setCell(0, 0, (byte) 1);
+    assertNotEquals(new CompactGrid(), compact);
+  }
+
+  /**
+   * Tests that values without a digit and invalid coordinates are
+   * rejected.
+   */
+  @Test
+  public void testInvalid() {
+    CompactGrid	compact;
+    byte[]	cells;
+
+    compact = new CompactGrid();
+    try {
+      compact.setCell(0, 0, (byte) 10);
+      fail("Value 10 accepted for 9x9 grid");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      compact.set(0, 0, 0, 0, (byte) 15);
+      fail("Value 15 accepted for 9x9 grid");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    cells = new byte[81];
+    cells[80] = 10;
+    try {
+      compact.setCells(cells);
+      fail("Value 10 accepted for 9x9 grid");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new CompactGrid(2, 2, 2, 2).setCell(0, 0, (byte) 5);
+      fail("Value 5 accepted for 4x4 grid");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      compact.setCell(9, 0, (byte) 1);
+      fail("Invalid row accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      compact.get(0, 0, 0, 3);
+      fail("Invalid column accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      compact.setCells(new byte[80]);
+      fail("Too few cells accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new CompactGrid(0, 3, 3, 3);
+      fail("Invalid dimensions accepted");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    // failed setCells leaves the grid untouched
+    assertEquals(new CompactGrid(), compact);
+  }
+}
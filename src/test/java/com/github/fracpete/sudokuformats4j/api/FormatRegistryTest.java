@@ -0,0 +1,226 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * FormatRegistryTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.OpenSudoku;
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.PuzzlePack;
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link FormatRegistry}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class FormatRegistryTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /** the registry to test. */
+  protected FormatRegistry m_Registry;
+
+  /** the puzzles to write. */
+  protected Puzzles m_Puzzles;
+
+  /**
+   * Sets up the registry and the puzzles.
+   */
+  @Before
+  public void setUp() {
+    m_Registry = FormatRegistry.getDefault();
+    m_Puzzles  = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 50);
+    m_Puzzles.getMetaData().put("name", "test");
+  }
+
+  /**
+   * Writes the puzzles in the format to the file.
+   *
+   * @param name	the name of the format
+   * @param file	the file to write to (the extension determines the compression)
+   * @return		the file
+   * @throws Exception	if writing fails
+   */
+  protected File write(String name, String file) throws Exception {
+    File	result;
+
+    result = new File(m_Folder.getRoot(), file);
+    m_Registry.forName(name).newWriter().write(m_Puzzles, result);
+
+    return result;
+  }
+
+  /**
+   * Detects the format of the file's content via a stream.
+   *
+   * @param file	the file to sniff
+   * @return		the format, null if none matches
+   * @throws IOException	if reading fails
+   */
+  protected PuzzleFormat detect(File file) throws IOException {
+    try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+      return m_Registry.detect(stream);
+    }
+  }
+
+  /**
+   * Tests looking up formats by name and extension.
+   */
+  @Test
+  public void testLookup() {
+    assertEquals(4, m_Registry.getFormats().size());
+    assertSame(m_Registry.forName("PuzzleStore"), m_Registry.forName("puzzlestore"));
+    assertNull(m_Registry.forName("Unknown"));
+    assertEquals("PuzzleCollection", m_Registry.forFile(new File("a" + PuzzleCollection.EXTENSION)).getName());
+    assertEquals("PuzzleCollection", m_Registry.forFile(new File("A.SDM.GZ")).getName());
+    assertEquals("OpenSudoku", m_Registry.forFile(new File("a" + OpenSudoku.EXTENSION + ".xz")).getName());
+    assertEquals("PuzzlePack", m_Registry.forFile(new File("a" + PuzzlePack.EXTENSION)).getName());
+    assertEquals("PuzzleStore", m_Registry.forFile(new File("a" + PuzzleStore.EXTENSION + ".zst")).getName());
+    assertNull(m_Registry.forFile(new File("a.dat")));
+    assertNull(m_Registry.forFile(new File("a.gz")));
+  }
+
+  /**
+   * Tests sniffing each format from the content, ignoring the extension.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testSniff() throws Exception {
+    File	file;
+
+    for (PuzzleFormat format: m_Registry.getFormats()) {
+      file = write(format.getName(), format.getName() + ".dat");
+      assertSame(format, m_Registry.detect(file));
+      assertSame(format, detect(file));
+      assertEquals(m_Puzzles, m_Registry.reader(file).read(file));
+    }
+  }
+
+  /**
+   * Tests sniffing each format from compressed content.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCompressed() throws Exception {
+    File	file;
+
+    for (Compression compression: Compression.values()) {
+      if (!compression.isAvailable())
+	continue;
+      for (PuzzleFormat format: m_Registry.getFormats()) {
+	file = write(format.getName(), format.getName() + ".dat" + compression.getExtension());
+	assertEquals(compression, Compression.detect(file));
+	assertSame(format, m_Registry.detect(file));
+	assertSame(format, detect(file));
+      }
+    }
+  }
+
+  /**
+   * Tests falling back on the extension for content that doesn't match.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testFallback() throws Exception {
+    File	file;
+
+    file = new File(m_Folder.getRoot(), "empty" + PuzzleCollection.EXTENSION);
+    Files.write(file.toPath(), new byte[0]);
+    assertNull(detect(file));
+    assertEquals("PuzzleCollection", m_Registry.detect(file).getName());
+    assertEquals(0, m_Registry.reader(file).read(file).size());
+
+    file = new File(m_Folder.getRoot(), "junk" + PuzzleStore.EXTENSION + ".gz");
+    try (OutputStream stream = Compression.create(file)) {
+      stream.write(new byte[]{0, 1, 2, 3, 4, 5});
+    }
+    assertEquals("PuzzleStore", m_Registry.detect(file).getName());
+
+    file = new File(m_Folder.getRoot(), "junk.dat");
+    Files.write(file.toPath(), new byte[]{0, 1, 2, 3, 4, 5});
+    assertNull(m_Registry.detect(file));
+    try {
+      m_Registry.reader(file);
+      fail("Unknown format not detected");
+    }
+    catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests sniffing and reading text formats that start with a UTF-8 byte
+   * order mark.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testBOM() throws Exception {
+    ByteArrayOutputStream	content;
+    PuzzleCollection		collection;
+    File			file;
+
+    for (String name: new String[]{"PuzzleCollection", "OpenSudoku"}) {
+      file    = write(name, name + ".dat");
+      content = new ByteArrayOutputStream();
+      content.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+      content.write(Files.readAllBytes(file.toPath()));
+      Files.write(file.toPath(), content.toByteArray());
+      assertEquals(name, m_Registry.detect(file).getName());
+      assertEquals(name, detect(file).getName());
+      assertEquals(m_Puzzles, m_Registry.reader(file).read(file));
+    }
+
+    // the other PuzzleCollection parsers
+    file       = new File(m_Folder.getRoot(), "PuzzleCollection.dat");
+    collection = new PuzzleCollection();
+    collection.setErrorPolicy(ErrorPolicy.FAIL);
+    collection.setUseByteParser(false);
+    assertEquals(m_Puzzles, collection.read(file));
+    collection.setUseByteParser(true);
+    collection.setParallelRead(true);
+    assertEquals(m_Puzzles, collection.read(file));
+  }
+}
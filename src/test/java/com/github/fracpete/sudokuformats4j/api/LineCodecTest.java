@@ -0,0 +1,205 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * LineCodecTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link LineCodec}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class LineCodecTest {
+
+  /** the dimensions to test: 4x4, 6x6, 9x9, 16x16 and 25x25. */
+  public static final int[][] DIMENSIONS = {
+    {2, 2, 2, 2},
+    {3, 2, 2, 3},
+    {3, 3, 3, 3},
+    {4, 4, 4, 4},
+    {5, 5, 5, 5},
+  };
+
+  /**
+   * Tests encoding/decoding strings, chars and bytes.
+   */
+  @Test
+  public void testRoundTrip() {
+    Random	random;
+    LineCodec	codec;
+    Grid	grid;
+    Grid	decoded;
+    String	line;
+    char[]	chars;
+    byte[]	bytes;
+    int		i;
+
+    random = new Random(42);
+    for (int[] dims: DIMENSIONS) {
+      codec = LineCodec.get(dims[0], dims[1], dims[2], dims[3]);
+      assertSame(codec, LineCodec.forLength(codec.length()));
+      assertEquals(new Grid(dims[0], dims[1], dims[2], dims[3]), codec.newGrid());
+      for (i = 0; i < 10; i++) {
+	grid = SampleGrids.puzzle(random, dims, (i == 0) ? 1.0 : 0.5);
+	line = codec.encode(grid);
+	assertEquals(grid.height() * grid.width(), line.length());
+	assertEquals(line, grid.toLine());
+	assertEquals(line, codec.encode(grid.getCells(null)));
+	assertEquals(grid, codec.decode(line));
+	assertEquals(grid, Grid.fromLine(line));
+
+	chars = new char[line.length() + 3];
+	assertEquals(line.length(), codec.encode(grid, chars, 3));
+	decoded = codec.newGrid();
+	assertTrue(codec.decode(chars, 3, line.length(), decoded));
+	assertEquals(grid, decoded);
+
+	bytes = new byte[line.length() + 2];
+	assertEquals(line.length(), codec.encode(grid, bytes, 2));
+	decoded = codec.newGrid();
+	assertTrue(codec.decode(bytes, 2, line.length(), decoded));
+	assertEquals(grid, decoded);
+      }
+    }
+  }
+
+  /**
+   * Tests inferring the dimensions from the length.
+   */
+  @Test
+  public void testForLength() {
+    assertEquals(new Grid(2, 2, 2, 2), LineCodec.forLength(16).newGrid());
+    assertEquals(new Grid(3, 2, 2, 3), LineCodec.forLength(36).newGrid());
+    assertEquals(new Grid(3, 3, 3, 3), LineCodec.forLength(81).newGrid());
+    assertEquals(new Grid(4, 4, 4, 4), LineCodec.forLength(256).newGrid());
+    assertEquals(new Grid(5, 5, 5, 5), LineCodec.forLength(625).newGrid());
+    assertNull(LineCodec.forLength(0));
+    assertNull(LineCodec.forLength(4));
+    assertNull(LineCodec.forLength(80));
+    assertNull(LineCodec.forLength(49));
+  }
+
+  /**
+   * Tests that letters get decoded case-insensitively and that
+   * non-symbols denote empty cells.
+   */
+  @Test
+  public void testCaseInsensitive() {
+    LineCodec	codec;
+    Grid	grid;
+    String	line;
+
+    codec = LineCodec.get(4, 4, 4, 4);
+    grid  = SampleGrids.solution(new Random(42), DIMENSIONS[3]);
+    line  = codec.encode(grid);
+    assertEquals(grid, codec.decode(line.toLowerCase()));
+
+    codec = LineCodec.get(4, 4, 4, 4, Symbols.HEX);
+    line  = codec.encode(grid);
+    assertTrue(line.indexOf('0') > -1);
+    assertEquals(grid, codec.decode(line.toLowerCase()));
+
+    codec = LineCodec.get(3, 3, 3, 3);
+    line  = "1.x-" + repeat('0', 76) + "9";
+    grid  = codec.decode(line);
+    assertEquals(1, grid.getCells(null)[0]);
+    assertEquals(0, grid.getCells(null)[2]);
+    assertEquals(repeat('0', 80) + "9", codec.encode(codec.decode(repeat('.', 80) + "9")));
+  }
+
+  /**
+   * Tests that lines of the wrong length, grids of different dimensions
+   * and values without symbol get rejected.
+   */
+  @Test
+  public void testInvalid() {
+    LineCodec	codec;
+    Grid	grid;
+    byte[]	cells;
+
+    codec = LineCodec.get(3, 3, 3, 3);
+    assertNull(codec.decode(repeat('1', 80)));
+    assertFalse(codec.decode(new byte[82], 0, 82, codec.newGrid()));
+    assertFalse(codec.decode(repeat('1', 16), new Grid(2, 2, 2, 2)));
+
+    try {
+      codec.encode(new Grid(2, 2, 2, 2));
+      fail("Different dimensions not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    grid  = new Grid();
+    cells = grid.getCells(null);
+    cells[40] = 10;
+    grid.setCells(cells);
+    try {
+      codec.encode(grid);
+      fail("Value without symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("row 4, column 4"));
+    }
+    try {
+      codec.encode(cells);
+      fail("Value without symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new LineCodec(4, 4, 4, 4, Symbols.DIGITS);
+      fail("Too few symbols not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Returns a string consisting of the character repeated.
+   *
+   * @param c		the character
+   * @param count	the number of repetitions
+   * @return		the string
+   */
+  protected static String repeat(char c, int count) {
+    StringBuilder	result;
+    int			i;
+
+    result = new StringBuilder();
+    for (i = 0; i < count; i++)
+      result.append(c);
+
+    return result.toString();
+  }
+}
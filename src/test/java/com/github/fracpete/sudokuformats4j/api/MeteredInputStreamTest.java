@@ -0,0 +1,67 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MeteredInputStreamTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Counter;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Stage;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link MeteredInputStream}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MeteredInputStreamTest {
+
+  /**
+   * Tests counting the bytes and timing the read calls.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testRead() throws Exception {
+    Metrics		metrics;
+    MeteredInputStream	stream;
+    byte[]		buffer;
+
+    metrics = new Metrics();
+    stream  = new MeteredInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}), metrics);
+    buffer  = new byte[4];
+
+    assertEquals(1, stream.read());
+    assertEquals(4, stream.read(buffer));
+    assertEquals(2, buffer[0]);
+    assertEquals(2, stream.skip(2));
+    assertEquals(3, stream.read(buffer, 1, 3));
+    assertEquals(8, buffer[1]);
+    assertEquals(-1, stream.read(buffer));
+    assertEquals(-1, stream.read());
+    stream.close();
+
+    assertEquals(10, metrics.get(Counter.BYTES_READ));
+    assertEquals(5, metrics.getHistogram(Stage.IO_READ).getCount());
+    assertEquals(0, metrics.getHistogram(Stage.READ).getCount());
+  }
+}
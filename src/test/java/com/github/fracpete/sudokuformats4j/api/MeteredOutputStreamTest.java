@@ -0,0 +1,66 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MeteredOutputStreamTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Counter;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Stage;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link MeteredOutputStream}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MeteredOutputStreamTest {
+
+  /**
+   * Tests counting the bytes and timing the write/flush calls.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testWrite() throws Exception {
+    Metrics			metrics;
+    ByteArrayOutputStream	bytes;
+    MeteredOutputStream		stream;
+
+    metrics = new Metrics();
+    bytes   = new ByteArrayOutputStream();
+    stream  = new MeteredOutputStream(bytes, metrics);
+
+    stream.write(1);
+    stream.write(new byte[]{2, 3, 4});
+    stream.write(new byte[]{0, 5, 6, 0}, 1, 2);
+    stream.flush();
+    stream.close();
+
+    assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, bytes.toByteArray());
+    assertEquals(6, metrics.get(Counter.BYTES_WRITTEN));
+    // close() flushes once more
+    assertEquals(5, metrics.getHistogram(Stage.IO_WRITE).getCount());
+    assertEquals(0, metrics.getHistogram(Stage.WRITE).getCount());
+  }
+}
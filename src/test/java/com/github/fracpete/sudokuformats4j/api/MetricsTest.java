@@ -0,0 +1,181 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MetricsTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.OpenSudoku;
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Metrics.Histogram;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Counter;
+import com.github.fracpete.sudokuformats4j.api.PuzzleMetrics.Stage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Metrics} and the metrics collected by the readers.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class MetricsTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Tests the statistics of the histogram.
+   */
+  @Test
+  public void testHistogram() {
+    Histogram	histogram;
+    long[]	buckets;
+
+    histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean(), 0.0);
+    assertEquals(0, histogram.getPercentile(50));
+
+    histogram.add(-5);
+    histogram.add(1);
+    histogram.add(100);
+    histogram.add(1000);
+    assertEquals(4, histogram.getCount());
+    assertEquals(1101, histogram.getTotal());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(1101 / 4.0, histogram.getMean(), 1e-9);
+
+    buckets = histogram.getBuckets();
+    assertEquals(1, buckets[0]);
+    assertEquals(1, buckets[1]);
+    assertEquals(1, buckets[7]);
+    assertEquals(1, buckets[10]);
+
+    assertEquals(1, histogram.getPercentile(50));
+    assertEquals(127, histogram.getPercentile(75));
+    assertEquals(1000, histogram.getPercentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getTotal());
+    assertEquals(0, histogram.getMax());
+  }
+
+  /**
+   * Tests the counters, the stages and the parse time.
+   */
+  @Test
+  public void testMetrics() {
+    Metrics	metrics;
+
+    metrics = new Metrics();
+    metrics.increment(Counter.GRIDS_READ, 2);
+    metrics.increment(Counter.GRIDS_READ, 3);
+    metrics.record(Stage.READ, 1000);
+    metrics.record(Stage.READ, 500);
+    metrics.record(Stage.IO_READ, 300);
+    metrics.record(Stage.DECODE, 200);
+    assertEquals(5, metrics.get(Counter.GRIDS_READ));
+    assertEquals(0, metrics.get(Counter.REJECTED));
+    assertEquals(2, metrics.getHistogram(Stage.READ).getCount());
+    assertEquals(1000, metrics.getParseTime());
+    assertTrue(metrics.toString().contains("GRIDS_READ: 5"));
+    assertTrue(metrics.toString().contains("DECODE: count=1"));
+
+    metrics.record(Stage.IO_READ, 5000);
+    assertEquals(0, metrics.getParseTime());
+
+    metrics.reset();
+    assertEquals(0, metrics.get(Counter.GRIDS_READ));
+    assertEquals(0, metrics.getHistogram(Stage.READ).getCount());
+  }
+
+  /**
+   * Checks the metrics of reading the grids: the I/O and the decoding
+   * must be part of the time of reading the grids.
+   *
+   * @param metrics	the metrics to check
+   * @param file	the file that was read
+   * @param grids	the number of grids in the file
+   */
+  protected void check(Metrics metrics, File file, int grids) {
+    assertEquals(file.length(), metrics.get(Counter.BYTES_READ));
+    assertEquals(grids, metrics.get(Counter.GRIDS_READ));
+    assertEquals(grids, metrics.getHistogram(Stage.READ).getCount());
+    assertEquals(grids, metrics.getHistogram(Stage.DECODE).getCount());
+    assertTrue(metrics.getHistogram(Stage.IO_READ).getCount() > 0);
+    assertTrue(
+      metrics.toString(),
+      metrics.getHistogram(Stage.READ).getTotal() >= metrics.getHistogram(Stage.IO_READ).getTotal() + metrics.getHistogram(Stage.DECODE).getTotal());
+  }
+
+  /**
+   * Tests the metrics of reading puzzle collections, sequentially and in
+   * parallel.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testPuzzleCollection() throws Exception {
+    PuzzleCollection	reader;
+    Metrics		metrics;
+    File		file;
+
+    file = new File(m_Folder.getRoot(), "puzzles" + PuzzleCollection.EXTENSION);
+    new PuzzleCollection().write(SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 500), file);
+
+    for (boolean parallel: new boolean[]{false, true}) {
+      metrics = new Metrics();
+      reader  = new PuzzleCollection();
+      reader.setMetrics(metrics);
+      reader.setParallelRead(parallel);
+      reader.setChunkSize(4096);
+      assertEquals(500, reader.read(file).size());
+      check(metrics, file, 500);
+    }
+  }
+
+  /**
+   * Tests that parsing the XML and decoding the games get timed separately.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testOpenSudoku() throws Exception {
+    OpenSudoku	reader;
+    Metrics	metrics;
+    File	file;
+
+    file = new File(m_Folder.getRoot(), "puzzles" + OpenSudoku.EXTENSION);
+    new OpenSudoku().write(SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 500), file);
+
+    metrics = new Metrics();
+    reader  = new OpenSudoku();
+    reader.setMetrics(metrics);
+    assertEquals(500, reader.read(file).size());
+    check(metrics, file, 500);
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleReaderWriterTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the default methods of {@link PuzzleReader}/{@link PuzzleWriter},
+ * using a reader/writer that only implements the original interfaces.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PuzzleReaderWriterTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Reader/writer that only implements the methods of the original
+   * interfaces.
+   */
+  public static class LegacyReaderWriter
+    implements PuzzleReader, PuzzleWriter {
+
+    /**
+     * Reads the grids from the specified file.
+     *
+     * @param file	the file to read from
+     * @return		the puzzles
+     * @throws Exception	if reading fails
+     */
+    @Override
+    public Puzzles read(File file) throws Exception {
+      return new PuzzleCollection().read(file);
+    }
+
+    /**
+     * Reads the grids using the specified stream.
+     *
+     * @param stream	the stream to use
+     * @return		the puzzles
+     * @throws Exception	if reading fails
+     */
+    @Override
+    public Puzzles read(InputStream stream) throws Exception {
+      return new PuzzleCollection().read(stream);
+    }
+
+    /**
+     * Writes the puzzles to the specified file.
+     *
+     * @param puzzles 	the puzzles
+     * @param file	the file to write to
+     * @throws Exception	if writing fails
+     */
+    @Override
+    public void write(Puzzles puzzles, File file) throws Exception {
+      new PuzzleCollection().write(puzzles, file);
+    }
+
+    /**
+     * Writes the puzzles using the specified stream.
+     *
+     * @param puzzles 	the puzzles
+     * @param stream	the stream to write to
+     * @throws Exception	if writing fails
+     */
+    @Override
+    public void write(Puzzles puzzles, OutputStream stream) throws Exception {
+      new PuzzleCollection().write(puzzles, stream);
+    }
+  }
+
+  /**
+   * Tests the default iterators and sinks.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testDefaultStreaming() throws Exception {
+    LegacyReaderWriter		legacy;
+    Puzzles			expected;
+    Puzzles			actual;
+    File			file;
+    ByteArrayOutputStream	bytes;
+
+    legacy   = new LegacyReaderWriter();
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 50);
+    file     = new File(m_Folder.getRoot(), "legacy" + PuzzleCollection.EXTENSION);
+    try (PuzzleSink sink = legacy.sink(file, null)) {
+      for (Grid grid: expected)
+	sink.append(grid);
+      assertEquals(expected.size(), sink.getCount());
+    }
+    actual = new Puzzles();
+    try (PuzzleIterator iter = legacy.iterator(file)) {
+      while (iter.hasNext())
+	actual.add(iter.next());
+    }
+    assertEquals(expected, actual);
+
+    bytes = new ByteArrayOutputStream();
+    try (PuzzleSink sink = legacy.sink(bytes, null)) {
+      for (Grid grid: expected)
+	sink.append(grid);
+    }
+    actual = new Puzzles();
+    try (PuzzleIterator iter = legacy.iterator(new ByteArrayInputStream(bytes.toByteArray()))) {
+      while (iter.hasNext())
+	actual.add(iter.next());
+    }
+    assertEquals(expected, actual);
+  }
+
+  /**
+   * Tests the defaults for filters and error policies.
+   */
+  @Test
+  public void testDefaultSettings() {
+    LegacyReaderWriter	legacy;
+
+    legacy = new LegacyReaderWriter();
+    legacy.setFilter(null);
+    assertNull(legacy.getFilter());
+    try {
+      legacy.setFilter(grid -> true);
+      fail("Filter should not be supported");
+    }
+    catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    legacy.setErrorPolicy(ErrorPolicy.COLLECT);
+    legacy.setErrorReport(new ErrorReport());
+    assertEquals(ErrorPolicy.FAIL, legacy.getErrorPolicy());
+    assertNull(legacy.getErrorReport());
+  }
+
+  /**
+   * Tests that Reader/Writer are only supported by text formats.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testReaderWriter() throws Exception {
+    PuzzleReader	reader;
+    PuzzleWriter	writer;
+    Puzzles		expected;
+    StringWriter	out;
+
+    expected = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 10);
+    writer   = new PuzzleCollection();
+    reader   = new PuzzleCollection();
+    out      = new StringWriter();
+    writer.write(expected, out);
+    assertEquals(expected, reader.read(new StringReader(out.toString())));
+
+    try {
+      new PuzzleStore().read(new StringReader(out.toString()));
+      fail("Binary format should not read from a Reader");
+    }
+    catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      new PuzzleStore().write(expected, new StringWriter());
+      fail("Binary format should not write to a Writer");
+    }
+    catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      new LegacyReaderWriter().read(new StringReader(out.toString()));
+      fail("Reader should not be supported");
+    }
+    catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SymbolsTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link Symbols}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SymbolsTest {
+
+  /**
+   * Tests converting between values and chars.
+   */
+  @Test
+  public void testConversion() {
+    byte	i;
+
+    for (i = 0; i <= Symbols.ALPHANUMERIC.size(); i++)
+      assertEquals(i, Symbols.ALPHANUMERIC.valueOf(Symbols.ALPHANUMERIC.charOf(i)));
+    assertEquals('0', Symbols.DIGITS.charOf((byte) 0));
+    assertEquals('.', Symbols.HEX.charOf((byte) 0));
+    assertEquals(1, Symbols.HEX.valueOf('0'));
+    assertEquals(16, Symbols.HEX.valueOf('F'));
+    assertEquals(0, Symbols.DIGITS.valueOf('0'));
+    assertEquals(0, Symbols.DIGITS.valueOf('.'));
+    assertEquals(0, Symbols.DIGITS.valueOf('A'));
+    assertEquals(0, Symbols.DIGITS.valueOf('€'));
+    assertEquals(9, Symbols.DIGITS.valueOf((byte) '9'));
+    assertEquals(0, Symbols.DIGITS.valueOf((byte) 0xE4));
+  }
+
+  /**
+   * Tests that letters are case-insensitive, for upper and lower case
+   * symbols.
+   */
+  @Test
+  public void testCaseInsensitive() {
+    Symbols	lower;
+
+    assertEquals(Symbols.ALPHANUMERIC.valueOf('G'), Symbols.ALPHANUMERIC.valueOf('g'));
+    assertEquals(Symbols.LETTERS.valueOf((byte) 'Z'), Symbols.LETTERS.valueOf((byte) 'z'));
+    lower = new Symbols("abcd", '-');
+    assertEquals(2, lower.valueOf('b'));
+    assertEquals(2, lower.valueOf('B'));
+    assertEquals('b', lower.charOf((byte) 2));
+  }
+
+  /**
+   * Tests that invalid symbols get rejected.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new Symbols("ABCD", 'a');
+      fail("Empty char colliding with lower case symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new Symbols("abcd", 'A');
+      fail("Empty char colliding with upper case symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new Symbols("1234", '1');
+      fail("Empty char colliding with symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new Symbols("aA", '.');
+      fail("Duplicate symbols (ignoring case) not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new Symbols("12ä", '.');
+      fail("Non-ASCII symbol not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests the default symbols for the number of digits.
+   */
+  @Test
+  public void testForDigits() {
+    assertSame(Symbols.DIGITS, Symbols.forDigits(4));
+    assertSame(Symbols.DIGITS, Symbols.forDigits(9));
+    assertSame(Symbols.ALPHANUMERIC, Symbols.forDigits(16));
+    assertSame(Symbols.ALPHANUMERIC, Symbols.forDigits(35));
+    try {
+      Symbols.forDigits(36);
+      fail("Too many digits not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests equality.
+   */
+  @Test
+  public void testEquals() {
+    assertEquals(Symbols.HEX, new Symbols("0123456789ABCDEF", '.'));
+    assertEquals(Symbols.HEX.hashCode(), new Symbols("0123456789ABCDEF", '.').hashCode());
+    assertNotEquals(Symbols.HEX, new Symbols("0123456789ABCDEF", '-'));
+    assertNotEquals(Symbols.HEX, Symbols.LETTERS);
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ValidatedGridTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.api;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ValidatedGrid}, comparing the tracked conflicts and
+ * candidates against rescanning all the cells.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ValidatedGridTest {
+
+  /**
+   * Returns the cells of the unit (0-8: rows, 9-17: columns, 18-26: boxes
+   * for 9x9 grids).
+   *
+   * @param grid	the grid
+   * @param unit	the unit
+   * @return		the cell indices (row-wise from the top)
+   */
+  protected int[] unit(Grid grid, int unit) {
+    int[]	result;
+    int		digits;
+    int		n;
+    int		i;
+
+    digits = grid.height();
+    n      = unit % digits;
+    result = new int[digits];
+    for (i = 0; i < digits; i++) {
+      if (unit < digits)
+	result[i] = n * digits + i;
+      else if (unit < 2 * digits)
+	result[i] = i * digits + n;
+      else
+	result[i] = ((n / grid.cols()) * grid.subRows() + i / grid.subCols()) * digits
+	  + (n % grid.cols()) * grid.subCols() + i % grid.subCols();
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks the tracked state against rescanning the cells.
+   *
+   * @param grid	the grid to check
+   */
+  protected void check(ValidatedGrid grid) {
+    byte[]	cells;
+    int[]	counts;
+    int[]	cell;
+    int		digits;
+    int		conflicts;
+    int		filled;
+    int		candidates;
+    boolean	conflict;
+    int		y;
+    int		x;
+    int		u;
+    int		d;
+
+    cells     = grid.getCells(null);
+    digits    = grid.digits();
+    conflicts = 0;
+    for (u = 0; u < 3 * digits; u++) {
+      counts = new int[digits + 1];
+      for (int i: unit(grid, u))
+	counts[cells[i]]++;
+      for (d = 1; d <= digits; d++)
+	conflicts += Math.max(0, counts[d] - 1);
+    }
+    filled = 0;
+    for (byte value: cells) {
+      if (value > 0)
+	filled++;
+    }
+    assertEquals(conflicts, grid.getConflicts());
+    assertEquals(filled, grid.getFilled());
+    assertEquals(conflicts == 0, grid.isValid());
+    assertEquals((conflicts == 0) && (filled == digits * digits), grid.isSolved());
+
+    for (y = 0; y < digits; y++) {
+      for (x = 0; x < digits; x++) {
+	// candidates/conflict from the other cells of the row, column and box
+	candidates = (1 << digits) - 1;
+	conflict   = false;
+	for (u = 0; u < 3; u++) {
+	  cell = unit(grid, u * digits + ((u == 0) ? y : (u == 1) ? x : grid.box(y, x)));
+	  for (int i: cell) {
+	    if ((i == y * digits + x) || (cells[i] == 0))
+	      continue;
+	    candidates &= ~(1 << (cells[i] - 1));
+	    if (cells[i] == cells[y * digits + x])
+	      conflict = true;
+	  }
+	}
+	assertEquals("row " + y + ", col " + x, candidates, grid.getCandidates(y, x));
+	assertEquals("row " + y + ", col " + x, conflict, grid.hasConflict(y, x));
+	for (d = 1; d <= digits; d++)
+	  assertEquals((candidates & (1 << (d - 1))) != 0, grid.canPlace(y, x, d));
+      }
+    }
+  }
+
+  /**
+   * Tests tracking changes via {@link ValidatedGrid#setCell(int, int, byte)}
+   * and {@link SubGrid#set(int, int, byte)} of the subgrids.
+   */
+  @Test
+  public void testSetCell() {
+    Random		random;
+    ValidatedGrid	grid;
+    int			digits;
+    int			y;
+    int			x;
+    int			i;
+
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      grid   = new ValidatedGrid(SampleGrids.puzzle(random, dims, 0.5));
+      digits = grid.digits();
+      check(grid);
+      for (i = 0; i < 200; i++) {
+	y = random.nextInt(digits);
+	x = random.nextInt(digits);
+	if (i % 2 == 0)
+	  grid.setCell(y, x, (byte) random.nextInt(digits + 1));
+	else
+	  grid.get(y / grid.subRows(), x / grid.subCols()).set(y % grid.subRows(), x % grid.subCols(), (byte) random.nextInt(digits + 1));
+	if (i % 20 == 0)
+	  check(grid);
+      }
+      check(grid);
+    }
+  }
+
+  /**
+   * Tests tracking bulk changes via {@link ValidatedGrid#setCells(byte[])},
+   * {@link ValidatedGrid#set(int, int, SubGrid)} and decoding lines.
+   */
+  @Test
+  public void testBulk() {
+    Random		random;
+    ValidatedGrid	grid;
+    Grid		other;
+    LineCodec		codec;
+    char[]		chars;
+
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      grid  = new ValidatedGrid(dims[0], dims[1], dims[2], dims[3]);
+      codec = LineCodec.get(dims[0], dims[1], dims[2], dims[3]);
+      check(grid);
+
+      grid.setCells(SampleGrids.solution(random, dims).getCells(null));
+      check(grid);
+      assertTrue(grid.isSolved());
+
+      other = SampleGrids.puzzle(random, dims, 0.7);
+      grid.set(0, 0, other.get(0, 0));
+      grid.set(dims[0] - 1, dims[1] - 1, other.get(dims[0] - 1, dims[1] - 1));
+      check(grid);
+
+      assertTrue(codec.decode(SampleGrids.puzzle(random, dims, 0.6).toLine(), grid));
+      check(grid);
+
+      chars = codec.encode(SampleGrids.solution(random, dims)).toCharArray();
+      chars[0] = chars[1];
+      assertTrue(codec.decode(chars, 0, chars.length, grid));
+      check(grid);
+      assertFalse(grid.isValid());
+      assertTrue(grid.hasConflict(0, 0));
+    }
+  }
+
+  /**
+   * Tests conflicts and candidates of cells whose digit occurs elsewhere.
+   */
+  @Test
+  public void testConflicts() {
+    ValidatedGrid	grid;
+
+    grid = new ValidatedGrid();
+    grid.setCell(0, 0, (byte) 5);
+    grid.setCell(0, 8, (byte) 5);
+    grid.setCell(2, 2, (byte) 5);
+    assertEquals(2, grid.getConflicts());
+    assertTrue(grid.hasConflict(0, 0));
+    assertTrue(grid.hasConflict(0, 8));
+    assertTrue(grid.hasConflict(2, 2));
+    assertFalse(grid.hasConflict(1, 1));
+    assertFalse(grid.canPlace(0, 0, 5));
+    assertTrue(grid.canPlace(0, 0, 4));
+    assertEquals(0x1FF & ~(1 << 4), grid.getCandidates(0, 0));
+    check(grid);
+
+    grid.setCell(0, 8, (byte) 0);
+    assertEquals(1, grid.getConflicts());
+    assertFalse(grid.hasConflict(0, 8));
+    check(grid);
+
+    grid.setCell(2, 2, (byte) 0);
+    assertTrue(grid.isValid());
+    assertTrue(grid.canPlace(0, 0, 5));
+    assertEquals(0x1FF, grid.getCandidates(0, 0));
+    check(grid);
+  }
+
+  /**
+   * Tests that invalid values and dimensions get rejected, without
+   * modifying the grid.
+   */
+  @Test
+  public void testInvalid() {
+    ValidatedGrid	grid;
+    byte[]		cells;
+
+    grid  = new ValidatedGrid(2, 2, 2, 2);
+    cells = new byte[16];
+    cells[3] = 5;
+    try {
+      grid.setCells(cells);
+      fail("Value too large not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      grid.get(0, 0).set(0, 0, (byte) 5);
+      fail("Value too large not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      grid.setCell(4, 0, (byte) 1);
+      fail("Invalid row not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertEquals(0, grid.getFilled());
+    check(grid);
+
+    try {
+      new ValidatedGrid(3, 3, 2, 2);
+      fail("Unsupported dimensions not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridOperationsTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.batch;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the {@link GridOperations}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class GridOperationsTest {
+
+  /**
+   * Tests classifying single grids.
+   */
+  @Test
+  public void testClassify() {
+    for (String[] known: SampleGrids.KNOWN) {
+      assertEquals(Classification.UNIQUE, GridOperations.classify(Grid.fromLine(known[0])));
+      assertEquals(Classification.UNIQUE, GridOperations.classify(Grid.fromLine(known[1])));
+    }
+    assertEquals(Classification.MULTIPLE_SOLUTIONS, GridOperations.classify(new Grid()));
+    assertEquals(Classification.NO_SOLUTION, GridOperations.classify(Grid.fromLine("44" + SampleGrids.KNOWN[0][1].substring(2))));
+    assertEquals(Classification.INVALID, GridOperations.classify(new Grid(2, 3, 2, 2)));
+  }
+
+  /**
+   * Tests that unsupported grids don't abort classifying a batch.
+   *
+   * @throws Exception	if processing fails
+   */
+  @Test
+  public void testClassifyBatch() throws Exception {
+    List<Grid>			grids;
+    List<Classification>	classes;
+
+    grids = Arrays.asList(
+      Grid.fromLine(SampleGrids.KNOWN[0][0]),
+      new Grid(2, 3, 2, 2),
+      new Grid());
+    classes = new BatchProcessor().process(grids, GridOperations.classify());
+    assertEquals(Arrays.asList(Classification.UNIQUE, Classification.INVALID, Classification.MULTIPLE_SOLUTIONS), classes);
+  }
+}
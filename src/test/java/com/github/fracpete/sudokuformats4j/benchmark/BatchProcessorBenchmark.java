@@ -0,0 +1,130 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BatchProcessorBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.batch.BatchProcessor;
+import com.github.fracpete.sudokuformats4j.batch.Classification;
+import com.github.fracpete.sudokuformats4j.batch.GridOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures classifying a batch of minimal puzzles with the
+ * {@link BatchProcessor} using the specified number of threads, compared
+ * to a plain loop in the calling thread (threads = 0).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BatchProcessorBenchmark.NUM_PUZZLES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchProcessorBenchmark {
+
+  /** the number of puzzles in the batch. */
+  public static final int NUM_PUZZLES = 10000;
+
+  /** the number of threads (0 = calling thread only). */
+  @Param({"0", "1", "2", "4", "8"})
+  public int threads;
+
+  /** the puzzles. */
+  protected Puzzles m_Puzzles;
+
+  /** the executor. */
+  protected ExecutorService m_Executor;
+
+  /** the processor. */
+  protected BatchProcessor m_Processor;
+
+  /**
+   * Generates the puzzles and sets up the executor.
+   */
+  @Setup
+  public void setUp() {
+    m_Puzzles = new Puzzles();
+    m_Puzzles.addAll(Arrays.asList(Corpus.minimal(NUM_PUZZLES)));
+    if (threads > 0) {
+      m_Executor  = Executors.newFixedThreadPool(threads);
+      m_Processor = new BatchProcessor(m_Executor, BatchProcessor.DEFAULT_CHUNK_SIZE, 4 * threads);
+    }
+  }
+
+  /**
+   * Shuts down the executor.
+   */
+  @TearDown
+  public void tearDown() {
+    if (m_Executor != null)
+      m_Executor.shutdownNow();
+  }
+
+  /**
+   * Classifies all puzzles.
+   *
+   * @return		the classifications
+   * @throws Exception	if processing fails
+   */
+  @Benchmark
+  public List<Classification> classify() throws Exception {
+    List<Classification>	result;
+
+    if (m_Processor != null)
+      return m_Processor.process(m_Puzzles, GridOperations.classify());
+
+    result = new ArrayList<>();
+    for (Grid grid: m_Puzzles)
+      result.add(GridOperations.classify(grid));
+
+    return result;
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(BatchProcessorBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
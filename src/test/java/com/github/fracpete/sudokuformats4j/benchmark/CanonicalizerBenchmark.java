@@ -0,0 +1,124 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CanonicalizerBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.symmetry.DuplicateFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of grids per second that a single thread can
+ * canonicalize and deduplicate, for random clue patterns, random minimal
+ * puzzles and the well-known hardest puzzles.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CanonicalizerBenchmark {
+
+  /** the number of minimal puzzles to generate. */
+  public static final int NUM_MINIMAL = 1000;
+
+  /** the name of the set of random clue patterns. */
+  public static final String SET_RANDOM = "random";
+
+  /** the puzzle set. */
+  @Param({SET_RANDOM, Corpus.SET_MINIMAL, Corpus.SET_HARDEST})
+  public String set;
+
+  /** the puzzles. */
+  protected Grid[] m_Puzzles;
+
+  /** the duplicate filter. */
+  protected DuplicateFilter m_Filter;
+
+  /** the index of the current puzzle. */
+  protected int m_Index;
+
+  /**
+   * Generates the puzzles.
+   */
+  @Setup
+  public void setUp() {
+    if (set.equals(SET_RANDOM))
+      m_Puzzles = Corpus.pool();
+    else
+      m_Puzzles = Corpus.puzzles(set, NUM_MINIMAL);
+    m_Filter = new DuplicateFilter();
+    m_Index  = 0;
+  }
+
+  /**
+   * Returns the next puzzle.
+   *
+   * @return		the puzzle
+   */
+  protected Grid next() {
+    m_Index = (m_Index + 1) % m_Puzzles.length;
+    return m_Puzzles[m_Index];
+  }
+
+  /**
+   * Computes the key of a grid (canonical, or exact for grids that
+   * cannot be canonicalized).
+   *
+   * @return		the key
+   */
+  @Benchmark
+  public long key() {
+    return m_Filter.key(next());
+  }
+
+  /**
+   * Runs a grid through the duplicate filter.
+   *
+   * @return		true if first occurrence
+   */
+  @Benchmark
+  public boolean accept() {
+    return m_Filter.accept(next());
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(CanonicalizerBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClueIndexBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.index.ClueIndex;
+import com.github.fracpete.sudokuformats4j.index.ClueSymmetry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures queries on a {@link ClueIndex} of random clue patterns (cycling
+ * through the pool): clue positions plus number of clues, the symmetry of
+ * the layout and an exact layout.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ClueIndexBenchmark {
+
+  /** the number of grids in the index. */
+  @Param({"1000000", "10000000"})
+  public int size;
+
+  /** the index. */
+  protected ClueIndex m_Index;
+
+  /** the query for clue positions and number of clues. */
+  protected ClueIndex.Query m_Clues;
+
+  /** the query for the symmetry. */
+  protected ClueIndex.Query m_Symmetry;
+
+  /** the query for an exact layout. */
+  protected ClueIndex.Query m_Layout;
+
+  /**
+   * Builds the index and the queries.
+   */
+  @Setup
+  public void setUp() {
+    Grid[]	pool;
+    int		i;
+
+    pool    = Corpus.pool();
+    m_Index = new ClueIndex();
+    for (i = 0; i < size; i++)
+      m_Index.add(pool[i % pool.length]);
+
+    m_Clues = m_Index.query();
+    m_Clues.require(40);
+    m_Clues.forbid(0);
+    m_Clues.setMaxClues(25);
+    m_Symmetry = m_Index.query();
+    m_Symmetry.setSymmetries(ClueSymmetry.ROTATIONAL);
+    m_Layout = m_Index.query();
+    m_Layout.setLayout(pool[0]);
+  }
+
+  /**
+   * Counts the grids with the specified clue positions and number of clues.
+   *
+   * @return		the number of matches
+   */
+  @Benchmark
+  public int clues() {
+    return m_Index.count(m_Clues);
+  }
+
+  /**
+   * Counts the grids with a symmetric layout.
+   *
+   * @return		the number of matches
+   */
+  @Benchmark
+  public int symmetry() {
+    return m_Index.count(m_Symmetry);
+  }
+
+  /**
+   * Returns the positions of the grids with the same layout.
+   *
+   * @return		the positions
+   */
+  @Benchmark
+  public int[] layout() {
+    return m_Index.search(m_Layout);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(ClueIndexBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CompressionBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of reading/writing PuzzleCollection files with
+ * the different compression formats. Unlike the {@link Corpus} files, which
+ * cycle through a small pool, every grid is distinct, to avoid unrealistic
+ * compression ratios. The "bytes" counter reports the throughput in
+ * uncompressed bytes per second.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CompressionBenchmark {
+
+  /** the compression format. */
+  @Param({"NONE", "GZIP", "XZ", "ZSTD"})
+  public Compression compression;
+
+  /** the number of grids in the corpus. */
+  @Param({"100000"})
+  public int size;
+
+  /** the grids to write. */
+  protected Grid[] m_Grids;
+
+  /** the compressed corpus file. */
+  protected File m_File;
+
+  /** the file to write to. */
+  protected File m_Output;
+
+  /** the uncompressed size of the corpus. */
+  protected long m_Length;
+
+  /** the reader/writer. */
+  protected PuzzleCollection m_Format;
+
+  /**
+   * Counts the bytes that have been processed.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+
+    /** the number of (uncompressed) bytes read/written. */
+    public long bytes;
+
+    /**
+     * Resets the counter.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Generates the grids and the compressed corpus.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    Random	random;
+    int		i;
+
+    random  = new Random(Corpus.SEED);
+    m_Grids = new Grid[size];
+    for (i = 0; i < size; i++)
+      m_Grids[i] = Grid.fromLine(Corpus.line(random));
+
+    m_Format = new PuzzleCollection();
+    m_Format.setUseByteParser(true);
+    m_File   = File.createTempFile("compression-", ".sdm" + compression.getExtension());
+    m_Output = File.createTempFile("compression-out-", ".sdm" + compression.getExtension());
+    write(m_File);
+    m_Length = (long) size * 82;
+  }
+
+  /**
+   * Removes the temp files.
+   */
+  @TearDown
+  public void tearDown() {
+    m_File.delete();
+    m_Output.delete();
+  }
+
+  /**
+   * Writes all the grids to the file.
+   *
+   * @param file	the file to write to
+   * @throws Exception	if writing fails
+   */
+  protected void write(File file) throws Exception {
+    try (PuzzleSink sink = m_Format.sink(file, null)) {
+      for (Grid grid: m_Grids)
+	sink.append(grid);
+    }
+  }
+
+  /**
+   * Reads all the grids, decompressing them on the fly.
+   *
+   * @param blackhole	for consuming the grids
+   * @param counters	for counting the bytes
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public void readAll(Blackhole blackhole, Counters counters) throws Exception {
+    try (PuzzleIterator iter = m_Format.iterator(m_File)) {
+      while (iter.hasNext())
+	blackhole.consume(iter.next());
+    }
+    counters.bytes += m_Length;
+  }
+
+  /**
+   * Writes all the grids, compressing them on the fly.
+   *
+   * @param counters	for counting the bytes
+   * @throws Exception	if writing fails
+   */
+  @Benchmark
+  public void writeAll(Counters counters) throws Exception {
+    write(m_Output);
+    counters.bytes += m_Length;
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(CompressionBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
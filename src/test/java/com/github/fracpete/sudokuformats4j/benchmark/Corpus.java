@@ -0,0 +1,325 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Corpus.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.OpenSudoku;
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.PuzzlePack;
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic puzzle corpora for the benchmarks. The grids are
+ * random clue patterns, i.e., not necessarily valid sudokus.
+ * Corpus files get generated once in the "sudokuformats4j-corpora"
+ * directory in the temp directory and then get reused.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Corpus {
+
+  /** the seed to use. */
+  public static final long SEED = 42;
+
+  /** the probability of a cell being a clue. */
+  public static final double CLUE_PROBABILITY = 0.3;
+
+  /** the number of distinct grids in a pool. */
+  public static final int POOL_SIZE = 1024;
+
+  /** the name of the PuzzleCollection format. */
+  public static final String PUZZLE_COLLECTION = "PuzzleCollection";
+
+  /** the name of the OpenSudoku format. */
+  public static final String OPEN_SUDOKU = "OpenSudoku";
+
+  /** the name of the PuzzleStore format. */
+  public static final String PUZZLE_STORE = "PuzzleStore";
+
+  /** the name of the PuzzlePack format. */
+  public static final String PUZZLE_PACK = "PuzzlePack";
+
+  /** the name of the set of hardest puzzles. */
+  public static final String SET_HARDEST = "hardest";
+
+  /** the name of the set of minimal puzzles. */
+  public static final String SET_MINIMAL = "minimal";
+
+  /**
+   * Generates a random 9x9 grid line.
+   *
+   * @param random	the random number generator to use
+   * @return		the line
+   */
+  public static String line(Random random) {
+    char[]	result;
+    int		i;
+
+    result = new char[81];
+    for (i = 0; i < result.length; i++) {
+      if (random.nextDouble() < CLUE_PROBABILITY)
+	result[i] = (char) ('1' + random.nextInt(9));
+      else
+	result[i] = '0';
+    }
+
+    return new String(result);
+  }
+
+  /**
+   * Generates an OpenSudoku XML document.
+   *
+   * @param games	the number of games to generate
+   * @return		the document
+   */
+  public static String openSudoku(int games) {
+    StringBuilder	result;
+    Random		random;
+    int			i;
+
+    random = new Random(SEED);
+    result = new StringBuilder();
+    result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    result.append("<opensudoku>\n");
+    result.append("  <name>benchmark</name>\n");
+    result.append("  <level>medium</level>\n");
+    for (i = 0; i < games; i++)
+      result.append("  <game data='").append(line(random)).append("' />\n");
+    result.append("</opensudoku>\n");
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the well-known hardest puzzles.
+   *
+   * @return		the puzzles
+   */
+  public static Grid[] hardest() {
+    Grid[]	result;
+    int		i;
+
+    result = new Grid[SampleGrids.HARDEST.length];
+    for (i = 0; i < SampleGrids.HARDEST.length; i++)
+      result[i] = Grid.fromLine(SampleGrids.HARDEST[i]);
+
+    return result;
+  }
+
+  /**
+   * Generates minimal puzzles with a unique solution, by removing clues
+   * in random order from the solutions of the hardest puzzles as long as
+   * the solution stays unique.
+   *
+   * @param count	the number of puzzles to generate
+   * @return		the puzzles
+   */
+  public static Grid[] minimal(int count) {
+    Grid[]		result;
+    Grid[]		hardest;
+    Solver		solver;
+    Random		random;
+    byte[]		cells;
+    int[]		order;
+    int			i;
+    int			j;
+    int			n;
+    int			tmp;
+    byte		value;
+
+    result  = new Grid[count];
+    hardest = hardest();
+    solver  = new Solver();
+    random  = new Random(SEED);
+    for (n = 0; n < count; n++) {
+      result[n] = solver.solve(hardest[n % hardest.length]);
+      cells     = result[n].getCells(null);
+      order     = new int[cells.length];
+      for (i = 0; i < order.length; i++)
+	order[i] = i;
+      for (i = order.length - 1; i > 0; i--) {
+	j        = random.nextInt(i + 1);
+	tmp      = order[i];
+	order[i] = order[j];
+	order[j] = tmp;
+      }
+      for (i = 0; i < order.length; i++) {
+	value           = cells[order[i]];
+	cells[order[i]] = 0;
+	result[n].setCells(cells);
+	if (solver.countSolutions(result[n], 2) != 1)
+	  cells[order[i]] = value;
+      }
+      result[n].setCells(cells);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the specified set of valid puzzles.
+   *
+   * @param set		the name of the set (hardest/minimal)
+   * @param count	the number of puzzles (minimal only)
+   * @return		the puzzles
+   * @see		#SET_HARDEST
+   * @see		#SET_MINIMAL
+   */
+  public static Grid[] puzzles(String set, int count) {
+    switch (set) {
+      case SET_HARDEST:
+	return hardest();
+      case SET_MINIMAL:
+	return minimal(count);
+      default:
+	throw new IllegalArgumentException("Unknown puzzle set: " + set);
+    }
+  }
+
+  /**
+   * Generates a pool of random 9x9 grids.
+   *
+   * @return		the grids
+   */
+  public static Grid[] pool() {
+    Grid[]	result;
+    Random	random;
+    int		i;
+
+    random = new Random(SEED);
+    result = new Grid[POOL_SIZE];
+    for (i = 0; i < result.length; i++)
+      result[i] = Grid.fromLine(line(random));
+
+    return result;
+  }
+
+  /**
+   * Instantiates the format.
+   *
+   * @param format	the name of the format
+   * @return		the reader/writer
+   */
+  public static PuzzleWriter writer(String format) {
+    switch (format) {
+      case PUZZLE_COLLECTION:
+	return new PuzzleCollection();
+      case OPEN_SUDOKU:
+	return new OpenSudoku();
+      case PUZZLE_STORE:
+	return new PuzzleStore();
+      case PUZZLE_PACK:
+	return new PuzzlePack();
+      default:
+	throw new IllegalArgumentException("Unknown format: " + format);
+    }
+  }
+
+  /**
+   * Instantiates the format.
+   *
+   * @param format	the name of the format
+   * @return		the reader/writer
+   */
+  public static PuzzleReader reader(String format) {
+    return (PuzzleReader) writer(format);
+  }
+
+  /**
+   * Returns the file extension for the format.
+   *
+   * @param format	the name of the format
+   * @return		the extension
+   */
+  public static String extension(String format) {
+    switch (format) {
+      case PUZZLE_COLLECTION:
+	return ".sdm";
+      case OPEN_SUDOKU:
+	return ".opensudoku";
+      case PUZZLE_STORE:
+	return PuzzleStore.EXTENSION;
+      case PUZZLE_PACK:
+	return PuzzlePack.EXTENSION;
+      default:
+	throw new IllegalArgumentException("Unknown format: " + format);
+    }
+  }
+
+  /**
+   * Writes the specified number of grids (cycling through the pool) to the sink.
+   *
+   * @param sink	the sink to write to
+   * @param pool	the grids to use
+   * @param size	the number of grids to write
+   * @throws Exception	if writing fails
+   */
+  public static void write(PuzzleSink sink, Grid[] pool, int size) throws Exception {
+    int		i;
+
+    for (i = 0; i < size; i++)
+      sink.append(pool[i % pool.length]);
+  }
+
+  /**
+   * Returns the corpus file, generates it if necessary.
+   *
+   * @param format	the name of the format
+   * @param size	the number of grids
+   * @return		the file
+   * @throws Exception	if generating fails
+   */
+  public static synchronized File file(String format, int size) throws Exception {
+    File		dir;
+    File		result;
+    File		tmp;
+    Map<String,String>	metaData;
+
+    dir = new File(System.getProperty("java.io.tmpdir"), "sudokuformats4j-corpora");
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IllegalStateException("Failed to create directory: " + dir);
+    result = new File(dir, format + "-" + size + extension(format));
+    if (result.exists())
+      return result;
+
+    tmp      = new File(dir, result.getName() + ".tmp");
+    metaData = new HashMap<>();
+    metaData.put("name", "benchmark");
+    metaData.put("level", "medium");
+    try (PuzzleSink sink = writer(format).sink(tmp, metaData)) {
+      write(sink, pool(), size);
+    }
+    if (!tmp.renameTo(result))
+      throw new IllegalStateException("Failed to rename " + tmp + " to " + result);
+
+    return result;
+  }
+}
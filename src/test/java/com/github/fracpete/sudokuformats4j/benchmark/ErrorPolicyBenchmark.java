@@ -0,0 +1,135 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ErrorPolicyBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.api.ErrorPolicy;
+import com.github.fracpete.sudokuformats4j.api.ErrorReport;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a dirty PuzzleCollection file (a fraction of the lines
+ * cannot be parsed) with the different error policies.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ErrorPolicyBenchmark {
+
+  /** the error policy. */
+  @Param({"SKIP", "COLLECT"})
+  public ErrorPolicy policy;
+
+  /** whether to use the byte parser. */
+  @Param({"false", "true"})
+  public boolean byteParser;
+
+  /** the number of lines in the file. */
+  @Param({"100000"})
+  public int size;
+
+  /** the fraction of lines that cannot be parsed. */
+  @Param({"0.1"})
+  public double dirty;
+
+  /** the dirty file. */
+  protected File m_File;
+
+  /** the reader. */
+  protected PuzzleCollection m_Reader;
+
+  /**
+   * Generates the dirty file.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    Random	random;
+    int		i;
+
+    random = new Random(Corpus.SEED);
+    m_File = File.createTempFile("dirty-", ".sdm");
+    try (PrintWriter writer = new PrintWriter(m_File)) {
+      for (i = 0; i < size; i++) {
+	if (random.nextDouble() < dirty)
+	  writer.println(Corpus.line(random).substring(0, 1 + random.nextInt(80)));
+	else
+	  writer.println(Corpus.line(random));
+      }
+    }
+
+    m_Reader = new PuzzleCollection();
+    m_Reader.setUseByteParser(byteParser);
+    m_Reader.setErrorPolicy(policy);
+    m_Reader.setErrorReport(new ErrorReport());
+  }
+
+  /**
+   * Removes the dirty file.
+   */
+  @TearDown
+  public void tearDown() {
+    m_File.delete();
+  }
+
+  /**
+   * Reads the file.
+   *
+   * @return		the grids
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public Puzzles read() throws Exception {
+    m_Reader.getErrorReport().clear();
+    return m_Reader.read(m_File);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(ErrorPolicyBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
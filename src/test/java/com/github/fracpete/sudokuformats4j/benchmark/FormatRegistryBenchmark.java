@@ -0,0 +1,115 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * FormatRegistryBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.FormatRegistry;
+import com.github.fracpete.sudokuformats4j.api.PuzzleFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast the format of a file gets detected by sniffing its
+ * content, i.e., opening the file and inspecting the first few KB
+ * ("file"), as well as the sniffing alone on bytes in memory ("header").
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class FormatRegistryBenchmark {
+
+  /** the format of the file. */
+  @Param({Corpus.PUZZLE_COLLECTION, Corpus.OPEN_SUDOKU, Corpus.PUZZLE_STORE, Corpus.PUZZLE_PACK})
+  public String format;
+
+  /** the file to detect the format for. */
+  protected File m_File;
+
+  /** the start of the file. */
+  protected byte[] m_Header;
+
+  /** the registry. */
+  protected FormatRegistry m_Registry;
+
+  /**
+   * Generates the corpus, if necessary.
+   *
+   * @throws Exception	if generating fails or format not detected correctly
+   */
+  @Setup
+  public void setUp() throws Exception {
+    byte[]	content;
+
+    m_File     = Corpus.file(format, 100000);
+    m_Registry = new FormatRegistry();
+    content    = Files.readAllBytes(m_File.toPath());
+    m_Header   = new byte[Math.min(content.length, FormatRegistry.SNIFF_SIZE)];
+    System.arraycopy(content, 0, m_Header, 0, m_Header.length);
+    if (!m_Registry.detect(m_File).getName().equals(format))
+      throw new IllegalStateException("Failed to detect format: " + format);
+  }
+
+  /**
+   * Detects the format of the file.
+   *
+   * @return		the format
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public PuzzleFormat file() throws Exception {
+    return m_Registry.detect(m_File);
+  }
+
+  /**
+   * Detects the format from the start of the file.
+   *
+   * @return		the format
+   */
+  @Benchmark
+  public PuzzleFormat header() {
+    return m_Registry.detect(m_Header, m_Header.length, false);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(FormatRegistryBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GeneratorBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import com.github.fracpete.sudokuformats4j.generator.BatchGenerator;
+import com.github.fracpete.sudokuformats4j.generator.Generator;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of 9x9 puzzles per second that get generated with
+ * the specified number of threads and target number of clues (0 = minimal),
+ * streamed into the sink of the specified format.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(GeneratorBenchmark.NUM_PUZZLES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+  /** the number of puzzles to generate per invocation. */
+  public static final int NUM_PUZZLES = 200;
+
+  /** the number of threads. */
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  /** the target number of clues. */
+  @Param({"0", "30"})
+  public int clues;
+
+  /** the format to write. */
+  @Param({Corpus.PUZZLE_COLLECTION, Corpus.OPEN_SUDOKU})
+  public String format;
+
+  /** the executor. */
+  protected ExecutorService m_Executor;
+
+  /** the generator. */
+  protected BatchGenerator m_Generator;
+
+  /** the writer. */
+  protected PuzzleWriter m_Writer;
+
+  /**
+   * Sets up the executor and generator.
+   */
+  @Setup
+  public void setUp() {
+    m_Executor  = Executors.newFixedThreadPool(threads);
+    m_Generator = new BatchGenerator(() -> {
+      Generator result = new Generator();
+      result.setClues(clues);
+      return result;
+    }, m_Executor, BatchGenerator.DEFAULT_CHUNK_SIZE, 4 * threads);
+    m_Generator.setSeed(Corpus.SEED);
+    m_Writer = Corpus.writer(format);
+  }
+
+  /**
+   * Shuts down the executor.
+   */
+  @TearDown
+  public void tearDown() {
+    m_Executor.shutdownNow();
+  }
+
+  /**
+   * Generates the puzzles.
+   *
+   * @return		the number of puzzles written
+   * @throws Exception	if generating fails
+   */
+  @Benchmark
+  public long generate() throws Exception {
+    try (PuzzleSink sink = m_Writer.sink(NullOutputStream.INSTANCE, null)) {
+      m_Generator.generate(NUM_PUZZLES, sink);
+      return sink.getCount();
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(GeneratorBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridCodecBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.LineCodec;
+import com.github.fracpete.sudokuformats4j.api.SubGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-grid cost of converting grids to and from lines, comparing
+ * the {@link LineCodec} against the former string-based implementations.
+ * Run with "-prof gc" to see the allocation rates.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridCodecBenchmark {
+
+  /** the number of distinct lines to cycle through. */
+  public static final int NUM_LINES = 1024;
+
+  /** the lines. */
+  protected String[] m_Lines;
+
+  /** the lines as chars. */
+  protected char[][] m_Chars;
+
+  /** the decoded grids. */
+  protected Grid[] m_Grids;
+
+  /** the reusable grid to decode into. */
+  protected Grid m_Grid;
+
+  /** the reusable buffer to encode into. */
+  protected char[] m_Buffer;
+
+  /** the codec. */
+  protected LineCodec m_Codec;
+
+  /** the index of the current line/grid. */
+  protected int m_Index;
+
+  /**
+   * Generates the lines and grids.
+   */
+  @Setup
+  public void setUp() {
+    Random	random;
+    int		i;
+
+    random  = new Random(Corpus.SEED);
+    m_Lines = new String[NUM_LINES];
+    m_Chars = new char[NUM_LINES][];
+    m_Grids = new Grid[NUM_LINES];
+    for (i = 0; i < NUM_LINES; i++) {
+      m_Lines[i] = Corpus.line(random);
+      m_Chars[i] = m_Lines[i].toCharArray();
+      m_Grids[i] = Grid.fromLine(m_Lines[i]);
+    }
+    m_Codec  = LineCodec.get(3, 3, 3, 3);
+    m_Grid   = m_Codec.newGrid();
+    m_Buffer = new char[m_Codec.length()];
+    m_Index  = 0;
+  }
+
+  /**
+   * Returns the index of the next line/grid to use.
+   *
+   * @return		the index
+   */
+  protected int next() {
+    m_Index = (m_Index + 1) & (NUM_LINES - 1);
+    return m_Index;
+  }
+
+  /**
+   * The string-based parsing that Grid.fromLine used before the codec.
+   *
+   * @param line	the line to parse
+   * @return		the grid
+   */
+  protected static Grid legacyFromLine(String line) {
+    Grid 	result;
+    int		i;
+    char	c;
+    byte	value;
+
+    result = new Grid(3, 3, 3, 3);
+    for (i = 0; i < line.length(); i++) {
+      c     = line.charAt(i);
+      value = 0;
+      if ((c > '0') && (c <= '9'))
+	value = Byte.parseByte("" + c);
+      result.get(i / 27, (i / 3) % 3).set((i / 9) % 3, i % 3, value);
+    }
+
+    return result;
+  }
+
+  /**
+   * The StringBuilder-based output that Grid.toLine used before the codec.
+   *
+   * @param grid	the grid to convert
+   * @return		the line
+   */
+  protected static String legacyToLine(Grid grid) {
+    StringBuilder	result;
+    int 		y;
+    int 		x;
+    int			subY;
+    int			subX;
+    SubGrid		sub;
+
+    result = new StringBuilder();
+    for (y = 0; y < grid.rows(); y++) {
+      for (subY = 0; subY < grid.get(0, 0).rows(); subY++) {
+	for (x = 0; x < grid.cols(); x++) {
+	  sub = grid.get(y, x);
+	  for (subX = 0; subX < sub.cols(); subX++)
+	    result.append(sub.get(subY, subX));
+	}
+      }
+    }
+
+    return result.toString();
+  }
+
+  @Benchmark
+  public Grid fromLineLegacy() {
+    return legacyFromLine(m_Lines[next()]);
+  }
+
+  @Benchmark
+  public Grid fromLine() {
+    return Grid.fromLine(m_Lines[next()]);
+  }
+
+  @Benchmark
+  public Grid decodeReuse() {
+    char[]	chars;
+
+    chars = m_Chars[next()];
+    m_Codec.decode(chars, 0, chars.length, m_Grid);
+    return m_Grid;
+  }
+
+  @Benchmark
+  public String toLineLegacy() {
+    return legacyToLine(m_Grids[next()]);
+  }
+
+  @Benchmark
+  public String toLine() {
+    return m_Grids[next()].toLine();
+  }
+
+  @Benchmark
+  public char[] encodeReuse() {
+    m_Codec.encode(m_Grids[next()], m_Buffer, 0);
+    return m_Buffer;
+  }
+
+  @Benchmark
+  public String toGrid() {
+    return m_Grids[next()].toGrid();
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(GridCodecBenchmark.class.getSimpleName())
+      .addProfiler("gc")
+      .build()).run();
+  }
+}
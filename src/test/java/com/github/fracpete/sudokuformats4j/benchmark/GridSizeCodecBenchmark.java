@@ -0,0 +1,163 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * GridSizeCodecBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.LineCodec;
+import com.github.fracpete.sudokuformats4j.generator.Generator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-grid cost of converting grids of different sizes to
+ * and from lines, to check that the larger grids (1-9 and A-Z symbols)
+ * cost the same per cell as 9x9 grids.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridSizeCodecBenchmark {
+
+  /** the number of distinct lines to cycle through. */
+  public static final int NUM_LINES = 64;
+
+  /** the number of digits (boxes of sqrt x sqrt). */
+  @Param({"4", "9", "16", "25"})
+  public int digits;
+
+  /** the lines. */
+  protected String[] m_Lines;
+
+  /** the lines as chars. */
+  protected char[][] m_Chars;
+
+  /** the decoded grids. */
+  protected Grid[] m_Grids;
+
+  /** the reusable grid to decode into. */
+  protected Grid m_Grid;
+
+  /** the reusable buffer to encode into. */
+  protected char[] m_Buffer;
+
+  /** the codec. */
+  protected LineCodec m_Codec;
+
+  /** the index of the current line/grid. */
+  protected int m_Index;
+
+  /**
+   * Generates the lines and grids, from random solutions with about half
+   * of the cells emptied.
+   */
+  @Setup
+  public void setUp() {
+    Random	random;
+    Generator	generator;
+    byte[]	cells;
+    int		box;
+    int		i;
+    int		j;
+
+    box       = (int) Math.sqrt(digits);
+    random    = new Random(Corpus.SEED);
+    generator = new Generator(box, box, box, box);
+    generator.setSeed(Corpus.SEED);
+    m_Lines = new String[NUM_LINES];
+    m_Chars = new char[NUM_LINES][];
+    m_Grids = new Grid[NUM_LINES];
+    for (i = 0; i < NUM_LINES; i++) {
+      m_Grids[i] = generator.solution();
+      cells      = m_Grids[i].getCells(null);
+      for (j = 0; j < cells.length; j++) {
+	if (random.nextBoolean())
+	  cells[j] = 0;
+      }
+      m_Grids[i].setCells(cells);
+      m_Lines[i] = m_Grids[i].toLine();
+      m_Chars[i] = m_Lines[i].toCharArray();
+    }
+    m_Codec  = LineCodec.get(m_Grids[0]);
+    m_Grid   = m_Codec.newGrid();
+    m_Buffer = new char[m_Codec.length()];
+    m_Index  = 0;
+  }
+
+  /**
+   * Returns the index of the next line/grid to use.
+   *
+   * @return		the index
+   */
+  protected int next() {
+    m_Index = (m_Index + 1) & (NUM_LINES - 1);
+    return m_Index;
+  }
+
+  @Benchmark
+  public Grid fromLine() {
+    return Grid.fromLine(m_Lines[next()]);
+  }
+
+  @Benchmark
+  public Grid decodeReuse() {
+    char[]	chars;
+
+    chars = m_Chars[next()];
+    m_Codec.decode(chars, 0, chars.length, m_Grid);
+    return m_Grid;
+  }
+
+  @Benchmark
+  public String toLine() {
+    return m_Grids[next()].toLine();
+  }
+
+  @Benchmark
+  public char[] encodeReuse() {
+    m_Codec.encode(m_Grids[next()], m_Buffer, 0);
+    return m_Buffer;
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(GridSizeCodecBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HashIndexBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.index.HashIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures exact-match lookups in a memory-mapped {@link HashIndex} of
+ * distinct random grids, for grids that are present (hit) and ones that
+ * are not (miss). The index gets built once in the corpora directory
+ * and then reused.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashIndexBenchmark {
+
+  /** the number of grids in the index. */
+  @Param({"100000", "10000000"})
+  public int size;
+
+  /** the index. */
+  protected HashIndex m_Index;
+
+  /** grids that are present. */
+  protected Grid[] m_Hits;
+
+  /** grids that are not present. */
+  protected Grid[] m_Misses;
+
+  /** the index of the current grid. */
+  protected int m_Current;
+
+  /**
+   * Returns the index file, builds it if necessary.
+   *
+   * @return		the file
+   * @throws Exception	if building fails
+   */
+  protected File file() throws Exception {
+    File	result;
+    File	tmp;
+    Random	random;
+    int		i;
+
+    result = new File(Corpus.file(Corpus.PUZZLE_COLLECTION, 1000).getParentFile(), "HashIndex-" + size + HashIndex.EXTENSION);
+    if (result.exists())
+      return result;
+
+    tmp    = new File(result.getPath() + ".build");
+    random = new Random(Corpus.SEED);
+    try (HashIndex index = HashIndex.create(tmp, new Grid(), size)) {
+      for (i = 0; i < size; i++)
+	index.add(Grid.fromLine(Corpus.line(random)));
+    }
+    if (!tmp.renameTo(result))
+      throw new IllegalStateException("Failed to rename " + tmp + " to " + result);
+
+    return result;
+  }
+
+  /**
+   * Opens the index and generates the grids to look up.
+   *
+   * @throws Exception	if building/opening fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    Random	random;
+    int		i;
+
+    m_Index  = HashIndex.open(file(), true);
+    m_Hits   = new Grid[Corpus.POOL_SIZE];
+    m_Misses = new Grid[Corpus.POOL_SIZE];
+    // the first grids of the index
+    random = new Random(Corpus.SEED);
+    for (i = 0; i < m_Hits.length; i++)
+      m_Hits[i] = Grid.fromLine(Corpus.line(random));
+    random = new Random(Corpus.SEED + 1);
+    for (i = 0; i < m_Misses.length; i++)
+      m_Misses[i] = Grid.fromLine(Corpus.line(random));
+    m_Current = 0;
+  }
+
+  /**
+   * Closes the index.
+   */
+  @TearDown
+  public void tearDown() {
+    m_Index.close();
+  }
+
+  /**
+   * Returns the position of the next grid.
+   *
+   * @return		the position
+   */
+  protected int next() {
+    m_Current = (m_Current + 1) % Corpus.POOL_SIZE;
+    return m_Current;
+  }
+
+  /**
+   * Looks up a grid that is present.
+   *
+   * @return		the id
+   */
+  @Benchmark
+  public long hit() {
+    return m_Index.lookup(m_Hits[next()]);
+  }
+
+  /**
+   * Looks up a grid that is not present.
+   *
+   * @return		the id
+   */
+  @Benchmark
+  public long miss() {
+    return m_Index.lookup(m_Misses[next()]);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(HashIndexBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
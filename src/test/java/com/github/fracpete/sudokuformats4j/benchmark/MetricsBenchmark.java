@@ -0,0 +1,129 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MetricsBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.AbstractPuzzleReaderWriter;
+import com.github.fracpete.sudokuformats4j.api.Metrics;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the metrics when streaming all the grids of a
+ * corpus file: no metrics vs {@link Metrics}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricsBenchmark {
+
+  /** the format to read. */
+  @Param({Corpus.PUZZLE_COLLECTION, Corpus.OPEN_SUDOKU})
+  public String format;
+
+  /** the number of grids in the corpus. */
+  @Param({"100000"})
+  public int size;
+
+  /** the corpus file. */
+  protected File m_File;
+
+  /** the reader without metrics. */
+  protected AbstractPuzzleReaderWriter m_Plain;
+
+  /** the reader with metrics. */
+  protected AbstractPuzzleReaderWriter m_Metered;
+
+  /**
+   * Generates the corpus, if necessary.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    m_File    = Corpus.file(format, size);
+    m_Plain   = (AbstractPuzzleReaderWriter) Corpus.reader(format);
+    m_Metered = (AbstractPuzzleReaderWriter) Corpus.reader(format);
+    m_Metered.setMetrics(new Metrics());
+  }
+
+  /**
+   * Reads all the grids with the reader.
+   *
+   * @param reader	the reader to use
+   * @param blackhole	for consuming the grids
+   * @throws Exception	if reading fails
+   */
+  protected void readAll(AbstractPuzzleReaderWriter reader, Blackhole blackhole) throws Exception {
+    try (PuzzleIterator iter = reader.iterator(m_File)) {
+      while (iter.hasNext())
+	blackhole.consume(iter.next());
+    }
+  }
+
+  /**
+   * Reads all the grids without metrics.
+   *
+   * @param blackhole	for consuming the grids
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public void plain(Blackhole blackhole) throws Exception {
+    readAll(m_Plain, blackhole);
+  }
+
+  /**
+   * Reads all the grids with metrics.
+   *
+   * @param blackhole	for consuming the grids
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public void metered(Blackhole blackhole) throws Exception {
+    readAll(m_Metered, blackhole);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(MetricsBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * OpenSudokuReadBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.OpenSudoku;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the StAX-based reading of OpenSudoku files against the former
+ * DOM-based approach.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OpenSudokuReadBenchmark {
+
+  /** the number of games in the document. */
+  @Param({"100000", "250000"})
+  public int games;
+
+  /** the document to parse. */
+  protected String m_Document;
+
+  /** the reader/writer. */
+  protected OpenSudoku m_OpenSudoku;
+
+  /**
+   * Generates the document.
+   */
+  @Setup
+  public void setUp() {
+    m_Document   = Corpus.openSudoku(games);
+    m_OpenSudoku = new OpenSudoku();
+  }
+
+  /**
+   * The DOM-based parsing that OpenSudoku used before switching to StAX.
+   *
+   * @param document	the document to parse
+   * @return		the puzzles
+   * @throws Exception	if parsing fails
+   */
+  protected static Puzzles readDOM(String document) throws Exception {
+    Puzzles			result;
+    DocumentBuilderFactory 	factory;
+    DocumentBuilder 		builder;
+    Document 			doc;
+    Element			root;
+    int				i;
+    short			type;
+    Node			node;
+
+    result = new Puzzles();
+
+    factory = DocumentBuilderFactory.newInstance();
+    factory.setValidating(false);
+    factory.setNamespaceAware(false);
+    factory.setXIncludeAware(false);
+    factory.setExpandEntityReferences(false);
+    factory.setIgnoringComments(true);
+    factory.setIgnoringElementContentWhitespace(true);
+    builder = factory.newDocumentBuilder();
+    doc     = builder.parse(new InputSource(new StringReader(document)));
+    root    = doc.getDocumentElement();
+    for (i = 0; i < root.getChildNodes().getLength(); i++) {
+      type = root.getChildNodes().item(i).getNodeType();
+      if ((type != Node.TEXT_NODE) && (type != Node.CDATA_SECTION_NODE)) {
+	node = root.getChildNodes().item(i);
+	if (node.getNodeName().equals("game"))
+	  result.add(Grid.fromLine(((Element) node).getAttribute("data")));
+	else
+	  result.getMetaData().put(node.getNodeName(), node.getTextContent().trim());
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Parses the document using DOM.
+   *
+   * @return		the puzzles
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public Puzzles dom() throws Exception {
+    return readDOM(m_Document);
+  }
+
+  /**
+   * Parses the document using StAX, collecting all grids.
+   *
+   * @return		the puzzles
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public Puzzles stax() throws Exception {
+    return m_OpenSudoku.read(new StringReader(m_Document));
+  }
+
+  /**
+   * Parses the document using StAX, processing one grid at a time.
+   *
+   * @param blackhole	for consuming the grids
+   * @throws Exception	if parsing fails
+   */
+  @Benchmark
+  public void staxIterator(Blackhole blackhole) throws Exception {
+    PuzzleIterator	iter;
+
+    iter = m_OpenSudoku.iterator(new StringReader(m_Document));
+    while (iter.hasNext())
+      blackhole.consume(iter.next());
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(OpenSudokuReadBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PuzzleCollectionParserBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Reader-based and the byte-level parsing of PuzzleCollection
+ * files. The "bytes" counter reports the throughput in bytes per second.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class PuzzleCollectionParserBenchmark {
+
+  /** whether to use the byte parser. */
+  @Param({"false", "true"})
+  public boolean byteParser;
+
+  /** the number of grids in the corpus. */
+  @Param({"1000000"})
+  public int size;
+
+  /** the corpus file. */
+  protected File m_File;
+
+  /** the reader. */
+  protected PuzzleCollection m_Reader;
+
+  /**
+   * Counts the bytes that have been processed.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+
+    /** the number of bytes read. */
+    public long bytes;
+
+    /**
+     * Resets the counter.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Generates the corpus, if necessary.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    m_File   = Corpus.file(Corpus.PUZZLE_COLLECTION, size);
+    m_Reader = new PuzzleCollection();
+    m_Reader.setUseByteParser(byteParser);
+  }
+
+  /**
+   * Reads all the grids.
+   *
+   * @param blackhole	for consuming the grids
+   * @param counters	for counting the bytes
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public void readAll(Blackhole blackhole, Counters counters) throws Exception {
+    try (PuzzleIterator iter = m_Reader.iterator(m_File)) {
+      while (iter.hasNext())
+	blackhole.consume(iter.next());
+    }
+    counters.bytes += m_File.length();
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(PuzzleCollectionParserBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ReaderBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.PuzzleIterator;
+import com.github.fracpete.sudokuformats4j.api.PuzzleReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to stream all the grids of a corpus file
+ * through the readers and the latency until the first grid is available.
+ * Run with "-prof gc" to see the allocation rates.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ReaderBenchmark {
+
+  /** the format to read. */
+  @Param({Corpus.PUZZLE_COLLECTION, Corpus.OPEN_SUDOKU, Corpus.PUZZLE_STORE, Corpus.PUZZLE_PACK})
+  public String format;
+
+  /** the number of grids in the corpus. */
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  /** the corpus file. */
+  protected File m_File;
+
+  /** the reader. */
+  protected PuzzleReader m_Reader;
+
+  /**
+   * Generates the corpus, if necessary.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    m_File   = Corpus.file(format, size);
+    m_Reader = Corpus.reader(format);
+  }
+
+  /**
+   * Reads all the grids.
+   *
+   * @param blackhole	for consuming the grids
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  @BenchmarkMode({Mode.AverageTime, Mode.SingleShotTime})
+  public void readAll(Blackhole blackhole) throws Exception {
+    try (PuzzleIterator iter = m_Reader.iterator(m_File)) {
+      while (iter.hasNext())
+	blackhole.consume(iter.next());
+    }
+  }
+
+  /**
+   * Opens the file and reads the first grid.
+   *
+   * @param blackhole	for consuming the grid
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void firstGrid(Blackhole blackhole) throws Exception {
+    try (PuzzleIterator iter = m_Reader.iterator(m_File)) {
+      blackhole.consume(iter.next());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(ReaderBenchmark.class.getSimpleName())
+      .addProfiler("gc")
+      .build()).run();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SolverBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of puzzles per second that a single thread can solve,
+ * for the well-known hardest puzzles and for random minimal puzzles.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+  /** the number of minimal puzzles to generate. */
+  public static final int NUM_MINIMAL = 1000;
+
+  /** the puzzle set. */
+  @Param({Corpus.SET_HARDEST, Corpus.SET_MINIMAL})
+  public String set;
+
+  /** the puzzles. */
+  protected Grid[] m_Puzzles;
+
+  /** the solver. */
+  protected Solver m_Solver;
+
+  /** the index of the current puzzle. */
+  protected int m_Index;
+
+  /**
+   * Generates the puzzles.
+   */
+  @Setup
+  public void setUp() {
+    m_Puzzles = Corpus.puzzles(set, NUM_MINIMAL);
+    m_Solver  = new Solver();
+    m_Index   = 0;
+  }
+
+  /**
+   * Returns the next puzzle.
+   *
+   * @return		the puzzle
+   */
+  protected Grid next() {
+    m_Index = (m_Index + 1) % m_Puzzles.length;
+    return m_Puzzles[m_Index];
+  }
+
+  /**
+   * Solves a puzzle.
+   *
+   * @return		the solution
+   */
+  @Benchmark
+  public Grid solve() {
+    return m_Solver.solve(next());
+  }
+
+  /**
+   * Checks whether a puzzle has a unique solution.
+   *
+   * @return		the number of solutions (max 2)
+   */
+  @Benchmark
+  public int countSolutions() {
+    return m_Solver.countSolutions(next(), 2);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(SolverBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ValidatedGridBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.ValidatedGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares checking a 9x9 grid for conflicts after changing a cell: the
+ * incrementally maintained bitmasks of {@link ValidatedGrid} vs rescanning
+ * all rows, columns and boxes of a plain {@link Grid}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatedGridBenchmark {
+
+  /** the plain grid. */
+  protected Grid m_Plain;
+
+  /** the validated grid. */
+  protected ValidatedGrid m_Validated;
+
+  /** the buffer for the cells. */
+  protected byte[] m_Cells;
+
+  /** the current cell. */
+  protected int m_Cell;
+
+  /**
+   * Initializes the grids with one of the hardest puzzles.
+   */
+  @Setup
+  public void setUp() {
+    m_Plain     = Corpus.hardest()[0];
+    m_Validated = new ValidatedGrid(m_Plain);
+    m_Cells     = new byte[81];
+    m_Cell      = 0;
+  }
+
+  /**
+   * Returns the next cell to change.
+   *
+   * @return		the cell
+   */
+  protected int next() {
+    m_Cell = (m_Cell + 7) % 81;
+    return m_Cell;
+  }
+
+  /**
+   * Checks all rows, columns and boxes of the cells for repeated digits.
+   *
+   * @param cells	the cells to check
+   * @return		true if no conflicts
+   */
+  protected static boolean rescan(byte[] cells) {
+    int		i;
+    int		j;
+    int		row;
+    int		col;
+    int		box;
+    int		bit;
+
+    for (i = 0; i < 9; i++) {
+      row = 0;
+      col = 0;
+      box = 0;
+      for (j = 0; j < 9; j++) {
+	if (cells[i*9 + j] > 0) {
+	  bit = 1 << cells[i*9 + j];
+	  if ((row & bit) != 0)
+	    return false;
+	  row |= bit;
+	}
+	if (cells[j*9 + i] > 0) {
+	  bit = 1 << cells[j*9 + i];
+	  if ((col & bit) != 0)
+	    return false;
+	  col |= bit;
+	}
+	if (cells[(i/3*3 + j/3)*9 + i%3*3 + j%3] > 0) {
+	  bit = 1 << cells[(i/3*3 + j/3)*9 + i%3*3 + j%3];
+	  if ((box & bit) != 0)
+	    return false;
+	  box |= bit;
+	}
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Toggles a cell of the plain grid and rescans the grid.
+   *
+   * @return		whether valid
+   */
+  @Benchmark
+  public boolean plain() {
+    int		cell;
+
+    cell = next();
+    m_Plain.get(cell / 27, (cell % 9) / 3).set((cell / 9) % 3, cell % 3, (byte) ((m_Plain.getCells(m_Cells)[cell] + 1) % 10));
+    return rescan(m_Plain.getCells(m_Cells));
+  }
+
+  /**
+   * Toggles a cell of the validated grid and checks the bitmasks.
+   *
+   * @return		whether valid
+   */
+  @Benchmark
+  public boolean validated() {
+    int		cell;
+
+    cell = next();
+    m_Validated.setCell(cell / 9, cell % 9, (byte) ((m_Validated.getCell(cell / 9, cell % 9) + 1) % 10));
+    return m_Validated.isValid();
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(ValidatedGridBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * WriterBenchmark.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.benchmark;
+
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.PuzzleSink;
+import com.github.fracpete.sudokuformats4j.api.PuzzleWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to write grids to a file via the sinks of
+ * the writers. The grids get cycled from a small pool, so that memory
+ * usage is independent of the number of grids.
+ * Run with "-prof gc" to see the allocation rates.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SingleShotTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class WriterBenchmark {
+
+  /** the format to write. */
+  @Param({Corpus.PUZZLE_COLLECTION, Corpus.OPEN_SUDOKU, Corpus.PUZZLE_STORE, Corpus.PUZZLE_PACK})
+  public String format;
+
+  /** the number of grids to write. */
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  /** the grids to write. */
+  protected Grid[] m_Pool;
+
+  /** the writer. */
+  protected PuzzleWriter m_Writer;
+
+  /** the output file. */
+  protected File m_File;
+
+  /**
+   * Sets up the writer and grids.
+   *
+   * @throws Exception	if setting up fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    m_Pool   = Corpus.pool();
+    m_Writer = Corpus.writer(format);
+    m_File   = File.createTempFile("sudokuformats4j-", Corpus.extension(format));
+  }
+
+  /**
+   * Removes the output file.
+   */
+  @TearDown
+  public void tearDown() {
+    m_File.delete();
+  }
+
+  /**
+   * Writes the grids.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Benchmark
+  public void writeAll() throws Exception {
+    try (PuzzleSink sink = m_Writer.sink(m_File, null)) {
+      Corpus.write(sink, m_Pool, size);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+      .include(WriterBenchmark.class.getSimpleName())
+      .addProfiler("gc")
+      .build()).run();
+  }
+}
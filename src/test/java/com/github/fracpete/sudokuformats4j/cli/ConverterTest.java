@@ -0,0 +1,202 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ConverterTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.cli;
+
+import com.github.fracpete.sudokuformats4j.OpenSudoku;
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.PuzzleStore;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests the {@link Converter} command-line tool.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ConverterTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /** the input directory. */
+  protected File m_Input;
+
+  /** the output directory. */
+  protected File m_Output;
+
+  /** the puzzles in the input files. */
+  protected Puzzles m_Puzzles;
+
+  /**
+   * Creates the input files: a.sdm, b.sdm.gz, sub/c.opensudoku and a
+   * text file that is not a candidate.
+   *
+   * @throws Exception	if creating the files fails
+   */
+  @Before
+  public void setUp() throws Exception {
+    m_Input   = m_Folder.newFolder("in");
+    m_Output  = new File(m_Folder.getRoot(), "out");
+    m_Puzzles = SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 50);
+    new PuzzleCollection().write(m_Puzzles, new File(m_Input, "a" + PuzzleCollection.EXTENSION));
+    new PuzzleCollection().write(m_Puzzles, new File(m_Input, "b" + PuzzleCollection.EXTENSION + ".gz"));
+    new File(m_Input, "sub").mkdir();
+    new OpenSudoku().write(m_Puzzles, new File(m_Input, "sub/c" + OpenSudoku.EXTENSION));
+    Files.write(new File(m_Input, "readme.txt").toPath(), "not a puzzle file".getBytes());
+  }
+
+  /**
+   * Runs the converter with the options.
+   *
+   * @param args	the options
+   * @return		the exit code
+   * @throws Exception	if the conversion gets interrupted
+   */
+  protected int execute(String... args) throws Exception {
+    Converter	converter;
+
+    converter = new Converter();
+    converter.setOut(new PrintStream(new ByteArrayOutputStream()));
+
+    return converter.execute(args);
+  }
+
+  /**
+   * Returns the sorted names of the files below the output directory.
+   *
+   * @return		the relative paths
+   * @throws Exception	if listing fails
+   */
+  protected String[] outputs() throws Exception {
+    return Files.walk(m_Output.toPath())
+      .filter(Files::isRegularFile)
+      .map(path -> m_Output.toPath().relativize(path).toString().replace(File.separatorChar, '/'))
+      .sorted()
+      .toArray(String[]::new);
+  }
+
+  /**
+   * Tests converting a directory, with and without recursion.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testDirectory() throws Exception {
+    assertEquals(Converter.EXIT_OK, execute("-f", "PuzzleStore", "-o", m_Output.getPath(), "-t", "2", m_Input.getPath()));
+    assertArrayEquals(new String[]{"a.sps", "b.sps"}, outputs());
+    assertEquals(m_Puzzles, new PuzzleStore().read(new File(m_Output, "a.sps")));
+    assertEquals(m_Puzzles, new PuzzleStore().read(new File(m_Output, "b.sps")));
+
+    assertEquals(Converter.EXIT_OK, execute("-f", "PuzzleStore", "-o", m_Output.getPath(), "-c", "gzip", "-r", m_Input.getPath()));
+    assertArrayEquals(new String[]{"a.sps", "a.sps.gz", "b.sps", "b.sps.gz", "sub/c.sps.gz"}, outputs());
+    assertEquals(m_Puzzles, new PuzzleStore().read(new File(m_Output, "sub/c.sps.gz")));
+  }
+
+  /**
+   * Tests converting the files matching glob patterns.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testGlob() throws Exception {
+    assertEquals(Converter.EXIT_OK, execute("-f", "PuzzleCollection", "-o", m_Output.getPath(), m_Input.getPath() + "/**/*" + OpenSudoku.EXTENSION));
+    assertArrayEquals(new String[]{"sub/c.sdm"}, outputs());
+    assertEquals(m_Puzzles, new PuzzleCollection().read(new File(m_Output, "sub/c.sdm")));
+
+    assertEquals(Converter.EXIT_OK, execute("-f", "OpenSudoku", "-o", m_Output.getPath(), m_Input.getPath() + "/*.sdm*"));
+    assertArrayEquals(new String[]{"a.opensudoku", "b.opensudoku", "sub/c.sdm"}, outputs());
+  }
+
+  /**
+   * Tests that outputs colliding with inputs or with each other get
+   * rejected before converting anything.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCollisions() throws Exception {
+    new PuzzleStore().write(m_Puzzles, new File(m_Input, "a" + PuzzleStore.EXTENSION));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleCollection", "-o", m_Input.getPath(), m_Input.getPath()));
+    new File(m_Input, "a" + PuzzleStore.EXTENSION).delete();
+
+    new PuzzleCollection().write(m_Puzzles, new File(m_Input, "a" + PuzzleCollection.EXTENSION + ".gz"));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleStore", "-o", m_Output.getPath(), m_Input.getPath()));
+    assertFalse(m_Output.exists());
+  }
+
+  /**
+   * Tests that outputs get replaced only by successful conversions and
+   * that no temp files remain.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testReplace() throws Exception {
+    File	corrupt;
+    File	output;
+
+    m_Output.mkdir();
+    output = new File(m_Output, "a.sps");
+    Files.write(output.toPath(), "old".getBytes());
+    assertEquals(Converter.EXIT_OK, execute("-f", "PuzzleStore", "-o", m_Output.getPath(), new File(m_Input, "a.sdm").getPath()));
+    assertEquals(m_Puzzles, new PuzzleStore().read(output));
+
+    corrupt = new File(m_Input, "d" + PuzzleStore.EXTENSION);
+    Files.write(corrupt.toPath(), "not a puzzle store".getBytes());
+    output = new File(m_Output, "d.sdm");
+    Files.write(output.toPath(), "old".getBytes());
+    assertEquals(Converter.EXIT_FAILED, execute("-f", "PuzzleCollection", "-o", m_Output.getPath(), corrupt.getPath(), new File(m_Input, "b.sdm.gz").getPath()));
+    assertEquals("old", new String(Files.readAllBytes(output.toPath())));
+    assertEquals(m_Puzzles, new PuzzleCollection().read(new File(m_Output, "b.sdm")));
+    assertArrayEquals(new String[]{"a.sps", "b.sdm", "d.sdm"}, outputs());
+  }
+
+  /**
+   * Tests the exit codes for help and invalid options.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testExitCodes() throws Exception {
+    assertEquals(Converter.EXIT_OK, execute("-h"));
+    assertEquals(Converter.EXIT_USAGE, execute(m_Input.getPath()));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleStore"));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "Unknown", m_Input.getPath()));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleStore", "-x", m_Input.getPath()));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleStore", "-o"));
+    assertEquals(Converter.EXIT_USAGE, execute("-f", "PuzzleStore", new File(m_Input, "missing.sdm").getPath()));
+    assertFalse(m_Output.exists());
+  }
+}
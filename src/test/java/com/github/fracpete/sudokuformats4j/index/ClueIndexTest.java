@@ -0,0 +1,354 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ClueIndexTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.index;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import com.github.fracpete.sudokuformats4j.utils.Compression;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ClueIndex}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ClueIndexTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Returns the positions of the grids matching the constraints, by
+   * checking the grids one by one.
+   *
+   * @param grids	the grids to check
+   * @param required	the cells that must be clues
+   * @param forbidden	the cells that must be empty
+   * @param min		the minimum number of clues
+   * @param max		the maximum number of clues
+   * @return		the positions
+   */
+  protected int[] matches(Puzzles grids, int[] required, int[] forbidden, int min, int max) {
+    List<Integer>	result;
+    byte[]		cells;
+    boolean		match;
+    int			clues;
+    int			i;
+
+    result = new ArrayList<>();
+    for (i = 0; i < grids.size(); i++) {
+      cells = grids.get(i).getCells(null);
+      clues = 0;
+      for (byte cell: cells) {
+	if (cell > 0)
+	  clues++;
+      }
+      match = (clues >= min) && (clues <= max);
+      for (int cell: required)
+	match = match && (cells[cell] > 0);
+      for (int cell: forbidden)
+	match = match && (cells[cell] == 0);
+      if (match)
+	result.add(i);
+    }
+
+    return result.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Compares the queries against checking the grids one by one, for grids
+   * with one and with several words of clue bits.
+   */
+  @Test
+  public void testQuery() {
+    Random		random;
+    Puzzles		grids;
+    ClueIndex		index;
+    ClueIndex.Query	query;
+    int[]		required;
+    int[]		forbidden;
+    int[]		expected;
+    int			cells;
+    int			min;
+    int			i;
+
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      grids = SampleGrids.puzzles(42, dims, 300);
+      index = new ClueIndex(grids.get(0));
+      for (Grid grid: grids)
+	index.add(grid);
+      assertEquals(grids.size(), index.size());
+      assertEquals(grids.size(), index.count(index.query()));
+
+      cells = grids.get(0).height() * grids.get(0).width();
+      for (i = 0; i < grids.size(); i++)
+	assertEquals(grids.get(i).getCells(null)[cells - 1] > 0, index.isClue(i, cells - 1));
+
+      for (i = 0; i < 20; i++) {
+	required  = new int[]{random.nextInt(cells), random.nextInt(cells)};
+	forbidden = new int[]{random.nextInt(cells)};
+	while ((forbidden[0] == required[0]) || (forbidden[0] == required[1]))
+	  forbidden[0] = random.nextInt(cells);
+	min       = random.nextInt(cells / 2);
+	query     = index.query();
+	query.require(required[0]);
+	query.require(required[1]);
+	query.forbid(forbidden[0]);
+	query.setMinClues(min);
+	query.setMaxClues(min + cells / 2);
+	expected = matches(grids, required, forbidden, min, min + cells / 2);
+	assertArrayEquals(expected, index.search(query));
+	assertEquals(expected.length, index.count(query));
+      }
+    }
+  }
+
+  /**
+   * Tests that invalid queries get rejected.
+   */
+  @Test
+  public void testInvalidQuery() {
+    ClueIndex	index;
+
+    index = new ClueIndex();
+    try {
+      index.query().require(81);
+      fail("Invalid cell not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      index.count(new ClueIndex(new Grid(2, 2, 2, 2)).query());
+      fail("Query for different dimensions not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      index.add(new Grid(2, 2, 2, 2));
+      fail("Grid with different dimensions not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Creates a grid with clues in the specified cells.
+   *
+   * @param cells	the cells (row-wise from the top)
+   * @return		the grid
+   */
+  protected Grid layout(int... cells) {
+    Grid	result;
+    byte[]	values;
+
+    result = new Grid();
+    values = new byte[81];
+    for (int cell: cells)
+      values[cell] = (byte) (1 + cell % 9);
+    result.setCells(values);
+
+    return result;
+  }
+
+  /**
+   * Tests the symmetry flags and querying them.
+   */
+  @Test
+  public void testSymmetries() {
+    ClueIndex		index;
+    ClueIndex.Query	query;
+    int			all;
+
+    all   = ClueSymmetry.flags(ClueSymmetry.values());
+    index = new ClueIndex();
+    index.add(layout(40));
+    index.add(layout(0, 80));
+    index.add(layout(0, 8, 72, 80));
+    index.add(layout(0, 8));
+    index.add(layout(1));
+    assertEquals(all, index.getSymmetries(0));
+    assertEquals(ClueSymmetry.flags(ClueSymmetry.ROTATIONAL, ClueSymmetry.DIAGONAL, ClueSymmetry.ANTI_DIAGONAL), index.getSymmetries(1));
+    assertEquals(all, index.getSymmetries(2));
+    assertEquals(ClueSymmetry.VERTICAL.flag(), index.getSymmetries(3));
+    assertEquals(0, index.getSymmetries(4));
+
+    query = index.query();
+    query.setSymmetries(ClueSymmetry.ROTATIONAL);
+    assertArrayEquals(new int[]{0, 1, 2}, index.search(query));
+    query.setSymmetries(ClueSymmetry.ROTATIONAL, ClueSymmetry.QUARTER_TURN);
+    assertArrayEquals(new int[]{0, 2}, index.search(query));
+    query.setSymmetries(ClueSymmetry.VERTICAL);
+    assertArrayEquals(new int[]{0, 2, 3}, index.search(query));
+    query.setSymmetries();
+    query.setLayout(layout(0, 80));
+    assertArrayEquals(new int[]{1}, index.search(query));
+  }
+
+  /**
+   * Writes the index, reads it back in and checks that it is the same.
+   *
+   * @param index	the index to write
+   * @param file	the file to write to
+   * @throws Exception	if writing/reading fails
+   */
+  protected void roundTrip(ClueIndex index, File file) throws Exception {
+    ClueIndex	read;
+    int		cells;
+    int		i;
+    int		n;
+
+    index.write(file);
+    read  = ClueIndex.read(file);
+    cells = index.getHeader().cells();
+    assertEquals(index.size(), read.size());
+    assertEquals(index.getHeader().rows(), read.getHeader().rows());
+    assertEquals(index.getHeader().subCols(), read.getHeader().subCols());
+    for (i = 0; i < index.size(); i++) {
+      assertEquals(index.getClues(i), read.getClues(i));
+      assertEquals(index.getSymmetries(i), read.getSymmetries(i));
+      for (n = 0; n < cells; n++)
+	assertEquals(index.isClue(i, n), read.isClue(i, n));
+    }
+  }
+
+  /**
+   * Tests writing and reading the index, uncompressed and compressed, and
+   * building it from a file.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testWriteRead() throws Exception {
+    Puzzles	grids;
+    ClueIndex	index;
+    File	file;
+
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      grids = SampleGrids.puzzles(42, dims, 2000);
+      file  = new File(m_Folder.getRoot(), "grids" + PuzzleCollection.EXTENSION);
+      new PuzzleCollection().write(grids, file);
+      index = ClueIndex.build(new PuzzleCollection(), file);
+      assertEquals(grids.size(), index.size());
+      roundTrip(index, new File(m_Folder.getRoot(), "index" + ClueIndex.EXTENSION));
+    }
+
+    roundTrip(new ClueIndex(), new File(m_Folder.getRoot(), "empty" + ClueIndex.EXTENSION));
+    for (Compression compression: Compression.values()) {
+      if (compression.isAvailable())
+	roundTrip(index(), new File(m_Folder.getRoot(), "index" + ClueIndex.EXTENSION + compression.getExtension()));
+    }
+  }
+
+  /**
+   * Returns an index of 9x9 puzzles.
+   *
+   * @return		the index
+   */
+  protected ClueIndex index() {
+    ClueIndex	result;
+
+    result = new ClueIndex();
+    for (Grid grid: SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[2], 100))
+      result.add(grid);
+
+    return result;
+  }
+
+  /**
+   * Tests that corrupt and truncated files get rejected with an
+   * IOException, even if the header claims a huge number of grids.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testCorrupt() throws Exception {
+    File		file;
+    RandomAccessFile	access;
+    DataOutputStream	output;
+
+    file = new File(m_Folder.getRoot(), "index" + ClueIndex.EXTENSION);
+    index().write(file);
+    access = new RandomAccessFile(file, "rw");
+    access.setLength(access.length() - 1);
+    access.close();
+    try {
+      ClueIndex.read(file);
+      fail("Truncated file not detected");
+    }
+    catch (IOException e) {
+      // expected
+    }
+
+    for (int size: new int[]{Integer.MAX_VALUE, -1}) {
+      output = new DataOutputStream(new FileOutputStream(file));
+      output.writeInt(ClueIndex.MAGIC);
+      output.writeShort(ClueIndex.VERSION);
+      output.write(new byte[]{3, 3, 3, 3});
+      output.writeInt(size);
+      output.writeLong(0);
+      output.close();
+      try {
+	ClueIndex.read(file);
+	fail("Invalid size not detected: " + size);
+      }
+      catch (IOException e) {
+	// expected
+      }
+    }
+
+    output = new DataOutputStream(new FileOutputStream(file));
+    output.writeInt(ClueIndex.MAGIC);
+    output.writeShort(ClueIndex.VERSION);
+    output.write(new byte[]{(byte) 255, (byte) 255, 15, 15});
+    output.writeInt(0);
+    output.close();
+    try {
+      ClueIndex.read(file);
+      fail("Invalid dimensions not detected");
+    }
+    catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("dimensions"));
+    }
+  }
+}
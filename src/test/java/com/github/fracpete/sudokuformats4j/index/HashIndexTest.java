@@ -0,0 +1,241 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HashIndexTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.index;
+
+import com.github.fracpete.sudokuformats4j.PuzzleCollection;
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.Puzzles;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link HashIndex}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class HashIndexTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Returns the file for the index.
+   *
+   * @return		the file
+   */
+  protected File file() {
+    return new File(m_Folder.getRoot(), "index" + HashIndex.EXTENSION);
+  }
+
+  /**
+   * Generates distinct puzzles.
+   *
+   * @param seed	the seed for the random number generator
+   * @param dims	the dimensions (rows, cols, subRows, subCols)
+   * @param count	the maximum number of puzzles
+   * @param exclude	the puzzles to exclude
+   * @return		the puzzles
+   */
+  protected Puzzles distinct(long seed, int[] dims, int count, Puzzles exclude) {
+    Puzzles	result;
+    Set<Grid>	seen;
+
+    result = new Puzzles();
+    seen   = new HashSet<>(exclude);
+    for (Grid grid: SampleGrids.puzzles(seed, dims, count)) {
+      if (seen.add(grid))
+	result.add(grid);
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks that the grids can be looked up, with their position as id.
+   *
+   * @param index	the index to check
+   * @param grids	the grids in the index
+   */
+  protected void check(HashIndex index, Puzzles grids) {
+    int		i;
+
+    assertEquals(grids.size(), index.size());
+    for (i = 0; i < grids.size(); i++)
+      assertEquals(i, index.lookup(grids.get(i)));
+  }
+
+  /**
+   * Tests adding and looking up grids.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testAddLookup() throws Exception {
+    Puzzles	grids;
+    Puzzles	others;
+
+    grids  = distinct(42, SampleGrids.DIMENSIONS[2], 100, new Puzzles());
+    others = distinct(43, SampleGrids.DIMENSIONS[2], 100, grids);
+    try (HashIndex index = HashIndex.create(file(), new Grid(), 100)) {
+      assertEquals(0, index.size());
+      assertEquals(HashIndex.MIN_CAPACITY, index.capacity());
+      for (Grid grid: grids)
+	assertTrue(index.add(grid));
+      for (Grid grid: grids)
+	assertFalse(index.add(grid));
+      check(index, grids);
+      for (Grid grid: others)
+	assertFalse(index.contains(grid));
+      assertTrue(index.contains(grids.get(0)));
+
+      try {
+	index.lookup(SampleGrids.puzzles(42, SampleGrids.DIMENSIONS[0], 1).get(0));
+	fail("Different dimensions not detected");
+      }
+      catch (IllegalArgumentException e) {
+	// expected
+      }
+    }
+  }
+
+  /**
+   * Tests growing the table across the threshold, incl concurrent lookups
+   * afterwards.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testGrow() throws Exception {
+    Puzzles	grids;
+    int		threshold;
+    int		i;
+
+    grids     = distinct(42, SampleGrids.DIMENSIONS[2], 3000, new Puzzles());
+    threshold = (int) (HashIndex.MIN_CAPACITY * HashIndex.LOAD_FACTOR);
+    try (HashIndex index = HashIndex.create(file(), new Grid(), 10)) {
+      for (i = 0; i < threshold - 1; i++)
+	index.add(grids.get(i));
+      assertEquals(HashIndex.MIN_CAPACITY, index.capacity());
+      index.add(grids.get(i));
+      assertEquals(HashIndex.MIN_CAPACITY * 2, index.capacity());
+      for (i = threshold; i < grids.size(); i++)
+	index.add(grids.get(i));
+      assertEquals(HashIndex.MIN_CAPACITY * 4, index.capacity());
+      check(index, grids);
+      assertTrue(IntStream.range(0, grids.size()).parallel().allMatch(n -> index.lookup(grids.get(n)) == n));
+      assertEquals(HashIndex.HEADER_SIZE + index.capacity() * (8 + index.getHeader().recordSize()), file().length());
+      assertFalse(new File(file().getPath() + ".tmp").exists());
+    }
+  }
+
+  /**
+   * Tests reopening the index, read-only and for adding more grids.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testReopen() throws Exception {
+    Puzzles	grids;
+    Puzzles	more;
+    File	file;
+
+    grids = distinct(42, SampleGrids.DIMENSIONS[3], 1000, new Puzzles());
+    more  = distinct(43, SampleGrids.DIMENSIONS[3], 500, grids);
+    file  = m_Folder.newFile("grids" + PuzzleCollection.EXTENSION);
+    new PuzzleCollection().write(grids, file);
+    try (HashIndex index = HashIndex.create(file(), grids.get(0), 10)) {
+      assertEquals(grids.size(), index.addAll(new PuzzleCollection(), file));
+    }
+
+    try (HashIndex index = HashIndex.open(file(), true)) {
+      assertTrue(index.isReadOnly());
+      assertEquals(4, index.getHeader().rows());
+      check(index, grids);
+      try {
+	index.add(more.get(0));
+	fail("Read-only not detected");
+      }
+      catch (IOException e) {
+	// expected
+      }
+    }
+
+    try (HashIndex index = HashIndex.open(file(), false)) {
+      for (Grid grid: more)
+	index.add(grid);
+      grids.addAll(more);
+      check(index, grids);
+    }
+
+    try (HashIndex index = HashIndex.open(file(), true)) {
+      check(index, grids);
+    }
+  }
+
+  /**
+   * Tests that files that are not an index get rejected.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testInvalid() throws Exception {
+    File		file;
+    RandomAccessFile	access;
+
+    file = file();
+    Files.write(file.toPath(), new byte[HashIndex.HEADER_SIZE]);
+    try {
+      HashIndex.open(file, true);
+      fail("Invalid file not detected");
+    }
+    catch (IOException e) {
+      // expected
+    }
+
+    HashIndex.create(file, new Grid(), 10).close();
+    access = new RandomAccessFile(file, "rw");
+    access.setLength(HashIndex.HEADER_SIZE + 100);
+    access.close();
+    try {
+      HashIndex.open(file, true);
+      fail("Truncated file not detected");
+    }
+    catch (IOException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RaterTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.rating;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.generator.Generator;
+import com.github.fracpete.sudokuformats4j.solver.Solver;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link Rater}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class RaterTest {
+
+  /**
+   * Rater that fails if a technique eliminates the digit of the solution
+   * or fills in a wrong digit.
+   */
+  public static class SoundnessRater
+    extends Rater {
+
+    /** the solution of the puzzle being rated. */
+    protected byte[] m_Expected;
+
+    /**
+     * Sets the solution of the next puzzle to rate.
+     *
+     * @param value	the solution
+     */
+    public void setExpected(Grid value) {
+      m_Expected = value.getCells(m_Expected);
+    }
+
+    /**
+     * Fills in the digit, after checking it against the solution.
+     *
+     * @param cell	the cell to fill in
+     * @param digit	the bit of the digit
+     */
+    @Override
+    protected void place(int cell, int digit) {
+      if (digit != 1 << (m_Expected[cell] - 1))
+	fail("Wrong digit placed at cell #" + (cell+1) + ": bits " + Integer.toBinaryString(digit) + ", expected " + m_Expected[cell]);
+      super.place(cell, digit);
+    }
+
+    /**
+     * Removes the digits, after checking that the solution digit is not
+     * among them.
+     *
+     * @param cell	the cell to update
+     * @param digits	the bitmask of the digits to remove
+     * @return		true if any candidates were removed
+     */
+    @Override
+    protected boolean eliminate(int cell, int digits) {
+      int	bit;
+
+      bit = 1 << (m_Expected[cell] - 1);
+      if (((m_Candidates[cell] & bit) != 0) && ((digits & bit) != 0))
+	fail("Solution digit " + m_Expected[cell] + " eliminated at cell #" + (cell+1));
+      return super.eliminate(cell, digits);
+    }
+  }
+
+  /**
+   * Rates the puzzle with the soundness checks enabled and checks the
+   * consistency of the rating.
+   *
+   * @param rater	the rater to use
+   * @param solver	for obtaining the solution
+   * @param puzzle	the puzzle to rate
+   * @return		the rating
+   */
+  protected Rating assertSound(SoundnessRater rater, Solver solver, Grid puzzle) {
+    Rating	result;
+    int		score;
+
+    rater.setExpected(solver.solve(puzzle));
+    result = rater.rate(puzzle);
+    assertNotNull(puzzle.toLine(), result);
+
+    score = 0;
+    for (Technique technique: result.getTechniques()) {
+      assertTrue(result.getCount(technique) > 0);
+      assertTrue(technique.compareTo(result.getHardest()) <= 0);
+      score += result.getCount(technique) * technique.getWeight();
+    }
+    assertEquals(score, result.getScore());
+    assertEquals(result.getHardest().getLevel(), result.getLevel());
+
+    return result;
+  }
+
+  /**
+   * Rates minimal 4x4, 6x6 and 9x9 puzzles from the generator, checking
+   * that no technique makes an unsound elimination.
+   */
+  @Test
+  public void testSoundness() {
+    SoundnessRater	rater;
+    Solver		solver;
+    Generator		generator;
+    int[][]		dims;
+    int[]		counts;
+    int			i;
+    int			d;
+
+    rater  = new SoundnessRater();
+    solver = new Solver();
+    dims   = new int[][]{{2, 2, 2, 2}, {3, 2, 2, 3}, {3, 3, 3, 3}};
+    counts = new int[]{100, 200, 600};
+    for (d = 0; d < dims.length; d++) {
+      generator = new Generator(dims[d][0], dims[d][1], dims[d][2], dims[d][3]);
+      generator.setSeed(42 + d);
+      for (i = 0; i < counts[d]; i++)
+	assertSound(rater, solver, generator.generate());
+    }
+  }
+
+  /**
+   * Tests puzzles that require guessing and ones with known solutions.
+   */
+  @Test
+  public void testHardest() {
+    SoundnessRater	rater;
+    Solver		solver;
+
+    rater  = new SoundnessRater();
+    solver = new Solver();
+    for (String line: SampleGrids.HARDEST)
+      assertSound(rater, solver, Grid.fromLine(line));
+    for (String[] known: SampleGrids.KNOWN)
+      assertSound(rater, solver, Grid.fromLine(known[0]));
+  }
+
+  /**
+   * Tests a puzzle that only requires a single.
+   */
+  @Test
+  public void testSingle() {
+    Rating	rating;
+    Grid	puzzle;
+    byte[]	cells;
+
+    puzzle = Grid.fromLine(SampleGrids.KNOWN[0][1]);
+    cells  = puzzle.getCells(null);
+    cells[40] = 0;
+    puzzle.setCells(cells);
+    rating = new Rater().rate(puzzle);
+    assertNotNull(rating);
+    assertEquals(1, rating.getTechniques().size());
+    assertEquals(Technique.HIDDEN_SINGLE, rating.getHardest());
+    assertEquals(Level.EASY, rating.getLevel());
+    assertEquals(Technique.HIDDEN_SINGLE.getWeight(), rating.getScore());
+  }
+
+  /**
+   * Tests that puzzles without a unique solution are not rated.
+   */
+  @Test
+  public void testNotUnique() {
+    Rater	rater;
+
+    rater = new Rater();
+    assertNull(rater.rate(new Grid()));
+    assertNull(rater.rate(Grid.fromLine("11" + SampleGrids.KNOWN[0][0].substring(2))));
+  }
+}
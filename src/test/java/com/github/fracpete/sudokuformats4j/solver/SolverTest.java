@@ -0,0 +1,201 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SolverTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.solver;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import com.github.fracpete.sudokuformats4j.api.ValidatedGrid;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link Solver}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class SolverTest {
+
+  /**
+   * Asserts that the solution is complete, valid and contains the clues.
+   *
+   * @param puzzle	the puzzle
+   * @param solution	the solution to check
+   */
+  protected void assertSolves(Grid puzzle, Grid solution) {
+    byte[]	clues;
+    byte[]	cells;
+    int		i;
+
+    assertNotNull("No solution for:\n" + puzzle, solution);
+    assertTrue("Invalid solution:\n" + solution, new ValidatedGrid(solution).isSolved());
+    clues = puzzle.getCells(null);
+    cells = solution.getCells(null);
+    for (i = 0; i < clues.length; i++) {
+      if (clues[i] > 0)
+	assertEquals("Clue " + i + " changed", clues[i], cells[i]);
+    }
+  }
+
+  /**
+   * Returns the char repeated the specified number of times.
+   *
+   * @param c		the char to repeat
+   * @param count	the number of repetitions
+   * @return		the string
+   */
+  protected String repeat(char c, int count) {
+    StringBuilder	result;
+    int			i;
+
+    result = new StringBuilder();
+    for (i = 0; i < count; i++)
+      result.append(c);
+
+    return result.toString();
+  }
+
+  /**
+   * Tests the puzzles with known solutions.
+   */
+  @Test
+  public void testKnownAnswers() {
+    Solver	solver;
+    Grid	puzzle;
+    String	line;
+
+    solver = new Solver();
+    for (String[] known: SampleGrids.KNOWN) {
+      puzzle = Grid.fromLine(known[0]);
+      line   = puzzle.toLine();
+      assertEquals(known[1], solver.solve(puzzle).toLine());
+      assertEquals(1, solver.countSolutions(puzzle, 2));
+      assertEquals("Puzzle modified", line, puzzle.toLine());
+    }
+  }
+
+  /**
+   * Tests the puzzles that are hard for backtracking solvers, which all
+   * have a unique solution.
+   */
+  @Test
+  public void testHardest() {
+    Solver	solver;
+    Grid	puzzle;
+
+    solver = new Solver();
+    for (String line: SampleGrids.HARDEST) {
+      puzzle = Grid.fromLine(line);
+      assertSolves(puzzle, solver.solve(puzzle));
+      assertEquals(line, 1, solver.countSolutions(puzzle, 2));
+    }
+  }
+
+  /**
+   * Tests that removing a clue from a minimal (17 clue) puzzle results in
+   * multiple solutions.
+   */
+  @Test
+  public void testMultipleSolutions() {
+    Solver	solver;
+    Grid	puzzle;
+    byte[]	cells;
+    int		i;
+
+    solver = new Solver();
+    cells  = Grid.fromLine(SampleGrids.KNOWN[0][0]).getCells(null);
+    for (i = 0; i < cells.length; i++) {
+      if (cells[i] > 0) {
+	cells[i] = 0;
+	break;
+      }
+    }
+    puzzle = new Grid();
+    puzzle.setCells(cells);
+    assertEquals(2, solver.countSolutions(puzzle, 2));
+    assertSolves(puzzle, solver.solve(puzzle));
+  }
+
+  /**
+   * Tests that puzzles without solutions get recognized.
+   */
+  @Test
+  public void testNoSolution() {
+    Solver	solver;
+    Grid	puzzle;
+
+    solver = new Solver();
+
+    // two 4s in the first row
+    puzzle = Grid.fromLine("4.....8.54.........." + SampleGrids.KNOWN[0][0].substring(20));
+    assertNull(solver.solve(puzzle));
+    assertEquals(0, solver.countSolutions(puzzle, 2));
+
+    // no conflicts, but no candidates left for the first cell
+    puzzle = Grid.fromLine(".12345678" + repeat('.', 36) + "9" + repeat('.', 35));
+    assertNull(solver.solve(puzzle));
+    assertEquals(0, solver.countSolutions(puzzle, 2));
+  }
+
+  /**
+   * Tests grids of other dimensions, including the number of 4x4 solutions.
+   */
+  @Test
+  public void testDimensions() {
+    Solver	solver;
+    Random	random;
+    Grid	puzzle;
+    int		i;
+
+    solver = new Solver();
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      puzzle = new Grid(dims[0], dims[1], dims[2], dims[3]);
+      assertSolves(puzzle, solver.solve(puzzle));
+      for (i = 0; i < 20; i++) {
+	puzzle = SampleGrids.puzzle(random, dims, 0.5);
+	assertSolves(puzzle, solver.solve(puzzle));
+      }
+    }
+
+    assertEquals(288, solver.countSolutions(new Grid(2, 2, 2, 2), 1000));
+  }
+
+  /**
+   * Tests that unsupported grids get rejected.
+   */
+  @Test
+  public void testUnsupported() {
+    try {
+      new Solver().solve(new Grid(2, 3, 2, 2));
+      fail("Grid with 2x2 boxes but 6 columns should have been rejected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
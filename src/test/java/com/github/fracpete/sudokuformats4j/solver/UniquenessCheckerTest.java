@@ -0,0 +1,89 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * UniquenessCheckerTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.solver;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link UniquenessChecker}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class UniquenessCheckerTest {
+
+  /**
+   * Tests puzzles with a unique solution.
+   */
+  @Test
+  public void testUnique() {
+    UniquenessChecker	checker;
+
+    checker = new UniquenessChecker();
+    for (String line: SampleGrids.HARDEST)
+      assertTrue(line, checker.accept(Grid.fromLine(line)));
+    for (String[] known: SampleGrids.KNOWN)
+      assertTrue(known[1], checker.isUnique(Grid.fromLine(known[1])));
+  }
+
+  /**
+   * Tests grids without a unique solution and grids that are not supported.
+   */
+  @Test
+  public void testNotUnique() {
+    UniquenessChecker	checker;
+
+    checker = new UniquenessChecker();
+    assertFalse(checker.isUnique(new Grid()));
+    assertFalse(checker.isUnique(new Grid(2, 2, 2, 2)));
+    assertFalse(checker.isUnique(Grid.fromLine("44" + SampleGrids.KNOWN[0][1].substring(2))));
+    assertFalse(checker.isUnique(new Grid(2, 3, 2, 2)));
+  }
+
+  /**
+   * Tests that the checker agrees with counting the solutions.
+   */
+  @Test
+  public void testAgreesWithSolver() {
+    UniquenessChecker	checker;
+    Solver		solver;
+    Random		random;
+    Grid		puzzle;
+    int			i;
+
+    checker = new UniquenessChecker();
+    solver  = new Solver();
+    random  = new Random(42);
+    for (int[] dims: new int[][]{SampleGrids.DIMENSIONS[0], SampleGrids.DIMENSIONS[1], SampleGrids.DIMENSIONS[2]}) {
+      for (i = 0; i < 50; i++) {
+	puzzle = SampleGrids.puzzle(random, dims, 0.3 + random.nextDouble() * 0.4);
+	assertEquals(puzzle.toLine(), solver.countSolutions(puzzle, 2) == 1, checker.isUnique(puzzle));
+      }
+    }
+  }
+}
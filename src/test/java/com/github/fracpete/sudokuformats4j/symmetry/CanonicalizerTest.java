@@ -0,0 +1,338 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CanonicalizerTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.symmetry;
+
+import com.github.fracpete.sudokuformats4j.SampleGrids;
+import com.github.fracpete.sudokuformats4j.api.Grid;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link Canonicalizer} and the {@link DuplicateFilter}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CanonicalizerTest {
+
+  /** the number of random transformations per grid. */
+  public static final int TRANSFORMS = 5;
+
+  /**
+   * Returns a random permutation of the indices.
+   *
+   * @param random	the random number generator to use
+   * @param n		the number of indices
+   * @return		the permutation
+   */
+  protected static int[] permutation(Random random, int n) {
+    int[]	result;
+    int		i;
+    int		j;
+    int		tmp;
+
+    result = new int[n];
+    for (i = 0; i < n; i++)
+      result[i] = i;
+    for (i = n - 1; i > 0; i--) {
+      j         = random.nextInt(i + 1);
+      tmp       = result[i];
+      result[i] = result[j];
+      result[j] = tmp;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a random permutation of the lines, which only moves lines
+   * within their block and whole blocks.
+   *
+   * @param random	the random number generator to use
+   * @param blocks	the number of blocks (bands/stacks)
+   * @param lines	the number of lines per block
+   * @return		the permutation
+   */
+  protected static int[] lines(Random random, int blocks, int lines) {
+    int[]	result;
+    int[]	order;
+    int[]	inner;
+    int		b;
+    int		l;
+
+    result = new int[blocks * lines];
+    order  = permutation(random, blocks);
+    for (b = 0; b < blocks; b++) {
+      inner = permutation(random, lines);
+      for (l = 0; l < lines; l++)
+	result[b * lines + l] = order[b] * lines + inner[l];
+    }
+
+    return result;
+  }
+
+  /**
+   * Applies a random validity-preserving transformation to the grid:
+   * band/row and stack/column permutations, transposition (square boxes
+   * only) and relabelling of the digits.
+   *
+   * @param grid	the grid to transform
+   * @param random	the random number generator to use
+   * @return		the transformed grid
+   */
+  public static Grid transform(Grid grid, Random random) {
+    Grid	result;
+    byte[]	src;
+    byte[]	out;
+    int[]	rowMap;
+    int[]	colMap;
+    int[]	labels;
+    boolean	transpose;
+    int		n;
+    int		y;
+    int		x;
+    int		value;
+
+    n         = grid.height();
+    src       = grid.getCells(null);
+    out       = new byte[src.length];
+    rowMap    = lines(random, grid.rows(), grid.subRows());
+    colMap    = lines(random, grid.cols(), grid.subCols());
+    labels    = permutation(random, n);
+    transpose = (grid.subRows() == grid.subCols()) && random.nextBoolean();
+    for (y = 0; y < n; y++) {
+      for (x = 0; x < n; x++) {
+	if (transpose)
+	  value = src[colMap[x] * n + rowMap[y]];
+	else
+	  value = src[rowMap[y] * n + colMap[x]];
+	out[y * n + x] = (byte) ((value == 0) ? 0 : labels[value - 1] + 1);
+      }
+    }
+    result = new Grid(grid.rows(), grid.cols(), grid.subRows(), grid.subCols());
+    result.setCells(out);
+
+    return result;
+  }
+
+  /**
+   * Asserts that canonical form and key are invariant under random
+   * transformations of the grid.
+   *
+   * @param canon	the canonicalizer to use
+   * @param random	the random number generator to use
+   * @param grid	the grid to check
+   */
+  protected void assertInvariant(Canonicalizer canon, Random random, Grid grid) {
+    Grid	expected;
+    Grid	transformed;
+    long	key;
+    int		i;
+
+    expected = canon.canonicalize(grid);
+    key      = canon.key(grid);
+    for (i = 0; i < TRANSFORMS; i++) {
+      transformed = transform(grid, random);
+      assertEquals(grid.toLine(), expected.toLine(), canon.canonicalize(transformed).toLine());
+      assertEquals(grid.toLine(), key, canon.key(transformed));
+    }
+  }
+
+  /**
+   * Tests the invariance under the symmetries for 4x4, 6x6, 9x9 and 16x16
+   * puzzles.
+   */
+  @Test
+  public void testInvariant() {
+    Canonicalizer	canon;
+    Random		random;
+    int			i;
+
+    canon  = new Canonicalizer();
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      for (i = 0; i < 10; i++)
+	assertInvariant(canon, random, SampleGrids.puzzle(random, dims, 0.2 + random.nextDouble() * 0.4));
+    }
+  }
+
+  /**
+   * Tests the invariance under the symmetries for full 9x9 solutions.
+   */
+  @Test
+  public void testInvariantSolutions() {
+    Canonicalizer	canon;
+    Random		random;
+
+    canon  = new Canonicalizer();
+    random = new Random(42);
+    for (String[] known: SampleGrids.KNOWN) {
+      assertInvariant(canon, random, Grid.fromLine(known[0]));
+      assertInvariant(canon, random, Grid.fromLine(known[1]));
+    }
+    assertInvariant(canon, random, SampleGrids.solution(random, SampleGrids.DIMENSIONS[2]));
+  }
+
+  /**
+   * Tests that the canonical form is its own canonical form and that
+   * digits get relabelled in order of appearance.
+   */
+  @Test
+  public void testIdempotent() {
+    Canonicalizer	canon;
+    Random		random;
+    Grid		canonical;
+    int			i;
+
+    canon  = new Canonicalizer();
+    random = new Random(42);
+    for (int[] dims: SampleGrids.DIMENSIONS) {
+      for (i = 0; i < 5; i++) {
+	canonical = canon.canonicalize(SampleGrids.puzzle(random, dims, 0.3));
+	assertEquals(canonical.toLine(), canon.canonicalize(canonical).toLine());
+	for (byte value: canonical.getCells(null)) {
+	  if (value != 0) {
+	    assertEquals(canonical.toLine(), 1, value);
+	    break;
+	  }
+	}
+      }
+    }
+    canonical = new Grid();
+    assertEquals(canonical.toLine(), canon.canonicalize(canonical).toLine());
+  }
+
+  /**
+   * Tests that grids that are not equivalent have different canonical
+   * forms and keys.
+   */
+  @Test
+  public void testNotEquivalent() {
+    Canonicalizer	canon;
+    Grid		puzzle;
+    Grid		solution;
+    Grid		more;
+    byte[]		cells;
+    byte[]		full;
+    int			i;
+
+    canon    = new Canonicalizer();
+    puzzle   = Grid.fromLine(SampleGrids.KNOWN[0][0]);
+    solution = Grid.fromLine(SampleGrids.KNOWN[0][1]);
+    cells    = puzzle.getCells(null);
+    full     = solution.getCells(null);
+    for (i = 0; i < cells.length; i++) {
+      if (cells[i] == 0) {
+	cells[i] = full[i];
+	break;
+      }
+    }
+    more = new Grid();
+    more.setCells(cells);
+    assertNotEquals(canon.canonicalize(puzzle).toLine(), canon.canonicalize(more).toLine());
+    assertNotEquals(canon.key(puzzle), canon.key(more));
+    assertNotEquals(
+      canon.key(Grid.fromLine(SampleGrids.KNOWN[0][0])),
+      canon.key(Grid.fromLine(SampleGrids.KNOWN[1][0])));
+  }
+
+  /**
+   * Tests that repeated digits and non-square boxes are rejected.
+   */
+  @Test
+  public void testInvalid() {
+    Canonicalizer	canon;
+    Grid		grid;
+    byte[]		cells;
+
+    canon = new Canonicalizer();
+    grid  = new Grid();
+    cells = grid.getCells(null);
+    cells[0] = 5;
+    cells[8] = 5;
+    grid.setCells(cells);
+    try {
+      canon.canonicalize(grid);
+      fail("Repeated digit in row not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    cells[8]  = 0;
+    cells[72] = 5;
+    grid.setCells(cells);
+    try {
+      canon.key(grid);
+      fail("Repeated digit in column not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    try {
+      canon.canonicalize(new Grid(2, 3, 2, 2));
+      fail("Non-square grid not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that the symmetric filter rejects transformed duplicates, while
+   * the plain one only rejects identical grids.
+   */
+  @Test
+  public void testDuplicateFilter() {
+    DuplicateFilter	symmetric;
+    DuplicateFilter	plain;
+    Random		random;
+    Grid		puzzle;
+    Grid		transformed;
+
+    symmetric = new DuplicateFilter(true, 1024);
+    plain     = new DuplicateFilter(false, 1024);
+    random    = new Random(42);
+    puzzle    = Grid.fromLine(SampleGrids.KNOWN[0][0]);
+    do {
+      transformed = transform(puzzle, random);
+    }
+    while (transformed.equals(puzzle));
+
+    assertTrue(symmetric.accept(puzzle));
+    assertFalse(symmetric.accept(puzzle));
+    assertFalse(symmetric.accept(transformed));
+    assertTrue(symmetric.accept(Grid.fromLine(SampleGrids.KNOWN[1][0])));
+    assertEquals(2, symmetric.size());
+
+    assertTrue(plain.accept(puzzle));
+    assertFalse(plain.accept(puzzle));
+    assertTrue(plain.accept(transformed));
+    assertEquals(2, plain.size());
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CompressionTest.java
+ * Copyright (C) 2019 FracPete
+ */
+
+package com.github.fracpete.sudokuformats4j.utils;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link Compression} detection and (de)compression.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CompressionTest {
+
+  /** the folder for the test files. */
+  @Rule
+  public TemporaryFolder m_Folder = new TemporaryFolder();
+
+  /**
+   * Generates the content to compress.
+   *
+   * @return		the content
+   */
+  protected byte[] content() {
+    StringBuilder	result;
+    Random		random;
+    int			i;
+
+    random = new Random(42);
+    result = new StringBuilder();
+    for (i = 0; i < 100000; i++)
+      result.append((char) ('0' + random.nextInt(10)));
+
+    return result.toString().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Reads the stream completely and closes it.
+   *
+   * @param stream	the stream to read
+   * @return		the content
+   * @throws Exception	if reading fails
+   */
+  protected byte[] readFully(InputStream stream) throws Exception {
+    ByteArrayOutputStream	result;
+    byte[]			buffer;
+    int				read;
+
+    result = new ByteArrayOutputStream();
+    buffer = new byte[1024];
+    try {
+      while ((read = stream.read(buffer)) != -1)
+	result.write(buffer, 0, read);
+    }
+    finally {
+      stream.close();
+    }
+
+    return result.toByteArray();
+  }
+
+  /**
+   * Tests determining the format from the file extension.
+   */
+  @Test
+  public void testForFile() {
+    assertEquals(Compression.NONE, Compression.forFile(new File("puzzles.sdm")));
+    assertEquals(Compression.GZIP, Compression.forFile(new File("puzzles.sdm.gz")));
+    assertEquals(Compression.GZIP, Compression.forFile(new File("PUZZLES.SDM.GZ")));
+    assertEquals(Compression.XZ, Compression.forFile(new File("puzzles.sps.xz")));
+    assertEquals(Compression.ZSTD, Compression.forFile(new File("puzzles.opensudoku.zst")));
+  }
+
+  /**
+   * Tests compressing/decompressing streams and detecting the format from
+   * the magic bytes, also for streams without mark support.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testStreams() throws Exception {
+    byte[]			content;
+    byte[]			compressed;
+    ByteArrayOutputStream	bytes;
+    OutputStream		stream;
+
+    content = content();
+    for (Compression compression: Compression.values()) {
+      if (!compression.isAvailable())
+	continue;
+      bytes  = new ByteArrayOutputStream();
+      stream = compression.compress(bytes);
+      stream.write(content);
+      stream.close();
+      compressed = bytes.toByteArray();
+
+      assertEquals(compression, Compression.detect(compressed, compressed.length));
+      assertArrayEquals(compression.name(), content, readFully(Compression.decompressing(new ByteArrayInputStream(compressed))));
+      assertArrayEquals(compression.name(), content, readFully(Compression.decompressing(new FilterInputStream(new ByteArrayInputStream(compressed)) {
+	@Override
+	public boolean markSupported() {
+	  return false;
+	}
+      })));
+    }
+  }
+
+  /**
+   * Tests that short and empty content is not mistaken for a compressed
+   * stream.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testShortContent() throws Exception {
+    byte[]	content;
+
+    content = new byte[0];
+    assertEquals(Compression.NONE, Compression.detect(content, content.length));
+    assertArrayEquals(content, readFully(Compression.decompressing(new ByteArrayInputStream(content))));
+
+    content = new byte[]{(byte) 0x1F};
+    assertEquals(Compression.NONE, Compression.detect(content, content.length));
+    assertArrayEquals(content, readFully(Compression.decompressing(new ByteArrayInputStream(content))));
+  }
+
+  /**
+   * Tests creating and opening files, with the format determined by the
+   * extension when writing and by the magic bytes when reading.
+   *
+   * @throws Exception	if the test fails
+   */
+  @Test
+  public void testFiles() throws Exception {
+    byte[]		content;
+    File		file;
+    File		renamed;
+    OutputStream	stream;
+
+    content = content();
+    for (Compression compression: Compression.values()) {
+      Assume.assumeTrue(compression.isAvailable());
+      file   = new File(m_Folder.getRoot(), "content.txt" + compression.getExtension());
+      stream = Compression.create(file);
+      stream.write(content);
+      stream.close();
+      assertEquals(compression, Compression.detect(file));
+      assertArrayEquals(compression.name(), content, readFully(Compression.open(file)));
+
+      // wrong extension
+      renamed = new File(m_Folder.getRoot(), "content-" + compression.name() + ".txt");
+      assertTrue(file.renameTo(renamed));
+      assertEquals(compression, Compression.detect(renamed));
+      assertArrayEquals(compression.name(), content, readFully(Compression.open(renamed)));
+    }
+  }
+}